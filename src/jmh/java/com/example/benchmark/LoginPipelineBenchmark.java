@@ -0,0 +1,171 @@
+package com.example.benchmark;
+
+import com.example.common.ApiResponse;
+import com.example.common.JwtUtil;
+import com.example.common.MessageConstants;
+import com.example.common.Result;
+import com.example.config.concurrency.CustomRejectedExecutionHandler;
+import com.example.config.concurrency.CustomThreadFactory;
+import com.example.config.concurrency.PasswordHashingExecutor;
+import com.example.dto.LoginResponseDTO;
+import com.example.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the shape of the old login chain (one supplyAsync hop per stage, failures thrown as
+ * stack-carrying exceptions) with the current single-hop pipeline (hops only at the repository
+ * lookup and BCrypt, failures returned as Result).
+ *
+ * The repository is replaced with an in-memory lookup and BCrypt runs at the minimum cost so
+ * the numbers isolate scheduling and allocation overhead. Both sides hash on the same
+ * PasswordHashingExecutor, so the difference is the hop count and failure style alone.
+ * SampleTime mode reports p99; the gc profiler configured in build.gradle reports
+ * gc.alloc.rate.norm (bytes per login).
+ *
+ *   ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class LoginPipelineBenchmark {
+
+    @Param({"valid", "wrongPassword"})
+    public String scenario;
+
+    private ThreadPoolExecutor userServiceThreadPool;
+    private PasswordHashingExecutor passwordHashingExecutor;
+    private PasswordEncoder passwordEncoder;
+    private User user;
+    private String password;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userServiceThreadPool = new ThreadPoolExecutor(
+            10, 20, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(200),
+            new CustomThreadFactory("bench-user-service"),
+            new CustomRejectedExecutionHandler()
+        );
+        passwordHashingExecutor = new PasswordHashingExecutor(0, 1024, TimeUnit.MINUTES.toMillis(1), new SimpleMeterRegistry());
+        passwordEncoder = new BCryptPasswordEncoder(4);
+
+        user = new User();
+        user.setUserId(1234567890L);
+        user.setUsername("bench-user");
+        user.setEmail("bench@example.com");
+        user.setPasswordHash(passwordEncoder.encode("Password1"));
+        user.setStatus(User.Status.normal);
+
+        password = "valid".equals(scenario) ? "Password1" : "WrongPassword1";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        userServiceThreadPool.shutdown();
+        passwordHashingExecutor.shutdown();
+    }
+
+    @Benchmark
+    public ApiResponse<LoginResponseDTO> legacyPerStageHops() {
+        return legacyLogin(password).join();
+    }
+
+    @Benchmark
+    public ApiResponse<LoginResponseDTO> singleHopPipeline() {
+        return singleHopLogin(password).join();
+    }
+
+    // --- Old shape: every stage is a new hop and failures are thrown ---
+
+    private CompletableFuture<ApiResponse<LoginResponseDTO>> legacyLogin(String rawPassword) {
+        return CompletableFuture.supplyAsync(this::findByEmail, userServiceThreadPool)
+            .thenCompose(found -> {
+                if (found == null) {
+                    throw new StackfulLoginException(MessageConstants.INVALID_EMAIL_OR_PASSWORD, 404);
+                }
+                return CompletableFuture.supplyAsync(() -> statusCheck(found), userServiceThreadPool);
+            })
+            .thenCompose(result -> {
+                if (!result.isSuccess()) {
+                    throw new StackfulLoginException(result.getErrorMessage(), result.getStatusCode());
+                }
+                return passwordHashingExecutor.submit(() -> passwordEncoder.matches(rawPassword, result.getData().getPasswordHash()))
+                    .thenApply(matches -> matches ? Result.success(result.getData()) : Result.<User>error("Invalid password", 404));
+            })
+            .thenCompose(result -> {
+                if (!result.isSuccess()) {
+                    throw new StackfulLoginException(result.getErrorMessage(), result.getStatusCode());
+                }
+                return CompletableFuture.supplyAsync(() -> tokens(result.getData()), userServiceThreadPool);
+            })
+            .exceptionally(throwable -> {
+                if (throwable.getCause() instanceof StackfulLoginException loginException) {
+                    return ApiResponse.error(loginException.statusCode, loginException.getMessage(), new LoginResponseDTO());
+                }
+                return ApiResponse.error(500, MessageConstants.SERVER_ERROR, new LoginResponseDTO());
+            });
+    }
+
+    // --- Current shape: mirrors UserServiceImpl.login ---
+
+    private CompletableFuture<ApiResponse<LoginResponseDTO>> singleHopLogin(String rawPassword) {
+        return CompletableFuture.supplyAsync(() -> {
+                User found = findByEmail();
+                return found == null ? Result.<User>error(MessageConstants.INVALID_EMAIL_OR_PASSWORD, 404) : statusCheck(found);
+            }, userServiceThreadPool)
+            .thenCompose(result -> result.isSuccess()
+                ? passwordHashingExecutor.submit(() -> passwordEncoder.matches(rawPassword, result.getData().getPasswordHash()))
+                    .thenApply(matches -> matches ? result : Result.<User>error("Invalid password", 404))
+                : CompletableFuture.completedFuture(result))
+            .thenApply(result -> result.isSuccess()
+                ? tokens(result.getData())
+                : ApiResponse.<LoginResponseDTO>error(result.getStatusCode(), result.getErrorMessage(), new LoginResponseDTO()));
+    }
+
+    private User findByEmail() {
+        return user;
+    }
+
+    private Result<User> statusCheck(User candidate) {
+        if (candidate.getStatus() != User.Status.normal) {
+            return Result.error(MessageConstants.ACCOUNT_REVOKED, 403);
+        }
+        return Result.success(candidate);
+    }
+
+    private ApiResponse<LoginResponseDTO> tokens(User candidate) {
+        LoginResponseDTO loginData = new LoginResponseDTO();
+        loginData.setAccessToken(JwtUtil.generateToken(candidate.getUsername(), candidate.getEmail(), candidate.getUserId()));
+        loginData.setRefreshToken(JwtUtil.generateRefreshToken(candidate.getUsername(), candidate.getEmail(), candidate.getUserId(), false));
+        return ApiResponse.success(MessageConstants.LOGIN_SUCCESSFUL, loginData);
+    }
+
+    /** The removed LoginException as the old chain used it, filling in a stack trace on every failure. */
+    private static final class StackfulLoginException extends RuntimeException {
+        private final int statusCode;
+
+        private StackfulLoginException(String message, int statusCode) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+    }
+}
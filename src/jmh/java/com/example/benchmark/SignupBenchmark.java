@@ -0,0 +1,162 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the signup persistence path UserServiceImpl used to take with the
+ * constraint-driven one, against an in-memory H2 {@code users} table with the same unique
+ * keys as MySQL.
+ *
+ * Legacy: findByEmail pre-check, save() (a merge: SELECT by id then INSERT), findById and
+ * findByEmail read-backs, each on its own pool hop. Constraint: one INSERT on one hop,
+ * duplicates reported by the unique index. {@code rttMicros} parks for a simulated network
+ * round trip per statement, which is where the real difference lies; the statement count
+ * per signup is printed at teardown.
+ *
+ *   ./gradlew jmh -Pjmh.includes=SignupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SignupBenchmark {
+    private static final String INSERT = "INSERT INTO users (user_id, username, email, password_hash, status, created_at) "
+            + "VALUES (?, ?, ?, ?, 'normal', ?)";
+
+    @Param({"0", "200"})
+    public long rttMicros;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong legacySignups = new AtomicLong();
+    private final AtomicLong constraintSignups = new AtomicLong();
+    private final AtomicLong legacyStatements = new AtomicLong();
+    private final AtomicLong constraintStatements = new AtomicLong();
+    private ExecutorService pool;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        pool = Executors.newFixedThreadPool(4);
+        connection = DriverManager.getConnection("jdbc:h2:mem:signup;DB_CLOSE_DELAY=-1;MODE=MySQL");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE IF NOT EXISTS users ("
+                    + "user_id VARCHAR(36) PRIMARY KEY, "
+                    + "username VARCHAR(50) NOT NULL UNIQUE, "
+                    + "email VARCHAR(255) NOT NULL UNIQUE, "
+                    + "password_hash VARCHAR(255) NOT NULL, "
+                    + "provider VARCHAR(20), provider_id VARCHAR(100), "
+                    + "status VARCHAR(16) NOT NULL, "
+                    + "created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP)");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        if (legacySignups.get() > 0) {
+            System.out.printf("%nlegacy: %.1f statements per signup%n", (double) legacyStatements.get() / legacySignups.get());
+        }
+        if (constraintSignups.get() > 0) {
+            System.out.printf("%nconstraint: %.1f statements per signup%n", (double) constraintStatements.get() / constraintSignups.get());
+        }
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE users");
+        }
+        connection.close();
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        long n = sequence.incrementAndGet();
+        legacySignups.incrementAndGet();
+        String userId = UUID.randomUUID().toString();
+        String email = "legacy" + n + "@example.com";
+
+        return CompletableFuture.supplyAsync(() -> exists("SELECT * FROM users WHERE email = ?", email, legacyStatements), pool)
+                .thenApplyAsync(exists -> {
+                    if (exists) {
+                        return false;
+                    }
+                    exists("SELECT * FROM users WHERE user_id = ?", userId, legacyStatements);
+                    insert(userId, "legacy" + n, email, legacyStatements);
+                    return true;
+                }, pool)
+                .thenApplyAsync(saved -> saved && exists("SELECT * FROM users WHERE user_id = ?", userId, legacyStatements), pool)
+                .thenApplyAsync(found -> found && exists("SELECT * FROM users WHERE email = ?", email, legacyStatements), pool)
+                .join();
+    }
+
+    @Benchmark
+    public boolean constraint() {
+        long n = sequence.incrementAndGet();
+        constraintSignups.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                insert(UUID.randomUUID().toString(), "constraint" + n, "constraint" + n + "@example.com", constraintStatements);
+                return true;
+            } catch (IllegalStateException duplicate) {
+                return false;
+            }
+        }, pool).join();
+    }
+
+    private boolean exists(String sql, String value, AtomicLong counter) {
+        roundTrip(counter);
+        synchronized (connection) {
+            try (PreparedStatement select = connection.prepareStatement(sql)) {
+                select.setString(1, value);
+                try (ResultSet rows = select.executeQuery()) {
+                    return rows.next();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private void insert(String userId, String username, String email, AtomicLong counter) {
+        roundTrip(counter);
+        synchronized (connection) {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                insert.setString(1, userId);
+                insert.setString(2, username);
+                insert.setString(3, email);
+                insert.setString(4, "$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbenchmar");
+                insert.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+                insert.executeUpdate();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private void roundTrip(AtomicLong counter) {
+        counter.incrementAndGet();
+        if (rttMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(rttMicros));
+        }
+    }
+}
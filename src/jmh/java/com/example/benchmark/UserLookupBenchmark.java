@@ -0,0 +1,130 @@
+package com.example.benchmark;
+
+import com.example.common.AuthenticatedPrincipal;
+import com.example.entity.User;
+import com.example.repository.LoginCredentials;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading the full User entity with the read projections used on the hot paths,
+ * each in its own session as the non-transactional repository calls do:
+ *
+ *   login:     findByEmail (entity)  vs findLoginCredentialsByEmail (LoginCredentials)
+ *   JWT check: findById (entity)     vs findPrincipalById (AuthenticatedPrincipal)
+ *
+ * Runs against an in-memory H2 schema generated from the entity, so the numbers isolate the
+ * ORM side (hydration, persistence-context registration, dirty-check snapshots) from network
+ * cost. The gc profiler configured in build.gradle reports gc.alloc.rate.norm per lookup.
+ *
+ *   ./gradlew jmh -Pjmh.includes=UserLookupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserLookupBenchmark {
+    private static final int USERS = 10_000;
+
+    private SessionFactory sessionFactory;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(User.class)
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:lookup;DB_CLOSE_DELAY=-1;MODE=MySQL")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.jdbc.batch_size", "500")
+                .buildSessionFactory();
+
+        LocalDateTime now = LocalDateTime.now();
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < USERS; i++) {
+                User user = new User();
+                user.setUserId(1_000_000L + i);
+                user.setUsername("user" + i);
+                user.setEmail("user" + i + "@example.com");
+                user.setPasswordHash("$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbenchmar");
+                user.setStatus(User.Status.normal);
+                user.setCreatedAt(now);
+                user.setUpdatedAt(now);
+                session.persist(user);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public User loginEntity() {
+        String email = nextEmail();
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("FROM User u WHERE u.email = :email", User.class)
+                    .setParameter("email", email)
+                    .uniqueResult();
+        }
+    }
+
+    @Benchmark
+    public LoginCredentials loginProjection() {
+        String email = nextEmail();
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(
+                    "SELECT new com.example.repository.LoginCredentials(u.userId, u.username, u.email, u.passwordHash, u.status) " +
+                    "FROM User u WHERE u.email = :email", LoginCredentials.class)
+                    .setParameter("email", email)
+                    .uniqueResult();
+        }
+    }
+
+    @Benchmark
+    public User principalEntity() {
+        Long userId = nextUserId();
+        try (Session session = sessionFactory.openSession()) {
+            return session.find(User.class, userId);
+        }
+    }
+
+    @Benchmark
+    public AuthenticatedPrincipal principalProjection() {
+        Long userId = nextUserId();
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(
+                    "SELECT new com.example.common.AuthenticatedPrincipal(u.userId, u.username, u.status) " +
+                    "FROM User u WHERE u.userId = :userId", AuthenticatedPrincipal.class)
+                    .setParameter("userId", userId)
+                    .uniqueResult();
+        }
+    }
+
+    // Walk the whole table so every lookup is a fresh row; benign races under @Threads are fine
+    private String nextEmail() {
+        return "user" + nextIndex() + "@example.com";
+    }
+
+    private Long nextUserId() {
+        return 1_000_000L + nextIndex();
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == USERS ? 0 : index + 1;
+        return index;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.common;
+
+import com.example.entity.User;
+
+/**
+ * The slice of a user row the authentication filter needs on every request.
+ */
+public record AuthenticatedPrincipal(Long userId, String username, User.Status status) {
+}
@@ -0,0 +1,218 @@
+package com.example.common;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.simdjson.JsonValue;
+import org.simdjson.SimdJsonParser;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Purpose-built HS256 codec for our fixed claim set (email, userId, type, sub, iat, exp,
+ * plus fid/gen on refresh tokens).
+ *
+ * Tokens are interoperable with jjwt in both directions: same header
+ * {@code {"alg":"HS256"}}, numeric-second iat/exp, base64url without padding (claim order
+ * differs, which neither side depends on). Encoding writes
+ * the payload with a reused per-thread StringBuilder instead of a claims map and Jackson;
+ * verification checks the HMAC with a per-thread {@link Mac} and reads the payload with
+ * simdjson. Tokens with any other header are left to the jjwt parser by the caller.
+ *
+ * simdjson needs {@code --add-modules jdk.incubator.vector}; without it
+ * {@link #isParserAvailable()} is false and callers should stay on jjwt.
+ */
+public final class JwtCodec {
+    static final String HEADER = "eyJhbGciOiJIUzI1NiJ9"; // base64url({"alg":"HS256"})
+
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64URL_DECODER = Base64.getUrlDecoder();
+    // Our payloads are a few hundred bytes; the no-arg SimdJsonParser sizes its buffers for
+    // 34 MiB documents, which per request thread would exhaust the heap
+    static final int MAX_PAYLOAD_BYTES = 4096;
+    private static final int MAX_ENCODED_PAYLOAD = (MAX_PAYLOAD_BYTES * 4 + 2) / 3;
+    private static final int MAX_JSON_DEPTH = 8;
+    private static final boolean PARSER_AVAILABLE = probeParser();
+
+    private final ThreadLocal<Mac> mac;
+    private final ThreadLocal<StringBuilder> payloadBuilder = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    private final ThreadLocal<SimdJsonParser> jsonParser = ThreadLocal.withInitial(JwtCodec::newParser);
+
+    public JwtCodec(SecretKey key) {
+        this.mac = ThreadLocal.withInitial(() -> newMac(key));
+    }
+
+    public static boolean isParserAvailable() {
+        return PARSER_AVAILABLE;
+    }
+
+    public String encode(String subject, String email, Long userId, String type, long issuedAtMillis, long expiresAtMillis) {
+        return encode(subject, email, userId, type, null, 0L, issuedAtMillis, expiresAtMillis);
+    }
+
+    /**
+     * @param familyId refresh-token family, or null to omit fid/gen (access tokens)
+     */
+    public String encode(String subject, String email, Long userId, String type, String familyId, long generation,
+                         long issuedAtMillis, long expiresAtMillis) {
+        StringBuilder json = payloadBuilder.get();
+        json.setLength(0);
+        json.append('{');
+        appendStringClaim(json, "email", email).append(',');
+        // A string, as jjwt-issued tokens have it; JSON readers that parse numbers as doubles would lose digits
+        appendStringClaim(json, "userId", userId != null ? userId.toString() : null).append(',');
+        appendStringClaim(json, "type", type).append(',');
+        if (familyId != null) {
+            appendStringClaim(json, "fid", familyId).append(',');
+            json.append("\"gen\":").append(generation).append(',');
+        }
+        appendStringClaim(json, "sub", subject).append(',');
+        json.append("\"iat\":").append(issuedAtMillis / 1000).append(',');
+        json.append("\"exp\":").append(expiresAtMillis / 1000);
+        json.append('}');
+
+        String signingInput = HEADER + '.' + BASE64URL.encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+        byte[] signature = mac.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + '.' + BASE64URL.encodeToString(signature);
+    }
+
+    /**
+     * True when the token carries exactly the header this codec writes.
+     */
+    public boolean canDecode(String token) {
+        return token.startsWith(HEADER) && token.length() > HEADER.length() && token.charAt(HEADER.length()) == '.';
+    }
+
+    /**
+     * @throws SignatureException    if the HMAC does not match
+     * @throws ExpiredJwtException   if exp is in the past
+     * @throws MalformedJwtException if the token or payload cannot be read
+     */
+    public VerifiedToken verify(String token) {
+        int signatureDot = token.lastIndexOf('.');
+        if (!canDecode(token) || signatureDot <= HEADER.length()) {
+            throw new MalformedJwtException("JWT is not a compact HS256 token");
+        }
+        if (signatureDot - HEADER.length() - 1 > MAX_ENCODED_PAYLOAD) {
+            throw new MalformedJwtException("JWT payload exceeds " + MAX_PAYLOAD_BYTES + " bytes");
+        }
+
+        byte[] expected = mac.get().doFinal(token.substring(0, signatureDot).getBytes(StandardCharsets.US_ASCII));
+        byte[] actual;
+        byte[] payload;
+        try {
+            actual = BASE64URL_DECODER.decode(token.substring(signatureDot + 1));
+            payload = BASE64URL_DECODER.decode(token.substring(HEADER.length() + 1, signatureDot));
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("JWT is not valid base64url", e);
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new SignatureException("JWT signature does not match locally computed signature.");
+        }
+
+        VerifiedToken verified;
+        try {
+            JsonValue claims = jsonParser.get().parse(payload, payload.length);
+            verified = new VerifiedToken(
+                    stringClaim(claims, "sub"),
+                    userIdClaim(stringClaim(claims, "userId")),
+                    stringClaim(claims, "email"),
+                    stringClaim(claims, "type"),
+                    stringClaim(claims, "fid"),
+                    longClaim(claims, "gen"),
+                    longClaim(claims, "iat") * 1000,
+                    longClaim(claims, "exp") * 1000);
+        } catch (MalformedJwtException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new MalformedJwtException("JWT payload is not valid JSON", e);
+        }
+        if (verified.expiresAtMillis() == 0) {
+            throw new MalformedJwtException("JWT has no exp claim");
+        }
+        if (verified.isExpired()) {
+            throw new ExpiredJwtException(null, null, "JWT expired at " + verified.expiresAtMillis());
+        }
+        return verified;
+    }
+
+    private static String stringClaim(JsonValue claims, String name) {
+        JsonValue value = claims.get(name);
+        return value != null && value.isString() ? value.asString() : null;
+    }
+
+    /**
+     * The userId claim as a number, or null when absent.
+     *
+     * @throws MalformedJwtException if it is not a decimal ID (e.g. a pre-Snowflake ID)
+     */
+    static Long userIdClaim(String claim) {
+        if (claim == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(claim);
+        } catch (NumberFormatException e) {
+            throw new MalformedJwtException("JWT userId is not a numeric ID", e);
+        }
+    }
+
+    private static long longClaim(JsonValue claims, String name) {
+        JsonValue value = claims.get(name);
+        return value != null && value.isLong() ? value.asLong() : 0L;
+    }
+
+    private static StringBuilder appendStringClaim(StringBuilder json, String name, String value) {
+        json.append('"').append(name).append("\":");
+        if (value == null) {
+            return json.append("null");
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"');
+    }
+
+    private static Mac newMac(SecretKey key) {
+        try {
+            Mac hmac = Mac.getInstance("HmacSHA256");
+            hmac.init(key);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static SimdJsonParser newParser() {
+        return new SimdJsonParser(MAX_PAYLOAD_BYTES, MAX_JSON_DEPTH);
+    }
+
+    private static boolean probeParser() {
+        try {
+            newParser();
+            return true;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -16,7 +16,7 @@ public class JwtContextUtil {
     /**
      * Get current user ID from JWT token
      */
-    public String getCurrentUserId() {
+    public Long getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && authentication.getPrincipal() instanceof org.springframework.security.core.userdetails.User) {
             // Extract from JWT token if available
@@ -42,7 +42,7 @@ public class JwtContextUtil {
     /**
      * Extract user ID from JWT token string
      */
-    public String extractUserIdFromToken(String token) {
+    public Long extractUserIdFromToken(String token) {
         return jwtUtil.extractUserId(token);
     }
     
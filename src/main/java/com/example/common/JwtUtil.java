@@ -1,15 +1,19 @@
 package com.example.common;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.Function;
 
 @Component
@@ -17,62 +21,113 @@ public class JwtUtil {
     // Secure secret key - at least 256 bits (32 bytes) for HS256
     private static final String SECRET_KEY = "StreamPulse2024!@#$%^&*()_+QWERTYUIOPASDFGHJKLZXCVBNMqwertyuiopasdfghjklzxcvbnm1234567890";
     private static final SecretKey key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    // Immutable and thread-safe once built, so one parser serves every request
+    private static final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+    private static final JwtCodec codec = new JwtCodec(key);
+    private static final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(JwtUtil::newSha256);
     
     private static final long ACCESS_TOKEN_VALIDITY = 15 * 60 * 1000; // 15 minutes
     private static final long REFRESH_TOKEN_VALIDITY = 12 * 60 * 60 * 1000; // 12 hours
     private static final long REMEMBER_ME_REFRESH_TOKEN_VALIDITY = 5 * 24 * 60 * 60 * 1000; // 5 days
 
-    public static String generateToken(String username, String email, String userId) {
+    // SHA-256 of the raw token -> claims already verified for that exact token
+    private final BoundedExpiringCache<ByteBuffer, VerifiedToken> verifiedTokens;
+
+    public JwtUtil(@Value("${jwt.verified-token-cache.max-size:10000}") int verifiedTokenCacheSize) {
+        this.verifiedTokens = new BoundedExpiringCache<>(verifiedTokenCacheSize);
+    }
+
+    public static String generateToken(String username, String email, Long userId) {
         return generateToken(username, email, userId, ACCESS_TOKEN_VALIDITY);
     }
 
-    public static String generateRefreshToken(String username, String email, String userId) {
+    public static String generateRefreshToken(String username, String email, Long userId) {
         return generateToken(username, email, userId, REFRESH_TOKEN_VALIDITY);
     }
 
-    public static String generateRefreshToken(String username, String email, String userId, boolean rememberMe) {
-        long validity = rememberMe ? REMEMBER_ME_REFRESH_TOKEN_VALIDITY : REFRESH_TOKEN_VALIDITY;
-        return generateToken(username, email, userId, validity);
+    public static String generateRefreshToken(String username, String email, Long userId, boolean rememberMe) {
+        return generateToken(username, email, userId, refreshTokenValidity(rememberMe));
+    }
+
+    /**
+     * Refresh token bound to a rotation family; see RefreshTokenService.
+     */
+    public static String generateRefreshToken(String username, String email, Long userId,
+                                              String familyId, long generation, long validity) {
+        long now = System.currentTimeMillis();
+        return codec.encode(username, email, userId, "refresh", familyId, generation, now, now + validity);
+    }
+
+    public static long refreshTokenValidity(boolean rememberMe) {
+        return rememberMe ? REMEMBER_ME_REFRESH_TOKEN_VALIDITY : REFRESH_TOKEN_VALIDITY;
     }
 
-    private static String generateToken(String username, String email, String userId, long validity) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("email", email);
-        claims.put("userId", userId);
-        claims.put("type", validity == ACCESS_TOKEN_VALIDITY ? "access" : "refresh");
-        claims.put("iat", new Date());
-        return createToken(claims, username, validity);
+    private static String generateToken(String username, String email, Long userId, long validity) {
+        long now = System.currentTimeMillis();
+        String type = validity == ACCESS_TOKEN_VALIDITY ? "access" : "refresh";
+        return codec.encode(username, email, userId, type, now, now + validity);
     }
 
-    private static String createToken(Map<String, Object> claims, String subject, long validity) {
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + validity))
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+    /**
+     * Verify the signature and expiry once and decode every claim we use.
+     * A token seen before is answered from the digest cache without re-verifying the HMAC.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public VerifiedToken verify(String token) {
+        ByteBuffer digest = digest(token);
+        VerifiedToken cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        VerifiedToken verified = JwtCodec.isParserAvailable() && codec.canDecode(token)
+                ? codec.verify(token)
+                : verifyWithJjwt(token);
+        verifiedTokens.put(digest, verified, verified.expiresAtMillis());
+        return verified;
+    }
+
+    // Fallback for tokens with a non-standard header, or when simdjson cannot load
+    private VerifiedToken verifyWithJjwt(String token) {
+        return toVerifiedToken(extractAllClaims(token));
+    }
+
+    // jjwt only checks exp when the token has one; without it the token would never expire
+    static VerifiedToken toVerifiedToken(Claims claims) {
+        if (claims.getExpiration() == null) {
+            throw new MalformedJwtException("JWT has no exp claim");
+        }
+        return new VerifiedToken(
+                claims.getSubject(),
+                JwtCodec.userIdClaim(claims.get("userId", String.class)),
+                claims.get("email", String.class),
+                claims.get("type", String.class),
+                claims.get("fid", String.class),
+                claims.get("gen") instanceof Number generation ? generation.longValue() : 0L,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L,
+                claims.getExpiration().getTime());
     }
 
     public Boolean validateToken(String token, String username) {
-        final String tokenUsername = extractUsername(token);
-        return (username.equals(tokenUsername) && !isTokenExpired(token));
+        VerifiedToken verified = verify(token);
+        return username.equals(verified.subject()) && !verified.isExpired();
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
-    public String extractUserId(String token) {
-        return extractClaim(token, claims -> claims.get("userId", String.class));
+    public Long extractUserId(String token) {
+        return verify(token).userId();
     }
 
     public String extractEmail(String token) {
-        return extractClaim(token, claims -> claims.get("email", String.class));
+        return verify(token).email();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return new Date(verify(token).expiresAtMillis());
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -80,15 +135,24 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    public BoundedExpiringCache<ByteBuffer, VerifiedToken> getVerifiedTokenCache() {
+        return verifiedTokens;
+    }
+
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private static ByteBuffer digest(String token) {
+        MessageDigest digest = sha256.get();
+        return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.example.common;
+
+import org.slf4j.event.Level;
+
+/**
+ * One structured log event under construction: an event name plus up to {@value #MAX_FIELDS}
+ * key/value fields and an optional throwable, e.g.
+ *
+ * <pre>
+ * LogManager.atWarn("JWT_AUTH_FAILED").with("userId", userId).with("reason", "Account revoked").log();
+ * </pre>
+ *
+ * Obtained from {@link LogManager}; when the level is disabled every call is a no-op on a
+ * shared instance. Otherwise the builder is reused per thread and {@link #log()} copies it into
+ * a preallocated ring buffer slot, so a logging call allocates nothing and does no formatting
+ * or I/O on the caller's thread. Emails are masked when the line is written, off that thread.
+ * Fields past the limit are ignored.
+ */
+public final class LogEvent {
+    static final int MAX_FIELDS = 8;
+
+    static final byte TEXT = 0;
+    static final byte NUMBER = 1;
+    static final byte EMAIL = 2;
+
+    private static final LogEvent DISABLED = new LogEvent(null);
+    private static final ThreadLocal<LogEvent> PER_THREAD = new ThreadLocal<>();
+
+    private final LogRingBuffer ring;
+    private boolean building;
+
+    Level level;
+    long timestampMillis;
+    String name;
+    String thread;
+    Throwable error;
+    int fieldCount;
+    final String[] keys = new String[MAX_FIELDS];
+    final String[] texts = new String[MAX_FIELDS];
+    final long[] numbers = new long[MAX_FIELDS];
+    final byte[] kinds = new byte[MAX_FIELDS];
+
+    LogEvent(LogRingBuffer ring) {
+        this.ring = ring;
+    }
+
+    static LogEvent disabled() {
+        return DISABLED;
+    }
+
+    static LogEvent begin(LogRingBuffer ring, Level level, String name) {
+        LogEvent event = PER_THREAD.get();
+        if (event == null || event.ring != ring) {
+            event = new LogEvent(ring);
+            PER_THREAD.set(event);
+        } else if (event.building) {
+            // Either an argument of the outer event logged something itself (don't clobber the
+            // outer one), or an earlier call was abandoned when evaluating an argument threw.
+            // The fresh builder becomes the thread's, so an abandoned one costs one allocation.
+            event = new LogEvent(ring);
+            PER_THREAD.set(event);
+        }
+        event.building = true;
+        event.level = level;
+        event.name = name;
+        event.timestampMillis = System.currentTimeMillis();
+        event.thread = Thread.currentThread().getName();
+        event.error = null;
+        event.fieldCount = 0;
+        return event;
+    }
+
+    public LogEvent with(String key, String value) {
+        return field(key, TEXT, value, 0);
+    }
+
+    public LogEvent with(String key, long value) {
+        return field(key, NUMBER, null, value);
+    }
+
+    /**
+     * A numeric ID (user ID), written as a string so readers that parse JSON numbers as doubles
+     * keep every digit. Null is written as null.
+     */
+    public LogEvent withId(String key, Long id) {
+        return field(key, TEXT, id != null ? id.toString() : null, 0);
+    }
+
+    /**
+     * An email address, written masked (first character and domain only).
+     */
+    public LogEvent withEmail(String key, String email) {
+        return field(key, EMAIL, email, 0);
+    }
+
+    public LogEvent error(Throwable throwable) {
+        if (ring != null) {
+            error = throwable;
+        }
+        return this;
+    }
+
+    /**
+     * Queue the event for the background writer. Dropped, and counted, if the buffer is full.
+     */
+    public void log() {
+        if (ring == null) {
+            return;
+        }
+        try {
+            ring.publish(this);
+        } finally {
+            error = null;
+            building = false;
+            for (int i = 0; i < fieldCount; i++) {
+                texts[i] = null;
+            }
+        }
+    }
+
+    private LogEvent field(String key, byte kind, String text, long number) {
+        if (ring == null || fieldCount == MAX_FIELDS) {
+            return this;
+        }
+        keys[fieldCount] = key;
+        kinds[fieldCount] = kind;
+        texts[fieldCount] = text;
+        numbers[fieldCount] = number;
+        fieldCount++;
+        return this;
+    }
+
+    void copyFrom(LogEvent other) {
+        level = other.level;
+        timestampMillis = other.timestampMillis;
+        name = other.name;
+        thread = other.thread;
+        error = other.error;
+        fieldCount = other.fieldCount;
+        System.arraycopy(other.keys, 0, keys, 0, fieldCount);
+        System.arraycopy(other.texts, 0, texts, 0, fieldCount);
+        System.arraycopy(other.numbers, 0, numbers, 0, fieldCount);
+        System.arraycopy(other.kinds, 0, kinds, 0, fieldCount);
+    }
+
+    // Drop references once written so a slot does not keep messages or exceptions alive
+    void clear() {
+        name = null;
+        thread = null;
+        error = null;
+        for (int i = 0; i < fieldCount; i++) {
+            texts[i] = null;
+        }
+        fieldCount = 0;
+    }
+}
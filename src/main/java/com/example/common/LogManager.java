@@ -2,131 +2,156 @@ package com.example.common;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-
+import org.slf4j.event.Level;
+
+/**
+ * Application event log. Events are structured (a name plus typed fields), written as one JSON
+ * line each by a background thread, and cost the caller no formatting, timestamp rendering or
+ * I/O:
+ *
+ * <pre>
+ * LogManager.atInfo("PASSWORD_REHASHED").with("userId", userId).log();
+ * </pre>
+ *
+ * Levels come from the {@code AppLogger} logger configuration; a disabled level returns a
+ * no-op event. The writer thread hands each JSON event to {@code AppLogger}, so the configured
+ * appenders and rotation receive it; {@code -Dlogging.events.target=stdout} writes raw JSON
+ * lines to stdout instead. The buffer holds {@code -Dlogging.events.buffer-size} events
+ * (default 16384, rounded up to a power of two); see {@link LogRingBuffer} for what happens
+ * when it fills.
+ */
 public class LogManager {
     private static final Logger logger = LoggerFactory.getLogger("AppLogger");
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final LogRingBuffer events = LogRingBuffer.start(
+            ringCapacity(Integer.getInteger("logging.events.buffer-size", 16384)),
+            sink(System.getProperty("logging.events.target", "slf4j")));
+
+    public static LogEvent atError(String event) {
+        return logger.isErrorEnabled() ? LogEvent.begin(events, Level.ERROR, event) : LogEvent.disabled();
+    }
+
+    public static LogEvent atWarn(String event) {
+        return logger.isWarnEnabled() ? LogEvent.begin(events, Level.WARN, event) : LogEvent.disabled();
+    }
+
+    public static LogEvent atInfo(String event) {
+        return logger.isInfoEnabled() ? LogEvent.begin(events, Level.INFO, event) : LogEvent.disabled();
+    }
+
+    public static LogEvent atDebug(String event) {
+        return logger.isDebugEnabled() ? LogEvent.begin(events, Level.DEBUG, event) : LogEvent.disabled();
+    }
 
-    public static void logInfo(String header, String body, Object... params) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.info("[{}][{}][{}]", timestamp, header, body, params);
+    public static void logInfo(String header, String body) {
+        atInfo(header).with("message", body).log();
     }
 
-    public static void logWarn(String header, String body, Object... params) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.warn("[{}][{}][{}]", timestamp, header, body, params);
+    public static void logWarn(String header, String body) {
+        atWarn(header).with("message", body).log();
     }
 
-    public static void logError(String header, String body, Throwable t, Object... params) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.error("[{}][{}][{}]", timestamp, header, body, params, t);
+    public static void logError(String header, String body, Throwable t) {
+        atError(header).with("message", body).error(t).log();
     }
 
-    public static void logError(String header, String body, Object... params) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.error("[{}][{}][{}]", timestamp, header, body, params);
+    public static void logError(String header, String body) {
+        atError(header).with("message", body).log();
     }
 
-    public static void logDebug(String header, String body, Object... params) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.debug("[{}][{}][{}]", timestamp, header, body, params);
+    public static void logDebug(String header, String body) {
+        atDebug(header).with("message", body).log();
     }
 
     // User-specific logging methods
     public static void logFailedLoginAttempt(String email, String reason, Throwable t) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.error("[{}][FAILED_LOGIN_ATTEMPT][Email: {}, Reason: {}]", timestamp, maskEmail(email), reason, t);
+        atError("FAILED_LOGIN_ATTEMPT").withEmail("email", email).with("reason", reason).error(t).log();
     }
 
     public static void logFailedLoginAttempt(String email, String reason) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.error("[{}][FAILED_LOGIN_ATTEMPT][Email: {}, Reason: {}]", timestamp, maskEmail(email), reason);
+        atError("FAILED_LOGIN_ATTEMPT").withEmail("email", email).with("reason", reason).log();
     }
 
     public static void logSuccessfulLogin(String email, boolean rememberMe) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        String rememberMeText = rememberMe ? "with remember me" : "without remember me";
-        logger.info("[{}][SUCCESSFUL_LOGIN][Email: {}, Login: {}]", timestamp, maskEmail(email), rememberMeText);
+        atInfo("SUCCESSFUL_LOGIN").withEmail("email", email).with("rememberMe", rememberMe ? "true" : "false").log();
     }
 
     public static void logAccountRevoked(String email, String reason) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.warn("[{}][ACCOUNT_REVOKED][Email: {}, Reason: {}]", timestamp, maskEmail(email), reason);
+        atWarn("ACCOUNT_REVOKED").withEmail("email", email).with("reason", reason).log();
     }
 
     public static void logAccountRevoked(String email, String reason, Throwable t) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.warn("[{}][ACCOUNT_REVOKED][Email: {}, Reason: {}]", timestamp, maskEmail(email), reason, t);
+        atWarn("ACCOUNT_REVOKED").withEmail("email", email).with("reason", reason).error(t).log();
     }
 
-    public static void logUserRegistration(String email, String userId) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.info("[{}][USER_REGISTRATION][Email: {}, UserID: {}]", timestamp, maskEmail(email), userId);
+    public static void logUserRegistration(String email, Long userId) {
+        atInfo("USER_REGISTRATION").withEmail("email", email).withId("userId", userId).log();
     }
 
     public static void logUserRegistrationFailed(String email, String reason, Throwable t) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.error("[{}][USER_REGISTRATION_FAILED][Email: {}, Reason: {}]", timestamp, maskEmail(email), reason, t);
+        atError("USER_REGISTRATION_FAILED").withEmail("email", email).with("reason", reason).error(t).log();
     }
 
     public static void logEmailVerification(String email, boolean success) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        String status = success ? "SUCCESS" : "FAILED";
-        logger.info("[{}][EMAIL_VERIFICATION_{}][Email: {}]", timestamp, status, maskEmail(email));
+        atInfo(success ? "EMAIL_VERIFICATION_SUCCESS" : "EMAIL_VERIFICATION_FAILED").withEmail("email", email).log();
     }
 
     public static void logOtpSent(String email) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.info("[{}][OTP_SENT][Email: {}]", timestamp, maskEmail(email));
+        atInfo("OTP_SENT").withEmail("email", email).log();
     }
 
     public static void logOtpSentFailed(String email, String reason, Throwable t) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.error("[{}][OTP_SENT_FAILED][Email: {}, Reason: {}]", timestamp, maskEmail(email), reason, t);
+        atError("OTP_SENT_FAILED").withEmail("email", email).with("reason", reason).error(t).log();
     }
 
-    public static void logUserUpdate(String email, String userId, String reason) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.info("[{}][USER_UPDATE][Email: {}, UserID: {}, Reason: {}]", timestamp, maskEmail(email), userId, reason);
+    public static void logUserUpdate(String email, Long userId, String reason) {
+        atInfo("USER_UPDATE").withEmail("email", email).withId("userId", userId).with("reason", reason).log();
     }
 
-    public static void logUserUpdateFailed(String email, String userId, String reason, Throwable t) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.error("[{}][USER_UPDATE_FAILED][Email: {}, UserID: {}, Reason: {}]", timestamp, maskEmail(email), userId, reason, t);
+    public static void logUserUpdateFailed(String email, Long userId, String reason, Throwable t) {
+        atError("USER_UPDATE_FAILED").withEmail("email", email).withId("userId", userId).with("reason", reason).error(t).log();
     }
 
     // System error logging methods (for network, Java exceptions, etc.)
     public static void logSystemError(String header, String email, String body, Throwable t) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.error("[{}][{}][Email: {}, {}]", timestamp, header, maskEmail(email), body, t);
+        atError(header).withEmail("email", email).with("message", body).error(t).log();
     }
 
     public static void logSystemError(String header, String body, Throwable t) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.error("[{}][{}][{}]", timestamp, header, body, t);
+        atError(header).with("message", body).error(t).log();
     }
 
     public static void logSystemError(String header, String email, String body) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.error("[{}][{}][Email: {}, {}]", timestamp, header, maskEmail(email), body);
+        atError(header).withEmail("email", email).with("message", body).log();
     }
 
     public static void logSystemError(String header, String body) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.error("[{}][{}][{}]", timestamp, header, body);
+        atError(header).with("message", body).log();
+    }
+
+    // Buffer health, exported by LogEventMetrics
+    public static long getDroppedEvents(Level level) {
+        return events.getDropped(level);
+    }
+
+    public static long getSampledOutEvents() {
+        return events.getSampledOut();
+    }
+
+    public static int getQueuedEvents() {
+        return events.getQueued();
+    }
+
+    public static int getBufferCapacity() {
+        return events.getCapacity();
+    }
+
+    private static LogSink sink(String target) {
+        return "stdout".equalsIgnoreCase(target) ? new StreamLogSink(System.out) : new Slf4jLogSink(logger);
     }
 
-    private static String maskEmail(String email) {
-        if (email == null || email.isEmpty()) {
-            return "***";
-        }
-        int atIndex = email.indexOf('@');
-        if (atIndex <= 1) {
-            return "***@" + (atIndex > 0 ? email.substring(atIndex + 1) : "");
-        }
-        return email.charAt(0) + "***@" + email.substring(atIndex + 1);
+    private static int ringCapacity(int requested) {
+        int clamped = Math.max(64, Math.min(requested, 1 << 20));
+        int capacity = Integer.highestOneBit(clamped);
+        return capacity < clamped ? capacity << 1 : capacity;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,295 @@
+package com.example.common;
+
+import org.slf4j.event.Level;
+
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Preallocated multi-producer ring of {@link LogEvent} slots, drained by one background
+ * thread that formats each event as a JSON object and hands it to a {@link LogSink}.
+ *
+ * A producer claims a sequence number with a CAS, copies its event into that slot and
+ * publishes it by writing the sequence into the slot. The writer consumes slots strictly in
+ * sequence order, formats into a reused buffer, and flushes the sink whenever it catches up.
+ *
+ * Overflow never blocks the caller. Once the backlog passes three quarters of the capacity
+ * only one in {@value #SAMPLE_EVERY} INFO/DEBUG events is kept (WARN and ERROR still are);
+ * when the ring is full every event is dropped. Both are counted, exported as metrics, and
+ * summarised in a LOG_EVENTS_DROPPED line once the writer catches up.
+ */
+final class LogRingBuffer {
+    static final int SAMPLE_EVERY = 16;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final class Slot {
+        final LogEvent event;
+        volatile long published = -1;
+
+        Slot(LogRingBuffer ring) {
+            this.event = new LogEvent(ring);
+        }
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final int capacity;
+    private final int sampleFrom;
+    private final LogSink sink;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final LongAdder[] dropped = new LongAdder[Level.values().length];
+    private final LongAdder sampledOut = new LongAdder();
+
+    private final Thread writer;
+    private volatile boolean closing;
+
+    // Writer thread only
+    private final StringBuilder line = new StringBuilder(512);
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedSecondPrefix;
+    private long reportedDropped;
+    private long reportedSampledOut;
+
+    LogRingBuffer(int capacity, LogSink sink) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.sampleFrom = capacity - capacity / 4;
+        this.sink = sink;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot(this);
+        }
+        for (int i = 0; i < dropped.length; i++) {
+            dropped[i] = new LongAdder();
+        }
+        this.writer = new Thread(this::drain, "log-writer");
+        this.writer.setDaemon(true);
+    }
+
+    static LogRingBuffer start(int capacity, OutputStream out) {
+        return start(capacity, new StreamLogSink(out));
+    }
+
+    static LogRingBuffer start(int capacity, LogSink sink) {
+        LogRingBuffer ring = new LogRingBuffer(capacity, sink);
+        ring.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(ring::close, "log-writer-shutdown"));
+        return ring;
+    }
+
+    boolean publish(LogEvent event) {
+        long sequence;
+        while (true) {
+            sequence = claimed.get();
+            long backlog = sequence - consumed;
+            if (backlog >= capacity) {
+                dropped[event.level.ordinal()].increment();
+                return false;
+            }
+            if (backlog >= sampleFrom && event.level.toInt() < Level.WARN.toInt()
+                    && sampleCounter.incrementAndGet() % SAMPLE_EVERY != 0) {
+                sampledOut.increment();
+                return false;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.event.copyFrom(event);
+        slot.published = sequence;
+        return true;
+    }
+
+    /**
+     * Stop accepting work once everything already published has been written, waiting at most
+     * two seconds.
+     */
+    void close() {
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long getDropped(Level level) {
+        return dropped[level.ordinal()].sum();
+    }
+
+    long getSampledOut() {
+        return sampledOut.sum();
+    }
+
+    int getQueued() {
+        return (int) Math.max(0, claimed.get() - consumed);
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    private void drain() {
+        long position = 0;
+        while (true) {
+            Slot slot = slots[(int) (position & mask)];
+            if (slot.published == position) {
+                try {
+                    append(slot.event);
+                } catch (RuntimeException e) {
+                    // A failing appender loses this event, not the writer thread
+                }
+                slot.event.clear();
+                consumed = ++position;
+                continue;
+            }
+            // Caught up (or a producer is still filling the next slot)
+            reportLosses();
+            sink.flush();
+            if (closing && claimed.get() == position) {
+                return;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private void reportLosses() {
+        long droppedNow = 0;
+        for (LongAdder counter : dropped) {
+            droppedNow += counter.sum();
+        }
+        long sampledOutNow = sampledOut.sum();
+        if (droppedNow == reportedDropped && sampledOutNow == reportedSampledOut) {
+            return;
+        }
+        line.setLength(0);
+        header(System.currentTimeMillis(), Level.WARN, "LOG_EVENTS_DROPPED", writer.getName());
+        line.append(",\"dropped\":").append(droppedNow - reportedDropped);
+        line.append(",\"sampledOut\":").append(sampledOutNow - reportedSampledOut);
+        line.append('}');
+        sink.write(Level.WARN, line);
+        reportedDropped = droppedNow;
+        reportedSampledOut = sampledOutNow;
+    }
+
+    // {"ts":"2026-10-17T09:30:12.345Z","level":"WARN","event":"JWT_AUTH_FAILED","thread":"...","userId":"42",...}
+    private void append(LogEvent event) {
+        line.setLength(0);
+        header(event.timestampMillis, event.level, event.name, event.thread);
+        for (int i = 0; i < event.fieldCount; i++) {
+            line.append(",\"");
+            escape(event.keys[i]);
+            line.append("\":");
+            switch (event.kinds[i]) {
+                case LogEvent.NUMBER -> line.append(event.numbers[i]);
+                case LogEvent.EMAIL -> {
+                    line.append('"');
+                    maskedEmail(event.texts[i]);
+                    line.append('"');
+                }
+                default -> quoted(event.texts[i]);
+            }
+        }
+        if (event.error != null) {
+            line.append(",\"error\":");
+            quoted(event.error.toString());
+            StringWriter stack = new StringWriter(1024);
+            event.error.printStackTrace(new PrintWriter(stack));
+            line.append(",\"stack\":");
+            quoted(stack.toString());
+        }
+        line.append('}');
+        sink.write(event.level, line);
+    }
+
+    private void header(long timestampMillis, Level level, String name, String thread) {
+        line.append("{\"ts\":\"");
+        timestamp(timestampMillis);
+        line.append("\",\"level\":\"").append(level.name());
+        line.append("\",\"event\":");
+        quoted(name);
+        line.append(",\"thread\":");
+        quoted(thread);
+    }
+
+    // One Instant formatted per distinct second; the milliseconds are appended by hand
+    private void timestamp(long millis) {
+        long second = Math.floorDiv(millis, 1000);
+        if (second != cachedSecond) {
+            String formatted = Instant.ofEpochSecond(second).toString();
+            cachedSecondPrefix = formatted.substring(0, formatted.length() - 1);
+            cachedSecond = second;
+        }
+        int fraction = (int) Math.floorMod(millis, 1000);
+        line.append(cachedSecondPrefix).append('.')
+            .append((char) ('0' + fraction / 100))
+            .append((char) ('0' + fraction / 10 % 10))
+            .append((char) ('0' + fraction % 10))
+            .append('Z');
+    }
+
+    private void quoted(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        escape(value);
+        line.append('"');
+    }
+
+    private void escape(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+    }
+
+    // Same shape as the masking the services use: a***@example.com
+    private void maskedEmail(String email) {
+        if (email == null || email.isEmpty()) {
+            line.append("***");
+            return;
+        }
+        int at = email.indexOf('@');
+        if (at <= 1) {
+            line.append("***@");
+            if (at > 0) {
+                escape(email.subSequence(at + 1, email.length()));
+            }
+            return;
+        }
+        escape(email.subSequence(0, 1));
+        line.append("***@");
+        escape(email.subSequence(at + 1, email.length()));
+    }
+}
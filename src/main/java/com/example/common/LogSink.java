@@ -0,0 +1,20 @@
+package com.example.common;
+
+import org.slf4j.event.Level;
+
+/**
+ * Where the {@link LogRingBuffer} writer thread sends formatted events. Only ever called from
+ * that thread.
+ */
+interface LogSink {
+
+    /**
+     * One event as a single JSON object, without a line terminator. Only valid for the call.
+     */
+    void write(Level level, CharSequence json);
+
+    /**
+     * The writer has caught up; push out anything buffered.
+     */
+    void flush();
+}
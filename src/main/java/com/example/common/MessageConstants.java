@@ -10,6 +10,9 @@ public final class MessageConstants {
     public static final String NOT_FOUND = "Resource not found";
     public static final String SERVER_ERROR = "Internal server error";
     public static final String BAD_REQUEST = "Invalid request";
+    public static final String REQUEST_TIMEOUT = "Request timed out. Please try again later.";
+    public static final String TOO_MANY_REQUESTS = "Too many requests. Please try again later.";
+    public static final String PAYLOAD_TOO_LARGE = "Request body too large";
 
     // Authentication messages
     public static final String UNAUTHORIZED = "Unauthorized";
@@ -24,8 +27,11 @@ public final class MessageConstants {
     public static final String INVALID_EMAIL_OR_PASSWORD = "Invalid email or password";
     public static final String LOGIN_SUCCESSFUL = "Login successful";
     public static final String LOGIN_SUCCESSFUL_REMEMBER_ME = "Login successful - Remember me enabled";
+    public static final String TOKEN_REFRESHED = "Token refreshed successfully";
+    public static final String REFRESH_TOKEN_REUSED = "Refresh token has already been used. Please log in again.";
     public static final String REGISTRATION_SUCCESSFUL = "Registration successful";
     public static final String EMAIL_ALREADY_EXISTS = "Email already exists";
+    public static final String USERNAME_ALREADY_EXISTS = "Username already exists";
     public static final String REGISTRATION_FAILED = "Registration failed";
 
     // User messages
@@ -41,6 +47,7 @@ public final class MessageConstants {
     public static final String EMAIL_VERIFICATION_FAILED = "Email verification failed";
     public static final String EMAIL_NOT_VERIFIED = "Please verify your email address before logging in.";
     public static final String ACCOUNT_REVOKED = "Your account has been revoked. Please contact support.";
+    public static final String IMPORT_ALREADY_RUNNING = "A user import is already running. Please try again later.";
 
     // Video messages
     public static final String VIDEO_CREATED = "Video created successfully";
@@ -76,5 +83,6 @@ public final class MessageConstants {
 
     //Log Header
     public static final String HEADER_LOGIN_FAILED = "LOGIN_FAILED";    
+    public static final String HEADER_REFRESH_TOKEN_REUSED = "REFRESH_TOKEN_REUSED";
     public static final String HEADER_REDIS_CONNECTION_ERROR = "REDIS_CONNECTION_ERROR";
 } 
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.example.common;
+
+import com.example.exception.DeadlineExceededException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The point in time after which nobody is waiting for a request's answer any more.
+ *
+ * The controller sets it from the endpoint's timeout, shortened by the client's
+ * {@value #HEADER} header (milliseconds), and installs it on the request thread. Service
+ * stages hand work to an executor through {@link #supplyAsync}/{@link #runAsync}, which carry
+ * the deadline to the pool thread and drop the task, failing its future with
+ * {@link DeadlineExceededException}, if it has expired by the time it would start. While a
+ * task runs, {@link #current()} returns its deadline, so the JDBC and Redis layers can turn the
+ * remaining budget into statement and command timeouts.
+ *
+ * Threads without a request (schedulers, listeners) see {@link #none()}, which never expires.
+ */
+public final class RequestDeadline {
+    public static final String HEADER = "X-Request-Timeout";
+
+    private static final RequestDeadline NONE = new RequestDeadline(0L, false);
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+    private final boolean bounded;
+
+    private RequestDeadline(long deadlineNanos, boolean bounded) {
+        this.deadlineNanos = deadlineNanos;
+        this.bounded = bounded;
+    }
+
+    public static RequestDeadline after(long budgetMillis) {
+        return new RequestDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis), true);
+    }
+
+    /**
+     * The endpoint's own timeout, or the client's if it sent a shorter, well-formed one. A
+     * client can only shorten the budget, never extend it.
+     */
+    public static RequestDeadline of(String clientTimeoutMillis, long endpointTimeoutMillis) {
+        long budget = endpointTimeoutMillis;
+        if (clientTimeoutMillis != null) {
+            try {
+                long requested = Long.parseLong(clientTimeoutMillis.trim());
+                if (requested > 0) {
+                    budget = Math.min(budget, requested);
+                }
+            } catch (NumberFormatException ignored) {
+                // Malformed header: fall back to the endpoint default
+            }
+        }
+        return after(budget);
+    }
+
+    public static RequestDeadline none() {
+        return NONE;
+    }
+
+    /**
+     * The deadline of the request this thread is working for, or {@link #none()}.
+     */
+    public static RequestDeadline current() {
+        RequestDeadline deadline = CURRENT.get();
+        return deadline != null ? deadline : NONE;
+    }
+
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * Milliseconds left, 0 once expired, {@link Long#MAX_VALUE} for {@link #none()}.
+     */
+    public long remainingMillis() {
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * Run {@code task} on this thread with this deadline installed.
+     */
+    public <T> T call(Supplier<T> task) {
+        RequestDeadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Like {@link CompletableFuture#supplyAsync(Supplier, Executor)}, but the task runs under
+     * this deadline and is dropped if it expires while the task waits for a thread. A refusal
+     * by the executor itself is thrown to the caller, as with supplyAsync.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        // Completing inside call() lets stages that continue inline on this thread inherit the deadline
+        executor.execute(() -> call(() -> {
+            if (isExpired()) {
+                return future.completeExceptionally(new CompletionException(
+                    new DeadlineExceededException("Request deadline passed before the task started")));
+            }
+            try {
+                return future.complete(task.get());
+            } catch (Throwable t) {
+                return future.completeExceptionally(t instanceof CompletionException ? t : new CompletionException(t));
+            }
+        }));
+        return future;
+    }
+
+    public CompletableFuture<Void> runAsync(Runnable task, Executor executor) {
+        return supplyAsync(() -> {
+            task.run();
+            return null;
+        }, executor);
+    }
+}
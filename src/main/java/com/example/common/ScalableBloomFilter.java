@@ -0,0 +1,233 @@
+package com.example.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe scalable Bloom filter (Almeida et al.): a chain of stages where stage i holds
+ * {@code initialCapacity * 2^i} elements at false-positive rate {@code fpRate / 2^(i+1)}, so
+ * the compound rate stays below {@code fpRate} however far the set grows. Adds go to the
+ * newest stage; lookups check every stage. Bits are set with an atomic OR and never cleared.
+ *
+ * Stage geometry depends only on (initialCapacity, fpRate), and each stage's bit layout
+ * matches a Valkey bitmap (offset 0 is the most significant bit of byte 0), so stages can be
+ * exchanged with Valkey as raw strings and merged with OR.
+ */
+public class ScalableBloomFilter {
+    private static final double LN2 = Math.log(2);
+    private static final long SEED_1 = 0xcbf29ce484222325L;
+    private static final long SEED_2 = 0x9e3779b97f4a7c15L;
+
+    private final long initialCapacity;
+    private final double fpRate;
+    private volatile List<Stage> stages = List.of();
+
+    public ScalableBloomFilter(long initialCapacity, double fpRate) {
+        this.initialCapacity = initialCapacity;
+        this.fpRate = fpRate;
+        stage(0);
+    }
+
+    /**
+     * Two independent 64-bit hashes of the normalised (trimmed, lower-cased) element.
+     */
+    public static long[] hash(String element) {
+        byte[] bytes = element.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        return new long[] { mix(fnv1a(bytes, SEED_1)), mix(fnv1a(bytes, SEED_2)) | 1L };
+    }
+
+    public boolean mightContain(long[] hash) {
+        for (Stage stage : stages) {
+            if (stage.contains(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Index of the stage a new element should go to, growing the chain when the newest stage
+     * has reached its capacity.
+     */
+    public int currentStage() {
+        List<Stage> current = stages;
+        Stage last = current.get(current.size() - 1);
+        return last.count.get() >= last.capacity ? stage(last.index + 1).index : last.index;
+    }
+
+    public void add(int stageIndex, long[] hash) {
+        Stage stage = stage(stageIndex);
+        stage.set(hash);
+        stage.count.incrementAndGet();
+    }
+
+    /**
+     * Bit offsets of the element within the given stage, in Valkey SETBIT order.
+     */
+    public long[] offsets(int stageIndex, long[] hash) {
+        return stage(stageIndex).offsets(hash);
+    }
+
+    /**
+     * OR a Valkey bitmap of this stage into the local copy; {@code elements} is the stage's
+     * element count as known cluster-wide.
+     */
+    public void merge(int stageIndex, byte[] bitmap, long elements) {
+        Stage stage = stage(stageIndex);
+        stage.or(bitmap);
+        stage.count.accumulateAndGet(elements, Math::max);
+    }
+
+    public byte[] toBitmap(int stageIndex) {
+        return stage(stageIndex).toBitmap();
+    }
+
+    public int getStageCount() {
+        return stages.size();
+    }
+
+    /**
+     * Length of the stage's bitmap as returned by {@link #toBitmap(int)} and stored in Valkey.
+     */
+    public long getStageBytes(int stageIndex) {
+        return stage(stageIndex).bits / 8;
+    }
+
+    public long getStageElements(int stageIndex) {
+        return stage(stageIndex).count.get();
+    }
+
+    public long getElements() {
+        return stages.stream().mapToLong(stage -> stage.count.get()).sum();
+    }
+
+    public long getMemoryBytes() {
+        return stages.stream().mapToLong(stage -> stage.bits / 8).sum();
+    }
+
+    /**
+     * Current false-positive probability estimated from each stage's fill:
+     * 1 - prod(1 - (1 - e^(-k*n/m))^k).
+     */
+    public double getExpectedFalsePositiveRate() {
+        double allNegative = 1.0;
+        for (Stage stage : stages) {
+            double fill = 1 - Math.exp(-(double) stage.hashes * stage.count.get() / stage.bits);
+            allNegative *= 1 - Math.pow(fill, stage.hashes);
+        }
+        return 1 - allNegative;
+    }
+
+    private Stage stage(int index) {
+        List<Stage> current = stages;
+        if (index < current.size()) {
+            return current.get(index);
+        }
+        synchronized (this) {
+            current = stages;
+            if (index < current.size()) {
+                return current.get(index);
+            }
+            List<Stage> grown = new ArrayList<>(current);
+            for (int i = current.size(); i <= index; i++) {
+                grown.add(new Stage(i, initialCapacity << i, fpRate / (2L << i)));
+            }
+            stages = List.copyOf(grown);
+            return grown.get(index);
+        }
+    }
+
+    private static long fnv1a(byte[] bytes, long seed) {
+        long hash = seed;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // splitmix64 finaliser, spreads FNV's weak low bits across the word
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Stage {
+        private final int index;
+        private final long capacity;
+        private final long bits;
+        private final int hashes;
+        private final AtomicLongArray words;
+        private final AtomicLong count = new AtomicLong();
+
+        private Stage(int index, long capacity, double fpRate) {
+            this.index = index;
+            this.capacity = capacity;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(fpRate) / (LN2 * LN2));
+            this.bits = (optimalBits + 63) & ~63L;
+            this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * LN2));
+            this.words = new AtomicLongArray((int) (bits / 64));
+        }
+
+        private long[] offsets(long[] hash) {
+            long[] offsets = new long[hashes];
+            for (int i = 0; i < hashes; i++) {
+                offsets[i] = Math.floorMod(hash[0] + i * hash[1], bits);
+            }
+            return offsets;
+        }
+
+        private boolean contains(long[] hash) {
+            for (int i = 0; i < hashes; i++) {
+                long offset = Math.floorMod(hash[0] + i * hash[1], bits);
+                if ((words.get((int) (offset >>> 6)) & mask(offset)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void set(long[] hash) {
+            for (int i = 0; i < hashes; i++) {
+                long offset = Math.floorMod(hash[0] + i * hash[1], bits);
+                long mask = mask(offset);
+                words.getAndAccumulate((int) (offset >>> 6), mask, (word, m) -> word | m);
+            }
+        }
+
+        private void or(byte[] bitmap) {
+            int length = (int) Math.min(bitmap.length, bits / 8);
+            for (int wordIndex = 0; wordIndex * 8 < length; wordIndex++) {
+                long word = 0;
+                for (int b = 0; b < 8; b++) {
+                    int byteIndex = wordIndex * 8 + b;
+                    word = (word << 8) | (byteIndex < length ? bitmap[byteIndex] & 0xff : 0);
+                }
+                if (word != 0) {
+                    words.getAndAccumulate(wordIndex, word, (current, incoming) -> current | incoming);
+                }
+            }
+        }
+
+        private byte[] toBitmap() {
+            byte[] bitmap = new byte[(int) (bits / 8)];
+            for (int wordIndex = 0; wordIndex < words.length(); wordIndex++) {
+                long word = words.get(wordIndex);
+                for (int b = 0; b < 8; b++) {
+                    bitmap[wordIndex * 8 + b] = (byte) (word >>> (56 - 8 * b));
+                }
+            }
+            return bitmap;
+        }
+
+        // Big-endian within the word so bit offsets line up with Valkey's MSB-first bitmaps
+        private static long mask(long offset) {
+            return 1L << (63 - (offset & 63));
+        }
+    }
+}
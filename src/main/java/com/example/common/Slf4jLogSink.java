@@ -0,0 +1,34 @@
+package com.example.common;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+/**
+ * Hands each event to an SLF4J logger, so the deployment's appenders, rotation and shipping
+ * apply to it like to any other log line. The appender runs on the writer thread, never on
+ * the thread that logged the event.
+ */
+final class Slf4jLogSink implements LogSink {
+    private final Logger logger;
+
+    Slf4jLogSink(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public void write(Level level, CharSequence json) {
+        String message = json.toString();
+        switch (level) {
+            case ERROR -> logger.error(message);
+            case WARN -> logger.warn(message);
+            case INFO -> logger.info(message);
+            case DEBUG -> logger.debug(message);
+            default -> logger.trace(message);
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Appenders manage their own buffering
+    }
+}
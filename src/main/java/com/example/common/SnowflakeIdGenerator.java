@@ -0,0 +1,131 @@
+package com.example.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free 64-bit ID generator: 41 bits of milliseconds since {@link #EPOCH_MILLIS}, 10 bits
+ * of worker ID and 12 bits of sequence, so IDs sort by creation time and fit a BIGINT.
+ *
+ * The last timestamp and sequence are packed into one AtomicLong and advanced with CAS, so
+ * {@link #nextId()} never sleeps or takes a lock. It never waits on the clock either: when
+ * the wall clock steps back, or a millisecond's 4096 sequence numbers run out, the
+ * generator keeps counting on its own logical clock, which runs ahead of wall time until
+ * the wall clock catches up ({@link #getAheadMillis()}).
+ *
+ * IDs are only unique while no other process uses the same worker ID, so IDs are issued
+ * only while a worker lease is held ({@link #assign}, {@link #extend}); without one,
+ * {@link #nextId()} fails fast.
+ */
+public class SnowflakeIdGenerator {
+    public static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    public static final int WORKER_BITS = 10;
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final LongSupplier clock;
+    // (logical millis since epoch << SEQUENCE_BITS) | last sequence
+    private final AtomicLong state = new AtomicLong();
+    private volatile Lease lease;
+
+    public SnowflakeIdGenerator() {
+        this(System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Start issuing IDs as {@code workerId}, never with a timestamp below
+     * {@code notBeforeMillis} (the previous holder's high-water mark), until
+     * {@code validUntilMillis} unless extended.
+     */
+    public void assign(int workerId, long notBeforeMillis, long validUntilMillis) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker ID must be between 0 and " + MAX_WORKER_ID);
+        }
+        long floor = (Math.max(notBeforeMillis, 0) - EPOCH_MILLIS) << SEQUENCE_BITS;
+        state.accumulateAndGet(Math.max(floor, 0), Math::max);
+        lease = new Lease(workerId, validUntilMillis);
+    }
+
+    public void extend(long validUntilMillis) {
+        Lease current = lease;
+        if (current != null) {
+            lease = new Lease(current.workerId(), validUntilMillis);
+        }
+    }
+
+    public void revoke() {
+        lease = null;
+    }
+
+    /**
+     * @throws IllegalStateException if no worker lease is held
+     */
+    public long nextId() {
+        Lease current = lease;
+        long now = clock.getAsLong();
+        if (current == null || now >= current.validUntilMillis()) {
+            throw new IllegalStateException("No worker ID lease held; cannot generate IDs");
+        }
+
+        long nowMillis = now - EPOCH_MILLIS;
+        while (true) {
+            long last = state.get();
+            long lastMillis = last >>> SEQUENCE_BITS;
+            long next;
+            if (nowMillis > lastMillis) {
+                next = nowMillis << SEQUENCE_BITS;
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // Same millisecond, or the clock went back: keep counting on the logical clock
+                next = last + 1;
+            } else {
+                // Sequence exhausted: borrow the next millisecond instead of waiting for it
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+            if (state.compareAndSet(last, next)) {
+                return ((next >>> SEQUENCE_BITS) << (WORKER_BITS + SEQUENCE_BITS))
+                        | ((long) current.workerId() << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * Highest timestamp (epoch millis) any issued ID carries; a new holder of this worker ID
+     * must not start below it.
+     */
+    public long getHighWaterMillis() {
+        return (state.get() >>> SEQUENCE_BITS) + EPOCH_MILLIS;
+    }
+
+    /**
+     * How far the logical clock is ahead of the wall clock, 0 normally.
+     */
+    public long getAheadMillis() {
+        return Math.max(0, getHighWaterMillis() - clock.getAsLong());
+    }
+
+    /**
+     * Current worker ID, or -1 when no lease is held.
+     */
+    public int getWorkerId() {
+        Lease current = lease;
+        return current != null ? current.workerId() : -1;
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (WORKER_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    public static int workerIdOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_WORKER_ID);
+    }
+
+    private record Lease(int workerId, long validUntilMillis) {
+    }
+}
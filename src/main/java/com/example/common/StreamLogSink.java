@@ -0,0 +1,77 @@
+package com.example.common;
+
+import org.slf4j.event.Level;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes events as raw JSON lines to a stream (e.g. stdout for a container log collector).
+ * Lines are UTF-8 encoded by hand into one reused buffer and written when it passes
+ * {@value #FLUSH_BYTES} bytes or the writer catches up, so a burst becomes a few large writes.
+ */
+final class StreamLogSink implements LogSink {
+    private static final int FLUSH_BYTES = 64 * 1024;
+
+    private final OutputStream out;
+    private byte[] bytes = new byte[FLUSH_BYTES * 2];
+    private int byteCount;
+
+    StreamLogSink(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(Level level, CharSequence json) {
+        encode(json);
+        bytes[byteCount++] = '\n';
+        if (byteCount >= FLUSH_BYTES) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (byteCount == 0) {
+            return;
+        }
+        try {
+            out.write(bytes, 0, byteCount);
+            out.flush();
+        } catch (IOException e) {
+            // Nowhere left to report it; the events are lost either way
+        }
+        byteCount = 0;
+    }
+
+    private void encode(CharSequence line) {
+        int length = line.length();
+        if (bytes.length - byteCount < length * 3 + 1) {
+            flush();
+            if (bytes.length < length * 3 + 1) {
+                bytes = new byte[length * 3 + 1];
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                bytes[byteCount++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[byteCount++] = (byte) (0xC0 | c >> 6);
+                bytes[byteCount++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(line.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, line.charAt(++i));
+                bytes[byteCount++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[byteCount++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[byteCount++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[byteCount++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                bytes[byteCount++] = (byte) '?';
+            } else {
+                bytes[byteCount++] = (byte) (0xE0 | c >> 12);
+                bytes[byteCount++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[byteCount++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.common;
+
+/**
+ * Immutable view of a JWT whose signature and expiry have already been checked.
+ * Refresh tokens also carry their rotation family and generation; access tokens leave
+ * familyId null. The userId claim is a decimal string in the token and a number here.
+ */
+public record VerifiedToken(
+        String subject,
+        Long userId,
+        String email,
+        String type,
+        String familyId,
+        long generation,
+        long issuedAtMillis,
+        long expiresAtMillis) {
+
+    public boolean isExpired() {
+        return expiresAtMillis <= System.currentTimeMillis();
+    }
+}
@@ -1,12 +1,24 @@
 package com.example.config.cache;
 
+import com.example.common.RequestDeadline;
+import com.example.service.impl.RedisRegisteredEmailFilter;
+import com.example.service.impl.RedisUserChangeEventBus;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.protocol.RedisCommand;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+
 @Configuration
 public class RedisConfig {
 
@@ -26,4 +38,42 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-} 
\ No newline at end of file
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            RedisUserChangeEventBus userChangeEventBus,
+            RedisRegisteredEmailFilter registeredEmailFilter) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        // Resubscribe quickly after a dropped connection; the bus flushes local caches on recovery
+        container.setRecoveryInterval(2000);
+        container.addMessageListener(userChangeEventBus, new ChannelTopic(RedisUserChangeEventBus.CHANNEL));
+        container.addMessageListener(registeredEmailFilter, new ChannelTopic(RedisRegisteredEmailFilter.CHANNEL));
+        return container;
+    }
+
+    /**
+     * Times each command out at the calling request's remaining budget ({@link RequestDeadline})
+     * instead of the fixed spring.data.redis.timeout, which still applies to work outside a
+     * request. Keeps the client options Boot built and only swaps their timeout source.
+     */
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer deadlineCommandTimeouts(
+            @Value("${spring.data.redis.timeout:60s}") Duration commandTimeout) {
+        long defaultMillis = commandTimeout.toMillis();
+        TimeoutOptions.TimeoutSource deadlineTimeouts = new TimeoutOptions.TimeoutSource() {
+            @Override
+            public long getTimeout(RedisCommand<?, ?, ?> command) {
+                // Never 0: Lettuce reads a non-positive timeout as "wait forever"
+                return Math.max(1, Math.min(defaultMillis, RequestDeadline.current().remainingMillis()));
+            }
+        };
+        return builder -> {
+            ClientOptions options = builder.build().getClientOptions().orElseGet(ClientOptions::create);
+            builder.clientOptions(options.mutate()
+                    .timeoutOptions(TimeoutOptions.builder().timeoutSource(deadlineTimeouts).build())
+                    .build());
+        };
+    }
+}
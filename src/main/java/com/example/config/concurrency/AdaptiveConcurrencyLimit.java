@@ -0,0 +1,167 @@
+package com.example.config.concurrency;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-flight limit for one downstream that adapts to observed latency, TCP Vegas style.
+ *
+ * The lowest recent round trip stands in for the no-load latency. Each window of completed
+ * calls estimates how many requests are queued downstream as {@code limit * (1 - noLoadRtt / rtt)}:
+ * with almost no queue the limit grows by a few slots; within the alpha..beta band it holds;
+ * past beta it shrinks. Both thresholds scale with log10(limit), so the limit settles a few
+ * requests above what the downstream serves without queueing. Samples taken while less than
+ * half the limit is in use say nothing about capacity and are ignored.
+ *
+ * Samples are judged a window at a time (one limit's worth of completions, roughly one round
+ * trip) rather than one by one, so a burst of slow calls moves the limit once, not per call.
+ *
+ * The no-load estimate can only fall, so every few dozen windows the limit is halved for one
+ * window and the fastest call in it becomes the new estimate. A downstream that has become
+ * slower for good is re-learned instead of being read as permanent queueing, and the probe
+ * drains the queue first so it is not mistaken for the new baseline.
+ *
+ * Acquire and release are a CAS on the in-flight count; the limit update takes a short lock.
+ */
+public class AdaptiveConcurrencyLimit {
+    private static final int PROBE_WINDOWS = 30;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    // Guarded by this
+    private double estimatedLimit;
+    private long noLoadRttNanos;
+    private long probeCountdown;
+    private boolean probing;
+    private int windowSamples;
+    private long windowRttSum;
+    private long windowMinRtt = Long.MAX_VALUE;
+    private int windowMaxInFlight;
+    private volatile long smoothedRttNanos;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+        this.probeCountdown = nextProbeCountdown();
+    }
+
+    /**
+     * Take an in-flight slot, or return false if the limit is reached. Every successful
+     * acquire must be followed by exactly one {@link #release} or {@link #cancel}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give the slot back and feed the call's round trip into the limit.
+     */
+    public void release(long rttNanos) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightAtCompletion);
+    }
+
+    /**
+     * Give the slot back without a sample, e.g. when the task never ran.
+     */
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    synchronized void onSample(long rttNanos, int inFlightAtCompletion) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        smoothedRttNanos = smoothedRttNanos == 0 ? rttNanos : (smoothedRttNanos * 7 + rttNanos) / 8;
+
+        windowRttSum += rttNanos;
+        windowMinRtt = Math.min(windowMinRtt, rttNanos);
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtCompletion);
+        if (++windowSamples < Math.max(MIN_WINDOW_SAMPLES, limit)) {
+            return;
+        }
+        long rtt = windowRttSum / windowSamples;
+        long minRtt = windowMinRtt;
+        int maxInFlight = windowMaxInFlight;
+        windowSamples = 0;
+        windowRttSum = 0;
+        windowMinRtt = Long.MAX_VALUE;
+        windowMaxInFlight = 0;
+
+        if (probing) {
+            // The window ran at half the limit; its fastest call is the new no-load estimate
+            probing = false;
+            noLoadRttNanos = minRtt;
+            limit = (int) estimatedLimit;
+            probeCountdown = nextProbeCountdown();
+            return;
+        }
+        if (noLoadRttNanos == 0) {
+            noLoadRttNanos = minRtt;
+            return;
+        }
+        if (--probeCountdown <= 0) {
+            probing = true;
+            limit = Math.max(minLimit, (int) (estimatedLimit / 2));
+            return;
+        }
+        noLoadRttNanos = Math.min(noLoadRttNanos, minRtt);
+        if (maxInFlight * 2 < estimatedLimit) {
+            return;
+        }
+
+        double log = Math.max(1, Math.log10(estimatedLimit));
+        double queued = Math.ceil(estimatedLimit * (1 - (double) noLoadRttNanos / rtt));
+        double alpha = 3 * log;
+        double beta = 6 * log;
+
+        double next;
+        if (queued <= log) {
+            next = estimatedLimit + beta;
+        } else if (queued < alpha) {
+            next = estimatedLimit + log;
+        } else if (queued > beta) {
+            next = estimatedLimit - log;
+        } else {
+            return;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+    }
+
+    private long nextProbeCountdown() {
+        return (long) (PROBE_WINDOWS * (0.5 + ThreadLocalRandom.current().nextDouble()));
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * A client-facing backoff hint: roughly how long the current in-flight work takes to drain.
+     */
+    public long getRetryAfterMillis() {
+        return Math.max(1, smoothedRttNanos / 1_000_000);
+    }
+}
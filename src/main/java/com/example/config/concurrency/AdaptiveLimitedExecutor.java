@@ -0,0 +1,88 @@
+package com.example.config.concurrency;
+
+import com.example.exception.ServiceOverloadedException;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits tasks for one downstream through an {@link AdaptiveConcurrencyLimit} before handing
+ * them to the executor that runs them. Over the limit, submission fails at once with a
+ * {@link ServiceOverloadedException} (429 with Retry-After) instead of queueing. Each task's
+ * round trip, from admission to completion, is fed back into the limit.
+ *
+ * The delegate must be able to run {@code maxLimit} tasks at once, so the limit rather than
+ * the pool size decides concurrency.
+ */
+public class AdaptiveLimitedExecutor extends AbstractExecutorService {
+    private final String name;
+    private final ExecutorService delegate;
+    private final AdaptiveConcurrencyLimit limit;
+    private final ExecutorMetrics metrics;
+
+    public AdaptiveLimitedExecutor(String name, ExecutorService delegate, AdaptiveConcurrencyLimit limit, ExecutorMetrics metrics) {
+        this.name = name;
+        this.delegate = delegate;
+        this.limit = limit;
+        this.metrics = metrics;
+        metrics.bind(limit);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (!limit.tryAcquire()) {
+            metrics.recordRejection();
+            throw new ServiceOverloadedException("Too many concurrent " + name + " requests. Please try again later.",
+                                                 limit.getRetryAfterMillis());
+        }
+        long admittedAt = System.nanoTime();
+        try {
+            delegate.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    limit.release(System.nanoTime() - admittedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            limit.cancel();
+            throw e;
+        }
+    }
+
+    public ExecutorService getDelegate() {
+        return delegate;
+    }
+
+    public AdaptiveConcurrencyLimit getLimit() {
+        return limit;
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
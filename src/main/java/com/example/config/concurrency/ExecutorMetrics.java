@@ -0,0 +1,131 @@
+package com.example.config.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer meters for one executor, all tagged {@code pool=<name>}:
+ *
+ *   threadpool.queue.wait        histogram, submit to start of execution
+ *   threadpool.run               histogram, execution time
+ *   threadpool.rejected          tasks refused at submission
+ *   threadpool.expired           tasks dropped unrun because their request deadline passed
+ *   threadpool.active            tasks executing now
+ *   threadpool.queued            tasks waiting for a thread or permit
+ *   threadpool.saturation        active / max threads (or permits)
+ *   threadpool.queue.utilization queued / queue capacity; rejections start at 1.0
+ *   threadpool.limit             current adaptive in-flight limit
+ *   threadpool.limit.utilization admitted in-flight tasks / limit; rejections start at 1.0
+ *
+ * The timers publish percentile histograms so p99 queue wait can be computed across
+ * instances and alerted on within one scrape interval.
+ */
+public class ExecutorMetrics {
+    private final MeterRegistry registry;
+    private final String pool;
+    private final Timer queueWait;
+    private final Timer run;
+    private final Counter rejected;
+    private final Counter expired;
+
+    public ExecutorMetrics(MeterRegistry registry, String pool) {
+        this.registry = registry;
+        this.pool = pool;
+        this.queueWait = Timer.builder("threadpool.queue.wait")
+                .description("Time a task waited between submission and the start of its execution")
+                .tag("pool", pool)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+        this.run = Timer.builder("threadpool.run")
+                .description("Task execution time")
+                .tag("pool", pool)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+        this.rejected = Counter.builder("threadpool.rejected")
+                .description("Tasks refused at submission because the executor was saturated or shut down")
+                .tag("pool", pool)
+                .register(registry);
+        this.expired = Counter.builder("threadpool.expired")
+                .description("Tasks dropped before running because their request deadline had passed")
+                .tag("pool", pool)
+                .register(registry);
+    }
+
+    public void recordQueueWait(long nanos) {
+        queueWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRun(long nanos) {
+        run.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRejection() {
+        rejected.increment();
+    }
+
+    public void recordExpired() {
+        expired.increment();
+    }
+
+    public void bind(ThreadPoolExecutor executor) {
+        int queueCapacity = executor.getQueue().size() + executor.getQueue().remainingCapacity();
+        gauges(executor,
+                ThreadPoolExecutor::getActiveCount,
+                e -> e.getQueue().size(),
+                e -> (double) e.getActiveCount() / e.getMaximumPoolSize(),
+                e -> queueCapacity == 0 ? 0.0 : (double) e.getQueue().size() / queueCapacity);
+    }
+
+    public void bind(SemaphoreVirtualThreadExecutor executor) {
+        gauges(executor,
+                SemaphoreVirtualThreadExecutor::getInFlight,
+                SemaphoreVirtualThreadExecutor::getWaiting,
+                SemaphoreVirtualThreadExecutor::getSaturation,
+                e -> (double) e.getWaiting() / e.getMaxWaiting());
+    }
+
+    public void bind(AdaptiveConcurrencyLimit limit) {
+        Gauge.builder("threadpool.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Adaptive in-flight limit for the downstream this pool serves")
+                .tag("pool", pool)
+                .register(registry);
+        Gauge.builder("threadpool.limit.utilization", limit, l -> (double) l.getInFlight() / l.getLimit())
+                .description("Fraction of the adaptive limit in use; new tasks are rejected at 1.0")
+                .tag("pool", pool)
+                .register(registry);
+    }
+
+    private <E> void gauges(E executor,
+                            ToDoubleFunction<E> active,
+                            ToDoubleFunction<E> queued,
+                            ToDoubleFunction<E> saturation,
+                            ToDoubleFunction<E> queueUtilization) {
+        Gauge.builder("threadpool.active", executor, active)
+                .description("Tasks executing now")
+                .tag("pool", pool)
+                .register(registry);
+        Gauge.builder("threadpool.queued", executor, queued)
+                .description("Tasks waiting for a thread or permit")
+                .tag("pool", pool)
+                .register(registry);
+        Gauge.builder("threadpool.saturation", executor, saturation)
+                .description("Fraction of threads or permits busy")
+                .tag("pool", pool)
+                .register(registry);
+        Gauge.builder("threadpool.queue.utilization", executor, queueUtilization)
+                .description("Fraction of the queue in use; new tasks are rejected at 1.0")
+                .tag("pool", pool)
+                .register(registry);
+    }
+}
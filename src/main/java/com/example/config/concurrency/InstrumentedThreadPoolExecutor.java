@@ -0,0 +1,43 @@
+package com.example.config.concurrency;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded ThreadPoolExecutor that reports every task's queue wait and run time, and every
+ * rejection, to its {@link ExecutorMetrics}.
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+    private final ExecutorMetrics metrics;
+
+    public InstrumentedThreadPoolExecutor(String name, int corePoolSize, int maximumPoolSize,
+                                          long keepAliveSeconds, int queueCapacity, ExecutorMetrics metrics) {
+        super(corePoolSize, maximumPoolSize, keepAliveSeconds, TimeUnit.SECONDS,
+              new ArrayBlockingQueue<>(queueCapacity),
+              new CustomThreadFactory(name),
+              new CustomRejectedExecutionHandler());
+        this.metrics = metrics;
+        metrics.bind(this);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        long submittedAt = System.nanoTime();
+        try {
+            super.execute(() -> {
+                long startedAt = System.nanoTime();
+                metrics.recordQueueWait(startedAt - submittedAt);
+                try {
+                    command.run();
+                } finally {
+                    metrics.recordRun(System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            metrics.recordRejection();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.config.concurrency;
+
+import com.example.common.RequestDeadline;
+import com.example.exception.DeadlineExceededException;
+import com.example.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * CPU-bound executor reserved for BCrypt work (matches/encode).
+ *
+ * Sized to the available cores and kept apart from the I/O pools so that a burst of
+ * password checks cannot starve repository or Redis calls. Admission is decided up front:
+ * if the estimated queue wait (pending hashes x average hash time / threads) would exceed
+ * the latency budget the task is refused with a {@link ServiceOverloadedException} (429)
+ * instead of being queued behind work the client will never wait for. A task whose request
+ * deadline ({@link RequestDeadline}) passes while it is queued is dropped without hashing.
+ */
+@Component
+@Slf4j
+public class PasswordHashingExecutor {
+    private static final double EWMA_ALPHA = 0.2;
+    private static final long INITIAL_HASH_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final long latencyBudgetNanos;
+    private final ExecutorMetrics metrics;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong averageHashNanos = new AtomicLong(INITIAL_HASH_NANOS);
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+
+    public PasswordHashingExecutor(
+            @Value("${password-hashing.threads:0}") int configuredThreads,
+            @Value("${password-hashing.queue-capacity:256}") int queueCapacity,
+            @Value("${password-hashing.latency-budget-ms:1000}") long latencyBudgetMs,
+            MeterRegistry meterRegistry) {
+        this.threads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
+        this.latencyBudgetNanos = TimeUnit.MILLISECONDS.toNanos(latencyBudgetMs);
+        this.executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new CustomThreadFactory("password-hashing"),
+            new CustomRejectedExecutionHandler()
+        );
+        this.executor.prestartAllCoreThreads();
+        this.metrics = new ExecutorMetrics(meterRegistry, "password-hashing");
+        this.metrics.bind(executor);
+    }
+
+    /**
+     * Run a hashing task, or fail fast with {@link ServiceOverloadedException} when the
+     * backlog would push its start past the latency budget. The caller's request deadline
+     * travels with the task; it fails with {@link DeadlineExceededException} if the deadline
+     * passes before a thread picks it up.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        RequestDeadline deadline = RequestDeadline.current();
+        long estimatedWaitNanos = estimateQueueWaitNanos();
+        if (estimatedWaitNanos > latencyBudgetNanos) {
+            return reject(estimatedWaitNanos);
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+        pending.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                recordQueueWait(startedAt - enqueuedAt);
+                if (deadline.isExpired()) {
+                    pending.decrementAndGet();
+                    metrics.recordExpired();
+                    future.completeExceptionally(new DeadlineExceededException("Request deadline passed before the hash started"));
+                    return;
+                }
+                try {
+                    // Complete under the deadline so the stages that continue on this thread keep it
+                    deadline.call(() -> future.complete(task.get()));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    recordHashTime(System.nanoTime() - startedAt);
+                    pending.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            return reject(estimatedWaitNanos);
+        }
+        return future;
+    }
+
+    private <T> CompletableFuture<T> reject(long estimatedWaitNanos) {
+        rejectedTasks.increment();
+        metrics.recordRejection();
+        long retryAfterMillis = TimeUnit.NANOSECONDS.toMillis(Math.max(estimatedWaitNanos, latencyBudgetNanos));
+        return CompletableFuture.failedFuture(
+            new ServiceOverloadedException("Too many concurrent authentication requests. Please try again later.", retryAfterMillis));
+    }
+
+    private long estimateQueueWaitNanos() {
+        return pending.get() * averageHashNanos.get() / threads;
+    }
+
+    private void recordQueueWait(long waitNanos) {
+        metrics.recordQueueWait(waitNanos);
+        totalQueueWaitNanos.add(waitNanos);
+        maxQueueWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        if (waitNanos > latencyBudgetNanos) {
+            log.warn("Password hashing task waited {} ms in queue (budget {} ms)",
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos), TimeUnit.NANOSECONDS.toMillis(latencyBudgetNanos));
+        }
+    }
+
+    private void recordHashTime(long hashNanos) {
+        metrics.recordRun(hashNanos);
+        completedTasks.increment();
+        averageHashNanos.updateAndGet(avg -> (long) (avg + EWMA_ALPHA * (hashNanos - avg)));
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getPendingTasks() {
+        return pending.get();
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks.sum();
+    }
+
+    public long getRejectedTasks() {
+        return rejectedTasks.sum();
+    }
+
+    public double getAverageHashMillis() {
+        return averageHashNanos.get() / 1_000_000.0;
+    }
+
+    public double getAverageQueueWaitMillis() {
+        long completed = completedTasks.sum();
+        return completed == 0 ? 0.0 : totalQueueWaitNanos.sum() / 1_000_000.0 / completed;
+    }
+
+    public double getMaxQueueWaitMillis() {
+        return maxQueueWaitNanos.get() / 1_000_000.0;
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.config.concurrency;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs every task on its own virtual thread and bounds concurrency with a semaphore sized to
+ * the downstream dependency (MySQL connections, Valkey, SMTP) rather than with a thread count.
+ *
+ * Tasks over the permit limit park cheaply on the semaphore instead of sitting in a small
+ * ArrayBlockingQueue; only once {@code maxWaiting} tasks are already parked is new work
+ * rejected. Time parked on the semaphore is reported as queue wait. {@link #shutdownNow()}
+ * hands parked tasks back unrun, like a pool returning its queue.
+ *
+ * Behind an {@link AdaptiveLimitedExecutor} the permits are sized to the limit's maximum, so
+ * the adaptive limit rejects (429) before any task parks and the semaphore is only a ceiling.
+ */
+public class SemaphoreVirtualThreadExecutor extends AbstractExecutorService {
+    private final String name;
+    private final int maxConcurrency;
+    private final int maxWaiting;
+    private final Semaphore permits;
+    private final ThreadFactory threadFactory;
+    private final ExecutorMetrics metrics;
+
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    // Tasks not yet holding a permit; whoever removes an entry (the task's thread or shutdownNow) owns it
+    private final Map<Thread, Runnable> parked = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+    private volatile boolean shutdown;
+
+    public SemaphoreVirtualThreadExecutor(String name, int maxConcurrency, int maxWaiting, ExecutorMetrics metrics) {
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.maxWaiting = maxWaiting;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.threadFactory = Thread.ofVirtual().name(name + "-", 1).factory();
+        this.metrics = metrics;
+        metrics.bind(this);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (shutdown) {
+            rejectedTasks.increment();
+            metrics.recordRejection();
+            throw new RejectedExecutionException(name + " executor has been shut down.");
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejectedTasks.increment();
+            metrics.recordRejection();
+            throw new RejectedExecutionException("Task rejected due to " + name + " concurrency saturation.");
+        }
+
+        long submittedAt = System.nanoTime();
+        Thread thread = threadFactory.newThread(() -> runWithPermit(command, submittedAt));
+        threads.add(thread);
+        parked.put(thread, command);
+        thread.start();
+    }
+
+    private void runWithPermit(Runnable command, long submittedAt) {
+        if (!acquirePermit()) {
+            return;
+        }
+
+        inFlight.incrementAndGet();
+        long startedAt = System.nanoTime();
+        metrics.recordQueueWait(startedAt - submittedAt);
+        try {
+            command.run();
+        } finally {
+            metrics.recordRun(System.nanoTime() - startedAt);
+            inFlight.decrementAndGet();
+            permits.release();
+            completedTasks.increment();
+            threads.remove(Thread.currentThread());
+        }
+    }
+
+    // False if shutdownNow took the task back before it got a permit. Any other interrupt while
+    // parked is not meant for the task, which keeps its place instead of being dropped.
+    private boolean acquirePermit() {
+        Thread self = Thread.currentThread();
+        while (true) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                if (parked.containsKey(self)) {
+                    continue;
+                }
+                waiting.decrementAndGet();
+                threads.remove(self);
+                return false;
+            }
+            waiting.decrementAndGet();
+            if (parked.remove(self) != null) {
+                return true;
+            }
+            permits.release();
+            threads.remove(self);
+            return false;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getMaxWaiting() {
+        return maxWaiting;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks.sum();
+    }
+
+    public long getRejectedTasks() {
+        return rejectedTasks.sum();
+    }
+
+    /**
+     * Fraction of permits in use; 1.0 means new tasks are parking on the semaphore.
+     */
+    public double getSaturation() {
+        return (double) inFlight.get() / maxConcurrency;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> neverRun = new ArrayList<>();
+        for (Thread thread : parked.keySet()) {
+            Runnable task = parked.remove(thread);
+            if (task != null) {
+                neverRun.add(task);
+            }
+        }
+        threads.forEach(Thread::interrupt);
+        return neverRun;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && threads.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread thread : threads) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !thread.join(Duration.ofNanos(remaining))) {
+                return isTerminated();
+            }
+        }
+        return isTerminated();
+    }
+}
@@ -1,44 +1,96 @@
 package com.example.config.concurrency;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import java.util.concurrent.*;
+import java.util.concurrent.ExecutorService;
 
+/**
+ * Service executors, one per blocking dependency (MySQL, Valkey, SMTP).
+ *
+ * How many tasks may be in flight against each dependency is not a fixed pool size but an
+ * {@link AdaptiveConcurrencyLimit} that follows the dependency's observed latency, between
+ * the configured {@code concurrency.limit.<dependency>.min} and {@code .max}. Work over the
+ * limit is refused with a 429 rather than queued.
+ *
+ * concurrency.executor-mode=platform (default) runs admitted tasks on a ThreadPoolExecutor
+ * sized to the maximum limit; concurrency.executor-mode=virtual runs each on a virtual thread.
+ *
+ * Either way every pool reports queue wait, run time, rejections and saturation through
+ * {@link ExecutorMetrics}.
+ */
 @Configuration
 public class ThreadPoolFactory {
+    private static final String VIRTUAL_MODE = "virtual";
+
+    @Value("${concurrency.executor-mode:platform}")
+    private String executorMode;
+
+    @Value("${concurrency.virtual.max-waiting:10000}")
+    private int maxWaiting;
+
+    @Value("${concurrency.limit.mysql.initial:10}")
+    private int mysqlInitialLimit;
+
+    @Value("${concurrency.limit.mysql.min:2}")
+    private int mysqlMinLimit;
+
+    @Value("${concurrency.limit.mysql.max:64}")
+    private int mysqlMaxLimit;
+
+    @Value("${concurrency.limit.redis.initial:20}")
+    private int redisInitialLimit;
+
+    @Value("${concurrency.limit.redis.min:4}")
+    private int redisMinLimit;
+
+    @Value("${concurrency.limit.redis.max:256}")
+    private int redisMaxLimit;
+
+    @Value("${concurrency.limit.smtp.initial:10}")
+    private int smtpInitialLimit;
+
+    @Value("${concurrency.limit.smtp.min:1}")
+    private int smtpMinLimit;
+
+    @Value("${concurrency.limit.smtp.max:32}")
+    private int smtpMaxLimit;
+
     @Bean(name = "emailServiceThreadPool")
-    public ExecutorService emailServiceThreadPool() {
-        return new ThreadPoolExecutor(
-            10, 
-            20,
-            60L, TimeUnit.SECONDS,
-            new ArrayBlockingQueue<>(100),
-            new CustomThreadFactory("email-service"),
-            new CustomRejectedExecutionHandler()
-        );
+    public ExecutorService emailServiceThreadPool(MeterRegistry meterRegistry) {
+        return executor("email-service", new AdaptiveConcurrencyLimit(smtpInitialLimit, smtpMinLimit, smtpMaxLimit),
+                        smtpMaxLimit, meterRegistry);
     }
 
     @Bean(name = "userServiceThreadPool")
-    public ExecutorService userServiceThreadPool() {
-        return new ThreadPoolExecutor(
-            10,
-            20,
-            60L, TimeUnit.SECONDS,
-            new ArrayBlockingQueue<>(200),
-            new CustomThreadFactory("user-service"),
-            new CustomRejectedExecutionHandler()
-        );
+    public ExecutorService userServiceThreadPool(MeterRegistry meterRegistry) {
+        return executor("user-service", new AdaptiveConcurrencyLimit(mysqlInitialLimit, mysqlMinLimit, mysqlMaxLimit),
+                        mysqlMaxLimit, meterRegistry);
     }
 
     @Bean(name = "redisServiceThreadPool")
-    public ExecutorService redisServiceThreadPool() {
-        return new ThreadPoolExecutor(
-            10, 
-            20, 
-            60L, TimeUnit.SECONDS,
-            new ArrayBlockingQueue<>(50),
-            new CustomThreadFactory("redis-service"),
-            new CustomRejectedExecutionHandler()
-        );
+    public ExecutorService redisServiceThreadPool(MeterRegistry meterRegistry) {
+        return executor("redis-service", new AdaptiveConcurrencyLimit(redisInitialLimit, redisMinLimit, redisMaxLimit),
+                        redisMaxLimit, meterRegistry);
+    }
+
+    // The runner can always take maxLimit tasks at once, so only the adaptive limit decides concurrency;
+    // in virtual mode the semaphore never parks a task and maxWaiting is a backstop, not the 429 path
+    private ExecutorService executor(String name, AdaptiveConcurrencyLimit limit, int maxLimit, MeterRegistry meterRegistry) {
+        ExecutorMetrics metrics = new ExecutorMetrics(meterRegistry, name);
+        ExecutorService runner;
+        if (isVirtualMode()) {
+            runner = new SemaphoreVirtualThreadExecutor(name, maxLimit, maxWaiting, metrics);
+        } else {
+            InstrumentedThreadPoolExecutor pool = new InstrumentedThreadPoolExecutor(name, maxLimit, maxLimit, 60L, maxLimit, metrics);
+            pool.allowCoreThreadTimeOut(true);
+            runner = pool;
+        }
+        return new AdaptiveLimitedExecutor(name, runner, limit, metrics);
+    }
+
+    private boolean isVirtualMode() {
+        return VIRTUAL_MODE.equalsIgnoreCase(executorMode);
     }
-} 
\ No newline at end of file
+}
@@ -2,27 +2,42 @@ package com.example.config.concurrency;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 
-@Component
+/**
+ * Periodic pool summary in the log, plus the {@code threadPools} health contributor. A
+ * saturated pool reports SATURATED, which is not part of the status order, so it shows up in
+ * the details without taking the instance out of rotation; per-task numbers for autoscaling
+ * come from {@link ExecutorMetrics}.
+ */
+@Component("threadPoolsHealthIndicator")
 @Slf4j
-public class ThreadPoolMonitor {
+public class ThreadPoolMonitor implements HealthIndicator {
+    private static final Status SATURATED = new Status("SATURATED", "At least one pool is at its thread or queue limit");
 
     private final ExecutorService userServiceThreadPool;
     private final ExecutorService emailServiceThreadPool;
     private final ExecutorService redisServiceThreadPool;
+    private final PasswordHashingExecutor passwordHashingExecutor;
 
     public ThreadPoolMonitor(
             @Qualifier("userServiceThreadPool") ExecutorService userServiceThreadPool,
             @Qualifier("emailServiceThreadPool") ExecutorService emailServiceThreadPool,
-            @Qualifier("redisServiceThreadPool") ExecutorService redisServiceThreadPool) {
+            @Qualifier("redisServiceThreadPool") ExecutorService redisServiceThreadPool,
+            PasswordHashingExecutor passwordHashingExecutor) {
             this.userServiceThreadPool = userServiceThreadPool;
             this.emailServiceThreadPool = emailServiceThreadPool;
             this.redisServiceThreadPool = redisServiceThreadPool;
+            this.passwordHashingExecutor = passwordHashingExecutor;
     }
 
     /**
@@ -34,10 +49,21 @@ public class ThreadPoolMonitor {
         logThreadPoolStatus("User Service", userServiceThreadPool);
         logThreadPoolStatus("Email Service", emailServiceThreadPool);
         logThreadPoolStatus("Redis Service", redisServiceThreadPool);
+        logThreadPoolStatus("Password Hashing", passwordHashingExecutor.getExecutor());
+        log.info("Password Hashing - Pending: {}, Rejected: {}, Avg Hash: {} ms, Avg Queue Wait: {} ms, Max Queue Wait: {} ms",
+                passwordHashingExecutor.getPendingTasks(),
+                passwordHashingExecutor.getRejectedTasks(),
+                String.format("%.1f", passwordHashingExecutor.getAverageHashMillis()),
+                String.format("%.1f", passwordHashingExecutor.getAverageQueueWaitMillis()),
+                String.format("%.1f", passwordHashingExecutor.getMaxQueueWaitMillis()));
         log.info("==========================");
     }
 
     private void logThreadPoolStatus(String name, ExecutorService executor) {
+        if (executor instanceof AdaptiveLimitedExecutor limited) {
+            log.info("{} - Limit: {}, In Flight: {}", name, limited.getLimit().getLimit(), limited.getLimit().getInFlight());
+            executor = limited.getDelegate();
+        }
         if (executor instanceof ThreadPoolExecutor threadPoolExecutor) {
             log.info("{} - Active: {}, Pool Size: {}, Core Pool Size: {}, Max Pool Size: {}, Queue Size: {}, Completed Tasks: {}",
                     name,
@@ -47,24 +73,78 @@ public class ThreadPoolMonitor {
                     threadPoolExecutor.getMaximumPoolSize(),
                     threadPoolExecutor.getQueue().size(),
                     threadPoolExecutor.getCompletedTaskCount());
+        } else if (executor instanceof SemaphoreVirtualThreadExecutor virtualExecutor) {
+            log.info("{} - Mode: virtual, In Flight: {}, Permits: {}, Waiting: {}, Max Waiting: {}, Saturation: {}%, Completed Tasks: {}, Rejected Tasks: {}",
+                    name,
+                    virtualExecutor.getInFlight(),
+                    virtualExecutor.getMaxConcurrency(),
+                    virtualExecutor.getWaiting(),
+                    virtualExecutor.getMaxWaiting(),
+                    Math.round(virtualExecutor.getSaturation() * 100),
+                    virtualExecutor.getCompletedTasks(),
+                    virtualExecutor.getRejectedTasks());
         } else {
             log.info("{} - Executor type not supported for detailed metrics", name);
         }
     }
 
+    @Override
+    public Health health() {
+        Map<String, Object> pools = new LinkedHashMap<>();
+        pools.put("user-service", describe(userServiceThreadPool));
+        pools.put("email-service", describe(emailServiceThreadPool));
+        pools.put("redis-service", describe(redisServiceThreadPool));
+        pools.put("password-hashing", describe(passwordHashingExecutor.getExecutor()));
+        return Health.status(isThreadPoolHealthy() ? Status.UP : SATURATED)
+                .withDetails(pools)
+                .build();
+    }
+
+    private Map<String, Object> describe(ExecutorService executor) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        ExecutorService runner = executor;
+        if (executor instanceof AdaptiveLimitedExecutor limited) {
+            details.put("limit", limited.getLimit().getLimit());
+            details.put("limitInFlight", limited.getLimit().getInFlight());
+            runner = limited.getDelegate();
+        }
+        if (runner instanceof ThreadPoolExecutor threadPoolExecutor) {
+            details.put("active", threadPoolExecutor.getActiveCount());
+            details.put("maxThreads", threadPoolExecutor.getMaximumPoolSize());
+            details.put("queued", threadPoolExecutor.getQueue().size());
+            details.put("queueRemaining", threadPoolExecutor.getQueue().remainingCapacity());
+        } else if (runner instanceof SemaphoreVirtualThreadExecutor virtualExecutor) {
+            details.put("inFlight", virtualExecutor.getInFlight());
+            details.put("permits", virtualExecutor.getMaxConcurrency());
+            details.put("waiting", virtualExecutor.getWaiting());
+            details.put("maxWaiting", virtualExecutor.getMaxWaiting());
+        }
+        details.put("healthy", isThreadPoolHealthy(executor));
+        return details;
+    }
+
     /**
      * Get thread pool health status
      */
     public boolean isThreadPoolHealthy() {
         return isThreadPoolHealthy(userServiceThreadPool) &&
                isThreadPoolHealthy(emailServiceThreadPool) &&
-               isThreadPoolHealthy(redisServiceThreadPool);
+               isThreadPoolHealthy(redisServiceThreadPool) &&
+               isThreadPoolHealthy(passwordHashingExecutor.getExecutor());
     }
 
     private boolean isThreadPoolHealthy(ExecutorService executor) {
+        if (executor instanceof AdaptiveLimitedExecutor limited) {
+            AdaptiveConcurrencyLimit limit = limited.getLimit();
+            return limit.getInFlight() < limit.getLimit();
+        }
         if (executor instanceof ThreadPoolExecutor threadPoolExecutor) {
             return threadPoolExecutor.getActiveCount() < threadPoolExecutor.getMaximumPoolSize();
         }
+        if (executor instanceof SemaphoreVirtualThreadExecutor virtualExecutor) {
+            // Parked tasks are fine; only a backlog approaching the rejection point is not.
+            return virtualExecutor.getWaiting() < virtualExecutor.getMaxWaiting() / 2;
+        }
         return true; // Assume healthy if we can't determine
     }
 } 
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.example.config.database;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Lets Connector/J rewrite a JDBC batch of INSERTs into multi-row statements; without it
+     * every batched row is still its own round trip. Set on the pool before it opens a
+     * connection, and only for MySQL URLs (H2 rejects unknown connection settings).
+     */
+    @Bean
+    public static BeanPostProcessor batchedStatementRewriter(
+            @Value("${datasource.rewrite-batched-statements:true}") boolean rewriteBatchedStatements) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (rewriteBatchedStatements && bean instanceof HikariDataSource hikari
+                        && hikari.getJdbcUrl() != null && hikari.getJdbcUrl().startsWith("jdbc:mysql:")) {
+                    hikari.addDataSourceProperty("rewriteBatchedStatements", "true");
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Wraps the application's DataSource (the Boot pool, or the replica router when replicas
+     * are configured) so statements run with the request's remaining budget as their query
+     * timeout. The pool underneath is still closed through its own bean definition.
+     */
+    @Bean
+    public static BeanPostProcessor deadlineQueryTimeouts(
+            @Value("${datasource.deadline-query-timeouts:true}") boolean deadlineQueryTimeouts) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (deadlineQueryTimeouts && "dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof DeadlineDataSource)) {
+                    return new DeadlineDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
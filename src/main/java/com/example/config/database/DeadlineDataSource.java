@@ -0,0 +1,79 @@
+package com.example.config.database;
+
+import com.example.common.RequestDeadline;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Gives every statement the calling request's remaining budget ({@link RequestDeadline}) as
+ * its JDBC query timeout, so a query cannot outlive the client waiting for it. JDBC timeouts
+ * are whole seconds; the budget is rounded up. Once the deadline has passed no statement is
+ * created at all.
+ *
+ * Statements created without a request deadline get no timeout. The timeout is set on every
+ * statement, not only bounded ones, because the driver may hand out a cached prepared
+ * statement that still carries the previous request's value. A query timeout Hibernate sets
+ * afterwards from a query hint still wins.
+ */
+public class DeadlineDataSource extends DelegatingDataSource {
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("createStatement", "prepareStatement", "prepareCall");
+
+    public DeadlineDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return withQueryTimeouts(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return withQueryTimeouts(super.getConnection(username, password));
+    }
+
+    private static Connection withQueryTimeouts(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(DeadlineDataSource.class.getClassLoader(), new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        break;
+                }
+                boolean createsStatement = STATEMENT_FACTORIES.contains(method.getName());
+                RequestDeadline deadline = RequestDeadline.current();
+                if (createsStatement && deadline.isExpired()) {
+                    throw new SQLTimeoutException("Request deadline passed before the statement was sent");
+                }
+                Object result;
+                try {
+                    result = method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+                if (createsStatement) {
+                    ((Statement) result).setQueryTimeout(timeoutSeconds(deadline));
+                }
+                return result;
+            });
+    }
+
+    private static int timeoutSeconds(RequestDeadline deadline) {
+        long remainingMillis = deadline.remainingMillis();
+        if (remainingMillis == Long.MAX_VALUE) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, (remainingMillis + 999) / 1000));
+    }
+}
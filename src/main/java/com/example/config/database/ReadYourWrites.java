@@ -0,0 +1,80 @@
+package com.example.config.database;
+
+import com.example.common.BoundedExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Keeps reads about a recently changed key (Long user ID, email) on the primary until every replica
+ * still eligible for routing must have caught up, so a user never reads back an older version
+ * of their own change. Keys are recorded wherever a user's row changes, including changes
+ * other nodes announce through the user change bus.
+ *
+ * Does nothing unless {@code datasource.replica.urls} is set.
+ */
+@Component
+public class ReadYourWrites {
+    private final BoundedExpiringCache<Object, Boolean> recentWrites;
+    private final int maxKeys;
+    private final long windowMillis;
+    private final boolean replicasEnabled;
+    private volatile long everythingPinnedUntilMillis;
+
+    public ReadYourWrites(
+            @Value("${datasource.replica.urls:}") String replicaUrls,
+            @Value("${datasource.read-your-writes.window-ms:2000}") long windowMillis,
+            @Value("${datasource.read-your-writes.max-keys:100000}") int maxKeys) {
+        this.replicasEnabled = !replicaUrls.isBlank();
+        this.windowMillis = windowMillis;
+        this.maxKeys = maxKeys;
+        this.recentWrites = new BoundedExpiringCache<>(maxKeys);
+    }
+
+    public void recordWrite(Object key) {
+        if (!replicasEnabled || key == null) {
+            return;
+        }
+        if (recentWrites.size() >= maxKeys) {
+            // The cache would drop arbitrary keys; pin everything rather than lose one
+            recordWriteToAll();
+        }
+        recentWrites.put(key, Boolean.TRUE, System.currentTimeMillis() + windowMillis);
+    }
+
+    /**
+     * For when the changed keys are unknown, e.g. a flush-all from another node.
+     */
+    public void recordWriteToAll() {
+        if (replicasEnabled) {
+            everythingPinnedUntilMillis = System.currentTimeMillis() + windowMillis;
+        }
+    }
+
+    public <T> T read(Object key, Supplier<T> query) {
+        return mustReadPrimary(key) ? ReplicaRoutingDataSource.onPrimary(query) : query.get();
+    }
+
+    /**
+     * Like {@link #read(Object, Supplier)}, but a replica answer matching {@code recheck} is
+     * confirmed against the primary; for answers a change from another node may have made
+     * stale, such as "no such user" right after a signup.
+     */
+    public <T> T read(Object key, Supplier<T> query, Predicate<T> recheck) {
+        if (mustReadPrimary(key)) {
+            return ReplicaRoutingDataSource.onPrimary(query);
+        }
+        T result = query.get();
+        return replicasEnabled && recheck.test(result) ? ReplicaRoutingDataSource.onPrimary(query) : result;
+    }
+
+    private boolean mustReadPrimary(Object key) {
+        if (!replicasEnabled) {
+            return false;
+        }
+        return System.currentTimeMillis() < everythingPinnedUntilMillis
+                || (key != null && recentWrites.get(key) != null);
+    }
+}
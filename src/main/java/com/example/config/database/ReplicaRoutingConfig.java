@@ -0,0 +1,92 @@
+package com.example.config.database;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read replicas, switched on by listing their JDBC URLs in {@code datasource.replica.urls}.
+ * The primary pool is then built here from the usual spring.datasource settings, and the
+ * application DataSource becomes a lazy proxy over {@link ReplicaRoutingDataSource}. Without
+ * the property Spring Boot's single pool is used as before.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "urls")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            MeterRegistry meterRegistry,
+            @Value("${datasource.replica.urls}") List<String> urls,
+            @Value("${datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${datasource.replica.pool-size:10}") int poolSize,
+            @Value("${datasource.replica.max-lag-ms:1000}") long maxLagMillis,
+            @Value("${datasource.replica.heartbeat-ms:250}") long heartbeatMillis) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String name = "replica-" + i;
+            replicas.put(name, replicaPool(name, urls.get(i).trim(), username, password, poolSize));
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMillis, heartbeatMillis);
+        for (ReplicaRoutingDataSource.Replica replica : routing.getReplicas()) {
+            Gauge.builder("datasource.replica.lag.ms", replica, ReplicaRoutingDataSource.Replica::getLagMillis)
+                    .description("Replication lag from the last heartbeat probe, -1 when unknown or unreachable")
+                    .tag("replica", replica.getName())
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("datasource.replica.reads", routing, ReplicaRoutingDataSource::getReplicaReads)
+                .description("Read-only transactions served by a replica")
+                .register(meterRegistry);
+        FunctionCounter.builder("datasource.replica.fallbacks", routing, ReplicaRoutingDataSource::getFallbackReads)
+                .description("Read-only transactions sent to the primary because no replica was eligible")
+                .register(meterRegistry);
+
+        routing.start();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    private static HikariDataSource replicaPool(String name, String url, String username, String password, int poolSize) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setMaximumPoolSize(poolSize);
+        pool.setReadOnly(true);
+        if (url.startsWith("jdbc:mysql:")) {
+            // Spring flips read-only around every read transaction; keep that client-side
+            // instead of two SET SESSION TRANSACTION round trips per read
+            pool.addDataSourceProperty("readOnlyPropagatesToServer", "false");
+        }
+        return pool;
+    }
+}
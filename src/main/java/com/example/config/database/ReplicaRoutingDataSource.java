@@ -0,0 +1,284 @@
+package com.example.config.database;
+
+import com.example.config.concurrency.CustomThreadFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hands out replica connections for read-only transactions and primary connections for
+ * everything else.
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy: a transaction's physical connection is
+ * then only fetched at its first statement, by which point the read-only flag is visible in
+ * TransactionSynchronizationManager. Work outside a transaction always uses the primary, and
+ * {@link #onPrimary} pins a block of work to the primary regardless.
+ *
+ * Lag is measured with a heartbeat row. Every round this node reads the primary's beat and
+ * each replica's copy of it, then advances the primary's. A replica whose copy is behind
+ * counts as lagging by the gap plus one heartbeat interval; both values come from the same
+ * writers' clocks, so node clock skew does not enter into it. Only replicas that answered the
+ * last probe within {@code maxLagMillis} are eligible, and of two eligible candidates the less
+ * lagged (then the less busy) one wins. With none eligible, or when a replica refuses a
+ * connection, the read goes to the primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    static final String HEARTBEAT_TABLE = "replication_heartbeat";
+
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final long heartbeatMillis;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    long maxLagMillis, long heartbeatMillis) {
+        this.primary = primary;
+        List<Replica> list = new ArrayList<>(replicas.size());
+        replicas.forEach((name, dataSource) -> list.add(new Replica(name, dataSource)));
+        this.replicas = Collections.unmodifiableList(list);
+        this.maxLagMillis = maxLagMillis;
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    /**
+     * Run {@code work} with every connection it opens coming from the primary, e.g. a read
+     * that is about to be written back.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (PRIMARY_PINNED.get() != null) {
+            return work.get();
+        }
+        PRIMARY_PINNED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY_PINNED.remove();
+        }
+    }
+
+    /**
+     * Create the heartbeat table if needed, take a first lag reading inline so replicas are
+     * usable once the context is up, then keep probing in the background.
+     */
+    public void start() {
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + HEARTBEAT_TABLE +
+                              " (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+        } catch (SQLException e) {
+            log.warn("Could not create {}; replicas stay unused until it exists. Reason: {}", HEARTBEAT_TABLE, e.getMessage());
+        }
+        refreshLag();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomThreadFactory("replica-lag"));
+        scheduler.scheduleWithFixedDelay(this::refreshLag, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PRIMARY_PINNED.get() == null && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Replica replica = pick();
+            if (replica != null) {
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaReads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.markDown(e);
+                }
+            }
+            fallbackReads.increment();
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    // Two eligible replicas from a random offset; fine for the handful of replicas a pool has
+    private Replica pick() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = ThreadLocalRandom.current().nextInt(size);
+        Replica best = null;
+        int candidates = 0;
+        for (int i = 0; i < size && candidates < 2; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isEligible(maxLagMillis)) {
+                candidates++;
+                if (best == null || replica.isPreferredOver(best)) {
+                    best = replica;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * One heartbeat round. Leaves the last readings in place if the primary cannot be reached,
+     * since there is nothing to measure against.
+     */
+    public void refreshLag() {
+        Long primaryBeat;
+        try (Connection connection = primary.getConnection()) {
+            primaryBeat = readBeat(connection);
+            advanceBeat(connection, primaryBeat);
+        } catch (SQLException e) {
+            log.warn("Replication heartbeat failed on the primary. Reason: {}", e.getMessage());
+            return;
+        }
+
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                Long replicaBeat = readBeat(connection);
+                if (primaryBeat == null || replicaBeat == null) {
+                    replica.update(Long.MAX_VALUE);
+                } else {
+                    replica.update(replicaBeat >= primaryBeat ? 0 : primaryBeat - replicaBeat + heartbeatMillis);
+                }
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+    }
+
+    private static Long readBeat(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT beat_millis FROM " + HEARTBEAT_TABLE + " WHERE id = 1")) {
+            return rs.next() ? rs.getLong(1) : null;
+        }
+    }
+
+    // GREATEST keeps the beat monotonic when several nodes with slightly different clocks write it
+    private static void advanceBeat(Connection connection, Long current) throws SQLException {
+        String sql = current == null
+            ? "INSERT INTO " + HEARTBEAT_TABLE + " (id, beat_millis) VALUES (1, ?)"
+            : "UPDATE " + HEARTBEAT_TABLE + " SET beat_millis = GREATEST(beat_millis, ?) WHERE id = 1";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, System.currentTimeMillis());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            // Another node inserted the row first; its beat is as good as ours
+            if (current != null) {
+                throw e;
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    public long getFallbackReads() {
+        return fallbackReads.sum();
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Could not close replica pool {}. Reason: {}", replica.name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        // Unknown until the first successful probe, so a new replica is not used blind
+        private volatile long lagMillis = Long.MAX_VALUE;
+        private volatile boolean up;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Lag from the last probe in milliseconds, or -1 while unknown or unreachable.
+         */
+        public long getLagMillis() {
+            long lag = lagMillis;
+            return up && lag != Long.MAX_VALUE ? lag : -1;
+        }
+
+        boolean isEligible(long maxLagMillis) {
+            return up && lagMillis <= maxLagMillis;
+        }
+
+        boolean isPreferredOver(Replica other) {
+            if (lagMillis != other.lagMillis) {
+                return lagMillis < other.lagMillis;
+            }
+            return activeConnections() < other.activeConnections();
+        }
+
+        private int activeConnections() {
+            if (dataSource instanceof HikariDataSource hikari) {
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return pool != null ? pool.getActiveConnections() : 0;
+            }
+            return 0;
+        }
+
+        private void update(long lag) {
+            lagMillis = lag;
+            if (!up) {
+                up = true;
+                log.info("Replica {} is reachable", name);
+            }
+        }
+
+        private void markDown(SQLException e) {
+            lagMillis = Long.MAX_VALUE;
+            if (up) {
+                up = false;
+                log.warn("Replica {} unreachable; reads fall back to the primary. Reason: {}", name, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.config.id;
+
+import com.example.common.SnowflakeIdGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    /**
+     * The one user-ID generator in the process. IDs are only unique per (worker, sequence),
+     * so every writer of user rows must share this bean; its worker ID comes from
+     * {@link WorkerIdLease}.
+     */
+    @Bean
+    public SnowflakeIdGenerator userIdGenerator() {
+        return new SnowflakeIdGenerator();
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.config.id;
+
+import com.example.common.SnowflakeIdGenerator;
+import com.example.config.concurrency.CustomThreadFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives this node a Snowflake worker ID no other live node holds, leased from Valkey.
+ *
+ * {@code id:worker:<n>} is claimed with SET NX PX and renewed every third of its TTL. Each
+ * renewal also records in {@code id:worker:<n>:hw} the latest timestamp the holder could
+ * issue before the lease runs out (its high-water mark plus one TTL; the exact mark on a
+ * clean release), and the next node to claim that worker ID starts its clock past it. The
+ * generator stops issuing once the local lease deadline passes without a renewal.
+ *
+ * {@code id-generator.worker-id} pins a fixed worker ID instead (single-node setups).
+ */
+@Component
+@Slf4j
+public class WorkerIdLease {
+    private static final String KEY_PREFIX = "id:worker:";
+
+    // KEYS[1] lease, KEYS[2] high-water; ARGV[1] owner, ARGV[2] ttl ms. Returns the recorded mark (0 if none), or -1 if taken.
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then " +
+        "  return tonumber(redis.call('GET', KEYS[2]) or '0') " +
+        "end " +
+        "return -1",
+        Long.class);
+
+    // KEYS[1] lease, KEYS[2] high-water; ARGV[1] owner, ARGV[2] ttl ms, ARGV[3] latest timestamp the holder may issue
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end " +
+        "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+        "redis.call('SET', KEYS[2], ARGV[3]) " +
+        "return 1",
+        Long.class);
+
+    // Same arguments as RENEW_SCRIPT; records the final mark and gives the worker ID back
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end " +
+        "redis.call('SET', KEYS[2], ARGV[3]) " +
+        "redis.call('DEL', KEYS[1]) " +
+        "return 1",
+        Long.class);
+
+    private final SnowflakeIdGenerator generator;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final int fixedWorkerId;
+    private final long leaseTtlMillis;
+    private final String owner = UUID.randomUUID().toString();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomThreadFactory("worker-id-lease"));
+
+    public WorkerIdLease(
+            SnowflakeIdGenerator generator,
+            StringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${id-generator.worker-id:-1}") int fixedWorkerId,
+            @Value("${id-generator.lease-ttl-ms:30000}") long leaseTtlMillis) {
+        this.generator = generator;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.fixedWorkerId = fixedWorkerId;
+        this.leaseTtlMillis = leaseTtlMillis;
+
+        Gauge.builder("id.generator.worker", generator, SnowflakeIdGenerator::getWorkerId)
+                .description("Snowflake worker ID held by this node, -1 if none")
+                .register(meterRegistry);
+        Gauge.builder("id.generator.ahead.ms", generator, SnowflakeIdGenerator::getAheadMillis)
+                .description("How far the ID clock runs ahead of wall time after a clock step back or sequence overflow")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (fixedWorkerId >= 0) {
+            generator.assign(fixedWorkerId, 0, Long.MAX_VALUE);
+            log.info("Snowflake worker ID pinned to {}", fixedWorkerId);
+            return;
+        }
+        // First attempt inline so IDs are available as soon as the context is up
+        renewOrAcquire();
+        long period = Math.max(1, leaseTtlMillis / 3);
+        scheduler.scheduleWithFixedDelay(this::renewOrAcquire, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void renewOrAcquire() {
+        try {
+            int workerId = generator.getWorkerId();
+            if (workerId >= 0 && renew(workerId)) {
+                return;
+            }
+            if (workerId >= 0) {
+                log.warn("Lost Snowflake worker ID {} lease, acquiring a new one", workerId);
+                generator.revoke();
+            }
+            acquire();
+        } catch (Exception e) {
+            // The generator keeps issuing until the current lease deadline, then fails fast
+            log.warn("Snowflake worker ID lease renewal failed. Reason: {}", e.getMessage());
+        }
+    }
+
+    private boolean renew(int workerId) {
+        long requestedAt = System.currentTimeMillis();
+        Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, keys(workerId),
+                owner, Long.toString(leaseTtlMillis), Long.toString(generator.getHighWaterMillis() + leaseTtlMillis));
+        if (renewed == null || renewed != 1) {
+            return false;
+        }
+        generator.extend(requestedAt + leaseTtlMillis);
+        return true;
+    }
+
+    private void acquire() {
+        int start = ThreadLocalRandom.current().nextInt(SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+        for (int i = 0; i <= SnowflakeIdGenerator.MAX_WORKER_ID; i++) {
+            int workerId = (start + i) & SnowflakeIdGenerator.MAX_WORKER_ID;
+            long requestedAt = System.currentTimeMillis();
+            Long highWater = stringRedisTemplate.execute(ACQUIRE_SCRIPT, keys(workerId), owner, Long.toString(leaseTtlMillis));
+            if (highWater != null && highWater >= 0) {
+                generator.assign(workerId, highWater > 0 ? highWater + 1 : 0, requestedAt + leaseTtlMillis);
+                log.info("Acquired Snowflake worker ID {}", workerId);
+                return;
+            }
+        }
+        log.error("All {} Snowflake worker IDs are leased; cannot generate IDs", SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+    }
+
+    private static List<String> keys(int workerId) {
+        return List.of(KEY_PREFIX + workerId, KEY_PREFIX + workerId + ":hw");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        int workerId = generator.getWorkerId();
+        if (fixedWorkerId >= 0 || workerId < 0) {
+            return;
+        }
+        generator.revoke();
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, keys(workerId),
+                    owner, Long.toString(leaseTtlMillis), Long.toString(generator.getHighWaterMillis()));
+        } catch (Exception e) {
+            log.warn("Could not release Snowflake worker ID {}; it expires in {} ms. Reason: {}",
+                    workerId, leaseTtlMillis, e.getMessage());
+        }
+    }
+}
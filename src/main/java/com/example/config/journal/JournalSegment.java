@@ -0,0 +1,405 @@
+package com.example.config.journal;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * One memory-mapped journal file: a 64-byte header followed by a fixed number of 64-byte
+ * records, appended in time order.
+ *
+ * Every record carries the position of the previous record in this segment with the same
+ * email hash and the same client IP, so the only in-memory index is a small table from each
+ * key to its newest record; a query walks the chain backwards, newest first, and stops at the
+ * start of its time range. The tables are rebuilt by scanning the records when a segment is
+ * reopened after a restart.
+ *
+ * A record is written field by field and made visible by its commit marker, written last. The
+ * pages are left to the OS to write back (they survive a process crash); {@link #force()} is
+ * called when the segment is sealed and on shutdown.
+ *
+ * A segment can also be made ahead of time as a spare ({@link #createSpare}): mapped, with a
+ * temporary {@code .spare} name and no start time, and {@link #activate activated} when it is
+ * needed, which only renames the file and writes the start into the header.
+ */
+final class JournalSegment {
+    static final int RECORD_SIZE = 64;
+    static final String PREFIX = "security-events-";
+    static final String SUFFIX = ".seg";
+    static final String SPARE_SUFFIX = ".spare";
+
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC = 0x53454a31; // "SEJ1"
+    private static final int COMMITTED = 0x434f4d54; // "COMT"
+
+    // Header layout
+    private static final int H_MAGIC = 0;
+    private static final int H_CAPACITY = 4;
+    private static final int H_START = 8;
+
+    // Record layout
+    private static final int TIMESTAMP = 0;
+    private static final int EMAIL_HASH = 8;
+    private static final int USER_ID = 16;
+    private static final int IP = 24;
+    private static final int PREV_BY_EMAIL = 40;
+    private static final int PREV_BY_IP = 44;
+    private static final int DETAIL = 48;
+    private static final int TYPE = 52;
+    private static final int HAS_IP = 53;
+    private static final int MARKER = 60;
+
+    private final Path file;
+    private final long startMillis;
+    private final int capacity;
+    private final MappedByteBuffer buffer;
+    private final KeyTable byEmail = new KeyTable();
+    private final KeyTable byIp = new KeyTable();
+    private volatile int count;
+    private volatile long lastMillis;
+
+    private JournalSegment(Path file, long startMillis, int capacity, MappedByteBuffer buffer) {
+        this.file = file;
+        this.startMillis = startMillis;
+        this.capacity = capacity;
+        this.buffer = buffer;
+        this.lastMillis = startMillis;
+    }
+
+    /**
+     * A new, empty segment. The file is sparse: only pages that records land on take disk space.
+     */
+    static JournalSegment create(Path directory, long startMillis, int capacity) throws IOException {
+        Path file = directory.resolve(PREFIX + startMillis + SUFFIX);
+        MappedByteBuffer buffer = map(file, capacity, StandardOpenOption.CREATE_NEW);
+        buffer.putLong(H_START, startMillis);
+        return new JournalSegment(file, startMillis, capacity, buffer);
+    }
+
+    /**
+     * A new, empty segment that takes no records until it is {@link #activate activated}.
+     */
+    static JournalSegment createSpare(Path directory, int capacity) throws IOException {
+        Path file = Files.createTempFile(directory, PREFIX, SUFFIX + SPARE_SUFFIX);
+        return new JournalSegment(file, 0, capacity, map(file, capacity, StandardOpenOption.CREATE));
+    }
+
+    /**
+     * Put a spare into service under its start time. The mapping survives the rename, so this
+     * costs no file creation or mapping.
+     */
+    JournalSegment activate(Path directory, long startMillis) throws IOException {
+        Path active = Files.move(file, directory.resolve(PREFIX + startMillis + SUFFIX));
+        buffer.putLong(H_START, startMillis);
+        return new JournalSegment(active, startMillis, capacity, buffer);
+    }
+
+    private static MappedByteBuffer map(Path file, int capacity, StandardOpenOption create) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, create, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        }
+        buffer.putInt(H_MAGIC, MAGIC);
+        buffer.putInt(H_CAPACITY, capacity);
+        return buffer;
+    }
+
+    /**
+     * Map an existing segment and rebuild its key tables from the committed records.
+     */
+    static JournalSegment open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Truncated journal segment " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        int capacity = buffer.getInt(H_CAPACITY);
+        if (buffer.getInt(H_MAGIC) != MAGIC || capacity <= 0
+                || HEADER_SIZE + (long) capacity * RECORD_SIZE > buffer.capacity()) {
+            throw new IOException("Not a journal segment: " + file);
+        }
+        JournalSegment segment = new JournalSegment(file, buffer.getLong(H_START), capacity, buffer);
+        int position = 0;
+        while (position < capacity && buffer.getInt(segment.offset(position) + MARKER) == COMMITTED) {
+            int offset = segment.offset(position);
+            long emailHash = buffer.getLong(offset + EMAIL_HASH);
+            if (emailHash != 0) {
+                segment.byEmail.put(emailHash, position);
+            }
+            if (buffer.get(offset + HAS_IP) != 0) {
+                segment.byIp.put(ipKey(segment.ip(position)), position);
+            }
+            segment.lastMillis = buffer.getLong(offset + TIMESTAMP);
+            position++;
+        }
+        segment.count = position;
+        return segment;
+    }
+
+    /**
+     * Append one record; the caller serialises appends and checks {@link #isFull()} first.
+     * Timestamps never go backwards within a segment, so a chain walk can stop at the first
+     * record older than its range.
+     *
+     * @param emailHash 0 when there is no email
+     * @param ip        16-byte address from {@link #ipBytes(String)}, or null
+     */
+    synchronized void append(long timestamp, long emailHash, long userId, byte[] ip, byte type, int detail) {
+        int position = count;
+        int offset = offset(position);
+        long ipKey = ip != null ? ipKey(ip) : 0;
+        long time = Math.max(timestamp, lastMillis);
+
+        buffer.putLong(offset + TIMESTAMP, time);
+        buffer.putLong(offset + EMAIL_HASH, emailHash);
+        buffer.putLong(offset + USER_ID, userId);
+        if (ip != null) {
+            buffer.put(offset + IP, ip);
+        }
+        buffer.putInt(offset + PREV_BY_EMAIL, emailHash != 0 ? byEmail.get(emailHash) : -1);
+        buffer.putInt(offset + PREV_BY_IP, ip != null ? byIp.get(ipKey) : -1);
+        buffer.putInt(offset + DETAIL, detail);
+        buffer.put(offset + TYPE, type);
+        buffer.put(offset + HAS_IP, (byte) (ip != null ? 1 : 0));
+        buffer.putInt(offset + MARKER, COMMITTED);
+
+        if (emailHash != 0) {
+            byEmail.put(emailHash, position);
+        }
+        if (ip != null) {
+            byIp.put(ipKey, position);
+        }
+        lastMillis = time;
+        count = position + 1;
+    }
+
+    synchronized int latestByEmail(long emailHash) {
+        return byEmail.get(emailHash);
+    }
+
+    synchronized int latestByIp(byte[] ip) {
+        return byIp.get(ipKey(ip));
+    }
+
+    // Records below count are immutable, so the reads below need no lock
+
+    long timestamp(int position) {
+        return buffer.getLong(offset(position) + TIMESTAMP);
+    }
+
+    int previousByEmail(int position) {
+        return buffer.getInt(offset(position) + PREV_BY_EMAIL);
+    }
+
+    int previousByIp(int position) {
+        return buffer.getInt(offset(position) + PREV_BY_IP);
+    }
+
+    byte type(int position) {
+        return buffer.get(offset(position) + TYPE);
+    }
+
+    boolean hasIp(int position, byte[] ip) {
+        return buffer.get(offset(position) + HAS_IP) != 0 && Arrays.equals(ip(position), ip);
+    }
+
+    SecurityEvent read(int position) {
+        int offset = offset(position);
+        long userId = buffer.getLong(offset + USER_ID);
+        return new SecurityEvent(
+                buffer.getLong(offset + TIMESTAMP),
+                SecurityEventType.of(buffer.get(offset + TYPE)),
+                userId >= 0 ? Long.toString(userId) : null,
+                buffer.get(offset + HAS_IP) != 0 ? formatIp(ip(position)) : null,
+                buffer.getInt(offset + DETAIL));
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    int size() {
+        return count;
+    }
+
+    long startMillis() {
+        return startMillis;
+    }
+
+    long lastMillis() {
+        return lastMillis;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Remove the file. The mapping itself is released when the segment is garbage collected;
+     * until then the pages stay readable, so a query still walking it is unaffected.
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private int offset(int position) {
+        return HEADER_SIZE + position * RECORD_SIZE;
+    }
+
+    private byte[] ip(int position) {
+        byte[] ip = new byte[16];
+        buffer.get(offset(position) + IP, ip);
+        return ip;
+    }
+
+    /**
+     * A client IP as 16 bytes (IPv4 as an IPv4-mapped IPv6 address), or null if it is not an
+     * address literal. Never does a DNS lookup.
+     */
+    static byte[] ipBytes(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return null;
+        }
+        byte[] ipv4 = parseIpv4(ip);
+        if (ipv4 != null) {
+            return mapped(ipv4);
+        }
+        int zone = ip.indexOf('%');
+        String literal = zone < 0 ? ip : ip.substring(0, zone);
+        if (literal.indexOf(':') < 0 || !literal.chars().allMatch(c -> Character.digit(c, 16) >= 0 || c == ':' || c == '.')) {
+            return null;
+        }
+        try {
+            // Bracketed, so anything that is not an IPv6 literal is rejected instead of resolved
+            byte[] address = InetAddress.getByName('[' + literal + ']').getAddress();
+            return address.length == 4 ? mapped(address) : address;
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        byte[] address = new byte[4];
+        int part = 0;
+        int value = -1;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return null;
+                }
+            } else if (c == '.' && value >= 0 && part < 3) {
+                address[part++] = (byte) value;
+                value = -1;
+            } else {
+                return null;
+            }
+        }
+        if (part != 3 || value < 0) {
+            return null;
+        }
+        address[3] = (byte) value;
+        return address;
+    }
+
+    private static byte[] mapped(byte[] ipv4) {
+        byte[] address = new byte[16];
+        address[10] = (byte) 0xff;
+        address[11] = (byte) 0xff;
+        System.arraycopy(ipv4, 0, address, 12, 4);
+        return address;
+    }
+
+    private static String formatIp(byte[] address) {
+        try {
+            // IPv4-mapped addresses come back as Inet4Address, i.e. dotted quads
+            return InetAddress.getByAddress(address).getHostAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static long ipKey(byte[] address) {
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 8; i++) {
+            high = high << 8 | (address[i] & 0xff);
+            low = low << 8 | (address[i + 8] & 0xff);
+        }
+        return mix(high * 0x9e3779b97f4a7c15L ^ mix(low));
+    }
+
+    // splitmix64 finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Open-addressing map from a 64-bit key to the newest record position, -1 when absent.
+     */
+    private static final class KeyTable {
+        private long[] keys = new long[64];
+        private int[] positions = new int[64];
+        private int size;
+        private boolean hasZeroKey;
+        private int zeroKeyPosition;
+
+        int get(long key) {
+            if (key == 0) {
+                return hasZeroKey ? zeroKeyPosition : -1;
+            }
+            int mask = keys.length - 1;
+            for (int slot = (int) mix(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return positions[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int position) {
+            if (key == 0) {
+                hasZeroKey = true;
+                zeroKeyPosition = position;
+                return;
+            }
+            if (size * 2 >= keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = (int) mix(key) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                size++;
+            }
+            positions[slot] = position;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldPositions = positions;
+            keys = new long[oldKeys.length * 2];
+            positions = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldPositions[i]);
+                }
+            }
+        }
+    }
+}
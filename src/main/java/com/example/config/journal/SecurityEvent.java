@@ -0,0 +1,12 @@
+package com.example.config.journal;
+
+/**
+ * One journal entry as returned by a query. The email itself is not stored, only its hash,
+ * so a query by email answers with events but never reveals addresses.
+ *
+ * @param userId null when the account is unknown
+ * @param ip     null when the event did not come from a request
+ * @param detail type-specific, see {@link SecurityEventType}; 0 otherwise
+ */
+public record SecurityEvent(long timestamp, SecurityEventType type, String userId, String ip, int detail) {
+}
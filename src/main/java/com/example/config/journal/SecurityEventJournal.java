@@ -0,0 +1,322 @@
+package com.example.config.journal;
+
+import com.example.common.LogManager;
+import com.example.common.ScalableBloomFilter;
+import com.example.config.concurrency.CustomThreadFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of security events (logins, revocations, OTP sends, registrations),
+ * queryable per user or per client IP in milliseconds instead of by grepping rotated logs.
+ *
+ * Events go into {@link JournalSegment}s under {@code security-journal.dir}: a new segment is
+ * started every {@code security-journal.segment-minutes} or when the current one holds
+ * {@code security-journal.segment-records} events, and whole segments are deleted once their
+ * newest event is older than {@code security-journal.retention-hours}. Segments found on
+ * startup are reopened for queries; writes always go to a fresh one.
+ *
+ * {@link #record} is called on request and password-hashing threads, so the lock it takes only
+ * covers the append and swapping segments. Syncing a sealed segment and creating the next one
+ * (a spare, renamed into place on the roll) happen on a background thread.
+ *
+ * Emails are stored only as a 64-bit hash of the normalised address. Recording never fails
+ * the caller: a write error is logged and counted.
+ */
+@Component
+@Slf4j
+public class SecurityEventJournal {
+    private static final int MAX_SEGMENT_RECORDS = 1 << 24;
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final long segmentMillis;
+    private final long retentionMillis;
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final ExecutorService maintenance =
+            Executors.newSingleThreadExecutor(new CustomThreadFactory("security-journal"));
+    private final AtomicReference<JournalSegment> spare = new AtomicReference<>();
+
+    // Oldest first; replaced, never mutated, so queries iterate a snapshot without locking
+    private volatile List<JournalSegment> segments = List.of();
+    private JournalSegment active;
+
+    public SecurityEventJournal(
+            MeterRegistry meterRegistry,
+            @Value("${security-journal.dir:logs/security-journal}") String directory,
+            @Value("${security-journal.segment-records:131072}") int segmentRecords,
+            @Value("${security-journal.segment-minutes:60}") long segmentMinutes,
+            @Value("${security-journal.retention-hours:168}") long retentionHours) {
+        this.directory = Paths.get(directory);
+        this.segmentRecords = Math.max(1, Math.min(segmentRecords, MAX_SEGMENT_RECORDS));
+        this.segmentMillis = TimeUnit.MINUTES.toMillis(segmentMinutes);
+        this.retentionMillis = TimeUnit.HOURS.toMillis(retentionHours);
+
+        FunctionCounter.builder("security.journal.events", recorded, LongAdder::sum)
+                .description("Security events written to the journal")
+                .register(meterRegistry);
+        FunctionCounter.builder("security.journal.failures", failures, LongAdder::sum)
+                .description("Security events lost because the journal could not be written")
+                .register(meterRegistry);
+        Gauge.builder("security.journal.segments", this, journal -> journal.segments.size())
+                .description("Journal segment files currently retained")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        List<JournalSegment> recovered = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                if (isSpareFile(file)) {
+                    // Left by a previous run; spares never hold records
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                if (!isSegmentFile(file)) {
+                    continue;
+                }
+                try {
+                    JournalSegment segment = JournalSegment.open(file);
+                    if (segment.lastMillis() < cutoff) {
+                        segment.delete();
+                    } else {
+                        recovered.add(segment);
+                    }
+                } catch (IOException e) {
+                    log.error("Skipping unreadable security journal segment {}. Reason: {}", file, e.getMessage());
+                }
+            }
+        }
+        recovered.sort(Comparator.comparingLong(JournalSegment::startMillis));
+        segments = List.copyOf(recovered);
+        inBackground(null);
+        log.info("Security event journal opened in {} with {} segments", directory.toAbsolutePath(), recovered.size());
+    }
+
+    /**
+     * @param email  hashed before it is stored; null for none
+     * @param userId null when the account is unknown
+     * @param ip     client address literal, or null
+     * @param detail type-specific, see {@link SecurityEventType}
+     */
+    public void record(SecurityEventType type, String email, Long userId, String ip, int detail) {
+        long emailHash = email != null ? emailHash(email) : 0;
+        byte[] address = JournalSegment.ipBytes(ip);
+        long user = userId != null ? userId : -1;
+        try {
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                writableSegment(now).append(now, emailHash, user, address, type.code(), detail);
+            }
+            recorded.increment();
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            LogManager.logSystemError("SECURITY_JOURNAL_WRITE_FAILED", e.getMessage(), e);
+        }
+    }
+
+    public void record(SecurityEventType type, String email, Long userId, String ip) {
+        record(type, email, userId, ip, 0);
+    }
+
+    /**
+     * Events for an email and/or a client IP between {@code fromMillis} and {@code toMillis}
+     * inclusive, newest first, optionally of one type. With both an email and an IP, only that
+     * user's events from that address.
+     *
+     * @throws IllegalArgumentException if neither is given, or the IP is not an address literal
+     */
+    public List<SecurityEvent> find(String email, String ip, SecurityEventType type, long fromMillis, long toMillis, int limit) {
+        boolean byEmail = email != null && !email.isBlank();
+        byte[] address = null;
+        if (ip != null && !ip.isBlank()) {
+            address = JournalSegment.ipBytes(ip.trim());
+            if (address == null) {
+                throw new IllegalArgumentException("Not an IP address: " + ip);
+            }
+        }
+        if (!byEmail && address == null) {
+            throw new IllegalArgumentException("An email or an IP is required");
+        }
+        long emailHash = byEmail ? emailHash(email) : 0;
+
+        List<SecurityEvent> events = new ArrayList<>();
+        List<JournalSegment> snapshot = segments;
+        for (int s = snapshot.size() - 1; s >= 0 && events.size() < limit; s--) {
+            JournalSegment segment = snapshot.get(s);
+            if (segment.startMillis() > toMillis || segment.lastMillis() < fromMillis) {
+                continue;
+            }
+            int position = byEmail ? segment.latestByEmail(emailHash) : segment.latestByIp(address);
+            while (position >= 0 && events.size() < limit) {
+                long timestamp = segment.timestamp(position);
+                if (timestamp < fromMillis) {
+                    break;
+                }
+                if (timestamp <= toMillis
+                        && (type == null || segment.type(position) == type.code())
+                        && (address == null || segment.hasIp(position, address))) {
+                    events.add(segment.read(position));
+                }
+                position = byEmail ? segment.previousByEmail(position) : segment.previousByIp(position);
+            }
+        }
+        return events;
+    }
+
+    @Scheduled(fixedDelayString = "${security-journal.retention-check-ms:60000}")
+    public void enforceRetention() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        List<JournalSegment> expired = new ArrayList<>();
+        synchronized (this) {
+            List<JournalSegment> kept = new ArrayList<>(segments.size());
+            for (JournalSegment segment : segments) {
+                if (segment != active && segment.lastMillis() < cutoff) {
+                    expired.add(segment);
+                } else {
+                    kept.add(segment);
+                }
+            }
+            if (expired.isEmpty()) {
+                return;
+            }
+            segments = List.copyOf(kept);
+        }
+        for (JournalSegment segment : expired) {
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                log.warn("Could not delete expired security journal segment. Reason: {}", e.getMessage());
+            }
+        }
+        log.info("Deleted {} expired security journal segments", expired.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        maintenance.shutdown();
+        try {
+            // Let syncs of sealed segments finish
+            maintenance.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (active != null) {
+                active.force();
+                active = null;
+            }
+        }
+        JournalSegment unused = spare.getAndSet(null);
+        if (unused != null) {
+            try {
+                unused.delete();
+            } catch (IOException e) {
+                log.warn("Could not delete spare security journal segment. Reason: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Called with the monitor held
+    private JournalSegment writableSegment(long now) throws IOException {
+        if (active != null && !active.isFull() && now - active.startMillis() < segmentMillis) {
+            return active;
+        }
+        // Segment files are named by start time, which must stay unique if the clock steps back
+        long start = now;
+        for (JournalSegment segment : segments) {
+            start = Math.max(start, segment.startMillis() + 1);
+        }
+        JournalSegment next = spare.getAndSet(null);
+        JournalSegment segment = next != null
+                ? next.activate(directory, start)
+                // No spare ready yet (first roll, or rolls faster than the background thread)
+                : JournalSegment.create(directory, start, segmentRecords);
+        List<JournalSegment> grown = new ArrayList<>(segments);
+        grown.add(segment);
+        segments = List.copyOf(grown);
+        inBackground(active);
+        active = segment;
+        return segment;
+    }
+
+    /**
+     * Sync {@code sealed} (if any) and make sure a spare is ready for the next roll, off the
+     * caller's thread. Once the journal is closing, the sync runs inline and no spare is made.
+     */
+    private void inBackground(JournalSegment sealed) {
+        try {
+            maintenance.execute(() -> {
+                if (sealed != null) {
+                    force(sealed);
+                }
+                prepareSpare();
+            });
+        } catch (RejectedExecutionException e) {
+            if (sealed != null) {
+                force(sealed);
+            }
+        }
+    }
+
+    private void prepareSpare() {
+        if (spare.get() != null) {
+            return;
+        }
+        try {
+            spare.set(JournalSegment.createSpare(directory, segmentRecords));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not pre-create a security journal segment; the next roll creates one inline. Reason: {}",
+                     e.getMessage());
+        }
+    }
+
+    private static void force(JournalSegment segment) {
+        try {
+            segment.force();
+        } catch (RuntimeException e) {
+            log.warn("Could not sync sealed security journal segment. Reason: {}", e.getMessage());
+        }
+    }
+
+    private static boolean isSegmentFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(JournalSegment.PREFIX) && name.endsWith(JournalSegment.SUFFIX);
+    }
+
+    private static boolean isSpareFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(JournalSegment.PREFIX) && name.endsWith(JournalSegment.SUFFIX + JournalSegment.SPARE_SUFFIX);
+    }
+
+    private static long emailHash(String email) {
+        long hash = ScalableBloomFilter.hash(email)[0];
+        return hash != 0 ? hash : 1;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.config.journal;
+
+/**
+ * Kinds of {@link SecurityEvent}. The code is what the journal stores, so existing codes must
+ * never be renumbered.
+ */
+public enum SecurityEventType {
+    LOGIN_SUCCEEDED(1),
+    /** Wrong password for an existing account */
+    LOGIN_FAILED(2),
+    /** Unknown, unverified or revoked account; no password was checked */
+    LOGIN_REJECTED(3),
+    /** Revoked after too many failures; detail is the failed attempt count */
+    ACCOUNT_REVOKED(4),
+    USER_REGISTERED(5),
+    OTP_SENT(6),
+    EMAIL_VERIFIED(7),
+    /** A rotated refresh token was presented again and its family revoked */
+    REFRESH_TOKEN_REUSED(8);
+
+    private static final SecurityEventType[] BY_CODE = new SecurityEventType[16];
+
+    static {
+        for (SecurityEventType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    SecurityEventType(int code) {
+        this.code = (byte) code;
+    }
+
+    byte code() {
+        return code;
+    }
+
+    static SecurityEventType of(byte code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.config.logging;
+
+import com.example.common.LogManager;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.event.Level;
+import org.springframework.stereotype.Component;
+
+/**
+ * Health of the {@link LogManager} event buffer:
+ *
+ *   logging.events.dropped   events lost because the buffer was full, tagged level
+ *   logging.events.sampled   INFO/DEBUG events skipped by sampling while the buffer was nearly full
+ *   logging.events.queued    events waiting for the writer
+ *   logging.events.capacity  buffer size, to read queued against
+ *
+ * A non-zero dropped rate means the log is incomplete; alert on it before relying on the log
+ * for an incident.
+ */
+@Component
+public class LogEventMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Level level : Level.values()) {
+            FunctionCounter.builder("logging.events.dropped", level, LogManager::getDroppedEvents)
+                    .description("Log events dropped because the event buffer was full")
+                    .tag("level", level.name())
+                    .register(registry);
+        }
+        FunctionCounter.builder("logging.events.sampled", LogManager.class, ignored -> LogManager.getSampledOutEvents())
+                .description("INFO and DEBUG log events skipped by overflow sampling")
+                .register(registry);
+        Gauge.builder("logging.events.queued", LogManager::getQueuedEvents)
+                .description("Log events waiting to be written")
+                .register(registry);
+        Gauge.builder("logging.events.capacity", LogManager::getBufferCapacity)
+                .description("Size of the log event buffer")
+                .register(registry);
+    }
+}
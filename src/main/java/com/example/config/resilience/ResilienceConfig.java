@@ -0,0 +1,31 @@
+package com.example.config.resilience;
+
+import com.example.exception.DeadlineExceededException;
+import com.example.exception.ServiceOverloadedException;
+import io.github.resilience4j.common.circuitbreaker.configuration.CircuitBreakerConfigCustomizer;
+import io.github.resilience4j.common.retry.configuration.RetryConfigCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * A request shed by an adaptive concurrency limit says nothing about the health of the
+ * database, and retrying it in place only adds to the overload. The "database" retry and
+ * circuit breaker therefore ignore ServiceOverloadedException and let it through to the
+ * client as 429 with Retry-After. The same goes for work dropped past its request deadline:
+ * nobody is waiting for a retry.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public RetryConfigCustomizer databaseRetryIgnoresOverload() {
+        return RetryConfigCustomizer.of("database", builder -> builder.ignoreExceptions(
+            ServiceOverloadedException.class, DeadlineExceededException.class));
+    }
+
+    @Bean
+    public CircuitBreakerConfigCustomizer databaseCircuitBreakerIgnoresOverload() {
+        return CircuitBreakerConfigCustomizer.of("database", builder -> builder.ignoreExceptions(
+            ServiceOverloadedException.class, DeadlineExceededException.class));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.config.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * BCrypt encoder whose cost is chosen from a per-hash latency budget instead of being
+ * hard-coded. The cost must be the same on every node, otherwise a user's hash would be
+ * rewritten back and forth depending on which node serves the login: the first node to
+ * calibrate publishes its cost in Valkey ({@value #SHARED_COST_KEY}) and every later node
+ * adopts it. Local calibration is only the fallback when Valkey is unreachable.
+ *
+ * The inherited {@link #upgradeEncoding(String)} reports stored hashes weaker than this cost,
+ * which is what drives rehash-on-login; stronger hashes are never downgraded.
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    private static final Logger logger = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+
+    // Cheap enough to sample a few times at startup; each +1 cost doubles the work from here
+    private static final int PROBE_COST = 8;
+    private static final int PROBE_SAMPLES = 5;
+    private static final String PROBE_PASSWORD = "calibration-Password1";
+
+    static final String SHARED_COST_KEY = "password-hashing:bcrypt-cost";
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Use the cluster-wide cost from Valkey, publishing this node's calibration if none is
+     * recorded yet. Delete the key to have the next node to start recalibrate.
+     */
+    public static CalibratedBCryptPasswordEncoder shared(StringRedisTemplate redis, long targetMillis, int minCost, int maxCost) {
+        try {
+            String recorded = redis.opsForValue().get(SHARED_COST_KEY);
+            if (recorded == null) {
+                CalibratedBCryptPasswordEncoder calibrated = calibrate(targetMillis, minCost, maxCost);
+                if (Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(SHARED_COST_KEY, Integer.toString(calibrated.getStrength())))) {
+                    return calibrated;
+                }
+                // Another node published first; everyone uses the value that was stored
+                recorded = redis.opsForValue().get(SHARED_COST_KEY);
+                if (recorded == null) {
+                    return calibrated;
+                }
+            }
+            int cost = Math.max(minCost, Math.min(maxCost, Integer.parseInt(recorded.trim())));
+            logger.info("BCrypt cost {} from {}", cost, SHARED_COST_KEY);
+            return new CalibratedBCryptPasswordEncoder(cost);
+        } catch (DataAccessException | NumberFormatException e) {
+            logger.warn("Shared BCrypt cost unavailable ({}); falling back to local calibration", e.toString());
+            return calibrate(targetMillis, minCost, maxCost);
+        }
+    }
+
+    /**
+     * Pick the highest cost in [minCost, maxCost] whose hash time stays within targetMillis.
+     */
+    public static CalibratedBCryptPasswordEncoder calibrate(long targetMillis, int minCost, int maxCost) {
+        double probeMillis = medianHashMillis(PROBE_COST);
+        int cost = minCost;
+        while (cost < maxCost && probeMillis * Math.pow(2, cost + 1 - PROBE_COST) <= targetMillis) {
+            cost++;
+        }
+
+        // The extrapolation ignores JIT warm-up and turbo effects; confirm once and step down if far off
+        double measuredMillis = medianHashMillis(cost);
+        if (measuredMillis > targetMillis * 1.5 && cost > minCost) {
+            cost--;
+            measuredMillis /= 2;
+        }
+
+        logger.info("BCrypt cost calibrated to {} (~{} ms per hash, target {} ms, allowed {}-{})",
+                cost, Math.round(measuredMillis), targetMillis, minCost, maxCost);
+        return new CalibratedBCryptPasswordEncoder(cost);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    private static double medianHashMillis(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        encoder.encode(PROBE_PASSWORD);
+        int samples = cost <= PROBE_COST ? PROBE_SAMPLES : 1;
+        double[] millis = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            encoder.encode(PROBE_PASSWORD);
+            millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+        return millis[samples / 2];
+    }
+}
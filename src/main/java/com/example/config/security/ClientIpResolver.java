@@ -0,0 +1,179 @@
+package com.example.config.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Client address as seen behind the reverse proxies listed in {@code security.trusted-proxies}
+ * (addresses or CIDR ranges; private and loopback ranges by default).
+ *
+ * Forwarding headers are only believed when the socket peer is a trusted proxy. X-Forwarded-For
+ * is then walked right to left and the first hop that is not a trusted proxy is the client:
+ * everything left of it was written by the client and can be anything. Without a trusted peer
+ * the socket address is used as is.
+ */
+@Component
+public class ClientIpResolver {
+    private final List<Cidr> trustedProxies;
+
+    public ClientIpResolver(
+            @Value("${security.trusted-proxies:127.0.0.0/8,::1/128,10.0.0.0/8,172.16.0.0/12,192.168.0.0/16,fc00::/7}")
+            List<String> trustedProxies) {
+        this.trustedProxies = new ArrayList<>(trustedProxies.size());
+        for (String proxy : trustedProxies) {
+            if (!proxy.isBlank()) {
+                this.trustedProxies.add(Cidr.parse(proxy.trim()));
+            }
+        }
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (!isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        List<String> hops = new ArrayList<>();
+        Enumeration<String> forwardedFor = request.getHeaders("X-Forwarded-For");
+        while (forwardedFor != null && forwardedFor.hasMoreElements()) {
+            for (String hop : forwardedFor.nextElement().split(",")) {
+                if (!hop.isBlank()) {
+                    hops.add(hop.trim());
+                }
+            }
+        }
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            if (!isTrusted(hops.get(i))) {
+                return hops.get(i);
+            }
+        }
+        if (!hops.isEmpty()) {
+            // Every hop is one of our proxies; the left-most is the closest thing to a client
+            return hops.get(0);
+        }
+
+        String xRealIP = request.getHeader("X-Real-IP");
+        if (xRealIP != null && !xRealIP.isBlank()) {
+            return xRealIP.trim();
+        }
+        return remoteAddr;
+    }
+
+    /**
+     * Client address of the request bound to the calling thread, or null off a request thread
+     * (pool threads, scheduled tasks). Capture it before handing work to an executor.
+     */
+    public String current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servlet ? resolve(servlet.getRequest()) : null;
+    }
+
+    private boolean isTrusted(String address) {
+        byte[] bytes = literal(address);
+        if (bytes == null) {
+            return false;
+        }
+        for (Cidr proxy : trustedProxies) {
+            if (proxy.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bytes of an IPv4 or IPv6 literal (4 or 16; IPv4-mapped IPv6 comes back as 4), or null.
+     * Never resolves a host name.
+     */
+    static byte[] literal(String address) {
+        if (address == null || address.isEmpty()) {
+            return null;
+        }
+        if (address.indexOf(':') < 0) {
+            return ipv4(address);
+        }
+        int zone = address.indexOf('%');
+        String literal = zone < 0 ? address : address.substring(0, zone);
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (Character.digit(c, 16) < 0 && c != ':' && c != '.') {
+                return null;
+            }
+        }
+        try {
+            // Bracketed, so anything that is not an IPv6 literal is rejected instead of resolved
+            return InetAddress.getByName('[' + literal + ']').getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    // Dotted quad only; InetAddress would send anything else to DNS
+    private static byte[] ipv4(String address) {
+        byte[] bytes = new byte[4];
+        int part = 0;
+        int value = -1;
+        for (int i = 0; i <= address.length(); i++) {
+            char c = i < address.length() ? address.charAt(i) : '.';
+            if (c == '.') {
+                if (value < 0 || part == 4) {
+                    return null;
+                }
+                bytes[part++] = (byte) value;
+                value = -1;
+            } else if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        return part == 4 ? bytes : null;
+    }
+
+    private record Cidr(byte[] network, int prefixLength) {
+
+        static Cidr parse(String value) {
+            int slash = value.indexOf('/');
+            byte[] network = literal(slash < 0 ? value : value.substring(0, slash));
+            if (network == null) {
+                throw new IllegalArgumentException("Invalid security.trusted-proxies entry: " + value);
+            }
+            int prefixLength = slash < 0 ? network.length * 8 : Integer.parseInt(value.substring(slash + 1));
+            if (prefixLength < 0 || prefixLength > network.length * 8) {
+                throw new IllegalArgumentException("Invalid security.trusted-proxies prefix: " + value);
+            }
+            return new Cidr(network, prefixLength);
+        }
+
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits) & 0xFF;
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
@@ -1,19 +1,23 @@
 package com.example.config.security;
 
+import com.example.common.AuthenticatedPrincipal;
 import com.example.common.JwtUtil;
+import com.example.common.LogManager;
 import com.example.common.MessageConstants;
+import com.example.common.VerifiedToken;
 import com.example.entity.User;
-import com.example.repository.UserRepository;
+import com.example.service.PrincipalCacheService;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -21,18 +25,21 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
-    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String ACCESS_TOKEN_TYPE = "access";
 
     private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
+    private final PrincipalCacheService principalCacheService;
+    private final ClientIpResolver clientIpResolver;
+
+    // Users granted ROLE_ADMIN (the /admin endpoints); there is no role column yet
+    @Value("${security.admin-user-ids:}")
+    private Set<Long> adminUserIds;
 
     @Override
     protected void doFilterInternal(
@@ -44,7 +51,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
         final String username;
-        final String userId;
+        final Long userId;
         
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -54,35 +61,54 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
         
         try {
-            username = jwtUtil.extractUsername(jwt);
-            userId = jwtUtil.extractUserId(jwt);
+            // Single verify-and-decode; signature and expiry are checked here (or served from cache)
+            VerifiedToken token = jwtUtil.verify(jwt);
+            username = token.subject();
+            userId = token.userId();
+
+            // Refresh tokens only go to /users/refresh, where rotation and reuse detection apply
+            if (!ACCESS_TOKEN_TYPE.equals(token.type())) {
+                logAuthFailure(request, userId, username, "Not an access token");
+                sendErrorResponse(response, 401, MessageConstants.INVALID_TOKEN);
+                return;
+            }
             
             if (username != null && userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 
-                User user = userRepository.findById(userId).orElse(null);
+                AuthenticatedPrincipal user = principalCacheService.getPrincipal(userId).orElse(null);
                 if (user == null) {
-                    String timestamp = LocalDateTime.now().format(formatter);
-                    logger.warn("[{}] JWT authentication failed - UserID: {}, Username: {}, Reason: User not found, IP: {}", 
-                               timestamp, userId, username, getClientIP(request));
+                    logAuthFailure(request, userId, username, "User not found");
                     sendErrorResponse(response, 401, MessageConstants.USER_NOT_FOUND_AUTH);
                     return;
                 }
                 
                 // Verify username matches (additional security check)
-                if (!user.getUsername().equals(username)) {
-                    String timestamp = LocalDateTime.now().format(formatter);
-                    logger.warn("[{}] JWT authentication failed - UserID: {}, Username mismatch: {} vs {}, IP: {}", 
-                               timestamp, userId, username, user.getUsername(), getClientIP(request));
+                if (!user.username().equals(username)) {
+                    LogManager.atWarn("JWT_AUTH_FAILED")
+                        .withId("userId", userId)
+                        .with("username", username)
+                        .with("expectedUsername", user.username())
+                        .with("reason", "Username mismatch")
+                        .with("ip", getClientIP(request))
+                        .log();
                     sendErrorResponse(response, 401, MessageConstants.INVALID_TOKEN);
                     return;
                 }
+
+                if (user.status() == User.Status.revoked) {
+                    logAuthFailure(request, userId, username, "Account revoked");
+                    sendErrorResponse(response, 403, MessageConstants.ACCOUNT_REVOKED);
+                    return;
+                }
                 
-                if (jwtUtil.validateToken(jwt, username)) {
+                if (!token.isExpired()) {
                     
                     UserDetails userDetails = createUserDetails(user);
                     
+                    // Three-argument form: the two-argument one yields an unauthenticated token
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
+                        null,
                         userDetails.getAuthorities()
                     );
                     
@@ -90,23 +116,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 } else {
-                    String timestamp = LocalDateTime.now().format(formatter);
-                    logger.warn("[{}] JWT authentication failed - UserID: {}, Username: {}, Reason: Invalid token, IP: {}", 
-                               timestamp, userId, username, getClientIP(request));
+                    logAuthFailure(request, userId, username, "Invalid token");
                     sendErrorResponse(response, 401, MessageConstants.INVALID_TOKEN);
                     return;
                 }
             }
         } catch (Exception e) {
-            String timestamp = LocalDateTime.now().format(formatter);
-            logger.error("[{}] JWT token validation system error - IP: {}, Error: {}", 
-                        timestamp, getClientIP(request), e.getMessage(), e);
+            LogManager.atError("JWT_VALIDATION_ERROR").with("ip", getClientIP(request)).error(e).log();
             sendErrorResponse(response, 401, MessageConstants.MALFORMED_TOKEN);
             return;
         }
         
         filterChain.doFilter(request, response);
     }
+
+    private void logAuthFailure(HttpServletRequest request, Long userId, String username, String reason) {
+        LogManager.atWarn("JWT_AUTH_FAILED")
+            .withId("userId", userId)
+            .with("username", username)
+            .with("reason", reason)
+            .with("ip", getClientIP(request))
+            .log();
+    }
     
     private void sendErrorResponse(HttpServletResponse response, int status, String message) throws IOException {
         response.setStatus(status);
@@ -121,10 +152,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         response.getWriter().write(errorJson);
     }
     
-    private UserDetails createUserDetails(User user) {
+    private UserDetails createUserDetails(AuthenticatedPrincipal user) {
+        List<GrantedAuthority> authorities = adminUserIds.contains(user.userId())
+                ? List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))
+                : List.of();
         return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .authorities(new ArrayList<>()) 
+                .username(user.username())
+                .password("")
+                .authorities(authorities)
                 .accountExpired(false)
                 .accountLocked(false)
                 .credentialsExpired(false)
@@ -133,16 +168,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
     
     private String getClientIP(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty() && !"unknown".equalsIgnoreCase(xForwardedFor)) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        
-        String xRealIP = request.getHeader("X-Real-IP");
-        if (xRealIP != null && !xRealIP.isEmpty() && !"unknown".equalsIgnoreCase(xRealIP)) {
-            return xRealIP;
-        }
-        
-        return request.getRemoteAddr();
+        return clientIpResolver.resolve(request);
     }
 } 
\ No newline at end of file
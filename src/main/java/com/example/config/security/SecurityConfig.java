@@ -1,14 +1,13 @@
 package com.example.config.security;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -16,23 +15,24 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.example.common.LogManager;
 import com.example.common.MessageConstants;
+import com.example.config.security.ratelimit.RateLimitFilter;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
-    private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
+    private final ClientIpResolver clientIpResolver;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, RateLimitFilter rateLimitFilter, ClientIpResolver clientIpResolver) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.rateLimitFilter = rateLimitFilter;
+        this.clientIpResolver = clientIpResolver;
     }
 
     @Bean
@@ -44,10 +44,13 @@ public class SecurityConfig {
                 session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
             .authorizeHttpRequests(auth -> auth
+                .requestMatchers("/admin/**").hasRole("ADMIN")
                 .requestMatchers("users/**").permitAll() 
             )
 
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            // Refuse over-limit requests before any token, DB or BCrypt work
+            .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class)
             .headers(headers -> headers
                 .frameOptions(frameOptions -> frameOptions.deny())
                 .contentTypeOptions(contentTypeOptions -> {})
@@ -63,9 +66,12 @@ public class SecurityConfig {
             )
             .exceptionHandling(exceptionHandling -> exceptionHandling
                 .authenticationEntryPoint((request, response, authException) -> {
-                    String timestamp = LocalDateTime.now().format(formatter);
-                    logger.warn("[{}] Authentication required - URI: {}, Method: {}, IP: {}, Error: {}", 
-                               timestamp, request.getRequestURI(), request.getMethod(), getClientIP(request), authException.getMessage());
+                    LogManager.atWarn("AUTHENTICATION_REQUIRED")
+                        .with("uri", request.getRequestURI())
+                        .with("method", request.getMethod())
+                        .with("ip", getClientIP(request))
+                        .with("reason", authException.getMessage())
+                        .log();
                     
                     response.setStatus(401);
                     response.setContentType("application/json");
@@ -78,9 +84,12 @@ public class SecurityConfig {
                     response.getWriter().write(errorJson);
                 })
                 .accessDeniedHandler((request, response, accessDeniedException) -> {
-                    String timestamp = LocalDateTime.now().format(formatter);
-                    logger.warn("[{}] Access denied - URI: {}, Method: {}, IP: {}, Error: {}", 
-                               timestamp, request.getRequestURI(), request.getMethod(), getClientIP(request), accessDeniedException.getMessage());
+                    LogManager.atWarn("ACCESS_DENIED")
+                        .with("uri", request.getRequestURI())
+                        .with("method", request.getMethod())
+                        .with("ip", getClientIP(request))
+                        .with("reason", accessDeniedException.getMessage())
+                        .log();
                     
                     response.setStatus(403);
                     response.setContentType("application/json");
@@ -129,22 +138,24 @@ public class SecurityConfig {
         return source;
     }
 
+    /**
+     * The only password encoder in the application. {@code password-hashing.cost} pins the
+     * BCrypt cost; otherwise every node uses the cost calibrated once and shared through Valkey.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12); 
+    public PasswordEncoder passwordEncoder(
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${password-hashing.cost:-1}") int pinnedCost,
+            @Value("${password-hashing.target-hash-millis:250}") long targetHashMillis,
+            @Value("${password-hashing.min-cost:10}") int minCost,
+            @Value("${password-hashing.max-cost:14}") int maxCost) {
+        if (pinnedCost > 0) {
+            return new CalibratedBCryptPasswordEncoder(pinnedCost);
+        }
+        return CalibratedBCryptPasswordEncoder.shared(stringRedisTemplate, targetHashMillis, minCost, maxCost);
     }
     
     private String getClientIP(jakarta.servlet.http.HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty() && !"unknown".equalsIgnoreCase(xForwardedFor)) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        
-        String xRealIP = request.getHeader("X-Real-IP");
-        if (xRealIP != null && !xRealIP.isEmpty() && !"unknown".equalsIgnoreCase(xRealIP)) {
-            return xRealIP;
-        }
-        
-        return request.getRemoteAddr();
+        return clientIpResolver.resolve(request);
     }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.example.config.security.ratelimit;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free per-key token bucket in GCRA form: each key is a single AtomicLong holding its
+ * theoretical arrival time (TAT). A request advances TAT by one emission interval and is
+ * allowed while TAT stays within {@code permits} intervals of now, so a key may burst up to
+ * {@code permits} requests and then gets one more every {@code period / permits}.
+ *
+ * A key whose TAT is in the past has a full bucket and carries no state worth keeping, which
+ * is what lets the map be swept when it reaches {@code maxKeys}. If every key is still
+ * mid-burst (a flood of distinct keys), the tenth with the oldest TAT goes: those are the keys
+ * that have spent the least, while a key being hammered keeps its TAT far in the future and
+ * therefore keeps its state. One thread sweeps at a time; requests for new keys that arrive
+ * meanwhile are inserted without waiting, so the map can briefly exceed {@code maxKeys}.
+ */
+public class GcraRateLimiter {
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    public GcraRateLimiter(int permits, Duration period, int maxKeys) {
+        this.emissionIntervalNanos = period.toNanos() / permits;
+        this.burstToleranceNanos = emissionIntervalNanos * permits;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * @return 0 if the request is allowed, otherwise nanoseconds until this key may retry
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            if (buckets.size() >= maxKeys && sweeping.compareAndSet(false, true)) {
+                try {
+                    evictIdle(now);
+                } finally {
+                    sweeping.set(false);
+                }
+            }
+            tat = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long excess = next - now - burstToleranceNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private void evictIdle(long now) {
+        buckets.values().removeIf(tat -> tat.get() - now <= 0);
+        if (buckets.size() < maxKeys) {
+            return;
+        }
+        long[] tats = buckets.values().stream().mapToLong(AtomicLong::get).toArray();
+        if (tats.length == 0) {
+            return;
+        }
+        Arrays.sort(tats);
+        long cutoff = tats[Math.min(tats.length - 1, Math.max(0, tats.length / 10 - 1))];
+        buckets.values().removeIf(tat -> tat.get() - cutoff <= 0);
+    }
+}
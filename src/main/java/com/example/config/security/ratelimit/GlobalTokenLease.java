@@ -0,0 +1,126 @@
+package com.example.config.security.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster-wide token bucket kept in Valkey and consumed locally in leased chunks.
+ *
+ * Requests only touch a local AtomicLong. When the lease drops below half a chunk, one
+ * background script call refills it from the shared bucket, so the request path never waits
+ * on Valkey. If Valkey reports the bucket empty, requests are refused until its refill time;
+ * if Valkey is unreachable (or no lease has been granted yet) the global tier fails open and
+ * the per-key tiers remain the only limit.
+ */
+@Slf4j
+public class GlobalTokenLease {
+    private static final long MIN_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // KEYS[1] bucket, ARGV[1] capacity, ARGV[2] tokens per second, ARGV[3] tokens wanted.
+    // Returns {granted, retryAfterMillis}; the server clock keeps every node on one timeline.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LEASE_SCRIPT = new DefaultRedisScript<>(
+        "local capacity = tonumber(ARGV[1]) " +
+        "local rate = tonumber(ARGV[2]) " +
+        "local wanted = tonumber(ARGV[3]) " +
+        "local time = redis.call('TIME') " +
+        "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+        "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+        "local tokens = tonumber(state[1]) or capacity " +
+        "local ts = tonumber(state[2]) or now " +
+        "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000) " +
+        "local granted = math.min(wanted, math.floor(tokens)) " +
+        "tokens = tokens - granted " +
+        "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now) " +
+        "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000) " +
+        "if granted > 0 then return {granted, 0} end " +
+        "return {0, math.ceil((1 - tokens) * 1000 / rate)}",
+        List.class);
+
+    private final String key;
+    private final int permitsPerSecond;
+    private final int chunk;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Executor refillExecutor;
+
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private volatile boolean leaseAvailable;
+    private volatile long exhaustedUntilNanos = System.nanoTime();
+
+    public GlobalTokenLease(String key, int permitsPerSecond, StringRedisTemplate stringRedisTemplate, Executor refillExecutor) {
+        this.key = key;
+        this.permitsPerSecond = permitsPerSecond;
+        // ~50 ms of cluster capacity per lease keeps Valkey traffic low without starving other nodes
+        this.chunk = Math.max(1, permitsPerSecond / 20);
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.refillExecutor = refillExecutor;
+    }
+
+    /**
+     * @return 0 if the request is allowed, otherwise nanoseconds until the shared bucket refills
+     */
+    public long tryAcquire() {
+        long available;
+        do {
+            available = tokens.get();
+            if (available <= 0) {
+                break;
+            }
+        } while (!tokens.compareAndSet(available, available - 1));
+
+        if (available > 0) {
+            if (available - 1 < chunk / 2) {
+                refillAsync();
+            }
+            return 0;
+        }
+
+        refillAsync();
+        if (!leaseAvailable) {
+            return 0;
+        }
+        return Math.max(exhaustedUntilNanos - System.nanoTime(), MIN_RETRY_NANOS);
+    }
+
+    private void refillAsync() {
+        if (System.nanoTime() - exhaustedUntilNanos < 0 || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refillExecutor.execute(this::refill);
+        } catch (RuntimeException e) {
+            refilling.set(false);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void refill() {
+        try {
+            List<Long> result = stringRedisTemplate.execute(LEASE_SCRIPT, List.of(key),
+                    Integer.toString(permitsPerSecond), Integer.toString(permitsPerSecond), Integer.toString(chunk));
+            long granted = result.get(0);
+            if (granted > 0) {
+                tokens.addAndGet(granted);
+            } else {
+                exhaustedUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(result.get(1));
+            }
+            leaseAvailable = true;
+        } catch (Exception e) {
+            if (leaseAvailable) {
+                log.warn("Global rate limit lease for {} unavailable, failing open: {}", key, e.getMessage());
+            }
+            leaseAvailable = false;
+        } finally {
+            refilling.set(false);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.config.security.ratelimit;
+
+import com.example.common.MessageConstants;
+import com.example.config.security.ClientIpResolver;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds abusive traffic on the unauthenticated write endpoints before it reaches the
+ * service pools, the database or BCrypt.
+ *
+ * Each endpoint has up to three tiers, checked cheapest first: a per-client-IP bucket, the
+ * cluster-wide bucket leased from Valkey, and a per-target-email bucket (read from the small
+ * JSON body). All checks are local atomics, so a refused request costs microseconds and gets
+ * 429 with Retry-After. A limit of 0 disables that tier.
+ *
+ * When the per-email tier is on, the body is always read (chunked or not) and a body larger
+ * than {@value #MAX_INSPECTED_BODY_BYTES} bytes gets 413, so padding or omitting
+ * Content-Length cannot skip the check.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+    private static final int MAX_INSPECTED_BODY_BYTES = 16 * 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Map<String, EndpointLimits> limitsByPath;
+    private final ClientIpResolver clientIpResolver;
+
+    public RateLimitFilter(
+            ClientIpResolver clientIpResolver,
+            StringRedisTemplate stringRedisTemplate,
+            @Qualifier("redisServiceThreadPool") ExecutorService redisServiceThreadPool,
+            MeterRegistry meterRegistry,
+            @Value("${rate-limit.max-keys:100000}") int maxKeys,
+            @Value("${rate-limit.login.ip-per-minute:30}") int loginIpPerMinute,
+            @Value("${rate-limit.login.email-per-minute:10}") int loginEmailPerMinute,
+            @Value("${rate-limit.login.global-per-second:500}") int loginGlobalPerSecond,
+            @Value("${rate-limit.sign-up.ip-per-minute:10}") int signUpIpPerMinute,
+            @Value("${rate-limit.sign-up.email-per-minute:5}") int signUpEmailPerMinute,
+            @Value("${rate-limit.sign-up.global-per-second:100}") int signUpGlobalPerSecond,
+            @Value("${rate-limit.send-otp.ip-per-minute:10}") int sendOtpIpPerMinute,
+            @Value("${rate-limit.send-otp.email-per-minute:3}") int sendOtpEmailPerMinute,
+            @Value("${rate-limit.send-otp.global-per-second:100}") int sendOtpGlobalPerSecond) {
+        this.clientIpResolver = clientIpResolver;
+        EndpointLimitsFactory factory = new EndpointLimitsFactory(stringRedisTemplate, redisServiceThreadPool, meterRegistry, maxKeys);
+        this.limitsByPath = Map.of(
+            "/users/login", factory.create("login", loginIpPerMinute, loginEmailPerMinute, loginGlobalPerSecond),
+            "/users/sign-up", factory.create("sign-up", signUpIpPerMinute, signUpEmailPerMinute, signUpGlobalPerSecond),
+            "/users/send-otp", factory.create("send-otp", sendOtpIpPerMinute, sendOtpEmailPerMinute, sendOtpGlobalPerSecond)
+        );
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !limitsByPath.containsKey(pathOf(request));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        EndpointLimits limits = limitsByPath.get(pathOf(request));
+
+        if (limits.perIp() != null && reject(response, limits.perIp().tryAcquire(clientIpResolver.resolve(request)), limits.ipRejected())) {
+            return;
+        }
+        if (limits.global() != null && reject(response, limits.global().tryAcquire(), limits.globalRejected())) {
+            return;
+        }
+
+        HttpServletRequest forwarded = request;
+        if (limits.perEmail() != null) {
+            if (request.getContentLengthLong() > MAX_INSPECTED_BODY_BYTES) {
+                sendError(response, 413, MessageConstants.PAYLOAD_TOO_LARGE);
+                return;
+            }
+            CachedBodyHttpServletRequest cached = CachedBodyHttpServletRequest.read(request, MAX_INSPECTED_BODY_BYTES);
+            if (cached == null) {
+                sendError(response, 413, MessageConstants.PAYLOAD_TOO_LARGE);
+                return;
+            }
+            forwarded = cached;
+            String email = extractEmail(cached.getBody());
+            if (email != null && reject(response, limits.perEmail().tryAcquire(email), limits.emailRejected())) {
+                return;
+            }
+        }
+
+        filterChain.doFilter(forwarded, response);
+    }
+
+    private boolean reject(HttpServletResponse response, long retryAfterNanos, Counter rejected) throws IOException {
+        if (retryAfterNanos <= 0) {
+            return false;
+        }
+        rejected.increment();
+        long retryAfterSeconds = Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        sendError(response, 429, MessageConstants.TOO_MANY_REQUESTS);
+        return true;
+    }
+
+    private static void sendError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"code\":" + status + ",\"message\":\"" + message + "\",\"data\":null}");
+    }
+
+    /**
+     * Top-level "email" string of the JSON body, lower-cased, or null if absent or unparsable
+     * (binding and validation will reject the request later anyway).
+     */
+    private static String extractEmail(byte[] body) {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("email".equals(field) && value == JsonToken.VALUE_STRING) {
+                    return parser.getText().trim().toLowerCase(Locale.ROOT);
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private record EndpointLimits(
+            GcraRateLimiter perIp,
+            GcraRateLimiter perEmail,
+            GlobalTokenLease global,
+            Counter ipRejected,
+            Counter emailRejected,
+            Counter globalRejected) {
+    }
+
+    private record EndpointLimitsFactory(
+            StringRedisTemplate stringRedisTemplate,
+            ExecutorService refillExecutor,
+            MeterRegistry meterRegistry,
+            int maxKeys) {
+
+        EndpointLimits create(String endpoint, int ipPerMinute, int emailPerMinute, int globalPerSecond) {
+            return new EndpointLimits(
+                ipPerMinute > 0 ? new GcraRateLimiter(ipPerMinute, MINUTE, maxKeys) : null,
+                emailPerMinute > 0 ? new GcraRateLimiter(emailPerMinute, MINUTE, maxKeys) : null,
+                globalPerSecond > 0
+                    ? new GlobalTokenLease("rate_limit:global:" + endpoint, globalPerSecond, stringRedisTemplate, refillExecutor)
+                    : null,
+                rejectedCounter(endpoint, "ip"),
+                rejectedCounter(endpoint, "email"),
+                rejectedCounter(endpoint, "global"));
+        }
+
+        private Counter rejectedCounter(String endpoint, String tier) {
+            return Counter.builder("rate.limit.rejected")
+                    .description("Requests refused with 429 by the rate limiter")
+                    .tag("endpoint", endpoint)
+                    .tag("tier", tier)
+                    .register(meterRegistry);
+        }
+    }
+}
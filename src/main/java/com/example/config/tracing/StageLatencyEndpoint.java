@@ -0,0 +1,32 @@
+package com.example.config.tracing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/stages}: per-stage latency percentiles for the login and signup pipelines,
+ * and {@code /actuator/stages/{pipeline}} for one of them. Like every actuator endpoint other
+ * than health, it must be listed in management.endpoints.web.exposure.include to be served
+ * over HTTP.
+ */
+@Component
+@Endpoint(id = "stages")
+@RequiredArgsConstructor
+public class StageLatencyEndpoint {
+    private final StageTracer stageTracer;
+
+    @ReadOperation
+    public Map<String, Map<String, Map<String, Object>>> stages() {
+        return stageTracer.snapshot();
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> pipeline(@Selector String pipeline) {
+        return stageTracer.snapshot().get(pipeline);
+    }
+}
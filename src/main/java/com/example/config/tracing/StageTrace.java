@@ -0,0 +1,109 @@
+package com.example.config.tracing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Stage timings for one request through one pipeline (login, signup).
+ *
+ * The trace is an ordinary object captured by the pipeline's lambdas, so it follows the
+ * request across executor hops without any thread-local state. Recording a stage is two
+ * nanoTime reads and an array write; the timings only reach the histograms when the pipeline
+ * calls {@link #finish()}. Stages past the first {@value #MAX_STAGES} are not recorded.
+ */
+public final class StageTrace {
+    static final int MAX_STAGES = 16;
+
+    private final StageTracer tracer;
+    private final String pipeline;
+    private final long startedAt = System.nanoTime();
+
+    // Guarded by this; stages of one request may complete on different threads
+    private final String[] stages = new String[MAX_STAGES];
+    private final long[] durations = new long[MAX_STAGES];
+    private int count;
+    private boolean finished;
+
+    StageTrace(StageTracer tracer, String pipeline) {
+        this.tracer = tracer;
+        this.pipeline = pipeline;
+    }
+
+    public <T> T time(String stage, Supplier<T> task) {
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public void run(String stage, Runnable task) {
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Time an asynchronous call from the moment it is issued until its future completes.
+     */
+    public <T> CompletableFuture<T> timeAsync(String stage, Supplier<CompletableFuture<T>> call) {
+        long start = System.nanoTime();
+        return call.get().whenComplete((result, throwable) -> record(stage, System.nanoTime() - start));
+    }
+
+    /**
+     * Wrap a task about to be handed to an executor: the time until a thread picks it up is
+     * recorded as {@code queueStage}, its run time as {@code stage}.
+     */
+    public <T> Supplier<T> queued(String queueStage, String stage, Supplier<T> task) {
+        long submittedAt = System.nanoTime();
+        return () -> {
+            record(queueStage, System.nanoTime() - submittedAt);
+            return time(stage, task);
+        };
+    }
+
+    public synchronized void record(String stage, long nanos) {
+        if (finished || count == MAX_STAGES) {
+            return;
+        }
+        stages[count] = stage;
+        durations[count] = nanos;
+        count++;
+    }
+
+    /**
+     * End the trace and publish it. Later calls, and stages recorded afterwards, are ignored.
+     */
+    public void finish() {
+        long totalNanos = System.nanoTime() - startedAt;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+        }
+        tracer.report(this, totalNanos);
+    }
+
+    String pipeline() {
+        return pipeline;
+    }
+
+    // Only read after finish(), when no further stage can be recorded
+    synchronized int stageCount() {
+        return count;
+    }
+
+    synchronized String stage(int index) {
+        return stages[index];
+    }
+
+    synchronized long duration(int index) {
+        return durations[index];
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.config.tracing;
+
+import com.example.common.LogManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns finished {@link StageTrace}s into per-stage latency distributions.
+ *
+ * Every stage of every pipeline gets a {@code pipeline.stage} timer tagged
+ * {@code pipeline=<name>, stage=<name>}, plus one for the whole request tagged
+ * {@code stage=total}. The timers keep HdrHistogram-backed percentiles over a sliding window
+ * for the {@code stages} actuator endpoint, and publish percentile histograms for
+ * cross-instance aggregation like the executor timers do.
+ *
+ * A request slower than {@code tracing.stages.slow-threshold-ms} has its stage breakdown
+ * logged, at most once per {@code tracing.stages.slow-log-interval-ms}, so a latency spike
+ * leaves a sample of where the time went without flooding the log.
+ */
+@Component
+public class StageTracer {
+    static final String TOTAL = "total";
+    private static final double[] PERCENTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private final MeterRegistry registry;
+    private final long slowThresholdNanos;
+    private final long slowLogIntervalMillis;
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final AtomicLong nextSlowLogAt = new AtomicLong();
+
+    public StageTracer(
+            MeterRegistry registry,
+            @Value("${tracing.stages.slow-threshold-ms:500}") long slowThresholdMs,
+            @Value("${tracing.stages.slow-log-interval-ms:1000}") long slowLogIntervalMs) {
+        this.registry = registry;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.slowLogIntervalMillis = slowLogIntervalMs;
+    }
+
+    public StageTrace begin(String pipeline) {
+        return new StageTrace(this, pipeline);
+    }
+
+    void report(StageTrace trace, long totalNanos) {
+        int stages = trace.stageCount();
+        for (int i = 0; i < stages; i++) {
+            timer(trace.pipeline(), trace.stage(i)).record(trace.duration(i), TimeUnit.NANOSECONDS);
+        }
+        timer(trace.pipeline(), TOTAL).record(totalNanos, TimeUnit.NANOSECONDS);
+
+        if (totalNanos >= slowThresholdNanos && claimSlowLog()) {
+            LogManager.atWarn("SLOW_REQUEST")
+                .with("pipeline", trace.pipeline())
+                .with("totalMicros", TimeUnit.NANOSECONDS.toMicros(totalNanos))
+                .with("breakdown", breakdown(trace, totalNanos))
+                .log();
+        }
+    }
+
+    private boolean claimSlowLog() {
+        long now = System.currentTimeMillis();
+        long next = nextSlowLogAt.get();
+        return now >= next && nextSlowLogAt.compareAndSet(next, now + slowLogIntervalMillis);
+    }
+
+    // "812.4 ms: user-service.queue=0.3 mysql.login-credentials=11.9 password-hashing.queue=640.2 ... untraced=2.1"
+    static String breakdown(StageTrace trace, long totalNanos) {
+        StringBuilder line = new StringBuilder(160);
+        line.append(String.format(Locale.ROOT, "%.1f ms:", totalNanos / 1e6));
+        long traced = 0;
+        int stages = trace.stageCount();
+        for (int i = 0; i < stages; i++) {
+            traced += trace.duration(i);
+            line.append(' ').append(trace.stage(i)).append('=')
+                .append(String.format(Locale.ROOT, "%.1f", trace.duration(i) / 1e6));
+        }
+        line.append(String.format(Locale.ROOT, " untraced=%.1f", Math.max(0, totalNanos - traced) / 1e6));
+        return line.toString();
+    }
+
+    private Timer timer(String pipeline, String stage) {
+        return timers.computeIfAbsent(pipeline + '/' + stage, key -> Timer.builder("pipeline.stage")
+                .description("Time spent in one stage of a request pipeline")
+                .tag("pipeline", pipeline)
+                .tag("stage", stage)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry));
+    }
+
+    /**
+     * Count, mean, max and percentiles in milliseconds for every stage seen so far, by
+     * pipeline and stage name.
+     */
+    public Map<String, Map<String, Map<String, Object>>> snapshot() {
+        Map<String, Map<String, Map<String, Object>>> pipelines = new TreeMap<>();
+        timers.forEach((key, timer) -> {
+            String pipeline = timer.getId().getTag("pipeline");
+            String stage = timer.getId().getTag("stage");
+            pipelines.computeIfAbsent(pipeline, p -> new TreeMap<>()).put(stage, describe(timer.takeSnapshot()));
+        });
+        return pipelines;
+    }
+
+    private static Map<String, Object> describe(HistogramSnapshot snapshot) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", snapshot.count());
+        stats.put("meanMs", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+        stats.put("maxMs", round(snapshot.max(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            stats.put(String.format(Locale.ROOT, "p%sMs", percentileLabel(percentile.percentile())),
+                      round(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        return stats;
+    }
+
+    // 0.5 -> "50", 0.999 -> "99.9"
+    private static String percentileLabel(double percentile) {
+        double value = Math.round(percentile * 1000) / 10.0;
+        return value == (long) value ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 1000) / 1000.0;
+    }
+}
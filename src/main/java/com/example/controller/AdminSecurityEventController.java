@@ -0,0 +1,57 @@
+package com.example.controller;
+
+import com.example.common.ApiResponse;
+import com.example.common.MessageConstants;
+import com.example.config.journal.SecurityEvent;
+import com.example.config.journal.SecurityEventJournal;
+import com.example.config.journal.SecurityEventType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Security event lookups for operators; requires ROLE_ADMIN like the rest of /admin.
+ */
+@RestController
+@RequestMapping("/admin/security-events")
+@RequiredArgsConstructor
+public class AdminSecurityEventController {
+    private static final int MAX_LIMIT = 1000;
+
+    private final SecurityEventJournal securityEventJournal;
+
+    /**
+     * Events for an email, a client IP, or an email from one IP, newest first, e.g.
+     * {@code ?email=a@example.com&type=LOGIN_FAILED} for the failed logins of the last hour.
+     * {@code from} and {@code to} are ISO-8601 instants; the range defaults to the hour
+     * before {@code to} (now).
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<SecurityEvent>>> find(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String ip,
+            @RequestParam(required = false) SecurityEventType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "100") int limit) {
+        Instant until = to != null ? to : Instant.now();
+        Instant since = from != null ? from : until.minus(Duration.ofHours(1));
+        try {
+            List<SecurityEvent> events = securityEventJournal.find(email, ip, type,
+                    since.toEpochMilli(), until.toEpochMilli(), Math.max(1, Math.min(limit, MAX_LIMIT)));
+            return ResponseEntity.ok(ApiResponse.success(MessageConstants.SUCCESS, events));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
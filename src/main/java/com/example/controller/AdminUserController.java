@@ -0,0 +1,74 @@
+package com.example.controller;
+
+import com.example.entity.User;
+import com.example.service.UserImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Operator endpoints; everything under /admin requires ROLE_ADMIN (see SecurityConfig).
+ */
+@RestController
+@RequestMapping("/admin/users")
+@RequiredArgsConstructor
+public class AdminUserController {
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final UserImportService userImportService;
+
+    @Value("${users.async-timeout.import-ms:3600000}")
+    private long importTimeoutMs;
+
+    /**
+     * Bulk-create users from an NDJSON ({@code application/x-ndjson}) or CSV
+     * ({@code text/csv}) body. The response is NDJSON: one result line per input row, written
+     * as each batch commits, then a summary line. {@code status=normal} imports the accounts
+     * as already verified. 429 if another import is running.
+     */
+    @PostMapping(value = "/import",
+                 consumes = { MediaType.APPLICATION_NDJSON_VALUE, "text/csv" },
+                 produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> importUsers(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "unverified") User.Status status) throws IOException {
+        if (status == User.Status.revoked) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Imported users must be unverified or normal");
+        }
+        UserImportService.Format format = TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+            ? UserImportService.Format.CSV
+            : UserImportService.Format.NDJSON;
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(importTimeoutMs);
+        userImportService.importUsers(request.getInputStream(), format, status, lines -> send(emitter, lines))
+            .whenComplete((summary, throwable) -> {
+                if (throwable != null) {
+                    emitter.completeWithError(throwable);
+                } else {
+                    emitter.complete();
+                }
+            });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    // A failed write means the client has gone; abort the import rather than keep inserting
+    private static void send(ResponseBodyEmitter emitter, String lines) {
+        try {
+            emitter.send(lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
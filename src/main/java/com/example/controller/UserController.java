@@ -2,77 +2,157 @@ package com.example.controller;
 
 import com.example.common.ApiResponse;
 import com.example.common.JwtContextUtil;
+import com.example.common.MessageConstants;
+import com.example.common.RequestDeadline;
 import com.example.dto.LoginRequestDTO;
 import com.example.dto.LoginResponseDTO;
 import com.example.dto.OtpRequestDTO;
 import com.example.dto.OtpVerificationDTO;
+import com.example.dto.RefreshTokenRequestDTO;
 import com.example.dto.SignupRequestDTO;
 import com.example.dto.UserDTO;
+import com.example.exception.DeadlineExceededException;
+import com.example.exception.ServiceOverloadedException;
 import com.example.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
+/**
+ * All endpoints complete through servlet async: the handler returns a DeferredResult and the
+ * Tomcat worker goes back to the pool while the service future runs. Each endpoint has its
+ * own timeout, after which the client gets a 503 instead of waiting on a stuck pipeline.
+ *
+ * The timeout is also the request's {@link RequestDeadline}, installed while the service call
+ * is made so every stage it starts carries it. A client may shorten it with the
+ * X-Request-Timeout header (milliseconds); work still queued when it passes is dropped.
+ */
 @RestController
 @RequestMapping("/users")
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
     private final JwtContextUtil jwtContextUtil;
+    private final HttpServletRequest request;
+
+    @Value("${users.async-timeout.login-ms:10000}")
+    private long loginTimeoutMs;
+
+    @Value("${users.async-timeout.refresh-ms:3000}")
+    private long refreshTimeoutMs;
+
+    @Value("${users.async-timeout.sign-up-ms:10000}")
+    private long signupTimeoutMs;
+
+    @Value("${users.async-timeout.send-otp-ms:5000}")
+    private long sendOtpTimeoutMs;
+
+    @Value("${users.async-timeout.verify-otp-ms:5000}")
+    private long verifyOtpTimeoutMs;
+
+    @Value("${users.async-timeout.read-ms:3000}")
+    private long readTimeoutMs;
 
-    // Synchronous endpoints
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<LoginResponseDTO>> login(@Valid @RequestBody LoginRequestDTO loginRequest) {
-        CompletableFuture<ApiResponse<LoginResponseDTO>> response = userService.login(loginRequest);
-        return ResponseEntity.status(response.getNow(null).getCode()).body(response.getNow(null));
+    public DeferredResult<ResponseEntity<ApiResponse<LoginResponseDTO>>> login(@Valid @RequestBody LoginRequestDTO loginRequest) {
+        return defer(() -> userService.login(loginRequest), loginTimeoutMs);
+    }
+
+    @PostMapping("/refresh")
+    public DeferredResult<ResponseEntity<ApiResponse<LoginResponseDTO>>> refresh(@Valid @RequestBody RefreshTokenRequestDTO refreshRequest) {
+        return defer(() -> userService.refreshToken(refreshRequest.getRefreshToken()), refreshTimeoutMs);
     }
 
     @PostMapping("/sign-up")
-    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> signup(@Valid @RequestBody SignupRequestDTO signupRequest) {
-        return userService.signUp(signupRequest)
-                .thenApply(response -> ResponseEntity.status(response.getCode()).body(response));
+    public DeferredResult<ResponseEntity<ApiResponse<Void>>> signup(@Valid @RequestBody SignupRequestDTO signupRequest) {
+        return defer(() -> userService.signUp(signupRequest), signupTimeoutMs);
     }
 
     @PostMapping("/send-otp")
-    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> sendOtp(@Valid @RequestBody OtpRequestDTO otpRequest) {
-        return userService.sendOtpForEmailVerification(otpRequest.getEmail())
-                .thenApply(response -> ResponseEntity.status(response.getCode()).body(response));
+    public DeferredResult<ResponseEntity<ApiResponse<Void>>> sendOtp(@Valid @RequestBody OtpRequestDTO otpRequest) {
+        return defer(() -> userService.sendOtpForEmailVerification(otpRequest.getEmail()), sendOtpTimeoutMs);
     }
 
     @PostMapping("/verify-otp")
-    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> verifyOtp(@Valid @RequestBody OtpVerificationDTO otpVerification) {
-        return userService.verifyOtpAndActivateUser(otpVerification.getEmail(), otpVerification.getOtpCode())
-                .thenApply(response -> ResponseEntity.status(response.getCode()).body(response));
+    public DeferredResult<ResponseEntity<ApiResponse<Void>>> verifyOtp(@Valid @RequestBody OtpVerificationDTO otpVerification) {
+        return defer(() -> userService.verifyOtpAndActivateUser(otpVerification.getEmail(), otpVerification.getOtpCode()), verifyOtpTimeoutMs);
     }
 
     @GetMapping("/me")
-    public ResponseEntity<ApiResponse<Map<String, String>>> getCurrentUser() {
-        String userId = jwtContextUtil.getCurrentUserId();
+    public DeferredResult<ResponseEntity<ApiResponse<Map<String, String>>>> getCurrentUser() {
+        Long userId = jwtContextUtil.getCurrentUserId();
         String username = jwtContextUtil.getCurrentUsername();
         
         if (userId == null) {
-            return ResponseEntity.status(401).body(ApiResponse.error(401, "User not authenticated"));
+            return defer(() -> CompletableFuture.completedFuture(ApiResponse.error(401, "User not authenticated")), readTimeoutMs);
         }
         
         Map<String, String> userInfo = Map.of(
-            "userId", userId,
+            "userId", userId.toString(),
             "username", username != null ? username : "Unknown"
         );
         
-        return ResponseEntity.ok(ApiResponse.success("Current user info retrieved", userInfo));
+        return defer(() -> CompletableFuture.completedFuture(ApiResponse.success("Current user info retrieved", userInfo)), readTimeoutMs);
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<ApiResponse<UserDTO>> getUserById(@PathVariable String userId) {
-        try {
-            UserDTO user = userService.getUserById(userId);
-            return ResponseEntity.ok(ApiResponse.success("User retrieved successfully", user));
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
-        }
+    public DeferredResult<ResponseEntity<ApiResponse<UserDTO>>> getUserById(@PathVariable Long userId) {
+        RequestDeadline deadline = deadline(readTimeoutMs);
+        DeferredResult<ResponseEntity<ApiResponse<UserDTO>>> result = new DeferredResult<>(asyncTimeout(deadline), this::timeoutResponse);
+        deadline.call(() -> userService.getUserById(userId)).whenComplete((user, throwable) -> {
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable;
+                if (cause instanceof ServiceOverloadedException || cause instanceof DeadlineExceededException) {
+                    result.setErrorResult(cause);
+                } else {
+                    result.setResult(ResponseEntity.notFound().build());
+                }
+                return;
+            }
+            result.setResult(ResponseEntity.ok(ApiResponse.success("User retrieved successfully", user)));
+        });
+        return result;
+    }
+
+    private <T> DeferredResult<ResponseEntity<ApiResponse<T>>> defer(Supplier<CompletableFuture<ApiResponse<T>>> call, long timeoutMs) {
+        RequestDeadline deadline = deadline(timeoutMs);
+        DeferredResult<ResponseEntity<ApiResponse<T>>> result = new DeferredResult<>(asyncTimeout(deadline), this::timeoutResponse);
+        deadline.call(call).whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                // Let GlobalExceptionHandler map it (e.g. overload -> 429) on the async dispatch
+                result.setErrorResult(throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable);
+                return;
+            }
+            result.setResult(ResponseEntity.status(response.getCode()).body(response));
+        });
+        return result;
+    }
+
+    private RequestDeadline deadline(long endpointTimeoutMs) {
+        return RequestDeadline.of(request.getHeader(RequestDeadline.HEADER), endpointTimeoutMs);
+    }
+
+    // The servlet container reads an async timeout of 0 as "never"
+    private static long asyncTimeout(RequestDeadline deadline) {
+        return Math.max(1, deadline.remainingMillis());
+    }
+
+    private ResponseEntity<ApiResponse<Void>> timeoutResponse() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error(503, MessageConstants.REQUEST_TIMEOUT));
     }
-} 
\ No newline at end of file
+}
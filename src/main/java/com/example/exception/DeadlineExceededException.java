@@ -0,0 +1,13 @@
+package com.example.exception;
+
+/**
+ * Work dropped because the request it belongs to has run out of time; the client has already
+ * been answered or has given up. Mapped to the same 503 the controller sends on timeout. The
+ * stack trace is suppressed: this is load shedding, not a bug.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message, null, false, false);
+    }
+}
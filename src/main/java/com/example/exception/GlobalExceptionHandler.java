@@ -1,5 +1,8 @@
 package com.example.exception;
 
+import com.example.common.ApiResponse;
+import com.example.common.MessageConstants;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -8,10 +11,25 @@ import java.util.concurrent.RejectedExecutionException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
+    // Executors refusing work outside the adaptive limits, e.g. while shutting down
     @ExceptionHandler(RejectedExecutionException.class)
     public ResponseEntity<String> handleRejectedExecutionException(RejectedExecutionException ex) {
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
                 .body("Server is overloaded. Please try again later.");
     }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<String> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+    // Work dropped after the request's deadline: same answer as the controller's own timeout
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<ApiResponse<Void>> handleDeadlineExceededException(DeadlineExceededException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error(503, MessageConstants.REQUEST_TIMEOUT));
+    }
     // Add other exception handlers as needed...
-} 
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.example.exception;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thrown when a stage refuses new work because its backlog would exceed the latency budget.
+ * Mapped to 429 Too Many Requests with a Retry-After hint.
+ */
+public class ServiceOverloadedException extends RejectedExecutionException {
+    private final long retryAfterMillis;
+
+    public ServiceOverloadedException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.repository;
+
+import com.example.entity.User;
+
+/**
+ * What login needs from a user row: identity for the tokens, the hash to check and the status.
+ */
+public record LoginCredentials(Long userId, String username, String email, String passwordHash, User.Status status) {
+}
@@ -0,0 +1,17 @@
+package com.example.repository;
+
+import com.example.entity.User;
+
+import java.util.List;
+
+/**
+ * JDBC-level bulk writes that bypass the persistence context.
+ */
+public interface UserBatchRepository {
+
+    /**
+     * Insert all users as one JDBC batch. Not transactional on its own: callers that need
+     * all-or-nothing must wrap it in a transaction.
+     */
+    void insertAll(List<User> users);
+}
@@ -0,0 +1,44 @@
+package com.example.repository;
+
+import com.example.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+// Picked up by Spring Data as the UserBatchRepository fragment of UserRepository
+@RequiredArgsConstructor
+class UserBatchRepositoryImpl implements UserBatchRepository {
+    private static final String INSERT_USER =
+            "INSERT INTO users (user_id, username, email, password_hash, status, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<User> users) {
+        jdbcTemplate.batchUpdate(INSERT_USER, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                User user = users.get(i);
+                Timestamp createdAt = Timestamp.valueOf(user.getCreatedAt());
+                ps.setLong(1, user.getUserId());
+                ps.setString(2, user.getUsername());
+                ps.setString(3, user.getEmail());
+                ps.setString(4, user.getPasswordHash());
+                ps.setString(5, user.getStatus().name());
+                ps.setTimestamp(6, createdAt);
+                ps.setTimestamp(7, createdAt);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return users.size();
+            }
+        });
+    }
+}
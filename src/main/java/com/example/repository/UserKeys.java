@@ -0,0 +1,7 @@
+package com.example.repository;
+
+/**
+ * The unique columns of a user row, for duplicate checks that don't need the entity.
+ */
+public record UserKeys(String email, String username) {
+}
@@ -1,17 +1,83 @@
 package com.example.repository;
 
+import com.example.common.AuthenticatedPrincipal;
 import com.example.entity.User;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, String> {
+public interface UserRepository extends JpaRepository<User, Long>, UserBatchRepository {
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
 
     User findByEmail(String email);
+
+    // Read-only projections for the hot paths: constructor expressions select just these
+    // columns, and the results are plain records, never managed or dirty-checked. The
+    // read-only transactions let them be served by a replica when one is configured.
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.repository.LoginCredentials(u.userId, u.username, u.email, u.passwordHash, u.status) " +
+           "FROM User u WHERE u.email = :email")
+    Optional<LoginCredentials> findLoginCredentialsByEmail(@Param("email") String email);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.common.AuthenticatedPrincipal(u.userId, u.username, u.status) FROM User u WHERE u.userId = :userId")
+    Optional<AuthenticatedPrincipal> findPrincipalById(@Param("userId") Long userId);
+
     User findByUsername(String username);
     User findByProviderId(String providerId);
     User findByProvider(String provider);
+
+    // Which of the candidate emails and usernames are already taken, in one query
+    @Query("SELECT new com.example.repository.UserKeys(u.email, u.username) FROM User u " +
+           "WHERE u.email IN :emails OR u.username IN :usernames")
+    List<UserKeys> findKeysByEmailInOrUsernameIn(@Param("emails") Collection<String> emails,
+                                                 @Param("usernames") Collection<String> usernames);
+
+    // Streams in fetch-size batches; the caller must hold a (read-only) transaction and close the stream
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT u.email FROM User u")
+    Stream<String> streamAllEmails();
+
+    // Plain INSERT with no read-before-write; the unique indexes on email and username reject duplicates
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO users (user_id, username, email, password_hash, status, created_at, updated_at) " +
+                   "VALUES (:userId, :username, :email, :passwordHash, :status, :createdAt, :createdAt)",
+           nativeQuery = true)
+    int insertUser(@Param("userId") Long userId,
+                   @Param("username") String username,
+                   @Param("email") String email,
+                   @Param("passwordHash") String passwordHash,
+                   @Param("status") String status,
+                   @Param("createdAt") LocalDateTime createdAt);
+
+    // Only replaces the hash it was computed from, so a concurrent password change wins
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.passwordHash = :newHash WHERE u.userId = :userId AND u.passwordHash = :oldHash")
+    int updatePasswordHashIfUnchanged(@Param("userId") Long userId,
+                                      @Param("oldHash") String oldHash,
+                                      @Param("newHash") String newHash);
+
+    // Single conditional write; returns 0 when the user is not in the expected status
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.status = :newStatus WHERE u.userId = :userId AND u.status = :expectedStatus")
+    int updateStatusIfCurrent(@Param("userId") Long userId,
+                              @Param("expectedStatus") User.Status expectedStatus,
+                              @Param("newStatus") User.Status newStatus);
 } 
\ No newline at end of file
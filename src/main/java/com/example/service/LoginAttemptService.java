@@ -0,0 +1,15 @@
+package com.example.service;
+
+public interface LoginAttemptService {
+
+    /**
+     * Count a wrong password for this account; the account is revoked once the count
+     * crosses the configured limit
+     */
+    void recordFailure(Long userId, String email);
+
+    /**
+     * Clear the failure count after a successful login
+     */
+    void reset(String email);
+}
@@ -0,0 +1,23 @@
+package com.example.service;
+
+import com.example.common.AuthenticatedPrincipal;
+
+import java.util.Optional;
+
+public interface PrincipalCacheService {
+
+    /**
+     * Get the principal for a user ID, loading it from the database on a miss
+     */
+    Optional<AuthenticatedPrincipal> getPrincipal(Long userId);
+
+    /**
+     * Drop the cached principal after the user row changed
+     */
+    void invalidate(Long userId);
+
+    /**
+     * Drop every cached principal
+     */
+    void invalidateAll();
+}
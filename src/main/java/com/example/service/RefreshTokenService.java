@@ -0,0 +1,28 @@
+package com.example.service;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface RefreshTokenService {
+
+    enum Outcome {
+        /** The presented generation was current; the family moved to the next generation */
+        ROTATED,
+        /** An older generation was presented again; the whole family has been revoked */
+        REUSED,
+        /** The family expired, was revoked, or never existed */
+        UNKNOWN
+    }
+
+    record Rotation(Outcome outcome, long generation) {
+    }
+
+    /**
+     * Start a new token family at generation 0 and return its ID
+     */
+    CompletableFuture<String> startFamily(long validityMillis);
+
+    /**
+     * Atomically check the presented generation and advance the family in one round trip
+     */
+    CompletableFuture<Rotation> rotate(String familyId, long presentedGeneration, long validityMillis);
+}
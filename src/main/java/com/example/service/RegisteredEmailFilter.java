@@ -0,0 +1,30 @@
+package com.example.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface RegisteredEmailFilter {
+
+    /**
+     * False only when the email is definitely not registered; true when it may be, or while
+     * the filter is not yet (or no longer) in sync and the database must decide
+     */
+    boolean mightBeRegistered(String email);
+
+    /**
+     * Record a new email cluster-wide; completes once every node can see it, or once the
+     * registration is queued for replay because Valkey is unavailable. Never completes
+     * exceptionally, so a Valkey outage does not fail the signup
+     */
+    CompletableFuture<Void> register(String email);
+
+    /**
+     * Record a batch of new emails in one Valkey round trip; completes like {@link #register(String)}
+     */
+    CompletableFuture<Void> registerAll(List<String> emails);
+
+    /**
+     * Report that a "might be registered" answer turned out to have no matching user
+     */
+    void recordFalsePositive();
+}
@@ -0,0 +1,9 @@
+package com.example.service;
+
+public interface UserChangeEventBus {
+
+    /**
+     * Evict local state for a user and tell every other node to do the same
+     */
+    void publishUserChanged(Long userId);
+}
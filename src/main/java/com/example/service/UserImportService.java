@@ -0,0 +1,25 @@
+package com.example.service;
+
+import com.example.entity.User;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+public interface UserImportService {
+
+    enum Format { NDJSON, CSV }
+
+    record Summary(long rows, long created, long duplicate, long invalid, long failed, long elapsedMillis) {
+    }
+
+    /**
+     * Import the users in {@code input} (one {@code SignupRequestDTO} per NDJSON line, or a CSV
+     * with a username,email,password header) on the import thread. Result lines (NDJSON, one
+     * per input row, then a summary line) are passed to {@code sink} a batch at a time; the
+     * future completes with the summary once the input is exhausted.
+     *
+     * @throws com.example.exception.ServiceOverloadedException if an import is already running
+     */
+    CompletableFuture<Summary> importUsers(InputStream input, Format format, User.Status status, Consumer<String> sink);
+}
@@ -10,13 +10,14 @@ import com.example.common.Result;
 import java.util.concurrent.CompletableFuture;
 
 public interface UserService {
-    // Read operations (synchronous)
+    // Read operations
     CompletableFuture<ApiResponse<LoginResponseDTO>> login(LoginRequestDTO loginRequest);
-    UserDTO getUserById(String userId);
+    CompletableFuture<ApiResponse<LoginResponseDTO>> refreshToken(String refreshToken);
+    CompletableFuture<UserDTO> getUserById(Long userId);
     
     // Write operations
     CompletableFuture<ApiResponse<Void>> sendOtpForEmailVerification(String email);
     CompletableFuture<ApiResponse<Void>> signUp(SignupRequestDTO signupRequest);
     CompletableFuture<ApiResponse<Void>> verifyOtpAndActivateUser(String email, String otpCode);
-    CompletableFuture<UserDTO> updateUser(String userId, UserDTO userDTO);
+    CompletableFuture<UserDTO> updateUser(Long userId, UserDTO userDTO);
 } 
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.example.service.impl;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Works out which unique index rejected a users insert.
+ *
+ * Only unique-key violations count: Spring's {@link DuplicateKeyException}, or a
+ * {@link SQLException} in the cause chain with MySQL error 1062 / SQLState 23505 (the JPA
+ * repositories surface those as a plain {@link DataIntegrityViolationException}). NOT NULL,
+ * data-too-long and foreign-key errors are not duplicates. The index is identified by its
+ * constraint name ({@code uk_users_email}, {@code uk_users_username}, see {@code User}), never
+ * by the values in the message.
+ */
+final class DuplicateKey {
+    static final String EMAIL = "email";
+    static final String USERNAME = "username";
+    static final String OTHER = "other";
+
+    static final String EMAIL_CONSTRAINT = "uk_users_email";
+    static final String USERNAME_CONSTRAINT = "uk_users_username";
+
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+    private static final String UNIQUE_VIOLATION_STATE = "23505";
+
+    private DuplicateKey() {
+    }
+
+    /**
+     * @return {@link #EMAIL} or {@link #USERNAME} for those indexes, {@link #OTHER} for any other
+     *         unique key, or null if {@code e} is not a unique-key violation at all
+     */
+    static String keyOf(DataIntegrityViolationException e) {
+        String constraint = null;
+        boolean duplicate = e instanceof DuplicateKeyException;
+        for (Throwable cause = e; cause != null && cause.getCause() != cause; cause = cause.getCause()) {
+            if (constraint == null && cause instanceof org.hibernate.exception.ConstraintViolationException violation) {
+                constraint = violation.getConstraintName();
+            }
+            if (cause instanceof SQLException sql) {
+                boolean mysqlDuplicate = sql.getErrorCode() == MYSQL_DUPLICATE_ENTRY;
+                duplicate |= mysqlDuplicate || UNIQUE_VIOLATION_STATE.equals(sql.getSQLState());
+                if (constraint == null && mysqlDuplicate) {
+                    constraint = mysqlKeyName(sql.getMessage());
+                }
+            }
+        }
+        if (!duplicate) {
+            return null;
+        }
+
+        String name = normalize(constraint);
+        // Also accept the index names MySQL gives column-level UNIQUE definitions
+        if (name.startsWith(EMAIL_CONSTRAINT) || name.equals(EMAIL)) {
+            return EMAIL;
+        }
+        if (name.startsWith(USERNAME_CONSTRAINT) || name.equals(USERNAME)) {
+            return USERNAME;
+        }
+        return OTHER;
+    }
+
+    // "Duplicate entry 'x' for key 'users.uk_users_email'" -> "users.uk_users_email"
+    private static String mysqlKeyName(String message) {
+        if (message == null) {
+            return null;
+        }
+        int start = message.lastIndexOf(" for key '");
+        if (start < 0) {
+            return null;
+        }
+        start += " for key '".length();
+        int end = message.indexOf('\'', start);
+        return end < 0 ? null : message.substring(start, end);
+    }
+
+    // Drops quoting, schema/table qualifiers and anything after the name (H2 appends "ON PUBLIC.USERS(...)")
+    private static String normalize(String constraint) {
+        if (constraint == null) {
+            return "";
+        }
+        String name = constraint.trim();
+        while (!name.isEmpty() && (name.charAt(0) == '"' || name.charAt(0) == '`')) {
+            name = name.substring(1);
+        }
+        int space = name.indexOf(' ');
+        if (space >= 0) {
+            name = name.substring(0, space);
+        }
+        name = name.replace("\"", "").replace("`", "");
+        return name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+}
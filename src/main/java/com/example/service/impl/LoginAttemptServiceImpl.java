@@ -0,0 +1,225 @@
+package com.example.service.impl;
+
+import com.example.common.LogManager;
+import com.example.common.MessageConstants;
+import com.example.config.concurrency.CustomThreadFactory;
+import com.example.config.journal.SecurityEventJournal;
+import com.example.config.journal.SecurityEventType;
+import com.example.entity.User;
+import com.example.repository.UserRepository;
+import com.example.service.LoginAttemptService;
+import com.example.service.UserChangeEventBus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Failed-login counter in two tiers.
+ *
+ * Failures are first added to a per-email {@link LongAdder}; the first failure after an idle
+ * period schedules a flush {@code flush-window-ms} later that ships the accumulated delta to
+ * Valkey in one script call (INCRBY, EXPIRE on first write, threshold check). A burst of
+ * guesses against one email therefore costs one round trip per window instead of one per
+ * attempt. Every flush that leaves the count over the limit issues the conditional revoke
+ * UPDATE, so a revoke that failed is retried by the next attempt; once the account is revoked
+ * the UPDATE matches nothing. A flush that cannot reach Valkey puts its delta back and retries
+ * {@code retry-ms} later.
+ *
+ * The delay runs on a scheduler this service owns. When the Redis or user pool refuses the
+ * hand-off (routine once the adaptive limits push back), the flush or revoke runs inline on
+ * the calling thread instead: dropping either would leave the account unprotected.
+ */
+@Service
+@Slf4j
+public class LoginAttemptServiceImpl implements LoginAttemptService {
+    private static final String FAILED_ATTEMPTS_KEY_PREFIX = "failed_attempts:";
+
+    // KEYS[1] counter, ARGV[1] delta, ARGV[2] TTL seconds, ARGV[3] limit.
+    // Returns the new count, negated while it is over the limit.
+    private static final RedisScript<Long> RECORD_FAILURES_SCRIPT = new DefaultRedisScript<>(
+        "local delta = tonumber(ARGV[1]) " +
+        "local count = redis.call('INCRBY', KEYS[1], delta) " +
+        "if count == delta then redis.call('EXPIRE', KEYS[1], ARGV[2]) end " +
+        "if count > tonumber(ARGV[3]) then return -count end " +
+        "return count",
+        Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UserRepository userRepository;
+    private final UserChangeEventBus userChangeEventBus;
+    private final SecurityEventJournal securityEventJournal;
+    private final ExecutorService userServiceThreadPool;
+    private final ExecutorService redisServiceThreadPool;
+    private final ScheduledExecutorService flushScheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomThreadFactory("login-attempt-flush"));
+    private final long flushWindowMillis;
+    private final long retryMillis;
+
+    private final int maxFailedAttempts;
+    private final long attemptsTtlSeconds;
+
+    private final ConcurrentHashMap<String, PendingFailures> pending = new ConcurrentHashMap<>();
+
+    public LoginAttemptServiceImpl(
+            StringRedisTemplate stringRedisTemplate,
+            UserRepository userRepository,
+            UserChangeEventBus userChangeEventBus,
+            SecurityEventJournal securityEventJournal,
+            @Qualifier("userServiceThreadPool") ExecutorService userServiceThreadPool,
+            @Qualifier("redisServiceThreadPool") ExecutorService redisServiceThreadPool,
+            @Value("${login-attempts.max-failed:5}") int maxFailedAttempts,
+            @Value("${login-attempts.ttl-seconds:86400}") long attemptsTtlSeconds,
+            @Value("${login-attempts.flush-window-ms:50}") long flushWindowMillis,
+            @Value("${login-attempts.retry-ms:1000}") long retryMillis) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.userRepository = userRepository;
+        this.userChangeEventBus = userChangeEventBus;
+        this.securityEventJournal = securityEventJournal;
+        this.userServiceThreadPool = userServiceThreadPool;
+        this.redisServiceThreadPool = redisServiceThreadPool;
+        this.maxFailedAttempts = maxFailedAttempts;
+        this.attemptsTtlSeconds = attemptsTtlSeconds;
+        this.flushWindowMillis = flushWindowMillis;
+        this.retryMillis = retryMillis;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdownNow();
+        // Ship whatever is still buffered rather than forgetting it
+        pending.forEach((email, failures) -> flush(email, failures, false));
+    }
+
+    @Override
+    public void recordFailure(Long userId, String email) {
+        PendingFailures failures = pending.computeIfAbsent(email, key -> new PendingFailures(userId));
+        failures.count.increment();
+        if (failures.flushScheduled.compareAndSet(false, true)) {
+            try {
+                flushScheduler.schedule(() -> handOffFlush(email, failures), flushWindowMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; flush now so the failure still counts
+                flush(email, failures, false);
+            }
+        }
+    }
+
+    private void handOffFlush(String email, PendingFailures failures) {
+        try {
+            redisServiceThreadPool.execute(() -> flush(email, failures, true));
+        } catch (RejectedExecutionException e) {
+            flush(email, failures, true);
+        }
+    }
+
+    private void retryFlush(String email, PendingFailures failures) {
+        if (!failures.flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flushScheduler.schedule(() -> handOffFlush(email, failures), retryMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            failures.flushScheduled.set(false);
+            LogManager.logSystemError(MessageConstants.HEADER_REDIS_CONNECTION_ERROR, email,
+                                      "Shutting down; " + failures.count.sum() + " failed login attempts were not recorded");
+        }
+    }
+
+    @Override
+    public void reset(String email) {
+        pending.remove(email);
+        CompletableFuture.runAsync(() -> stringRedisTemplate.delete(buildFailedAttemptsKey(email)), redisServiceThreadPool)
+            .exceptionally(throwable -> {
+                LogManager.logSystemError(MessageConstants.HEADER_REDIS_CONNECTION_ERROR, email,
+                                          "Could not reset failed login attempts. Reason: " + throwable.getMessage());
+                return null;
+            });
+    }
+
+    /**
+     * @param retry whether a Valkey error puts the delta back for another try; false once the
+     *              scheduler is gone
+     */
+    private void flush(String email, PendingFailures failures, boolean retry) {
+        // Clear the flag before draining: a failure that lands after the drain schedules the next flush
+        failures.flushScheduled.set(false);
+        long delta = failures.count.sumThenReset();
+        // Drop the idle entry; callers still holding it schedule their own flush, so no count is lost
+        pending.remove(email, failures);
+        if (delta == 0) {
+            return;
+        }
+
+        Long result;
+        try {
+            result = stringRedisTemplate.execute(RECORD_FAILURES_SCRIPT, List.of(buildFailedAttemptsKey(email)),
+                    Long.toString(delta), Long.toString(attemptsTtlSeconds), Integer.toString(maxFailedAttempts));
+        } catch (Exception e) {
+            LogManager.logSystemError(MessageConstants.HEADER_REDIS_CONNECTION_ERROR, email,
+                                      "Could not record " + delta + " failed login attempts. Reason: " + e.getMessage());
+            if (retry) {
+                failures.count.add(delta);
+                retryFlush(email, failures);
+            }
+            return;
+        }
+
+        if (result != null && result < 0) {
+            revoke(failures.userId, email, -result);
+        } else {
+            log.debug("Failed login attempts recorded - delta: {}, total: {}", delta, result);
+        }
+    }
+
+    private void revoke(Long userId, String email, long attempts) {
+        Runnable revocation = () -> {
+            int updated = userRepository.updateStatusIfCurrent(userId, User.Status.normal, User.Status.revoked);
+            if (updated == 1) {
+                userChangeEventBus.publishUserChanged(userId);
+                LogManager.logAccountRevoked(email, "Excessive failed login attempts: " + attempts);
+                securityEventJournal.record(SecurityEventType.ACCOUNT_REVOKED, email, userId, null, (int) attempts);
+            }
+        };
+        CompletableFuture<Void> revoked;
+        try {
+            revoked = CompletableFuture.runAsync(revocation, userServiceThreadPool);
+        } catch (RejectedExecutionException e) {
+            // Revoking now beats waiting for the next attempt to retry it
+            revoked = CompletableFuture.runAsync(revocation, Runnable::run);
+        }
+        revoked.exceptionally(throwable -> {
+            LogManager.logSystemError("Failed to revoke user account", email, throwable.getMessage(), throwable);
+            return null;
+        });
+    }
+
+    private String buildFailedAttemptsKey(String email) {
+        return FAILED_ATTEMPTS_KEY_PREFIX + email;
+    }
+
+    private static final class PendingFailures {
+        private final Long userId;
+        private final LongAdder count = new LongAdder();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+        private PendingFailures(Long userId) {
+            this.userId = userId;
+        }
+    }
+}
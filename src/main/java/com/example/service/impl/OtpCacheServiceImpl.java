@@ -1,5 +1,6 @@
 package com.example.service.impl;
 
+import com.example.common.RequestDeadline;
 import com.example.service.OtpCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -68,6 +69,7 @@ public class OtpCacheServiceImpl implements OtpCacheService {
     @Override
     public void removeOtp(String email, String purpose) {
         String key = buildOtpKey(email, purpose);
+        // Not bound to the request deadline: the OTP has been used and must go even if the client has given up
         CompletableFuture.runAsync(() -> {
             removeOtpWithRetry(key, email, purpose);
         }, redisServiceThreadPool).exceptionally(t -> {
@@ -87,10 +89,14 @@ public class OtpCacheServiceImpl implements OtpCacheService {
         log.error("Fallback: Could not remove OTP for email: {}, purpose: {}. Reason: {}", maskEmail(email), purpose, t.getMessage());
     }
     
+    /**
+     * Runs under the caller's request deadline: a store still queued when the deadline passes
+     * is dropped, and the future fails with DeadlineExceededException instead of completing.
+     */
     @Override
     public CompletableFuture<Boolean> storeOtpAsync(String email, String otpCode, String purpose) {
         String key = buildOtpKey(email, purpose);
-        return CompletableFuture.supplyAsync(() -> {
+        return RequestDeadline.current().supplyAsync(() -> {
             try {
                 storeOtpWithRetry(key, otpCode, defaultTtl, email, purpose);
                 log.info("OTP stored successfully for email: {}, purpose: {}", maskEmail(email), purpose);
@@ -0,0 +1,83 @@
+package com.example.service.impl;
+
+import com.example.common.AuthenticatedPrincipal;
+import com.example.common.BoundedExpiringCache;
+import com.example.config.database.ReadYourWrites;
+import com.example.repository.UserRepository;
+import com.example.service.PrincipalCacheService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Near cache of (username, status) per user ID so the JWT filter does not hit MySQL on every
+ * request. Entries live for a short TTL and are invalidated explicitly whenever
+ * UserServiceImpl changes the row. The same invalidations keep the next lookup for that user
+ * on the primary, so a stale replica row is not cached for another TTL.
+ */
+@Service
+@Slf4j
+public class PrincipalCacheServiceImpl implements PrincipalCacheService {
+
+    private final UserRepository userRepository;
+    private final ReadYourWrites readYourWrites;
+    private final BoundedExpiringCache<Long, AuthenticatedPrincipal> principals;
+    private final long ttlMillis;
+
+    public PrincipalCacheServiceImpl(
+            UserRepository userRepository,
+            ReadYourWrites readYourWrites,
+            MeterRegistry meterRegistry,
+            @Value("${auth.principal-cache.max-size:50000}") int maxSize,
+            @Value("${auth.principal-cache.ttl-ms:30000}") long ttlMillis) {
+        this.userRepository = userRepository;
+        this.readYourWrites = readYourWrites;
+        this.principals = new BoundedExpiringCache<>(maxSize);
+        this.ttlMillis = ttlMillis;
+
+        FunctionCounter.builder("auth.principal.cache.hits", principals, BoundedExpiringCache::getHits)
+                .description("Principal lookups served from the near cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("auth.principal.cache.misses", principals, BoundedExpiringCache::getMisses)
+                .description("Principal lookups that went to the database")
+                .register(meterRegistry);
+        FunctionCounter.builder("auth.principal.cache.evictions", principals, BoundedExpiringCache::getEvictions)
+                .description("Principals dropped for expiry or size")
+                .register(meterRegistry);
+        Gauge.builder("auth.principal.cache.size", principals, BoundedExpiringCache::size)
+                .description("Principals currently cached")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<AuthenticatedPrincipal> getPrincipal(Long userId) {
+        AuthenticatedPrincipal cached = principals.get(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<AuthenticatedPrincipal> principal = readYourWrites.read(userId, () -> userRepository.findPrincipalById(userId));
+        principal.ifPresent(found -> principals.put(userId, found, System.currentTimeMillis() + ttlMillis));
+        return principal;
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            principals.invalidate(userId);
+            readYourWrites.recordWrite(userId);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        principals.invalidateAll();
+        readYourWrites.recordWriteToAll();
+        log.info("Principal cache flushed");
+    }
+}
@@ -0,0 +1,439 @@
+package com.example.service.impl;
+
+import com.example.common.ScalableBloomFilter;
+import com.example.config.concurrency.CustomThreadFactory;
+import com.example.repository.UserRepository;
+import com.example.service.RegisteredEmailFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Negative cache of registered emails: a {@link ScalableBloomFilter} held in memory on every
+ * node and mirrored to Valkey bitmaps ({@code bloom:emails:<geometry>:<stage>}).
+ *
+ * The {@code built} marker holds the number of stages Valkey has. A node loads the bitmaps
+ * only if every stage below the marker is present at its full size; otherwise (no marker, or
+ * Valkey evicted a bitmap) it streams the users table into the filter and ORs the result into
+ * Valkey. A registration sets the bits in Valkey and publishes them to every node in one
+ * script call, and is made before the user row is written, so no node can answer "not
+ * registered" for a committed user. If that call fails the registration is queued for replay
+ * and the row is written anyway: this node distrusts its negatives until the queue drains, and
+ * the others stop trusting theirs when their own syncs fail. Each node also re-merges the
+ * Valkey bitmaps every {@code reload-ms} to cover missed messages, and stops trusting its
+ * negatives if it has not synced for three intervals.
+ */
+@Service
+@Slf4j
+public class RedisRegisteredEmailFilter implements RegisteredEmailFilter, MessageListener {
+    public static final String CHANNEL = "email-registered";
+
+    // KEYS[1] stage bitmap, KEYS[2] stage count, KEYS[3] built marker; ARGV[1] channel, ARGV[2] message,
+    // ARGV[3] stage, ARGV[4] stage size in bytes, ARGV[5..] bit offsets. Returns 0 without writing when
+    // the filter was never built or this stage's bitmap was evicted, so the caller rebuilds instead.
+    // A new stage is allocated at full size and recorded in the marker before its first bit is set.
+    private static final RedisScript<Long> REGISTER_SCRIPT = new DefaultRedisScript<>(
+        "local built = tonumber(redis.call('GET', KEYS[3])) " +
+        "if not built then return 0 end " +
+        "local stage = tonumber(ARGV[3]) " +
+        "if redis.call('EXISTS', KEYS[1]) == 0 then " +
+        "  if stage < built then return 0 end " +
+        "  redis.call('SETRANGE', KEYS[1], tonumber(ARGV[4]) - 1, '\\0') " +
+        "end " +
+        "if stage >= built then redis.call('SET', KEYS[3], stage + 1) end " +
+        "for i = 5, #ARGV do redis.call('SETBIT', KEYS[1], ARGV[i], 1) end " +
+        "redis.call('INCR', KEYS[2]) " +
+        "redis.call('PUBLISH', ARGV[1], ARGV[2]) " +
+        "return 1",
+        Long.class);
+
+    // KEYS[1] stage count or built marker; ARGV[1] candidate. Both only ever grow.
+    private static final RedisScript<Long> MAX_COUNT_SCRIPT = new DefaultRedisScript<>(
+        "local current = tonumber(redis.call('GET', KEYS[1]) or '0') " +
+        "local candidate = tonumber(ARGV[1]) " +
+        "if candidate > current then redis.call('SET', KEYS[1], candidate) return candidate end " +
+        "return current",
+        Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService redisServiceThreadPool;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomThreadFactory("email-bloom"));
+
+    private final ScalableBloomFilter filter;
+    private final String keyPrefix;
+    private final long reloadIntervalMillis;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final Counter absentLookups;
+    private final Counter maybeLookups;
+    private final Counter falsePositives;
+
+    // Register script KEYS and ARGV that did not reach Valkey, replayed in order on the next sync
+    private final Queue<List<String>> unsynced = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean ready;
+    private volatile long lastSyncMillis;
+
+    public RedisRegisteredEmailFilter(
+            StringRedisTemplate stringRedisTemplate,
+            UserRepository userRepository,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("redisServiceThreadPool") ExecutorService redisServiceThreadPool,
+            MeterRegistry meterRegistry,
+            @Value("${email-bloom.initial-capacity:100000}") long initialCapacity,
+            @Value("${email-bloom.fp-rate:0.01}") double fpRate,
+            @Value("${email-bloom.reload-ms:10000}") long reloadIntervalMillis) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.redisServiceThreadPool = redisServiceThreadPool;
+        this.filter = new ScalableBloomFilter(initialCapacity, fpRate);
+        // Geometry is part of the key so a config change never mixes incompatible bitmaps
+        this.keyPrefix = "bloom:emails:" + initialCapacity + ":" + fpRate + ":";
+        this.reloadIntervalMillis = reloadIntervalMillis;
+
+        this.absentLookups = lookupCounter(meterRegistry, "absent");
+        this.maybeLookups = lookupCounter(meterRegistry, "maybe");
+        this.falsePositives = Counter.builder("email.bloom.false.positives")
+                .description("Lookups the filter let through that found no user")
+                .register(meterRegistry);
+        Gauge.builder("email.bloom.expected.fpp", filter, ScalableBloomFilter::getExpectedFalsePositiveRate)
+                .description("False-positive probability estimated from the filter's fill")
+                .register(meterRegistry);
+        Gauge.builder("email.bloom.memory.bytes", filter, ScalableBloomFilter::getMemoryBytes)
+                .description("Bytes of bitmap held in memory (same size in Valkey)")
+                .register(meterRegistry);
+        Gauge.builder("email.bloom.elements", filter, ScalableBloomFilter::getElements)
+                .description("Emails recorded in the filter")
+                .register(meterRegistry);
+        Gauge.builder("email.bloom.stages", filter, ScalableBloomFilter::getStageCount)
+                .description("Stages in the scalable filter")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.execute(this::initialize);
+        scheduler.scheduleWithFixedDelay(this::sync, reloadIntervalMillis, reloadIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean mightBeRegistered(String email) {
+        if (!isTrusted() || email == null) {
+            return true;
+        }
+        boolean maybe = filter.mightContain(ScalableBloomFilter.hash(email));
+        (maybe ? maybeLookups : absentLookups).increment();
+        return maybe;
+    }
+
+    @Override
+    public CompletableFuture<Void> register(String email) {
+        List<String> keysAndArgs = addLocally(email);
+        return runOrDefer(List.of(keysAndArgs), () -> {
+            if (!registered(keysAndArgs)) {
+                defer(List.of(keysAndArgs), "filter not built in Valkey");
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> registerAll(List<String> emails) {
+        List<List<String>> calls = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            calls.add(addLocally(email));
+        }
+        // Plain EVAL: EVALSHA's NOSCRIPT fallback cannot run inside a pipeline
+        byte[] script = REGISTER_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        return runOrDefer(calls, () -> {
+            List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (List<String> keysAndArgs : calls) {
+                    byte[][] bytes = keysAndArgs.stream().map(value -> value.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+                    connection.scriptingCommands().eval(script, ReturnType.INTEGER, 3, bytes);
+                }
+                return null;
+            });
+            List<List<String>> rejected = new ArrayList<>();
+            for (int i = 0; i < calls.size(); i++) {
+                if (!Long.valueOf(1).equals(results.get(i))) {
+                    rejected.add(calls.get(i));
+                }
+            }
+            if (!rejected.isEmpty()) {
+                defer(rejected, "filter not built in Valkey");
+            }
+        });
+    }
+
+    @Override
+    public void recordFalsePositive() {
+        if (isTrusted()) {
+            falsePositives.increment();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":");
+        if (parts.length != 4) {
+            log.warn("Ignoring malformed email registration event");
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            filter.add(Integer.parseInt(parts[1]), new long[] { Long.parseLong(parts[2]), Long.parseLong(parts[3]) });
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed email registration event");
+        }
+    }
+
+    private boolean isTrusted() {
+        return ready && unsynced.isEmpty() && System.currentTimeMillis() - lastSyncMillis < reloadIntervalMillis * 3;
+    }
+
+    // The bits are already set locally, so a Valkey failure must not fail the signup: queue the
+    // calls for replay and let this node distrust its negatives until they land
+    private CompletableFuture<Void> runOrDefer(List<List<String>> calls, Runnable registration) {
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    registration.run();
+                } catch (RuntimeException e) {
+                    defer(calls, e.getMessage());
+                }
+            }, redisServiceThreadPool);
+        } catch (RejectedExecutionException e) {
+            defer(calls, "Redis service pool saturated");
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void defer(List<List<String>> calls, String reason) {
+        unsynced.addAll(calls);
+        log.warn("Deferred {} email registration(s) to the next filter sync. Reason: {}", calls.size(), reason);
+    }
+
+    private boolean registered(List<String> keysAndArgs) {
+        Long result = stringRedisTemplate.execute(REGISTER_SCRIPT,
+                keysAndArgs.subList(0, 3), keysAndArgs.subList(3, keysAndArgs.size()).toArray());
+        return Long.valueOf(1).equals(result);
+    }
+
+    // Replay deferred registrations oldest first; a rejected one means Valkey lost the filter,
+    // so fall back to initialize(), which rebuilds it, and keep the rest queued until then
+    private void replayUnsynced() {
+        List<String> keysAndArgs;
+        while ((keysAndArgs = unsynced.peek()) != null) {
+            if (!registered(keysAndArgs)) {
+                ready = false;
+                return;
+            }
+            unsynced.poll();
+        }
+    }
+
+    // Set the bits locally and return the register script's KEYS followed by its ARGV
+    private List<String> addLocally(String email) {
+        long[] hash = ScalableBloomFilter.hash(email);
+        int stage = filter.currentStage();
+        filter.add(stage, hash);
+
+        List<String> keysAndArgs = new ArrayList<>();
+        keysAndArgs.add(stageKey(stage));
+        keysAndArgs.add(countKey(stage));
+        keysAndArgs.add(builtKey());
+        keysAndArgs.add(CHANNEL);
+        keysAndArgs.add(nodeId + ":" + stage + ":" + hash[0] + ":" + hash[1]);
+        keysAndArgs.add(Integer.toString(stage));
+        keysAndArgs.add(Long.toString(filter.getStageBytes(stage)));
+        for (long offset : filter.offsets(stage, hash)) {
+            keysAndArgs.add(Long.toString(offset));
+        }
+        return keysAndArgs;
+    }
+
+    private void initialize() {
+        try {
+            int builtStages = builtStages();
+            if (loadFromValkey(builtStages)) {
+                log.info("Registered-email filter loaded from Valkey: {} emails in {} stages",
+                        filter.getElements(), filter.getStageCount());
+            } else {
+                long start = System.currentTimeMillis();
+                long emails = buildFromDatabase();
+                pushToValkey(builtStages);
+                stringRedisTemplate.execute(MAX_COUNT_SCRIPT, List.of(builtKey()), Integer.toString(filter.getStageCount()));
+                log.info("Registered-email filter built from {} users in {} ms", emails, System.currentTimeMillis() - start);
+            }
+            ready = true;
+            replayUnsynced();
+            lastSyncMillis = System.currentTimeMillis();
+        } catch (Exception e) {
+            log.warn("Registered-email filter not ready, retrying in {} ms. Reason: {}", reloadIntervalMillis, e.getMessage());
+        }
+    }
+
+    private void sync() {
+        if (!ready) {
+            initialize();
+            return;
+        }
+        try {
+            replayUnsynced();
+            if (!ready || builtStages() == 0) {
+                ready = false;
+                return;
+            }
+            mergeFromValkey();
+            lastSyncMillis = System.currentTimeMillis();
+        } catch (Exception e) {
+            log.warn("Registered-email filter sync failed. Reason: {}", e.getMessage());
+        }
+    }
+
+    private long buildFromDatabase() {
+        Long emails = readOnlyTransaction.execute(status -> {
+            long count = 0;
+            try (Stream<String> stream = userRepository.streamAllEmails()) {
+                for (String email : (Iterable<String>) stream::iterator) {
+                    filter.add(filter.currentStage(), ScalableBloomFilter.hash(email));
+                    count++;
+                }
+            }
+            return count;
+        });
+        return emails != null ? emails : 0;
+    }
+
+    // Stage count recorded by the built marker, 0 when the filter has not been built
+    private int builtStages() {
+        String marker = stringRedisTemplate.opsForValue().get(builtKey());
+        try {
+            return marker != null ? Math.max(0, Integer.parseInt(marker)) : 0;
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed registered-email filter marker: {}", marker);
+            return 0;
+        }
+    }
+
+    // Merge Valkey's stages only if every stage the marker records is there at full size; a
+    // missing or short bitmap means Valkey evicted it and the filter would give false negatives
+    private boolean loadFromValkey(int builtStages) {
+        if (builtStages == 0) {
+            return false;
+        }
+        List<byte[]> bitmaps = new ArrayList<>(builtStages);
+        List<Long> counts = new ArrayList<>(builtStages);
+        for (int stage = 0; stage < builtStages; stage++) {
+            String count = stringRedisTemplate.opsForValue().get(countKey(stage));
+            byte[] key = stageKey(stage).getBytes(StandardCharsets.UTF_8);
+            byte[] bitmap = stringRedisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+            if (count == null || bitmap == null || bitmap.length != filter.getStageBytes(stage)) {
+                log.warn("Registered-email filter stage {} of {} is missing or truncated in Valkey, rebuilding", stage, builtStages);
+                return false;
+            }
+            bitmaps.add(bitmap);
+            counts.add(Long.parseLong(count));
+        }
+        for (int stage = 0; stage < builtStages; stage++) {
+            filter.merge(stage, bitmaps.get(stage), counts.get(stage));
+        }
+        // Stages registered past the marker's value before we read it
+        mergeFromValkey();
+        return true;
+    }
+
+    // builtStages covers stages the marker records but this rebuild did not reach, so they come
+    // back at full size instead of staying evicted
+    private void pushToValkey(int builtStages) {
+        int stages = Math.max(filter.getStageCount(), builtStages);
+        for (int stage = 0; stage < stages; stage++) {
+            byte[] key = stageKey(stage).getBytes(StandardCharsets.UTF_8);
+            byte[] scratch = (stageKey(stage) + ":build:" + nodeId).getBytes(StandardCharsets.UTF_8);
+            byte[] bitmap = filter.toBitmap(stage);
+            // OR rather than SET so registrations that landed while we were streaming survive
+            stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+                connection.stringCommands().set(scratch, bitmap);
+                connection.stringCommands().bitOp(RedisStringCommands.BitOperation.OR, key, key, scratch);
+                connection.keyCommands().del(scratch);
+                return null;
+            });
+            stringRedisTemplate.execute(MAX_COUNT_SCRIPT, List.of(countKey(stage)), Long.toString(filter.getStageElements(stage)));
+        }
+    }
+
+    private void mergeFromValkey() {
+        for (int stage = 0; ; stage++) {
+            String count = stringRedisTemplate.opsForValue().get(countKey(stage));
+            if (count == null) {
+                break;
+            }
+            byte[] key = stageKey(stage).getBytes(StandardCharsets.UTF_8);
+            byte[] bitmap = stringRedisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+            if (bitmap != null) {
+                filter.merge(stage, bitmap, Long.parseLong(count));
+            }
+        }
+    }
+
+    private String stageKey(int stage) {
+        return keyPrefix + stage;
+    }
+
+    private String countKey(int stage) {
+        return keyPrefix + stage + ":count";
+    }
+
+    private String builtKey() {
+        return keyPrefix + "built";
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("email.bloom.lookups")
+                .description("Registered-email filter lookups by answer")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
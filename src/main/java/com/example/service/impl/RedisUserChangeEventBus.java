@@ -0,0 +1,222 @@
+package com.example.service.impl;
+
+import com.example.config.concurrency.CustomThreadFactory;
+import com.example.service.PrincipalCacheService;
+import com.example.service.UserChangeEventBus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cross-node user invalidation over Valkey pub/sub.
+ *
+ * Local entries are evicted immediately; the user ID is then queued and sent with whatever
+ * else arrives inside the batch window as one compact message
+ * ({@code U:<node>:<id>,<id>,...}). If the backlog grows past {@code max-pending} a single
+ * full-flush message ({@code F:<node>:}) replaces it.
+ *
+ * Each node also publishes a heartbeat and watches for its own echo. If the echo stops
+ * arriving the subscription is presumed lost and the local caches are flushed on every check
+ * until it recovers, plus once more on recovery to cover events missed during the gap.
+ */
+@Service
+@Slf4j
+public class RedisUserChangeEventBus implements UserChangeEventBus, MessageListener {
+    public static final String CHANNEL = "user-changed";
+
+    private static final char USER_CHANGED = 'U';
+    private static final char FLUSH_ALL = 'F';
+    private static final char HEARTBEAT = 'H';
+    private static final int MAX_IDS_PER_MESSAGE = 500;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final PrincipalCacheService principalCacheService;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final ConcurrentLinkedQueue<Long> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomThreadFactory("user-change-bus"));
+
+    private final long batchWindowMillis;
+    private final int maxPending;
+    private final long heartbeatIntervalMillis;
+
+    private volatile long lastHeartbeatSeenMillis = System.currentTimeMillis();
+    private volatile boolean subscriptionHealthy = true;
+
+    public RedisUserChangeEventBus(
+            StringRedisTemplate stringRedisTemplate,
+            PrincipalCacheService principalCacheService,
+            @Value("${cache.invalidation.batch-window-ms:5}") long batchWindowMillis,
+            @Value("${cache.invalidation.max-pending:10000}") int maxPending,
+            @Value("${cache.invalidation.heartbeat-ms:5000}") long heartbeatIntervalMillis) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.principalCacheService = principalCacheService;
+        this.batchWindowMillis = batchWindowMillis;
+        this.maxPending = maxPending;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publishUserChanged(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        principalCacheService.invalidate(userId);
+
+        pending.add(userId);
+        pendingCount.incrementAndGet();
+        if (flushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::flushPending, batchWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushPending() {
+        flushScheduled.set(false);
+        if (pendingCount.get() > maxPending) {
+            drainAll();
+            send(FLUSH_ALL, "");
+            return;
+        }
+
+        Set<Long> batch = new LinkedHashSet<>();
+        Long userId;
+        while ((userId = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(userId);
+            if (batch.size() == MAX_IDS_PER_MESSAGE) {
+                send(USER_CHANGED, join(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(USER_CHANGED, join(batch));
+        }
+    }
+
+    private static String join(Set<Long> userIds) {
+        StringBuilder payload = new StringBuilder(userIds.size() * 20);
+        for (Long userId : userIds) {
+            if (!payload.isEmpty()) {
+                payload.append(',');
+            }
+            payload.append(userId.longValue());
+        }
+        return payload.toString();
+    }
+
+    private void drainAll() {
+        while (pending.poll() != null) {
+            pendingCount.decrementAndGet();
+        }
+    }
+
+    private void send(char type, String payload) {
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, type + ":" + nodeId + ":" + payload);
+        } catch (Exception e) {
+            // Peers fall back to their cache TTL; nothing else to do from here
+            log.error("Failed to publish user change event. Reason: {}", e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        try {
+            send(HEARTBEAT, "");
+            long silence = System.currentTimeMillis() - lastHeartbeatSeenMillis;
+            if (silence > heartbeatIntervalMillis * 3) {
+                if (subscriptionHealthy) {
+                    log.warn("No user change heartbeat for {} ms; treating subscription as lost", silence);
+                }
+                subscriptionHealthy = false;
+                principalCacheService.invalidateAll();
+            }
+        } catch (Exception e) {
+            log.error("User change heartbeat failed. Reason: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int firstColon = body.indexOf(':');
+        int secondColon = body.indexOf(':', firstColon + 1);
+        if (firstColon != 1 || secondColon < 0) {
+            log.warn("Ignoring malformed user change event: {}", body);
+            return;
+        }
+
+        char type = body.charAt(0);
+        String sender = body.substring(firstColon + 1, secondColon);
+        boolean fromSelf = nodeId.equals(sender);
+
+        switch (type) {
+            case HEARTBEAT -> {
+                if (fromSelf) {
+                    onOwnHeartbeat();
+                }
+            }
+            case FLUSH_ALL -> {
+                if (!fromSelf) {
+                    principalCacheService.invalidateAll();
+                }
+            }
+            case USER_CHANGED -> {
+                // Our own changes were already evicted before publishing
+                if (!fromSelf) {
+                    int start = secondColon + 1;
+                    while (start < body.length()) {
+                        int end = body.indexOf(',', start);
+                        if (end < 0) {
+                            end = body.length();
+                        }
+                        try {
+                            principalCacheService.invalidate(Long.parseLong(body, start, end, 10));
+                        } catch (NumberFormatException e) {
+                            log.warn("Ignoring malformed user ID in user change event: {}", body.substring(start, end));
+                        }
+                        start = end + 1;
+                    }
+                }
+            }
+            default -> log.warn("Ignoring unknown user change event type: {}", type);
+        }
+    }
+
+    private void onOwnHeartbeat() {
+        lastHeartbeatSeenMillis = System.currentTimeMillis();
+        if (!subscriptionHealthy) {
+            subscriptionHealthy = true;
+            principalCacheService.invalidateAll();
+            log.info("User change subscription recovered; local caches flushed");
+        }
+    }
+
+    public boolean isSubscriptionHealthy() {
+        return subscriptionHealthy;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+}
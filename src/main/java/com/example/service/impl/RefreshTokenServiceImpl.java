@@ -0,0 +1,85 @@
+package com.example.service.impl;
+
+import com.example.service.RefreshTokenService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh-token families in Valkey, one small integer string per family
+ * ({@code rt:<familyId>} -> current generation) expiring with the newest refresh token.
+ *
+ * Rotation is a single Lua call: the current generation advances to the next one, an older
+ * generation means a token was replayed (stolen or double-submitted) and the family is
+ * deleted so every token in it stops working, and a missing key means the family is gone.
+ */
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+    private static final String FAMILY_KEY_PREFIX = "rt:";
+    private static final long REUSED = -2;
+    private static final long UNKNOWN = -1;
+
+    // KEYS[1] family key, ARGV[1] presented generation, ARGV[2] TTL in ms
+    private static final RedisScript<Long> ROTATE_SCRIPT = new DefaultRedisScript<>(
+        "local current = redis.call('GET', KEYS[1]) " +
+        "if not current then return -1 end " +
+        "if current ~= ARGV[1] then redis.call('DEL', KEYS[1]) return -2 end " +
+        "local next = tonumber(current) + 1 " +
+        "redis.call('SET', KEYS[1], next, 'PX', ARGV[2]) " +
+        "return next",
+        Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ExecutorService redisServiceThreadPool;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenServiceImpl(
+            StringRedisTemplate stringRedisTemplate,
+            @Qualifier("redisServiceThreadPool") ExecutorService redisServiceThreadPool) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisServiceThreadPool = redisServiceThreadPool;
+    }
+
+    @Override
+    public CompletableFuture<String> startFamily(long validityMillis) {
+        String familyId = newFamilyId();
+        return CompletableFuture.supplyAsync(() -> {
+            stringRedisTemplate.opsForValue().set(buildFamilyKey(familyId), "0", validityMillis, TimeUnit.MILLISECONDS);
+            return familyId;
+        }, redisServiceThreadPool);
+    }
+
+    @Override
+    public CompletableFuture<Rotation> rotate(String familyId, long presentedGeneration, long validityMillis) {
+        return CompletableFuture.supplyAsync(() -> {
+            Long result = stringRedisTemplate.execute(ROTATE_SCRIPT, List.of(buildFamilyKey(familyId)),
+                    Long.toString(presentedGeneration), Long.toString(validityMillis));
+            if (result == null || result == UNKNOWN) {
+                return new Rotation(Outcome.UNKNOWN, presentedGeneration);
+            }
+            if (result == REUSED) {
+                return new Rotation(Outcome.REUSED, presentedGeneration);
+            }
+            return new Rotation(Outcome.ROTATED, result);
+        }, redisServiceThreadPool);
+    }
+
+    private String newFamilyId() {
+        byte[] bytes = new byte[12];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private String buildFamilyKey(String familyId) {
+        return FAMILY_KEY_PREFIX + familyId;
+    }
+}
@@ -0,0 +1,558 @@
+package com.example.service.impl;
+
+import com.example.common.LogManager;
+import com.example.common.MessageConstants;
+import com.example.common.SnowflakeIdGenerator;
+import com.example.config.concurrency.CustomThreadFactory;
+import com.example.config.concurrency.PasswordHashingExecutor;
+import com.example.dto.SignupRequestDTO;
+import com.example.entity.User;
+import com.example.exception.ServiceOverloadedException;
+import com.example.repository.UserKeys;
+import com.example.repository.UserRepository;
+import com.example.service.RegisteredEmailFilter;
+import com.example.service.UserImportService;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk user import for tenant migrations.
+ *
+ * The input is read a batch at a time, so memory stays constant whatever the file size.
+ * For each batch: parse and validate every row against the {@link SignupRequestDTO}
+ * constraints, drop rows whose email or username repeats within the batch or is already
+ * taken (one IN query), BCrypt the rest on the {@link PasswordHashingExecutor} (at most
+ * {@code hash-concurrency} at a time, so logins keep the rest of the pool), register the
+ * emails with the registered-email filter in one pipelined call, then insert the batch as a
+ * single JDBC batch in one transaction. If that batch hits a unique key (a concurrent
+ * signup), it is rolled back and replayed row by row so every row still gets its own result.
+ * A row that no step settles is reported as failed.
+ *
+ * Imported accounts get no OTP email; unverified ones go through /users/send-otp when they
+ * first sign in.
+ */
+@Service
+@Slf4j
+public class UserImportServiceImpl implements UserImportService {
+    private static final long RETRY_AFTER_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final List<String> CSV_COLUMNS = List.of("username", "email", "password");
+
+    private static final String CREATED = "created";
+    private static final String DUPLICATE = "duplicate";
+    private static final String INVALID = "invalid";
+    private static final String FAILED = "failed";
+
+    private final UserRepository userRepository;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final SnowflakeIdGenerator userIdGenerator;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+
+    private final ExecutorService importExecutor =
+            Executors.newSingleThreadExecutor(new CustomThreadFactory("user-import"));
+    private final Semaphore hashPermits;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public UserImportServiceImpl(
+            UserRepository userRepository,
+            RegisteredEmailFilter registeredEmailFilter,
+            PasswordEncoder passwordEncoder,
+            PasswordHashingExecutor passwordHashingExecutor,
+            SnowflakeIdGenerator userIdGenerator,
+            Validator validator,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${user-import.batch-size:1000}") int batchSize,
+            @Value("${user-import.hash-concurrency:0}") int hashConcurrency) {
+        this.userRepository = userRepository;
+        this.registeredEmailFilter = registeredEmailFilter;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.userIdGenerator = userIdGenerator;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        // Half the BCrypt threads by default, leaving the other half to interactive logins
+        this.hashPermits = new Semaphore(hashConcurrency > 0
+                ? hashConcurrency : Math.max(1, passwordHashingExecutor.getThreads() / 2));
+    }
+
+    @Override
+    public CompletableFuture<Summary> importUsers(InputStream input, Format format, User.Status status, Consumer<String> sink) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ServiceOverloadedException(MessageConstants.IMPORT_ALREADY_RUNNING, RETRY_AFTER_MILLIS);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> runImport(input, format, status, sink), importExecutor)
+                    .whenComplete((summary, throwable) -> running.set(false));
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private Summary runImport(InputStream input, Format format, User.Status status, Consumer<String> sink) {
+        long start = System.currentTimeMillis();
+        Tally tally = new Tally();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            int[] csvColumns = null;
+            if (format == Format.CSV) {
+                lineNumber++;
+                csvColumns = readCsvHeader(reader.readLine());
+                if (csvColumns == null) {
+                    Row header = Row.rejected(lineNumber, null, INVALID, "CSV header must name the columns " + String.join(",", CSV_COLUMNS));
+                    sink.accept(render(List.of(header), tally));
+                    return finish(tally, start, sink);
+                }
+            }
+
+            List<Row> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.add(parse(lineNumber, line, csvColumns));
+                if (batch.size() == batchSize) {
+                    sink.accept(processAndRender(batch, status, tally));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                sink.accept(processAndRender(batch, status, tally));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return finish(tally, start, sink);
+    }
+
+    private Summary finish(Tally tally, long start, Consumer<String> sink) {
+        Summary summary = tally.summary(System.currentTimeMillis() - start);
+        sink.accept(toJson(Map.of("summary", summary)) + "\n");
+        LogManager.logInfo("USER_IMPORT", "Rows: " + summary.rows() + ", Created: " + summary.created()
+                + ", Duplicate: " + summary.duplicate() + ", Invalid: " + summary.invalid()
+                + ", Failed: " + summary.failed() + ", Elapsed: " + summary.elapsedMillis() + " ms");
+        return summary;
+    }
+
+    private Row parse(long lineNumber, String text, int[] csvColumns) {
+        SignupRequestDTO request;
+        try {
+            request = csvColumns == null ? objectMapper.readValue(text, SignupRequestDTO.class) : fromCsv(text, csvColumns);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return Row.rejected(lineNumber, null, INVALID, "Row could not be parsed");
+        }
+
+        Set<ConstraintViolation<SignupRequestDTO>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return Row.rejected(lineNumber, request.getEmail(), INVALID, message);
+        }
+        return new Row(lineNumber, request);
+    }
+
+    // A batch that fails unexpectedly is reported row by row (unsettled rows as failed) and the
+    // import goes on with the next one
+    private String processAndRender(List<Row> batch, User.Status status, Tally tally) {
+        try {
+            processBatch(batch, status);
+        } catch (RuntimeException e) {
+            LogManager.logSystemError("USER_IMPORT", "Import batch failed", e);
+        }
+        return render(batch, tally);
+    }
+
+    private void processBatch(List<Row> batch, User.Status status) {
+        List<Row> candidates;
+        try {
+            candidates = rejectDuplicates(batch);
+        } catch (DataAccessException e) {
+            LogManager.logSystemError("USER_IMPORT", "Duplicate check failed", e);
+            batch.stream().filter(row -> !row.settled).forEach(row -> row.reject(FAILED, MessageConstants.SERVER_ERROR));
+            return;
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        List<Row> hashed = hashPasswords(candidates, status);
+        if (hashed.isEmpty()) {
+            return;
+        }
+
+        // Same ordering as signup: the filter must know an email before its row exists
+        try {
+            registeredEmailFilter.registerAll(hashed.stream().map(row -> row.user.getEmail()).toList()).join();
+        } catch (CompletionException e) {
+            log.warn("Import batch not registered with the email filter. Reason: {}", e.getMessage());
+            hashed.forEach(row -> row.reject(FAILED, "Could not register email"));
+            return;
+        }
+
+        insert(hashed);
+    }
+
+    // Marks rows that repeat an email or username within the batch or that are already taken
+    private List<Row> rejectDuplicates(List<Row> batch) {
+        Set<String> emails = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+        List<Row> candidates = new ArrayList<>();
+        for (Row row : batch) {
+            if (row.settled) {
+                continue;
+            }
+            if (!emails.add(normalise(row.request.getEmail()))) {
+                row.reject(DUPLICATE, DuplicateKey.EMAIL);
+            } else if (!usernames.add(normalise(row.request.getUsername()))) {
+                row.reject(DUPLICATE, DuplicateKey.USERNAME);
+            } else {
+                candidates.add(row);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        Set<String> takenEmails = new HashSet<>();
+        Set<String> takenUsernames = new HashSet<>();
+        for (UserKeys taken : userRepository.findKeysByEmailInOrUsernameIn(
+                candidates.stream().map(row -> row.request.getEmail()).toList(),
+                candidates.stream().map(row -> row.request.getUsername()).toList())) {
+            takenEmails.add(normalise(taken.email()));
+            takenUsernames.add(normalise(taken.username()));
+        }
+
+        List<Row> available = new ArrayList<>(candidates.size());
+        for (Row row : candidates) {
+            if (takenEmails.contains(normalise(row.request.getEmail()))) {
+                row.reject(DUPLICATE, DuplicateKey.EMAIL);
+            } else if (takenUsernames.contains(normalise(row.request.getUsername()))) {
+                row.reject(DUPLICATE, DuplicateKey.USERNAME);
+            } else {
+                available.add(row);
+            }
+        }
+        return available;
+    }
+
+    private List<Row> hashPasswords(List<Row> rows, User.Status status) {
+        String[] hashes = hashAll(rows.stream().map(row -> row.request.getPassword()).toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Row> hashed = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            // The plaintext is not needed past this point
+            row.request.setPassword(null);
+            if (hashes[i] == null) {
+                row.reject(FAILED, "Password could not be hashed");
+                continue;
+            }
+            try {
+                User user = new User();
+                user.setUserId(userIdGenerator.nextId());
+                user.setUsername(row.request.getUsername());
+                user.setEmail(row.request.getEmail());
+                user.setPasswordHash(hashes[i]);
+                user.setStatus(status);
+                user.setCreatedAt(now);
+                user.setUpdatedAt(now);
+                row.user = user;
+                hashed.add(row);
+            } catch (IllegalStateException e) {
+                row.reject(FAILED, "Could not generate user ID");
+            }
+        }
+        return hashed;
+    }
+
+    // BCrypt on the shared pool, holding one permit per hash in flight. A hash the pool sheds
+    // because logins already fill its latency budget is retried after its Retry-After; the
+    // import has no client waiting on it. Null where a hash failed.
+    private String[] hashAll(List<String> passwords) {
+        String[] hashes = new String[passwords.size()];
+        List<Integer> remaining = new ArrayList<>(passwords.size());
+        for (int i = 0; i < passwords.size(); i++) {
+            remaining.add(i);
+        }
+        try {
+            while (!remaining.isEmpty()) {
+                List<CompletableFuture<String>> futures = new ArrayList<>(remaining.size());
+                for (int index : remaining) {
+                    String password = passwords.get(index);
+                    hashPermits.acquire();
+                    futures.add(passwordHashingExecutor.submit(() -> passwordEncoder.encode(password))
+                            .whenComplete((hash, throwable) -> hashPermits.release()));
+                }
+
+                List<Integer> shed = new ArrayList<>();
+                long retryAfterMillis = 0;
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        hashes[remaining.get(i)] = futures.get(i).join();
+                    } catch (CompletionException e) {
+                        if (e.getCause() instanceof ServiceOverloadedException overloaded) {
+                            shed.add(remaining.get(i));
+                            retryAfterMillis = Math.max(retryAfterMillis, overloaded.getRetryAfterMillis());
+                        }
+                    }
+                }
+                remaining = shed;
+                if (!shed.isEmpty()) {
+                    log.info("Password hashing pool busy, retrying {} import hashes in {} ms", shed.size(), retryAfterMillis);
+                    Thread.sleep(retryAfterMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shutting down: the hashes not yet done stay null and their rows fail
+            Thread.currentThread().interrupt();
+        }
+        return hashes;
+    }
+
+    private void insert(List<Row> rows) {
+        List<User> users = rows.stream().map(row -> row.user).toList();
+        try {
+            transaction.executeWithoutResult(status -> userRepository.insertAll(users));
+            rows.forEach(Row::created);
+            return;
+        } catch (DataIntegrityViolationException e) {
+            log.info("Import batch of {} hit a unique key, inserting row by row", rows.size());
+        } catch (DataAccessException e) {
+            LogManager.logSystemError("USER_IMPORT", "Batch insert failed", e);
+            rows.forEach(row -> row.reject(FAILED, MessageConstants.SERVER_ERROR));
+            return;
+        }
+
+        for (Row row : rows) {
+            User user = row.user;
+            try {
+                userRepository.insertUser(user.getUserId(), user.getUsername(), user.getEmail(),
+                                          user.getPasswordHash(), user.getStatus().name(), user.getCreatedAt());
+                row.created();
+            } catch (DataIntegrityViolationException e) {
+                String key = DuplicateKey.keyOf(e);
+                if (key != null) {
+                    row.reject(DUPLICATE, key);
+                } else {
+                    // e.g. a value too long for its column: the row itself is invalid
+                    row.reject(FAILED, MessageConstants.BAD_REQUEST);
+                }
+            } catch (DataAccessException e) {
+                row.reject(FAILED, MessageConstants.SERVER_ERROR);
+            }
+        }
+    }
+
+    private String render(List<Row> batch, Tally tally) {
+        StringBuilder lines = new StringBuilder(batch.size() * 96);
+        for (Row row : batch) {
+            tally.count(row.status);
+            RowResult result = CREATED.equals(row.status)
+                    ? new RowResult(row.lineNumber, CREATED, row.user.getEmail(), row.user.getUserId().toString(), null, null)
+                    : new RowResult(row.lineNumber, row.status, row.email(),
+                                    null, DUPLICATE.equals(row.status) ? row.detail : null,
+                                    DUPLICATE.equals(row.status) ? null : row.detail);
+            lines.append(toJson(result)).append('\n');
+        }
+        return lines.toString();
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SignupRequestDTO fromCsv(String line, int[] columns) {
+        List<String> fields = splitCsv(line);
+        SignupRequestDTO request = new SignupRequestDTO();
+        request.setUsername(field(fields, columns[0]));
+        request.setEmail(field(fields, columns[1]));
+        request.setPassword(field(fields, columns[2]));
+        return request;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    // Column index of username, email and password, or null if the header lacks one
+    private static int[] readCsvHeader(String header) {
+        if (header == null) {
+            return null;
+        }
+        List<String> names = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header).stream()
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .toList();
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.indexOf(CSV_COLUMNS.get(i));
+            if (columns[i] < 0) {
+                return null;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * RFC 4180 fields of one line: comma-separated, optionally double-quoted with "" as an
+     * escaped quote. Quoted line breaks are not supported.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String normalise(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+    }
+
+    private static final class Row {
+        private final long lineNumber;
+        private final SignupRequestDTO request;
+        private final String rejectedEmail;
+        private User user;
+        // Failed until a step settles the row, so a batch cut short still reports it
+        private String status = FAILED;
+        private String detail = MessageConstants.SERVER_ERROR;
+        private boolean settled;
+
+        private Row(long lineNumber, SignupRequestDTO request) {
+            this(lineNumber, request, null);
+        }
+
+        private Row(long lineNumber, SignupRequestDTO request, String rejectedEmail) {
+            this.lineNumber = lineNumber;
+            this.request = request;
+            this.rejectedEmail = rejectedEmail;
+        }
+
+        private static Row rejected(long lineNumber, String email, String status, String detail) {
+            Row row = new Row(lineNumber, null, email);
+            row.reject(status, detail);
+            return row;
+        }
+
+        private void reject(String status, String detail) {
+            this.status = status;
+            this.detail = detail;
+            this.settled = true;
+        }
+
+        private void created() {
+            reject(CREATED, null);
+        }
+
+        private String email() {
+            return request != null ? request.getEmail() : rejectedEmail;
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record RowResult(long line, String status, String email, String userId, String field, String message) {
+    }
+
+    private static final class Tally {
+        private long rows;
+        private long created;
+        private long duplicate;
+        private long invalid;
+        private long failed;
+
+        private void count(String status) {
+            rows++;
+            switch (status) {
+                case CREATED -> created++;
+                case DUPLICATE -> duplicate++;
+                case INVALID -> invalid++;
+                default -> failed++;
+            }
+        }
+
+        private Summary summary(long elapsedMillis) {
+            return new Summary(rows, created, duplicate, invalid, failed, elapsedMillis);
+        }
+    }
+}
@@ -1,25 +1,40 @@
 package com.example.service.impl;
 
 import com.example.common.ApiResponse;
+import com.example.common.AuthenticatedPrincipal;
 import com.example.common.JwtUtil;
 import com.example.common.MessageConstants;
+import com.example.common.RequestDeadline;
 import com.example.common.Result;
+import com.example.common.SnowflakeIdGenerator;
+import com.example.common.VerifiedToken;
+import com.example.config.concurrency.PasswordHashingExecutor;
+import com.example.config.database.ReadYourWrites;
+import com.example.config.database.ReplicaRoutingDataSource;
+import com.example.config.journal.SecurityEventJournal;
+import com.example.config.journal.SecurityEventType;
+import com.example.config.security.ClientIpResolver;
+import com.example.config.tracing.StageTrace;
+import com.example.config.tracing.StageTracer;
 import com.example.dto.LoginRequestDTO;
-import com.example.exception.LoginException;
+import com.example.exception.DeadlineExceededException;
+import com.example.exception.ServiceOverloadedException;
 import com.example.dto.LoginResponseDTO;
 import com.example.dto.SignupRequestDTO;
 import com.example.dto.UserDTO;
 import com.example.entity.User;
+import com.example.repository.LoginCredentials;
 import com.example.repository.UserRepository;
 import com.example.service.EmailService;
+import com.example.service.LoginAttemptService;
+import com.example.service.PrincipalCacheService;
+import com.example.service.RefreshTokenService;
+import com.example.service.RegisteredEmailFilter;
+import com.example.service.UserChangeEventBus;
 import com.example.service.UserService;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
-import com.github.rholder.fauxflake.IdGenerators;
-import com.github.rholder.fauxflake.api.IdGenerator;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,374 +42,416 @@ import com.example.service.OtpCacheService;
 import io.github.resilience4j.retry.annotation.Retry;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
 import com.example.common.LogManager;
-import org.springframework.data.redis.core.RedisTemplate;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.CompletableFuture;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Optional;
 import java.util.Random;
-import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
-    private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    
     private final UserRepository userRepository;
     private final EmailService emailService;
     private final OtpCacheService otpCacheService;
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-    private final IdGenerator snowflake = IdGenerators.newSnowflakeIdGenerator();
+    private final UserChangeEventBus userChangeEventBus;
+    private final LoginAttemptService loginAttemptService;
+    private final PrincipalCacheService principalCacheService;
+    private final RefreshTokenService refreshTokenService;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final ReadYourWrites readYourWrites;
+    private final JwtUtil jwtUtil;
+    private final PasswordEncoder passwordEncoder;
+    private final SnowflakeIdGenerator snowflake;
+    private final StageTracer stageTracer;
+    private final SecurityEventJournal securityEventJournal;
+    private final ClientIpResolver clientIpResolver;
 
     private final @Qualifier("userServiceThreadPool") ExecutorService userServiceThreadPool;
-    
-    private static final String FAILED_ATTEMPTS_KEY_PREFIX = "failed_attempts:";
-    private static final long FAILED_ATTEMPTS_TTL = 86400; 
-    private static final int MAX_FAILED_LOGIN_ATTEMPTS = 5;
-    
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    // Shared, immutable-by-convention outcomes for the expected login failures
+    private static final Result<LoginCredentials> INVALID_CREDENTIALS = Result.error(MessageConstants.INVALID_EMAIL_OR_PASSWORD, 404);
+    private static final Result<LoginCredentials> INVALID_PASSWORD = Result.error("Invalid password", 404);
+    private static final Result<LoginCredentials> EMAIL_NOT_VERIFIED = Result.error(MessageConstants.EMAIL_NOT_VERIFIED, 401);
+    private static final Result<LoginCredentials> ACCOUNT_REVOKED = Result.error(MessageConstants.ACCOUNT_REVOKED, 403);
+    private static final Result<User> DUPLICATE_EMAIL = Result.error(MessageConstants.EMAIL_ALREADY_EXISTS, 409);
+    private static final Result<User> DUPLICATE_USERNAME = Result.error(MessageConstants.USERNAME_ALREADY_EXISTS, 409);
 
     /*
      * LOGIN FUNCTION
+     *
+     * Threads only change at real blocking boundaries: the repository lookup runs on
+     * userServiceThreadPool, BCrypt on the hashing executor. The status check and token
+     * signing run inline on whichever thread completed the previous stage, and every
+     * expected failure travels as a Result instead of an exception. Emails the registered-
+     * email filter rules out never reach the pool or the database, and the lookup reads a
+     * LoginCredentials projection rather than a managed User entity. The pooled stages run
+     * under the request deadline and are dropped if it passes while they wait.
+     *
+     * Each stage, including the wait for a thread, is timed into the "login" StageTrace. The
+     * outcome goes to the security event journal with the client IP captured up front, while
+     * still on the request thread.
      */
     @Override
     @Retry(name = "database")
     @CircuitBreaker(name = "database", fallbackMethod = "fallbackLogin")
     public CompletableFuture<ApiResponse<LoginResponseDTO>> login(LoginRequestDTO loginRequest) {
-        return CompletableFuture.supplyAsync(() -> userRepository.findByEmail(loginRequest.getEmail()), userServiceThreadPool)
-            .thenCompose(user -> {
-                if (user == null) {
-                    throw new LoginException(MessageConstants.INVALID_EMAIL_OR_PASSWORD, 404);
-                }
-
-                return validateUserStatus(user);
-            })
-            .thenCompose(result -> {
-                if (!result.isSuccess()) {
-                    throw new LoginException(result.getErrorMessage(), result.getStatusCode());
-                }
-
-                User user = result.getData();
-                return validatePassword(loginRequest, user);
-            })
+        StageTrace trace = stageTracer.begin("login");
+        String clientIp = clientIpResolver.current();
+        CompletableFuture<Result<LoginCredentials>> candidate = registeredEmailFilter.mightBeRegistered(loginRequest.getEmail())
+            ? RequestDeadline.current().supplyAsync(trace.queued("user-service.queue", "mysql.login-credentials",
+                () -> findLoginCandidate(loginRequest.getEmail())), userServiceThreadPool)
+            : CompletableFuture.completedFuture(INVALID_CREDENTIALS);
+
+        return candidate
             .thenCompose(result -> {
-                if (!result.isSuccess()) {
-                    throw new LoginException(result.getErrorMessage(), result.getStatusCode());
+                if (result.isSuccess()) {
+                    return verifyPassword(loginRequest, result.getData(), clientIp, trace);
                 }
-                
-                User user = result.getData();
-                return handleSuccessfulLogin(user, loginRequest.isRememberMe());
+                securityEventJournal.record(SecurityEventType.LOGIN_REJECTED, loginRequest.getEmail(), null, clientIp);
+                return CompletableFuture.completedFuture(result);
             })
+            .thenCompose(result -> toLoginResponse(result, loginRequest.isRememberMe(), trace))
             .exceptionally(throwable -> {
-                if (throwable.getCause() instanceof LoginException) {
-                    LoginException loginException = (LoginException) throwable.getCause();
-                    return ApiResponse.error(loginException.getStatusCode(), loginException.getMessage(), new LoginResponseDTO());
-                }
-
+                rethrowIfShed(throwable);
                 LogManager.logSystemError(MessageConstants.SERVER_ERROR, throwable.getMessage(), throwable);
                 return ApiResponse.error(500, MessageConstants.SERVER_ERROR, new LoginResponseDTO());
-            });
+            })
+            .whenComplete((response, throwable) -> trace.finish());
     }
 
-    private CompletableFuture<Result<User>> validateUserStatus(User user) {
-        return CompletableFuture.supplyAsync(() -> {
-            if (user.getStatus() == User.Status.unverified) {
-                return Result.error(MessageConstants.EMAIL_NOT_VERIFIED, 401);
-            }
-            if (user.getStatus() == User.Status.revoked) {
-                return Result.error(MessageConstants.ACCOUNT_REVOKED, 403);
-            }
-            return Result.success(user);
-        }, userServiceThreadPool);
+    private Result<LoginCredentials> findLoginCandidate(String email) {
+        // A missing or unverified row may only mean the replica has not seen the signup or verification yet
+        Optional<LoginCredentials> user = readYourWrites.read(email,
+                () -> userRepository.findLoginCredentialsByEmail(email),
+                found -> found.isEmpty() || found.get().status() == User.Status.unverified);
+        if (user.isEmpty()) {
+            registeredEmailFilter.recordFalsePositive();
+            return INVALID_CREDENTIALS;
+        }
+        return validateUserStatus(user.get());
     }
 
-    private CompletableFuture<Result<User>> validatePassword(LoginRequestDTO loginRequest, User user) {
-        return CompletableFuture.supplyAsync(() -> {
-            if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPasswordHash())) {
-                handleFailedLogin(user.getEmail());
-                return Result.error("Invalid password", 404);
-            }
-            resetFailedLoginAttempts(user.getEmail());
-            return Result.success(user);
-        }, userServiceThreadPool);
+    private Result<LoginCredentials> validateUserStatus(LoginCredentials user) {
+        if (user.status() == User.Status.unverified) {
+            return EMAIL_NOT_VERIFIED;
+        }
+        if (user.status() == User.Status.revoked) {
+            return ACCOUNT_REVOKED;
+        }
+        return Result.success(user);
+    }
+
+    private CompletableFuture<Result<LoginCredentials>> verifyPassword(LoginRequestDTO loginRequest, LoginCredentials user,
+                                                                       String clientIp, StageTrace trace) {
+        return passwordHashingExecutor.submit(trace.queued("password-hashing.queue", "bcrypt.matches",
+                () -> passwordEncoder.matches(loginRequest.getPassword(), user.passwordHash())))
+            .thenApply(matches -> {
+                // Both branches only hand counter work to LoginAttemptService; nothing blocks here.
+                if (!matches) {
+                    trace.run("redis.login-attempts", () -> loginAttemptService.recordFailure(user.userId(), user.email()));
+                    securityEventJournal.record(SecurityEventType.LOGIN_FAILED, user.email(), user.userId(), clientIp);
+                    return INVALID_PASSWORD;
+                }
+                trace.run("redis.login-attempts", () -> loginAttemptService.reset(user.email()));
+                securityEventJournal.record(SecurityEventType.LOGIN_SUCCEEDED, user.email(), user.userId(), clientIp);
+                if (passwordEncoder.upgradeEncoding(user.passwordHash())) {
+                    rehashPassword(user, loginRequest.getPassword());
+                }
+                return Result.success(user);
+            });
     }
 
-    private CompletableFuture<Integer> handleFailedLogin(String email) {
-        return incrementFailedLoginAttemptsAsync(email)
-            .thenCompose(attempts -> {
-                if (attempts > MAX_FAILED_LOGIN_ATTEMPTS) {
-                    return revokeUserAccount(email)
-                        .thenApply(v -> attempts);
+    /**
+     * Re-encode a hash whose cost differs from the calibrated one. Runs after the login has
+     * already succeeded; if the hashing pool is saturated the upgrade simply waits for the
+     * user's next login.
+     */
+    private void rehashPassword(LoginCredentials user, String rawPassword) {
+        String oldHash = user.passwordHash();
+        passwordHashingExecutor.submit(() -> passwordEncoder.encode(rawPassword))
+            .thenAcceptAsync(newHash -> {
+                int updated = userRepository.updatePasswordHashIfUnchanged(user.userId(), oldHash, newHash);
+                if (updated == 1) {
+                    LogManager.atInfo("PASSWORD_REHASHED").withId("userId", user.userId()).log();
                 }
-                return CompletableFuture.completedFuture(attempts);
+            }, userServiceThreadPool)
+            .exceptionally(throwable -> {
+                if (!isShed(throwable)) {
+                    LogManager.logSystemError("Password rehash failed", user.email(), throwable.getMessage(), throwable);
+                }
+                return null;
             });
     }
 
-    private CompletableFuture<ApiResponse<LoginResponseDTO>> handleSuccessfulLogin(User user, boolean rememberMe) {
-        return CompletableFuture.supplyAsync(() -> {
-            LoginResponseDTO loginData = new LoginResponseDTO();
-            loginData.setAccessToken(JwtUtil.generateToken(user.getUsername(), user.getEmail(), user.getUserId()));
-            loginData.setRefreshToken(JwtUtil.generateRefreshToken(user.getUsername(), user.getEmail(), user.getUserId(), rememberMe));
-            
-            String successMessage = rememberMe 
-                ? MessageConstants.LOGIN_SUCCESSFUL_REMEMBER_ME 
-                : MessageConstants.LOGIN_SUCCESSFUL;
-            
-            return ApiResponse.success(successMessage, loginData);
-        }, userServiceThreadPool);
-    }
+    private CompletableFuture<ApiResponse<LoginResponseDTO>> toLoginResponse(Result<LoginCredentials> result, boolean rememberMe,
+                                                                            StageTrace trace) {
+        if (!result.isSuccess()) {
+            return CompletableFuture.completedFuture(
+                ApiResponse.error(result.getStatusCode(), result.getErrorMessage(), new LoginResponseDTO()));
+        }
 
-    private CompletableFuture<Void> revokeUserAccount(String email) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                User user = userRepository.findByEmail(email);
-                if (user != null) {
-                    user.setStatus(User.Status.revoked);
-                    userRepository.save(user);
-                    String timestamp = LocalDateTime.now().format(formatter);
-                    logger.warn("[{}] User account revoked due to excessive failed login attempts: {}", 
-                                timestamp, maskEmail(email));
+        LoginCredentials user = result.getData();
+        long refreshValidity = JwtUtil.refreshTokenValidity(rememberMe);
+        String successMessage = rememberMe
+            ? MessageConstants.LOGIN_SUCCESSFUL_REMEMBER_ME
+            : MessageConstants.LOGIN_SUCCESSFUL;
+
+        return trace.timeAsync("redis.token-family", () -> refreshTokenService.startFamily(refreshValidity))
+            .handle((familyId, throwable) -> trace.time("jwt.sign", () -> {
+                LoginResponseDTO loginData = new LoginResponseDTO();
+                loginData.setAccessToken(JwtUtil.generateToken(user.username(), user.email(), user.userId()));
+                if (throwable != null) {
+                    // Login still succeeds; without a family the client logs in again when the access token expires
+                    LogManager.logSystemError(MessageConstants.HEADER_REDIS_CONNECTION_ERROR, user.email(),
+                                              "Could not start refresh token family. Reason: " + throwable.getMessage());
+                    loginData.setRefreshToken(JwtUtil.generateRefreshToken(user.username(), user.email(), user.userId(), rememberMe));
+                } else {
+                    loginData.setRefreshToken(JwtUtil.generateRefreshToken(
+                        user.username(), user.email(), user.userId(), familyId, 0L, refreshValidity));
                 }
-            } catch (Exception e) {
-                LogManager.logSystemError("Failed to revoke user account", email, e.getMessage(), e);
-            }
-        }, userServiceThreadPool);
+                return ApiResponse.success(successMessage, loginData);
+            }));
     }
 
-    private CompletableFuture<Integer> incrementFailedLoginAttemptsAsync(String userIdentifier) {
-        return CompletableFuture.supplyAsync(() -> incrementFailedLoginAttempts(userIdentifier), userServiceThreadPool);
+    /*
+     * REFRESH TOKEN FUNCTION
+     *
+     * No BCrypt and one Valkey round trip: the token is verified locally (or served from the
+     * verified-token cache), the account status comes from the principal near cache, and the
+     * family check-and-advance is a single script call. Each rotation keeps the lifetime the
+     * family started with, so remember-me sessions stay long-lived.
+     */
+    @Override
+    public CompletableFuture<ApiResponse<LoginResponseDTO>> refreshToken(String refreshToken) {
+        VerifiedToken token;
+        try {
+            token = jwtUtil.verify(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ApiResponse.error(401, MessageConstants.INVALID_TOKEN, new LoginResponseDTO()));
+        }
+        if (!"refresh".equals(token.type()) || token.familyId() == null) {
+            return CompletableFuture.completedFuture(ApiResponse.error(401, MessageConstants.INVALID_TOKEN, new LoginResponseDTO()));
+        }
+
+        long refreshValidity = token.expiresAtMillis() - token.issuedAtMillis();
+        String clientIp = clientIpResolver.current();
+        return RequestDeadline.current().supplyAsync(() -> principalCacheService.getPrincipal(token.userId()), userServiceThreadPool)
+            .thenCompose(principal -> {
+                Optional<ApiResponse<LoginResponseDTO>> rejection = checkRefreshPrincipal(principal);
+                if (rejection.isPresent()) {
+                    return CompletableFuture.completedFuture(rejection.get());
+                }
+                return refreshTokenService.rotate(token.familyId(), token.generation(), refreshValidity)
+                    .thenApply(rotation -> toRefreshResponse(token, principal.get(), rotation, refreshValidity, clientIp));
+            })
+            .exceptionally(throwable -> {
+                rethrowIfShed(throwable);
+                LogManager.logSystemError(MessageConstants.SERVER_ERROR, throwable.getMessage(), throwable);
+                return ApiResponse.error(500, MessageConstants.SERVER_ERROR, new LoginResponseDTO());
+            });
     }
 
-    @Retry(name = "redis")
-    @CircuitBreaker(name = "redis", fallbackMethod = "fallbackIncrementFailedLoginAttempts")
-    private int incrementFailedLoginAttempts(String userIdentifier) {
-        String key = buildFailedAttemptsKey(userIdentifier);
-        Long result = redisTemplate.opsForValue().increment(key);
-        if (result != null && result == 1) {
-            redisTemplate.expire(key, FAILED_ATTEMPTS_TTL, TimeUnit.SECONDS);
+    private Optional<ApiResponse<LoginResponseDTO>> checkRefreshPrincipal(Optional<AuthenticatedPrincipal> principal) {
+        if (principal.isEmpty()) {
+            return Optional.of(ApiResponse.error(401, MessageConstants.USER_NOT_FOUND_AUTH, new LoginResponseDTO()));
+        }
+        if (principal.get().status() == User.Status.revoked) {
+            return Optional.of(ApiResponse.error(403, MessageConstants.ACCOUNT_REVOKED, new LoginResponseDTO()));
+        }
+        if (principal.get().status() == User.Status.unverified) {
+            return Optional.of(ApiResponse.error(401, MessageConstants.EMAIL_NOT_VERIFIED, new LoginResponseDTO()));
+        }
+        return Optional.empty();
+    }
+
+    private ApiResponse<LoginResponseDTO> toRefreshResponse(VerifiedToken token, AuthenticatedPrincipal principal,
+                                                            RefreshTokenService.Rotation rotation, long refreshValidity,
+                                                            String clientIp) {
+        switch (rotation.outcome()) {
+            case REUSED:
+                LogManager.logSystemError(MessageConstants.HEADER_REFRESH_TOKEN_REUSED, token.email(),
+                                          "Refresh token family revoked after reuse of generation " + token.generation());
+                securityEventJournal.record(SecurityEventType.REFRESH_TOKEN_REUSED, token.email(), token.userId(), clientIp);
+                return ApiResponse.error(401, MessageConstants.REFRESH_TOKEN_REUSED, new LoginResponseDTO());
+            case UNKNOWN:
+                return ApiResponse.error(401, MessageConstants.INVALID_TOKEN, new LoginResponseDTO());
+            default:
+                LoginResponseDTO tokens = new LoginResponseDTO();
+                tokens.setAccessToken(JwtUtil.generateToken(principal.username(), token.email(), principal.userId()));
+                tokens.setRefreshToken(JwtUtil.generateRefreshToken(
+                    principal.username(), token.email(), principal.userId(), token.familyId(), rotation.generation(), refreshValidity));
+                return ApiResponse.success(MessageConstants.TOKEN_REFRESHED, tokens);
         }
-        LogManager.logSystemError(MessageConstants.HEADER_LOGIN_FAILED, userIdentifier, "Invalid password, attempt: " + result);
-        return result != null ? result.intValue() : 0;
-    }
-    
-    public int fallbackIncrementFailedLoginAttempts(String userIdentifier, Throwable t) {
-        LogManager.logSystemError("REDIS_CONNECTION_FAILED", userIdentifier, 
-                                 "Could not increment failed login attempts. Reason: " + t.getMessage(), t);
-        
-        return 0;
-    }
-  
-    private CompletableFuture<Void> resetFailedLoginAttempts(String userIdentifier) {
-        return CompletableFuture.runAsync(() -> resetFailedLoginAttemptsSync(userIdentifier), userServiceThreadPool);
     }
 
-    @Retry(name = "redis")
-    @CircuitBreaker(name = "redis", fallbackMethod = "fallbackResetFailedLoginAttempts")
-    private void resetFailedLoginAttemptsSync(String userIdentifier) {
-        String key = buildFailedAttemptsKey(userIdentifier);
-        redisTemplate.delete(key);
+    public CompletableFuture<ApiResponse<LoginResponseDTO>> fallbackLogin(LoginRequestDTO loginRequest, Throwable t) {
+        if (isShed(t)) {
+            return CompletableFuture.failedFuture(t);
+        }
+        LogManager.logSystemError("Fallback: Could not login for email", loginRequest.getEmail(), t.getMessage(), t);
+        return CompletableFuture.completedFuture(
+            ApiResponse.error(503, "Service temporarily unavailable. Please try again later.", new LoginResponseDTO()));
     }
 
-    public void fallbackResetFailedLoginAttempts(String userIdentifier, Throwable t) {
-        LogManager.logSystemError("REDIS_CONNECTION_FAILED", userIdentifier, 
-                                "Could not reset failed login attempts. Reason: " + t.getMessage(), t);
-        
+    // Load shedding is not a database failure: let it reach the client through GlobalExceptionHandler,
+    // overload as 429 with Retry-After and a passed request deadline as 503
+    private static boolean isShed(Throwable t) {
+        return isShedCause(t) || isShedCause(t.getCause());
     }
 
-    public ApiResponse<LoginResponseDTO> fallbackLogin(LoginRequestDTO loginRequest, Throwable t) {
-        LogManager.logSystemError("Fallback: Could not login for email", loginRequest.getEmail(), t.getMessage(), t);
-        return ApiResponse.error(503, "Service temporarily unavailable. Please try again later.");
+    private static boolean isShedCause(Throwable t) {
+        return t instanceof ServiceOverloadedException || t instanceof DeadlineExceededException;
     }
 
-    private String buildFailedAttemptsKey(String userIdentifier) {
-        return FAILED_ATTEMPTS_KEY_PREFIX + userIdentifier;
+    private static void rethrowIfShed(Throwable throwable) {
+        if (isShedCause(throwable.getCause())) {
+            throw (RuntimeException) throwable.getCause();
+        }
     }
 
     /*
      * SIGNUP FUNCTION
+     *
+     * One INSERT and no reads: the unique indexes on email and username decide whether the
+     * account already exists, and a duplicate-key violation maps to the same 409 responses the
+     * old findByEmail pre-check produced. BCrypt runs first on the hashing executor; the insert
+     * is the only stage on userServiceThreadPool. Stages are timed into the "signup" StageTrace.
      */
     @Override
-    @Transactional
     @Retry(name = "database")
     @CircuitBreaker(name = "database", fallbackMethod = "fallbackSignUp")
     public CompletableFuture<ApiResponse<Void>> signUp(SignupRequestDTO signupRequest) {
-        return CompletableFuture.supplyAsync(() -> userRepository.findByEmail(signupRequest.getEmail()), userServiceThreadPool)
-            .thenCompose(existingUser -> {
-                if (existingUser != null) {
-                    return CompletableFuture.completedFuture(ApiResponse.error(MessageConstants.EMAIL_ALREADY_EXISTS, 409));
-                }
-
-                return createUser(signupRequest);
-            })
-            .thenCompose(createResponse -> {
-                if (createResponse.getStatusCode() != 200) {
-                    return CompletableFuture.completedFuture(ApiResponse.error(createResponse.errorMessage(), createResponse.getStatusCode()));
-                }
-
-                return saveUser(createResponse.getData());
-            })
-            .thenCompose(saveResponse -> {
-                if (saveResponse.getStatusCode() != 200) {
-                    return CompletableFuture.completedFuture(ApiResponse.error(saveResponse.getErrorMessage(), saveResponse.getStatusCode()));
-                }
-
-                return verifyUserPersistence(saveResponse.getData());
-            })
-            .thenCompose(verifyResponse -> {
-                if (verifyResponse.getStatusCode() != 200) {
-                    return CompletableFuture.completedFuture(ApiResponse.error(verifyResponse.getErrorMessage(), verifyResponse.getStatusCode()));
-                }
-
-                return finalizeSignup(verifyResponse.getData());
-            })
+        RequestDeadline deadline = RequestDeadline.current();
+        StageTrace trace = stageTracer.begin("signup");
+        String clientIp = clientIpResolver.current();
+        return createUser(signupRequest, trace)
+            .thenCompose(result -> result.isSuccess()
+                ? insertUser(result.getData(), deadline, trace)
+                : CompletableFuture.completedFuture(result))
             .thenApply(result -> {
-                if (result.getStatusCode() != 200) {
-                    return CompletableFuture.completedFuture(ApiResponse.error(result.getErrorMessage(), result.getStatusCode()));
+                if (!result.isSuccess()) {
+                    return ApiResponse.<Void>error(result.getStatusCode(), result.getErrorMessage());
                 }
 
-                return ApiResponse.success("Account created successfully. Please verify your email address to activate your account.");
+                trace.run("email.enqueue", () -> finalizeSignup(result.getData(), clientIp));
+                return ApiResponse.<Void>success("Account created successfully. Please verify your email address to activate your account.");
             })
             .exceptionally(throwable -> {
-                if (throwable.getCause() instanceof LoginException) {
-                    LoginException loginException = (LoginException) throwable.getCause();
-                    return ApiResponse.error(userException.getStatusCode(), userException.getMessage(), new LoginResponseDTO());
-                }
+                rethrowIfShed(throwable);
                 LogManager.logSystemError(MessageConstants.SERVER_ERROR, throwable.getMessage(), throwable);
-                return ApiResponse.error(500, MessageConstants.SERVER_ERROR, new LoginResponseDTO());
-            });
+                return ApiResponse.error(500, MessageConstants.SERVER_ERROR);
+            })
+            .whenComplete((response, throwable) -> trace.finish());
     }
     
     public CompletableFuture<ApiResponse<Void>> fallbackSignUp(SignupRequestDTO signupRequest, Throwable t) {
+        if (isShed(t)) {
+            return CompletableFuture.failedFuture(t);
+        }
         LogManager.logSystemError("Fallback: Could not sign up for email", signupRequest.getEmail(), t.getMessage(), t);
         return CompletableFuture.completedFuture(ApiResponse.error(503, "Service temporarily unavailable. Please try again later."));
     }
 
-    private CompletableFuture<Result<User>> createUser(SignupRequestDTO signupRequest) {
-        return CompletableFuture.supplyAsync(() -> {
-            User user = new User();
+    private CompletableFuture<Result<User>> createUser(SignupRequestDTO signupRequest, StageTrace trace) {
+        return passwordHashingExecutor.submit(trace.queued("password-hashing.queue", "bcrypt.encode",
+                () -> passwordEncoder.encode(signupRequest.getPassword())))
+            .thenApply(passwordHash -> {
+                User user = new User();
 
-            String userId = null;
-            try {
-                userId = snowflake.generateId(1000).asString();
-            } catch (InterruptedException e) {
-                String timestamp = LocalDateTime.now().format(formatter);
-                logger.warn("[{}] Failed to create new user entity", timestamp);
-                return Result.error("Failed to generate new user entity.");
-            }
-
-            user.setUserId(userId);
-            user.setEmail(signupRequest.getEmail());
-            user.setUsername(signupRequest.getUsername());
-            user.setPasswordHash(passwordEncoder.encode(signupRequest.getPassword()));
-            user.setStatus(User.Status.unverified);
-            return Result.success(user);
-        }, userServiceThreadPool);
-    }
-
-    @Retry(name = "database")
-    @CircuitBreaker(name = "database", fallbackMethod = "fallbackSaveUser")
-    private CompletableFuture<Result<User>> saveUser(User user) {
-        return CompletableFuture.supplyAsync(() -> {
-            User savedUser = userRepository.save(user);
-            if (savedUser == null) {
-                LogManager.logSystemError("Registration verification failed", user.getEmail(), "UserID not found in database", null);
-                return Result.error("Service temporarily unavailable. Please try it later.", 503);
-            }
-            return Result.success(savedUser);
-        }, userServiceThreadPool);
-    }
+                long userId;
+                try {
+                    userId = snowflake.nextId();
+                } catch (IllegalStateException e) {
+                    LogManager.atWarn("USER_ENTITY_CREATION_FAILED").with("message", e.getMessage()).log();
+                    return Result.error("Failed to generate new user entity.");
+                }
 
-    public CompletableFuture<ApiResponse<User>> fallbackSaveUser(User user, Throwable t) {
-        LogManager.logSystemError("Fallback: Could not save user", user.getEmail(), t.getMessage(), t);
-        return CompletableFuture.completedFuture(ApiResponse.error(503, "Service temporarily unavailable. Please try again later."));
+                user.setUserId(userId);
+                user.setEmail(signupRequest.getEmail());
+                user.setUsername(signupRequest.getUsername());
+                user.setPasswordHash(passwordHash);
+                user.setStatus(User.Status.unverified);
+                return Result.success(user);
+            });
     }
 
-    @Retry(name = "database")
-    @CircuitBreaker(name = "database", fallbackMethod = "fallbackVerifyUserPersistence")
-    private CompletableFuture<Result<User>> verifyUserPersistence(User user) {
-        return verifyUserPersistedAsync(user.getUserId())
-            .thenCompose(isPersisted -> {
-                if (!isPersisted) {
-                    LogManager.logSystemError("User persistence verification failed", user.getUserId(), "UserID not found in database", null);
-                    return CompletableFuture.completedFuture(Result.error("Registration completed but verification failed. Please contact support.", 503));
+    private CompletableFuture<Result<User>> insertUser(User user, RequestDeadline deadline, StageTrace trace) {
+        // Record the email before the row exists so no node can answer "not registered" for it;
+        // if Valkey is down the filter defers it and stops trusting its negatives instead of failing
+        return trace.timeAsync("redis.register-email", () -> registeredEmailFilter.register(user.getEmail()))
+            .thenCompose(registered -> deadline.supplyAsync(trace.queued("user-service.queue", "mysql.insert-user", () -> {
+                try {
+                    LocalDateTime now = LocalDateTime.now();
+                    userRepository.insertUser(user.getUserId(), user.getUsername(), user.getEmail(),
+                                              user.getPasswordHash(), user.getStatus().name(), now);
+                    user.setCreatedAt(now);
+                    user.setUpdatedAt(now);
+                    return Result.success(user);
+                } catch (DataIntegrityViolationException e) {
+                    String key = DuplicateKey.keyOf(e);
+                    if (key == null) {
+                        // Not a duplicate (NOT NULL, data too long, ...): a server error, not a conflict
+                        throw e;
+                    }
+                    return duplicateAccount(user, key, e);
                 }
-                return CompletableFuture.completedFuture(Result.success(user));
-            });
+            }), userServiceThreadPool));
     }
 
-    public CompletableFuture<ApiResponse<User>> fallbackVerifyUserPersistence(User user, Throwable t) {
-        LogManager.logSystemError("Fallback: Could not verify user persistence", user.getUserId(), t.getMessage(), t);
-        return CompletableFuture.completedFuture(ApiResponse.error(503, "Service temporarily unavailable. Please try again later."));
+    private Result<User> duplicateAccount(User user, String key, DataIntegrityViolationException e) {
+        if (DuplicateKey.EMAIL.equals(key)) {
+            return DUPLICATE_EMAIL;
+        }
+        if (DuplicateKey.USERNAME.equals(key)) {
+            return DUPLICATE_USERNAME;
+        }
+        LogManager.logSystemError(MessageConstants.REGISTRATION_FAILED, user.getEmail(), e.getMostSpecificCause().getMessage());
+        return Result.error(MessageConstants.REGISTRATION_FAILED, 409);
     }
 
-    @Retry(name = "email")
-    @CircuitBreaker(name = "email", fallbackMethod = "fallbackFinalizeSignup")
-    private CompletableFuture<Result<Void>> finalizeSignup(User user) {
-        return CompletableFuture.supplyAsync(() -> {
+    private void finalizeSignup(User user, String clientIp) {
+        securityEventJournal.record(SecurityEventType.USER_REGISTERED, user.getEmail(), user.getUserId(), clientIp);
+        try {
+            // Delivery is asynchronous; the account exists whether or not the email goes out
             emailService.sendOtpEmailAsync(user.getEmail(), user.getUsername(), "<OTP_PLACEHOLDER>");
-            String timestamp = LocalDateTime.now().format(formatter);
-            logger.info("[{}] User registered successfully - UserID: {}, Email: {}", timestamp, user.getUserId(), maskEmail(user.getEmail()));
-            return Result.success(null);
-        }, userServiceThreadPool);
+            LogManager.logUserRegistration(user.getEmail(), user.getUserId());
+        } catch (Exception e) {
+            LogManager.logSystemError("Could not finalize signup", user.getEmail(), e.getMessage(), e);
+            LogManager.atWarn("SIGNUP_NOTIFICATION_FAILED")
+                .withId("userId", user.getUserId())
+                .withEmail("email", user.getEmail())
+                .log();
+        }
     }
 
-    public CompletableFuture<ApiResponse<Void>> fallbackFinalizeSignup(User user, Throwable t) {
-        LogManager.logSystemError("Fallback: Could not finalize signup", user.getEmail(), t.getMessage(), t);
-        // Even if email sending fails, the user is still created successfully
-        String timestamp = LocalDateTime.now().format(formatter);
-        logger.warn("[{}] User registered but email notification failed - UserID: {}, Email: {}", 
-                    timestamp, user.getUserId(), maskEmail(user.getEmail()));
-        return CompletableFuture.completedFuture(ApiResponse.success("Account created successfully. Please contact support for email verification."));
-    }
-    
-    /**
-     * Verify that the user was actually persisted in the database
-     * Only for the sign-up process
-     */
-    private CompletableFuture<Boolean> verifyUserPersistedAsync(String userId) {
-        return CompletableFuture.supplyAsync(() -> {
+    @Override
+    @Retry(name = "database")
+    @CircuitBreaker(name = "database", fallbackMethod = "fallbackGetUserById")
+    public CompletableFuture<UserDTO> getUserById(Long userId) {
+        return RequestDeadline.current().supplyAsync(() -> {
             try {
-                User persistedUser = userRepository.findById(userId).orElse(null);
-                if (persistedUser == null) {
-                    LogManager.logSystemError("User persistence verification failed", userId, "UserID not found in database", null);
-                    return false;
-                }
-                
-                User userByEmail = userRepository.findByEmail(persistedUser.getEmail());
-                if (userByEmail == null || !userByEmail.getUserId().equals(userId)) {
-                    LogManager.logSystemError("User email verification failed", userId, "Email verification failed", null);
-                    return false;
-                }
-                
-                return true;
+                User user = readYourWrites.read(userId, () -> userRepository.findById(userId))
+                        .orElseThrow(() -> new RuntimeException(String.format(MessageConstants.USER_NOT_FOUND, userId)));
+                return convertToDTO(user);
+            } catch (RuntimeException e) {
+                throw e;
             } catch (Exception e) {
-                LogManager.logSystemError("User verification system error", userId, e.getMessage(), e);
-                return false;
+                LogManager.logSystemError("Get user by ID system error", String.valueOf(userId), e.getMessage(), e);
+                throw new RuntimeException(MessageConstants.SERVER_ERROR, e);
             }
         }, userServiceThreadPool);
     }
 
-    @Override
-    @Retry(name = "database")
-    @CircuitBreaker(name = "database", fallbackMethod = "fallbackGetUserById")
-    public UserDTO getUserById(String userId) {
-        try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException(String.format(MessageConstants.USER_NOT_FOUND, userId)));
-            return convertToDTO(user);
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            LogManager.logSystemError("Get user by ID system error", userId, e.getMessage(), e);
-            throw new RuntimeException(MessageConstants.SERVER_ERROR, e);
+    public CompletableFuture<UserDTO> fallbackGetUserById(Long userId, Throwable t) {
+        if (isShed(t)) {
+            return CompletableFuture.failedFuture(t);
         }
-    }
-
-    public UserDTO fallbackGetUserById(String userId, Throwable t) {
-        LogManager.logSystemError("Fallback: Could not get user by ID", userId, t.getMessage(), t);
-        throw new RuntimeException("Service temporarily unavailable. Please try again later.", t);
+        LogManager.logSystemError("Fallback: Could not get user by ID", String.valueOf(userId), t.getMessage(), t);
+        return CompletableFuture.failedFuture(new RuntimeException("Service temporarily unavailable. Please try again later.", t));
     }
 
     /*
@@ -404,39 +461,55 @@ public class UserServiceImpl implements UserService {
     @Transactional
     @Retry(name = "database")
     @CircuitBreaker(name = "database", fallbackMethod = "fallbackUpdateUser")
-    public CompletableFuture<UserDTO> updateUser(String userId, UserDTO userDTO) {
-        return CompletableFuture.supplyAsync(() -> {
+    public CompletableFuture<UserDTO> updateUser(Long userId, UserDTO userDTO) {
+        RequestDeadline deadline = RequestDeadline.current();
+        CompletableFuture<String> passwordHash = userDTO.getPassword() != null && !userDTO.getPassword().isEmpty()
+            ? passwordHashingExecutor.submit(() -> passwordEncoder.encode(userDTO.getPassword()))
+            : CompletableFuture.completedFuture(null);
+        // A changed email must be visible to every node before the row carries it
+        CompletableFuture<Void> emailRegistered = userDTO.getEmail() != null
+            ? registeredEmailFilter.register(userDTO.getEmail())
+            : CompletableFuture.completedFuture(null);
+
+        return passwordHash.thenCombine(emailRegistered, (newHash, registered) -> newHash).thenCompose(newPasswordHash -> deadline.supplyAsync(() -> {
             try {
-                User user = userRepository.findById(userId)
+                // Read from the primary: this row is about to be written back
+                User user = ReplicaRoutingDataSource.onPrimary(() -> userRepository.findById(userId))
                         .orElseThrow(() -> new RuntimeException(String.format(MessageConstants.USER_NOT_FOUND, userId)));
                 
                 user.setUsername(userDTO.getUsername());
                 user.setEmail(userDTO.getEmail());
-                if (userDTO.getPassword() != null && !userDTO.getPassword().isEmpty()) {
-                    user.setPasswordHash(passwordEncoder.encode(userDTO.getPassword()));
+                if (newPasswordHash != null) {
+                    user.setPasswordHash(newPasswordHash);
                 }
                 user.setProvider(userDTO.getProvider());
                 user.setProviderId(userDTO.getProviderId());
                 
                 User savedUser = userRepository.save(user);
+                userChangeEventBus.publishUserChanged(userId);
+                readYourWrites.recordWrite(savedUser.getEmail());
                 return convertToDTO(savedUser);
             } catch (RuntimeException e) {
                 throw e;
             } catch (Exception e) {
-                LogManager.logSystemError("Update user system error", userId, e.getMessage(), e);
+                LogManager.logSystemError("Update user system error", String.valueOf(userId), e.getMessage(), e);
                 throw new RuntimeException(MessageConstants.SERVER_ERROR, e);
             }
-        }, userServiceThreadPool);
+        }, userServiceThreadPool));
     }
 
-    public CompletableFuture<UserDTO> fallbackUpdateUser(String userId, UserDTO userDTO, Throwable t) {
-        LogManager.logSystemError("Fallback: Could not update user", userId, t.getMessage(), t);
+    public CompletableFuture<UserDTO> fallbackUpdateUser(Long userId, UserDTO userDTO, Throwable t) {
+        if (isShed(t)) {
+            return CompletableFuture.failedFuture(t);
+        }
+        LogManager.logSystemError("Fallback: Could not update user", String.valueOf(userId), t.getMessage(), t);
         return CompletableFuture.failedFuture(new RuntimeException("Service temporarily unavailable. Please try again later.", t));
     }
 
     private UserDTO convertToDTO(User user) {
         UserDTO dto = new UserDTO();
-        dto.setUserId(user.getUserId());
+        // A string in the API: JavaScript clients cannot hold a 64-bit ID as a number
+        dto.setUserId(user.getUserId().toString());
         dto.setUsername(user.getUsername());
         dto.setEmail(user.getEmail());
         dto.setPassword(user.getPasswordHash());
@@ -462,7 +535,12 @@ public class UserServiceImpl implements UserService {
     @Retry(name = "database")
     @CircuitBreaker(name = "database", fallbackMethod = "fallbackSendOtpForEmailVerification")
     public CompletableFuture<ApiResponse<Void>> sendOtpForEmailVerification(String email) {
-        return CompletableFuture.supplyAsync(() -> {
+        if (!registeredEmailFilter.mightBeRegistered(email)) {
+            return CompletableFuture.completedFuture(ApiResponse.error(404, "User with email " + email + " not found"));
+        }
+
+        String clientIp = clientIpResolver.current();
+        return RequestDeadline.current().supplyAsync(() -> {
 
             try {
                 User user = userRepository.findByEmail(email);
@@ -479,8 +557,8 @@ public class UserServiceImpl implements UserService {
                 String otpCode = generateOtp();
                 CompletableFuture<Boolean> isSuccess = otpCacheService.storeOtpAsync(email, otpCode, "EMAIL_VERIFICATION");
 
-                String timestamp = LocalDateTime.now().format(formatter);
-                logger.info("[{}] Email verification OTP sent - Email: {}", timestamp, maskEmail(email));
+                LogManager.logOtpSent(email);
+                securityEventJournal.record(SecurityEventType.OTP_SENT, email, user.getUserId(), clientIp);
         
                 isSuccess.thenAccept(success -> {
                     if (success) {
@@ -499,10 +577,19 @@ public class UserServiceImpl implements UserService {
         }, userServiceThreadPool);
     }
 
+    public CompletableFuture<ApiResponse<Void>> fallbackSendOtpForEmailVerification(String email, Throwable t) {
+        if (isShed(t)) {
+            return CompletableFuture.failedFuture(t);
+        }
+        LogManager.logSystemError("Fallback: Could not send verification OTP", email, t.getMessage(), t);
+        return CompletableFuture.completedFuture(ApiResponse.error(503, "Service temporarily unavailable. Please try again later."));
+    }
+
     @Override
     @Transactional
     public CompletableFuture<ApiResponse<Void>> verifyOtpAndActivateUser(String email, String otpCode) {
-        return CompletableFuture.supplyAsync(() -> {
+        String clientIp = clientIpResolver.current();
+        return RequestDeadline.current().supplyAsync(() -> {
             try {
                 var cachedOtp = otpCacheService.getOtp(email, "EMAIL_VERIFICATION");
                 
@@ -513,10 +600,12 @@ public class UserServiceImpl implements UserService {
                     if (user != null) {
                         user.setStatus(User.Status.normal);
                         userRepository.save(user);
+                        userChangeEventBus.publishUserChanged(user.getUserId());
                     }
                     
-                    String timestamp = LocalDateTime.now().format(formatter);
-                    logger.info("[{}] Email verified successfully - Email: {}", timestamp, maskEmail(email));
+                    LogManager.logEmailVerification(email, true);
+                    securityEventJournal.record(SecurityEventType.EMAIL_VERIFIED, email,
+                                                user != null ? user.getUserId() : null, clientIp);
                     
                     return ApiResponse.success("Email verified successfully. You can now login.");
                 } else {
@@ -0,0 +1,38 @@
+-- Move users.user_id from VARCHAR(36) to BIGINT (MySQL 8).
+--
+-- User IDs are 64-bit Snowflake values (SnowflakeIdGenerator). The 8-byte key replaces a
+-- 36-byte one in the primary key and in every secondary index entry.
+--
+-- The application maps user_id as a Long (User.userId) and binds it as a number. MySQL
+-- compares a string with an integer as DOUBLE, which has 53 bits of precision. A mismatched
+-- binding therefore compares as DOUBLE in both directions. Two 19-digit Snowflake IDs that
+-- differ only in their low bits compare equal, and the primary key index cannot be used.
+-- So:
+--   * a version that binds user_id as a string must not run against the BIGINT column;
+--   * this version must not run against the VARCHAR column.
+--
+-- Order:
+--   a. Steps 1 and 2, with the previous version still running. A non-numeric ID cannot be
+--      read into a Long, and tokens that carry one are rejected as malformed.
+--   b. Step 3 and the deploy of this version in one maintenance window: stop the previous
+--      version, convert the column, start this version. On large tables copy online ahead of
+--      the window (e.g. gh-ost with a postponed cut-over) and cut over inside it.
+
+-- 1. Find rows whose ID is not a plain unsigned integer. Must be 0 before step 3; if not,
+--    run step 2.
+SELECT COUNT(*) FROM users WHERE user_id NOT REGEXP '^[0-9]{1,19}$';
+
+-- 2. Renumber non-numeric legacy IDs into 1..N. Snowflake IDs are always far above that
+--    range (the timestamp occupies the top bits), so the new numbers cannot collide with
+--    future IDs; check that no numeric ID is already in 1..N first. The affected users'
+--    tokens and cached principals carry the old ID, so they are signed out.
+UPDATE users u
+JOIN (
+    SELECT user_id, ROW_NUMBER() OVER (ORDER BY created_at, user_id) AS n
+    FROM users
+    WHERE user_id NOT REGEXP '^[0-9]{1,19}$'
+) legacy ON legacy.user_id = u.user_id
+SET u.user_id = CAST(legacy.n AS CHAR);
+
+-- 3. Convert the column, together with the deploy (see above).
+ALTER TABLE users MODIFY user_id BIGINT UNSIGNED NOT NULL;
@@ -0,0 +1,17 @@
+-- Give the users unique indexes the names the application looks for (MySQL 8).
+--
+-- A duplicate-key error is attributed to email or username by its constraint name
+-- (uk_users_email / uk_users_username, declared on the User entity). Indexes MySQL named
+-- after the column ("email", "username") are recognised as well; any other name makes a
+-- duplicate sign-up answer with a generic conflict instead of "email/username already exists".
+
+-- 1. List the current unique indexes on the two columns.
+SELECT INDEX_NAME, COLUMN_NAME
+FROM information_schema.STATISTICS
+WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'users' AND NON_UNIQUE = 0
+  AND COLUMN_NAME IN ('email', 'username');
+
+-- 2. Rename them (metadata only, no table rebuild); replace the old names with those from step 1.
+ALTER TABLE users
+    RENAME INDEX `<email index>` TO uk_users_email,
+    RENAME INDEX `<username index>` TO uk_users_username;
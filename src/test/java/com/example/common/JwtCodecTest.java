@@ -0,0 +1,144 @@
+package com.example.common;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tokens go through both implementations: the codec's output must parse with jjwt and
+ * jjwt's HS256 output must verify with the codec, with the same claims either way.
+ */
+class JwtCodecTest {
+    private static final SecretKey KEY = Keys.hmacShaKeyFor("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+    private static final Long USER_ID = 1_234_567_890_123_456_789L;
+
+    private final JwtCodec codec = new JwtCodec(KEY);
+    private final JwtParser jjwt = Jwts.parserBuilder().setSigningKey(KEY).build();
+
+    @Test
+    void codecTokensParseWithJjwt() {
+        long now = System.currentTimeMillis();
+        String token = codec.encode("alice", "alice@example.com", USER_ID, "refresh", "family-1", 3, now, now + 60_000);
+
+        Claims claims = jjwt.parseClaimsJws(token).getBody();
+
+        assertThat(claims.getSubject()).isEqualTo("alice");
+        assertThat(claims.get("email", String.class)).isEqualTo("alice@example.com");
+        assertThat(claims.get("userId", String.class)).isEqualTo(USER_ID.toString());
+        assertThat(claims.get("type", String.class)).isEqualTo("refresh");
+        assertThat(claims.get("fid", String.class)).isEqualTo("family-1");
+        assertThat(((Number) claims.get("gen")).longValue()).isEqualTo(3);
+        assertThat(claims.getIssuedAt().getTime()).isEqualTo(now / 1000 * 1000);
+        assertThat(claims.getExpiration().getTime()).isEqualTo((now + 60_000) / 1000 * 1000);
+    }
+
+    @Test
+    void jjwtTokensVerifyWithTheCodec() {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        String token = Jwts.builder()
+                .setSubject("bob")
+                .claim("email", "bob@example.com")
+                .claim("userId", USER_ID.toString())
+                .claim("type", "access")
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 60_000))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(codec.canDecode(token)).isTrue();
+        VerifiedToken verified = codec.verify(token);
+
+        assertThat(verified).isEqualTo(new VerifiedToken("bob", USER_ID, "bob@example.com", "access", null, 0, now, now + 60_000));
+        assertThat(JwtUtil.toVerifiedToken(jjwt.parseClaimsJws(token).getBody())).isEqualTo(verified);
+    }
+
+    @Test
+    void rejectsATamperedPayload() {
+        long now = System.currentTimeMillis();
+        String token = codec.encode("alice", "alice@example.com", USER_ID, "access", now, now + 60_000);
+        String forged = codec.encode("alice", "alice@example.com", USER_ID + 1, "access", now, now + 60_000);
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + forged.split("\\.")[1] + "." + parts[2];
+
+        assertThatThrownBy(() -> codec.verify(tampered)).isInstanceOf(SignatureException.class);
+        assertThatThrownBy(() -> jjwt.parseClaimsJws(tampered)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rejectsATokenSignedWithAnotherKey() {
+        long now = System.currentTimeMillis();
+        JwtCodec other = new JwtCodec(Keys.hmacShaKeyFor("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8)));
+        String token = other.encode("alice", "alice@example.com", USER_ID, "access", now, now + 60_000);
+
+        assertThatThrownBy(() -> codec.verify(token)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void leavesOtherAlgorithmsToJjwtWhichRejectsThem() {
+        JwtUtil jwtUtil = new JwtUtil(100);
+        String token = JwtUtil.generateToken("alice", "alice@example.com", USER_ID);
+        String[] parts = token.split("\\.");
+        String hs512 = header("{\"alg\":\"HS512\"}") + "." + parts[1] + "." + parts[2];
+        String none = header("{\"alg\":\"none\"}") + "." + parts[1] + ".";
+
+        assertThat(codec.canDecode(hs512)).isFalse();
+        assertThatThrownBy(() -> codec.verify(hs512)).isInstanceOf(MalformedJwtException.class);
+        assertThatThrownBy(() -> jwtUtil.verify(hs512)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> jwtUtil.verify(none)).isInstanceOf(JwtException.class);
+        assertThat(jwtUtil.verify(token).userId()).isEqualTo(USER_ID);
+    }
+
+    @Test
+    void rejectsAnExpiredToken() {
+        long now = System.currentTimeMillis();
+        String token = codec.encode("alice", "alice@example.com", USER_ID, "access", now - 120_000, now - 60_000);
+
+        assertThatThrownBy(() -> codec.verify(token)).isInstanceOf(ExpiredJwtException.class);
+        assertThatThrownBy(() -> jjwt.parseClaimsJws(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void rejectsATokenWithoutExpiry() {
+        String token = Jwts.builder()
+                .setSubject("alice")
+                .claim("userId", USER_ID.toString())
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThatThrownBy(() -> codec.verify(token)).isInstanceOf(MalformedJwtException.class);
+        Claims claims = jjwt.parseClaimsJws(token).getBody();
+        assertThatThrownBy(() -> JwtUtil.toVerifiedToken(claims)).isInstanceOf(MalformedJwtException.class);
+    }
+
+    @Test
+    void rejectsANonNumericUserId() {
+        long now = System.currentTimeMillis();
+        String token = Jwts.builder()
+                .setSubject("alice")
+                .claim("userId", "a1b2c3")
+                .setExpiration(new Date(now + 60_000))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThatThrownBy(() -> codec.verify(token)).isInstanceOf(MalformedJwtException.class);
+    }
+
+    private static String header(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.common;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogRingBufferTest {
+
+    @Test
+    void writesEachEventAsOneEscapedJsonLineWithMaskedEmails() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LogRingBuffer ring = LogRingBuffer.start(64, out);
+
+        LogEvent.begin(ring, Level.WARN, "JWT_AUTH_FAILED")
+                .with("reason", "bad \"token\"\n")
+                .withEmail("email", "alice@example.com")
+                .with("attempts", 3)
+                .log();
+        LogEvent.begin(ring, Level.INFO, "OTP_SENT").with("name", "Zo\u00eb").log();
+        ring.close();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0])
+                .matches("\\{\"ts\":\"\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}Z\",.*")
+                .contains("\"level\":\"WARN\",\"event\":\"JWT_AUTH_FAILED\"")
+                .contains("\"reason\":\"bad \\\"token\\\"\\n\"")
+                .contains("\"email\":\"a***@example.com\"")
+                .contains("\"attempts\":3}")
+                .doesNotContain("alice");
+        assertThat(lines[1]).contains("\"name\":\"Zo\u00eb\"");
+    }
+
+    @Test
+    void samplesThenDropsWhileTheWriterIsStalledAndReportsTheLoss() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        OutputStream stalled = new OutputStream() {
+            @Override
+            public void write(int b) {
+                written.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                written.write(b, off, len);
+            }
+        };
+        LogRingBuffer ring = LogRingBuffer.start(64, stalled);
+
+        LogEvent.begin(ring, Level.INFO, "FIRST").log();
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 48 fit, the remaining 52 are sampled 1 in 16 once the ring is three quarters full
+        for (int i = 0; i < 100; i++) {
+            LogEvent.begin(ring, Level.INFO, "FILL").with("i", i).log();
+        }
+        // WARN and above are never sampled, only dropped once the ring is full
+        for (int i = 0; i < 100; i++) {
+            LogEvent.begin(ring, Level.ERROR, "OVERFLOW").with("i", i).log();
+        }
+
+        assertThat(ring.getQueued()).isEqualTo(64);
+        assertThat(ring.getSampledOut()).isEqualTo(49);
+        assertThat(ring.getDropped(Level.ERROR)).isEqualTo(87);
+        assertThat(ring.getDropped(Level.INFO)).isZero();
+
+        release.countDown();
+        ring.close();
+
+        String log = written.toString(StandardCharsets.UTF_8);
+        assertThat(log.lines().filter(line -> line.contains("\"event\":\"OVERFLOW\""))).hasSize(13);
+        assertThat(log).contains("\"event\":\"LOG_EVENTS_DROPPED\",\"thread\":\"log-writer\",\"dropped\":87,\"sampledOut\":49}");
+        assertThat(ring.getQueued()).isZero();
+    }
+
+    @Test
+    void aCallAbandonedMidChainCostsOneAllocationNotOnePerLaterCall() {
+        LogRingBuffer ring = LogRingBuffer.start(64, OutputStream.nullOutputStream());
+
+        // As if evaluating an argument threw before log() was reached
+        LogEvent abandoned = LogEvent.begin(ring, Level.INFO, "ABANDONED").with("userId", "42");
+        LogEvent next = LogEvent.begin(ring, Level.INFO, "NEXT");
+        assertThat(next).isNotSameAs(abandoned);
+        next.log();
+
+        LogEvent after = LogEvent.begin(ring, Level.INFO, "AFTER");
+        assertThat(after).isSameAs(next);
+        after.log();
+        ring.close();
+    }
+}
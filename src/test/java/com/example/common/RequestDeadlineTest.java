@@ -0,0 +1,77 @@
+package com.example.common;
+
+import com.example.exception.DeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestDeadlineTest {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void clientHeaderCanOnlyShortenTheEndpointTimeout() {
+        assertThat(RequestDeadline.of("500", 10_000).remainingMillis()).isBetween(400L, 500L);
+        assertThat(RequestDeadline.of("60000", 1_000).remainingMillis()).isBetween(900L, 1_000L);
+        assertThat(RequestDeadline.of("soon", 1_000).remainingMillis()).isBetween(900L, 1_000L);
+        assertThat(RequestDeadline.of("-5", 1_000).remainingMillis()).isBetween(900L, 1_000L);
+        assertThat(RequestDeadline.none().remainingMillis()).isEqualTo(Long.MAX_VALUE);
+        assertThat(RequestDeadline.none().isExpired()).isFalse();
+    }
+
+    @Test
+    void travelsToThePoolThreadAndToStagesThatContinueThere() throws Exception {
+        RequestDeadline deadline = RequestDeadline.after(5_000);
+        CountDownLatch stageAttached = new CountDownLatch(1);
+
+        CompletableFuture<RequestDeadline> seenByTask = deadline.supplyAsync(() -> {
+            await(stageAttached);
+            return RequestDeadline.current();
+        }, executor);
+        // Attached before the task completes, so it runs on the pool thread
+        CompletableFuture<RequestDeadline> seenByStage = seenByTask.thenApply(ignored -> RequestDeadline.current());
+        stageAttached.countDown();
+
+        // Waiting on seenByTask first could let this thread run the dependent stage itself
+        assertThat(seenByStage.get(5, TimeUnit.SECONDS)).isSameAs(deadline);
+        assertThat(seenByTask.get(5, TimeUnit.SECONDS)).isSameAs(deadline);
+        assertThat(RequestDeadline.current()).isSameAs(RequestDeadline.none());
+        assertThat(executor.submit(RequestDeadline::current).get(5, TimeUnit.SECONDS)).isSameAs(RequestDeadline.none());
+    }
+
+    @Test
+    void dropsATaskWhoseDeadlinePassesWhileItWaitsForAThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        AtomicBoolean ran = new AtomicBoolean();
+
+        CompletableFuture<Void> queued = RequestDeadline.after(50).runAsync(() -> ran.set(true), executor);
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(DeadlineExceededException.class);
+        assertThat(ran).isFalse();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
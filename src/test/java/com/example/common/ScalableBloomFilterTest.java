@@ -0,0 +1,130 @@
+package com.example.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Valkey bitmaps are simulated as plain byte arrays written the way SETBIT writes them: offset
+ * {@code o} is bit {@code 7 - o % 8} of byte {@code o / 8}.
+ */
+class ScalableBloomFilterTest {
+    private static final long CAPACITY = 1_000;
+    private static final double FP_RATE = 0.01;
+
+    @Test
+    void neverForgetsAnElementAcrossGrowth() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(CAPACITY, FP_RATE);
+        int elements = 20_000;
+        for (int i = 0; i < elements; i++) {
+            filter.add(filter.currentStage(), ScalableBloomFilter.hash("user" + i + "@example.com"));
+        }
+
+        for (int i = 0; i < elements; i++) {
+            assertThat(filter.mightContain(ScalableBloomFilter.hash("user" + i + "@example.com"))).isTrue();
+        }
+        assertThat(filter.getElements()).isEqualTo(elements);
+    }
+
+    @Test
+    void normalisesCaseAndWhitespace() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(CAPACITY, FP_RATE);
+        filter.add(filter.currentStage(), ScalableBloomFilter.hash("Alice@Example.com"));
+
+        assertThat(filter.mightContain(ScalableBloomFilter.hash("  alice@example.COM "))).isTrue();
+    }
+
+    @Test
+    void growsADoubledStageOnceTheNewestIsFull() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(CAPACITY, FP_RATE);
+        for (int i = 0; i < CAPACITY; i++) {
+            filter.add(filter.currentStage(), ScalableBloomFilter.hash("user" + i + "@example.com"));
+        }
+        assertThat(filter.getStageCount()).isEqualTo(1);
+
+        assertThat(filter.currentStage()).isEqualTo(1);
+        assertThat(filter.getStageCount()).isEqualTo(2);
+        assertThat(filter.getStageElements(0)).isEqualTo(CAPACITY);
+        // Twice the capacity at half the rate needs more than twice the bits
+        assertThat(filter.getStageBytes(1)).isGreaterThan(2 * filter.getStageBytes(0));
+        assertThat(filter.getStageBytes(0) % 8).isZero();
+    }
+
+    @Test
+    void keepsTheFalsePositiveRateBelowTheTargetAfterGrowing() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(CAPACITY, FP_RATE);
+        for (int i = 0; i < 15 * CAPACITY; i++) {
+            filter.add(filter.currentStage(), ScalableBloomFilter.hash("user" + i + "@example.com"));
+        }
+        assertThat(filter.getStageCount()).isEqualTo(4);
+
+        int probes = 100_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(ScalableBloomFilter.hash("absent" + i + "@example.com"))) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / probes).isLessThan(FP_RATE);
+        assertThat(filter.getExpectedFalsePositiveRate()).isLessThan(FP_RATE);
+    }
+
+    @Test
+    void bitmapMatchesValkeySetbitOffsets() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(CAPACITY, FP_RATE);
+        long[] hash = ScalableBloomFilter.hash("alice@example.com");
+        filter.add(0, hash);
+
+        byte[] bitmap = filter.toBitmap(0);
+        long[] offsets = filter.offsets(0, hash);
+
+        assertThat(bitmap).hasSize((int) filter.getStageBytes(0));
+        int setBits = 0;
+        for (byte b : bitmap) {
+            setBits += Integer.bitCount(b & 0xff);
+        }
+        assertThat(setBits).isLessThanOrEqualTo(offsets.length).isPositive();
+        for (long offset : offsets) {
+            assertThat(bitmap[(int) (offset / 8)] & (0x80 >> (offset % 8))).isNotZero();
+        }
+    }
+
+    @Test
+    void mergesABitmapBuiltWithSetbit() {
+        ScalableBloomFilter writer = new ScalableBloomFilter(CAPACITY, FP_RATE);
+        long[] hash = ScalableBloomFilter.hash("bob@example.com");
+        byte[] valkey = new byte[(int) writer.getStageBytes(0)];
+        for (long offset : writer.offsets(0, hash)) {
+            valkey[(int) (offset / 8)] |= (byte) (0x80 >> (offset % 8));
+        }
+
+        ScalableBloomFilter reader = new ScalableBloomFilter(CAPACITY, FP_RATE);
+        assertThat(reader.mightContain(hash)).isFalse();
+        reader.merge(0, valkey, 1);
+
+        assertThat(reader.mightContain(hash)).isTrue();
+        assertThat(reader.getStageElements(0)).isEqualTo(1);
+    }
+
+    @Test
+    void roundTripsEveryStageThroughBitmaps() {
+        ScalableBloomFilter source = new ScalableBloomFilter(CAPACITY, FP_RATE);
+        for (int i = 0; i < 5 * CAPACITY; i++) {
+            source.add(source.currentStage(), ScalableBloomFilter.hash("user" + i + "@example.com"));
+        }
+
+        ScalableBloomFilter copy = new ScalableBloomFilter(CAPACITY, FP_RATE);
+        for (int stage = 0; stage < source.getStageCount(); stage++) {
+            copy.merge(stage, source.toBitmap(stage), source.getStageElements(stage));
+        }
+
+        assertThat(copy.getStageCount()).isEqualTo(source.getStageCount());
+        assertThat(copy.getElements()).isEqualTo(source.getElements());
+        for (int stage = 0; stage < source.getStageCount(); stage++) {
+            assertThat(copy.toBitmap(stage)).isEqualTo(source.toBitmap(stage));
+        }
+        for (int i = 0; i < 5 * CAPACITY; i++) {
+            assertThat(copy.mightContain(ScalableBloomFilter.hash("user" + i + "@example.com"))).isTrue();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+    private static final long NOW = SnowflakeIdGenerator.EPOCH_MILLIS + 1_000_000L;
+
+    @Test
+    void idsAreUniqueAcrossThreads() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
+        generator.assign(7, 0, Long.MAX_VALUE);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(ids).hasSize(8 * 50_000);
+        assertThat(ids).allMatch(id -> SnowflakeIdGenerator.workerIdOf(id) == 7);
+    }
+
+    @Test
+    void clockStepBackKeepsIdsIncreasingWithoutWaiting() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(clock::get);
+        generator.assign(1, 0, Long.MAX_VALUE);
+
+        long before = generator.nextId();
+        clock.addAndGet(-5_000);
+        long after = generator.nextId();
+
+        assertThat(after).isGreaterThan(before);
+        assertThat(SnowflakeIdGenerator.timestampOf(after)).isEqualTo(NOW);
+        assertThat(generator.getAheadMillis()).isEqualTo(5_000);
+    }
+
+    @Test
+    void exhaustedSequenceBorrowsTheNextMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(() -> NOW);
+        generator.assign(1, 0, Long.MAX_VALUE);
+
+        long last = 0;
+        for (int i = 0; i < 4096 * 3; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(last);
+            last = id;
+        }
+        assertThat(SnowflakeIdGenerator.timestampOf(last)).isEqualTo(NOW + 2);
+    }
+
+    @Test
+    void newHolderStartsAfterThePreviousHighWaterMark() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(() -> NOW);
+        generator.assign(3, NOW + 30_000, Long.MAX_VALUE);
+
+        assertThat(SnowflakeIdGenerator.timestampOf(generator.nextId())).isEqualTo(NOW + 30_000);
+    }
+
+    @Test
+    void refusesToIssueWithoutALease() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(clock::get);
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+
+        generator.assign(2, 0, NOW + 1_000);
+        generator.nextId();
+        clock.addAndGet(1_000);
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+    }
+}
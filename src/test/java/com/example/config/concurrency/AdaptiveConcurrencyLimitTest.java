@@ -0,0 +1,95 @@
+package com.example.config.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the limit with a simulated downstream instead of real threads: each round, every
+ * admitted request completes once, and a request's latency is the base latency while no more
+ * than {@code capacity} requests are in flight, growing in proportion beyond that (requests
+ * queue), with 10% noise on top. A limit that has converged sits just above the capacity.
+ */
+class AdaptiveConcurrencyLimitTest {
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void convergesToDownstreamCapacity() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 1000);
+        Downstream mysql = new Downstream(50, 10 * MILLIS, new Random(1));
+
+        assertThat(mysql.drive(limit, 1000)).isGreaterThan(0.9);
+    }
+
+    @Test
+    void followsCapacityDown() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 1000);
+        Random random = new Random(2);
+        new Downstream(50, 10 * MILLIS, random).drive(limit, 1000);
+
+        assertThat(new Downstream(20, 10 * MILLIS, random).drive(limit, 1000)).isGreaterThan(0.9);
+    }
+
+    @Test
+    void relearnsASlowerDownstreamInsteadOfCollapsing() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 1000);
+        Random random = new Random(3);
+        new Downstream(20, 10 * MILLIS, random).drive(limit, 1000);
+
+        // Same capacity, four times the latency: nothing is queueing, so the limit must hold
+        assertThat(new Downstream(20, 40 * MILLIS, random).drive(limit, 1000)).isGreaterThan(0.9);
+    }
+
+    @Test
+    void growsOnlyToTwiceTheOfferedLoad() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 1000);
+        Random random = new Random(4);
+
+        for (int round = 0; round < 1000; round++) {
+            int inFlight = Math.min(limit.getLimit(), 15);
+            for (int i = 0; i < inFlight; i++) {
+                limit.onSample((long) (5 * MILLIS * (1 + 0.1 * random.nextDouble())), inFlight);
+            }
+        }
+
+        assertThat(limit.getLimit()).isLessThanOrEqualTo(2 * 15 + 6);
+    }
+
+    @Test
+    void refusesOverTheLimitUntilASlotIsReleased() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release(MILLIS);
+        assertThat(limit.tryAcquire()).isTrue();
+        limit.cancel();
+        assertThat(limit.getInFlight()).isEqualTo(1);
+    }
+
+    private record Downstream(int capacity, long baseLatencyNanos, Random random) {
+
+        /**
+         * Run {@code rounds} rounds at full offered load and return the fraction of the second
+         * half in which the limit was between the capacity and 1.5x the capacity.
+         */
+        double drive(AdaptiveConcurrencyLimit limit, int rounds) {
+            int converged = 0;
+            for (int round = 0; round < rounds; round++) {
+                int inFlight = limit.getLimit();
+                for (int i = 0; i < inFlight; i++) {
+                    double queueing = Math.max(1.0, (double) inFlight / capacity);
+                    limit.onSample((long) (baseLatencyNanos * queueing * (1 + 0.1 * random.nextDouble())), inFlight);
+                }
+                if (round >= rounds / 2 && limit.getLimit() >= capacity && limit.getLimit() <= capacity * 1.5) {
+                    converged++;
+                }
+            }
+            return (double) converged / (rounds - rounds / 2);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.config.concurrency;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InstrumentedThreadPoolExecutorTest {
+
+    @Test
+    void recordsQueueWaitRunTimeRejectionsAndSaturation() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor(
+                "test-pool", 1, 1, 60L, 1, new ExecutorMetrics(registry, "test-pool"));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        // One task holds the only thread, the second waits in the one-slot queue, the third is refused
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+            done.countDown();
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.execute(done::countDown);
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+
+        assertThat(registry.get("threadpool.saturation").tag("pool", "test-pool").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("threadpool.queue.utilization").tag("pool", "test-pool").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("threadpool.rejected").tag("pool", "test-pool").counter().count()).isEqualTo(1.0);
+
+        Thread.sleep(50);
+        release.countDown();
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        Timer queueWait = registry.get("threadpool.queue.wait").tag("pool", "test-pool").timer();
+        Timer run = registry.get("threadpool.run").tag("pool", "test-pool").timer();
+        assertThat(queueWait.count()).isEqualTo(2);
+        assertThat(queueWait.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+        assertThat(run.count()).isEqualTo(2);
+        assertThat(run.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.config.concurrency;
+
+import com.example.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * One hashing thread is held on a latch so the backlog is exact. The average hash time only
+ * moves when a task completes, so while the thread is held it stays at its 100 ms seed and
+ * each pending task adds 100 ms to the estimated wait.
+ */
+class PasswordHashingExecutorTest {
+    private static final long BUDGET_MILLIS = 250;
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void shedsOnceTheEstimatedWaitIsOverBudget() throws InterruptedException {
+        executor = new PasswordHashingExecutor(1, 100, BUDGET_MILLIS, new SimpleMeterRegistry());
+        CompletableFuture<Boolean> held = hold();
+        // Estimated waits of 100 ms and 200 ms fit the 250 ms budget
+        CompletableFuture<String> second = executor.submit(() -> "second");
+        CompletableFuture<String> third = executor.submit(() -> "third");
+
+        ServiceOverloadedException shed = overload(executor.submit(() -> "fourth"));
+
+        // The estimate (3 x 100 ms) is over the budget, so it is the retry hint
+        assertThat(shed.getRetryAfterMillis()).isEqualTo(300);
+        assertThat(shed.getRetryAfterSeconds()).isEqualTo(1);
+        assertThat(executor.getRejectedTasks()).isEqualTo(1);
+        assertThat(executor.getPendingTasks()).isEqualTo(3);
+
+        release.countDown();
+        assertThat(held.join()).isTrue();
+        assertThat(second.join()).isEqualTo("second");
+        assertThat(third.join()).isEqualTo("third");
+    }
+
+    @Test
+    void aFullQueueRetriesAfterAtLeastTheBudget() throws InterruptedException {
+        executor = new PasswordHashingExecutor(1, 1, BUDGET_MILLIS, new SimpleMeterRegistry());
+        hold();
+        executor.submit(() -> "queued");
+
+        // Within budget (200 ms) but there is no room left in the queue
+        ServiceOverloadedException shed = overload(executor.submit(() -> "refused"));
+
+        assertThat(shed.getRetryAfterMillis()).isEqualTo(BUDGET_MILLIS);
+        assertThat(executor.getPendingTasks()).isEqualTo(2);
+    }
+
+    @Test
+    void admitsAgainOnceTheBacklogDrains() throws InterruptedException {
+        executor = new PasswordHashingExecutor(1, 100, BUDGET_MILLIS, new SimpleMeterRegistry());
+        hold();
+        executor.submit(() -> "second");
+        executor.submit(() -> "third");
+        overload(executor.submit(() -> "shed"));
+
+        release.countDown();
+        waitUntil(() -> executor.getPendingTasks() == 0);
+
+        assertThat(executor.submit(() -> "admitted").join()).isEqualTo("admitted");
+    }
+
+    @Test
+    void fastHashesPullTheAverageDownAndAdmitADeeperBacklog() throws InterruptedException {
+        executor = new PasswordHashingExecutor(1, 100, BUDGET_MILLIS, new SimpleMeterRegistry());
+        for (int i = 0; i < 50; i++) {
+            executor.submit(() -> "fast").join();
+        }
+        waitUntil(() -> executor.getPendingTasks() == 0);
+        assertThat(executor.getAverageHashMillis()).isLessThan(10);
+
+        hold();
+        List<CompletableFuture<Integer>> backlog = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int task = i;
+            backlog.add(executor.submit(() -> task));
+        }
+
+        assertThat(executor.getRejectedTasks()).isZero();
+        release.countDown();
+        assertThat(backlog).allSatisfy(future -> assertThat(future.join()).isNotNull());
+    }
+
+    // Occupies the only hashing thread until release
+    private CompletableFuture<Boolean> hold() throws InterruptedException {
+        CompletableFuture<Boolean> held = executor.submit(() -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return held;
+    }
+
+    private static ServiceOverloadedException overload(CompletableFuture<?> future) {
+        assertThat(future).isCompletedExceptionally();
+        CompletionException failure = catchThrowableOfType(future::join, CompletionException.class);
+        assertThat(failure.getCause()).isInstanceOf(ServiceOverloadedException.class);
+        return (ServiceOverloadedException) failure.getCause();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.config.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SemaphoreVirtualThreadExecutorTest {
+
+    @Test
+    void parksTasksOverThePermitsAndRejectsPastMaxWaiting() throws InterruptedException {
+        SemaphoreVirtualThreadExecutor executor = executor(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        // The first task holds the only permit and the second takes the only waiting slot
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+            done.countDown();
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.execute(done::countDown);
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(executor.getRejectedTasks()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.getCompletedTasks()).isEqualTo(2);
+        assertThat(executor.getWaiting()).isZero();
+    }
+
+    @Test
+    void shutdownNowHandsBackParkedTasksUnrun() throws InterruptedException {
+        SemaphoreVirtualThreadExecutor executor = executor(1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicInteger parkedRuns = new AtomicInteger();
+
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Runnable parked = parkedRuns::incrementAndGet;
+        executor.execute(parked);
+        executor.execute(parked);
+        waitUntil(() -> executor.getWaiting() == 2);
+
+        List<Runnable> neverRun = executor.shutdownNow();
+
+        assertThat(neverRun).containsExactly(parked, parked);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(parkedRuns).hasValue(0);
+        assertThat(executor.getWaiting()).isZero();
+        assertThat(executor.getInFlight()).isZero();
+    }
+
+    private static SemaphoreVirtualThreadExecutor executor(int permits, int maxWaiting) {
+        return new SemaphoreVirtualThreadExecutor("test-virtual", permits, maxWaiting,
+                new ExecutorMetrics(new SimpleMeterRegistry(), "test-virtual"));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.config.database;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and a replica. Each holds a row naming
+ * itself, so a query shows where it was routed; "replication" of the heartbeat row is done by
+ * hand so lag can be dialled in.
+ */
+class ReplicaRoutingDataSourceTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private JdbcDataSource primary;
+    private JdbcDataSource replica;
+    private String replicaUrl;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        replicaUrl = replica.getURL();
+        // Heartbeat interval well above max lag, so one missed beat makes the replica ineligible
+        routing = new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica), 1000, 5000);
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        routing.close();
+        new JdbcTemplate(primary).execute("SHUTDOWN");
+        replica.setURL(replicaUrl);
+        new JdbcTemplate(replica).execute("SHUTDOWN");
+    }
+
+    @Test
+    void replicaIsUnusedUntilLagIsKnown() {
+        assertThat(readOnlyServer()).isEqualTo("primary");
+
+        routing.refreshLag();
+        assertThat(readOnlyServer()).isEqualTo("primary");
+        assertThat(routing.getFallbackReads()).isEqualTo(2);
+    }
+
+    @Test
+    void readOnlyTransactionsGoToACaughtUpReplica() {
+        catchUp();
+
+        assertThat(readOnlyServer()).isEqualTo("replica");
+        assertThat(routing.getReplicas().get(0).getLagMillis()).isZero();
+        assertThat(routing.getReplicaReads()).isEqualTo(1);
+    }
+
+    @Test
+    void everythingElseStaysOnThePrimary() {
+        catchUp();
+
+        assertThat(server()).isEqualTo("primary");
+        assertThat(readWrite.execute(status -> server())).isEqualTo("primary");
+        assertThat(ReplicaRoutingDataSource.onPrimary(this::readOnlyServer)).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingReplicaIsSkipped() {
+        catchUp();
+        // The primary's beat moves ten seconds on and the replica has not applied it
+        new JdbcTemplate(primary).update(
+                "UPDATE " + ReplicaRoutingDataSource.HEARTBEAT_TABLE + " SET beat_millis = beat_millis + 10000");
+        routing.refreshLag();
+
+        assertThat(routing.getReplicas().get(0).getLagMillis()).isGreaterThan(1000);
+        assertThat(readOnlyServer()).isEqualTo("primary");
+
+        replicate();
+        routing.refreshLag();
+        assertThat(readOnlyServer()).isEqualTo("replica");
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() {
+        catchUp();
+        replica.setURL("jdbc:h2:mem:gone-" + DATABASES.incrementAndGet() + ";IFEXISTS=TRUE");
+
+        assertThat(readOnlyServer()).isEqualTo("primary");
+        assertThat(routing.getReplicas().get(0).getLagMillis()).isEqualTo(-1);
+        // Stays out of rotation until a probe reaches it again
+        assertThat(readOnlyServer()).isEqualTo("primary");
+        assertThat(routing.getReplicaReads()).isZero();
+    }
+
+    @Test
+    void recentWritesAreReadFromThePrimary() {
+        catchUp();
+        ReadYourWrites readYourWrites = new ReadYourWrites("jdbc:h2:mem:replica", 60_000, 100);
+        readYourWrites.recordWrite("user-1");
+
+        assertThat(readYourWrites.read("user-1", this::readOnlyServer)).isEqualTo("primary");
+        assertThat(readYourWrites.read("user-2", this::readOnlyServer)).isEqualTo("replica");
+        assertThat(readYourWrites.read("user-2", this::readOnlyServer, "replica"::equals)).isEqualTo("primary");
+
+        readYourWrites.recordWriteToAll();
+        assertThat(readYourWrites.read("user-2", this::readOnlyServer)).isEqualTo("primary");
+    }
+
+    @Test
+    void readYourWritesIsInertWithoutReplicas() {
+        catchUp();
+        ReadYourWrites readYourWrites = new ReadYourWrites("", 60_000, 100);
+        readYourWrites.recordWrite("user-1");
+
+        assertThat(readYourWrites.read("user-1", this::readOnlyServer)).isEqualTo("replica");
+    }
+
+    private String readOnlyServer() {
+        return readOnly.execute(status -> server());
+    }
+
+    private String server() {
+        return jdbc.queryForObject("SELECT name FROM whoami", String.class);
+    }
+
+    // Two heartbeat rounds with the row copied in between: the second finds the replica current
+    private void catchUp() {
+        routing.refreshLag();
+        replicate();
+        routing.refreshLag();
+    }
+
+    private void replicate() {
+        Long beat = new JdbcTemplate(primary).queryForObject(
+                "SELECT beat_millis FROM " + ReplicaRoutingDataSource.HEARTBEAT_TABLE + " WHERE id = 1", Long.class);
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.update("DELETE FROM " + ReplicaRoutingDataSource.HEARTBEAT_TABLE);
+        replicaJdbc.update("INSERT INTO " + ReplicaRoutingDataSource.HEARTBEAT_TABLE + " (id, beat_millis) VALUES (1, ?)", beat);
+    }
+
+    private static JdbcDataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1;MODE=MySQL");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE whoami (name VARCHAR(16))");
+        jdbc.update("INSERT INTO whoami VALUES (?)", name);
+        jdbc.execute("CREATE TABLE " + ReplicaRoutingDataSource.HEARTBEAT_TABLE + " (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+        return dataSource;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.config.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SecurityEventJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsEventsByEmailAndIpAcrossSegmentsNewestFirst() throws IOException {
+        SecurityEventJournal journal = journal(4, 168);
+        for (int i = 0; i < 5; i++) {
+            journal.record(SecurityEventType.LOGIN_FAILED, "Alice@Example.com", 42L, "10.0.0." + (i % 2), 0);
+            journal.record(SecurityEventType.LOGIN_FAILED, "bob@example.com", 43L, "10.0.0.1", 0);
+        }
+        journal.record(SecurityEventType.ACCOUNT_REVOKED, "alice@example.com", 42L, null, 5);
+        journal.record(SecurityEventType.LOGIN_REJECTED, "nobody@example.com", null, "2001:db8::1");
+
+        assertThat(segmentFiles()).hasSize(3);
+
+        List<SecurityEvent> alice = journal.find(" alice@example.com", null, null, 0, Long.MAX_VALUE, 100);
+        assertThat(alice).hasSize(6);
+        assertThat(alice.get(0).type()).isEqualTo(SecurityEventType.ACCOUNT_REVOKED);
+        assertThat(alice.get(0).detail()).isEqualTo(5);
+        assertThat(alice.get(0).ip()).isNull();
+        assertThat(alice).extracting(SecurityEvent::timestamp).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+
+        assertThat(journal.find("alice@example.com", null, SecurityEventType.LOGIN_FAILED, 0, Long.MAX_VALUE, 100))
+                .hasSize(5).allSatisfy(event -> assertThat(event.userId()).isEqualTo("42"));
+        assertThat(journal.find("alice@example.com", "10.0.0.1", null, 0, Long.MAX_VALUE, 100)).hasSize(2);
+        assertThat(journal.find(null, "10.0.0.1", null, 0, Long.MAX_VALUE, 100)).hasSize(7);
+        assertThat(journal.find(null, "10.0.0.1", null, 0, Long.MAX_VALUE, 3)).hasSize(3);
+        assertThat(journal.find(null, "2001:db8:0:0:0:0:0:1", null, 0, Long.MAX_VALUE, 100))
+                .singleElement()
+                .satisfies(event -> assertThat(event.userId()).isNull());
+        assertThat(journal.find("alice@example.com", null, null, System.currentTimeMillis() + 60_000, Long.MAX_VALUE, 100)).isEmpty();
+
+        assertThatThrownBy(() -> journal.find(null, "not-an-ip", null, 0, Long.MAX_VALUE, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reopensExistingSegmentsAndWritesToANewOne() throws IOException {
+        SecurityEventJournal first = journal(64, 168);
+        first.record(SecurityEventType.USER_REGISTERED, "carol@example.com", 7L, "192.168.1.9");
+        first.record(SecurityEventType.OTP_SENT, "carol@example.com", 7L, "192.168.1.9");
+        first.close();
+        assertThat(files()).allSatisfy(file -> assertThat(file.toString()).endsWith(JournalSegment.SUFFIX));
+
+        SecurityEventJournal second = journal(64, 168);
+        second.record(SecurityEventType.EMAIL_VERIFIED, "carol@example.com", 7L, "192.168.1.9");
+
+        assertThat(segmentFiles()).hasSize(2);
+        assertThat(second.find("carol@example.com", "192.168.1.9", null, 0, Long.MAX_VALUE, 100))
+                .extracting(SecurityEvent::type)
+                .containsExactly(SecurityEventType.EMAIL_VERIFIED, SecurityEventType.OTP_SENT, SecurityEventType.USER_REGISTERED);
+    }
+
+    @Test
+    void retentionDeletesExpiredSegmentsButNotTheOneBeingWritten() throws Exception {
+        SecurityEventJournal journal = journal(2, 0);
+        for (int i = 0; i < 5; i++) {
+            journal.record(SecurityEventType.LOGIN_SUCCEEDED, "dave@example.com", 9L, "10.1.1.1");
+        }
+        assertThat(segmentFiles()).hasSize(3);
+        Thread.sleep(5);
+
+        journal.enforceRetention();
+
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(journal.find("dave@example.com", null, null, 0, Long.MAX_VALUE, 100)).hasSize(1);
+    }
+
+    private SecurityEventJournal journal(int segmentRecords, long retentionHours) throws IOException {
+        SecurityEventJournal journal = new SecurityEventJournal(
+                new SimpleMeterRegistry(), directory.toString(), segmentRecords, 60, retentionHours);
+        journal.open();
+        return journal;
+    }
+
+    // Excludes the spare the journal keeps ready for its next roll
+    private List<Path> segmentFiles() throws IOException {
+        return files().stream().filter(file -> file.toString().endsWith(JournalSegment.SUFFIX)).toList();
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.config.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static com.example.config.security.CalibratedBCryptPasswordEncoder.SHARED_COST_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Costs stay at 4-6 so calibration finishes in milliseconds; the bounds decide the outcome, not
+ * the speed of the machine running the test.
+ */
+class CalibratedBCryptPasswordEncoderTest {
+    private static final long NO_TIME = 0;
+    private static final long ALL_THE_TIME = 60_000;
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> values = mock(ValueOperations.class);
+
+    @Test
+    void calibrationStaysWithinTheAllowedCosts() {
+        assertThat(CalibratedBCryptPasswordEncoder.calibrate(NO_TIME, 4, 6).getStrength()).isEqualTo(4);
+        assertThat(CalibratedBCryptPasswordEncoder.calibrate(ALL_THE_TIME, 4, 6).getStrength()).isEqualTo(6);
+    }
+
+    @Test
+    void upgradesOnlyWeakerHashes() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("Password1"))).isTrue();
+        assertThat(encoder.upgradeEncoding(encoder.encode("Password1"))).isFalse();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("Password1"))).isFalse();
+    }
+
+    @Test
+    void firstNodePublishesItsCalibratedCost() {
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.setIfAbsent(SHARED_COST_KEY, "6")).thenReturn(true);
+
+        CalibratedBCryptPasswordEncoder encoder = CalibratedBCryptPasswordEncoder.shared(redis, ALL_THE_TIME, 4, 6);
+
+        assertThat(encoder.getStrength()).isEqualTo(6);
+        verify(values).setIfAbsent(SHARED_COST_KEY, "6");
+    }
+
+    @Test
+    void laterNodesAdoptTheRecordedCostClampedToTheAllowedRange() {
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.get(SHARED_COST_KEY)).thenReturn("5", "31");
+
+        assertThat(CalibratedBCryptPasswordEncoder.shared(redis, NO_TIME, 4, 6).getStrength()).isEqualTo(5);
+        assertThat(CalibratedBCryptPasswordEncoder.shared(redis, NO_TIME, 4, 6).getStrength()).isEqualTo(6);
+        verify(values, never()).setIfAbsent(anyString(), anyString());
+    }
+
+    @Test
+    void aNodeThatLosesThePublishRaceUsesTheWinnersCost() {
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.get(SHARED_COST_KEY)).thenReturn(null, "5");
+        when(values.setIfAbsent(SHARED_COST_KEY, "4")).thenReturn(false);
+
+        assertThat(CalibratedBCryptPasswordEncoder.shared(redis, NO_TIME, 4, 6).getStrength()).isEqualTo(5);
+    }
+
+    @Test
+    void fallsBackToLocalCalibrationWithoutAUsableSharedCost() {
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.get(SHARED_COST_KEY))
+                .thenThrow(new RedisConnectionFailureException("Connection refused"))
+                .thenReturn("not-a-cost");
+
+        assertThat(CalibratedBCryptPasswordEncoder.shared(redis, NO_TIME, 4, 6).getStrength()).isEqualTo(4);
+        assertThat(CalibratedBCryptPasswordEncoder.shared(redis, NO_TIME, 4, 6).getStrength()).isEqualTo(4);
+    }
+
+    @Test
+    void aPinnedCostSkipsCalibrationAndValkey() {
+        PasswordEncoder encoder = new SecurityConfig(null, null, null).passwordEncoder(redis, 11, NO_TIME, 4, 6);
+
+        assertThat(encoder).isInstanceOfSatisfying(CalibratedBCryptPasswordEncoder.class,
+                calibrated -> assertThat(calibrated.getStrength()).isEqualTo(11));
+        verifyNoInteractions(redis);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.config.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClientIpResolverTest {
+
+    private final ClientIpResolver resolver = new ClientIpResolver(List.of("10.0.0.0/8", "2001:db8::/32"));
+
+    @Test
+    void ignoresForwardingHeadersFromUntrustedPeers() {
+        MockHttpServletRequest request = request("203.0.113.7", "198.51.100.1");
+        request.addHeader("X-Real-IP", "198.51.100.2");
+
+        assertThat(resolver.resolve(request)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void takesTheRightMostHopThatIsNotATrustedProxy() {
+        // The client wrote the first hop itself; the proxies appended the rest
+        MockHttpServletRequest request = request("10.0.0.2", "1.2.3.4, 203.0.113.7, 10.0.0.1");
+
+        assertThat(resolver.resolve(request)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void combinesRepeatedHeadersAndMatchesIpv6Ranges() {
+        MockHttpServletRequest request = request("2001:db8::5", "203.0.113.7");
+        request.addHeader("X-Forwarded-For", "2001:db8:0:0:0:0:0:9");
+
+        assertThat(resolver.resolve(request)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void neverTreatsHostNamesOrMalformedAddressesAsTrusted() {
+        assertThat(ClientIpResolver.literal("localhost")).isNull();
+        assertThat(ClientIpResolver.literal("10.0.0.256")).isNull();
+        assertThat(ClientIpResolver.literal("10.0.0")).isNull();
+        assertThat(ClientIpResolver.literal("::ffff:10.0.0.1")).hasSize(4);
+
+        MockHttpServletRequest request = request("10.0.0.2", "10.0.0.300");
+        assertThat(resolver.resolve(request)).isEqualTo("10.0.0.300");
+
+        assertThatThrownBy(() -> new ClientIpResolver(List.of("proxy.internal")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/users/login");
+        request.setRemoteAddr(remoteAddr);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        return request;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.config.security;
+
+import com.example.common.AuthenticatedPrincipal;
+import com.example.common.JwtUtil;
+import com.example.entity.User;
+import com.example.service.PrincipalCacheService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private final PrincipalCacheService principalCacheService = mock(PrincipalCacheService.class);
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(new JwtUtil(100), principalCacheService, new ClientIpResolver(List.of()));
+
+    JwtAuthenticationFilterTest() {
+        ReflectionTestUtils.setField(filter, "adminUserIds", Set.of());
+        when(principalCacheService.getPrincipal(42L))
+                .thenReturn(Optional.of(new AuthenticatedPrincipal(42L, "alice", User.Status.normal)));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesAccessTokens() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(bearer(JwtUtil.generateToken("alice", "alice@example.com", 42L)), response, chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+    }
+
+    @Test
+    void rejectsRefreshTokensAsBearerCredentials() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        String refreshToken = JwtUtil.generateRefreshToken("alice", "alice@example.com", 42L, "family-1", 0,
+                                                           JwtUtil.refreshTokenValidity(true));
+
+        filter.doFilter(bearer(refreshToken), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(chain.getRequest()).isNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    private static MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
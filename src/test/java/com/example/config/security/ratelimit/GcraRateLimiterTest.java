@@ -0,0 +1,103 @@
+package com.example.config.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GcraRateLimiterTest {
+
+    @Test
+    void allowsABurstOfPermitsThenAsksTheKeyToWait() {
+        GcraRateLimiter limiter = new GcraRateLimiter(5, Duration.ofMinutes(1), 100);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("203.0.113.7")).isZero();
+        }
+        long retryAfter = limiter.tryAcquire("203.0.113.7");
+
+        // One permit comes back every 12 s
+        assertThat(retryAfter).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(12));
+        assertThat(limiter.tryAcquire("198.51.100.1")).isZero();
+    }
+
+    @Test
+    void refillsOneEmissionIntervalAtATime() throws InterruptedException {
+        GcraRateLimiter limiter = new GcraRateLimiter(2, Duration.ofSeconds(1), 100);
+        limiter.tryAcquire("key");
+        limiter.tryAcquire("key");
+        assertThat(limiter.tryAcquire("key")).isPositive();
+
+        Thread.sleep(600);
+
+        assertThat(limiter.tryAcquire("key")).isZero();
+        assertThat(limiter.tryAcquire("key")).isPositive();
+    }
+
+    @Test
+    void sweepsIdleKeysOnceTheMapIsFull() throws InterruptedException {
+        GcraRateLimiter limiter = new GcraRateLimiter(1, Duration.ofMillis(1), 10);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("idle-" + i);
+        }
+        Thread.sleep(5);
+
+        limiter.tryAcquire("new");
+
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsTheLeastSpentKeysWhenNoneAreIdle() {
+        GcraRateLimiter limiter = new GcraRateLimiter(10, Duration.ofMinutes(1), 20);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("hammered");
+        }
+        for (int i = 0; i < 19; i++) {
+            limiter.tryAcquire("flood-" + i);
+        }
+
+        limiter.tryAcquire("flood-19");
+
+        // The least-spent flood keys went to make room
+        assertThat(limiter.size()).isLessThan(20);
+        // The hammered key kept its state and is still refused
+        assertThat(limiter.tryAcquire("hammered")).isPositive();
+    }
+
+    @Test
+    void concurrentNewKeysSweepOneAtATime() throws InterruptedException {
+        GcraRateLimiter limiter = new GcraRateLimiter(10, Duration.ofMinutes(1), 1_000);
+        int threadCount = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int thread = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 20_000; i++) {
+                        limiter.tryAcquire(thread + ":" + i);
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(failure.get()).isNull();
+        // New keys go in while another thread sweeps, so the map may overshoot, but not unboundedly
+        assertThat(limiter.size()).isLessThan(2 * 1_000);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.config.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.stubbing.OngoingStubbing;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Refills run inline (a same-thread executor) and the lease script's reply is stubbed, so
+ * each tryAcquire sees the outcome of the refill it triggered.
+ */
+class GlobalTokenLeaseTest {
+    // 100 per second leases chunks of 5
+    private static final int PER_SECOND = 100;
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final GlobalTokenLease lease = new GlobalTokenLease("rate_limit:global:test", PER_SECOND, redis, Runnable::run);
+
+    @Test
+    void failsOpenWhileValkeyIsUnreachable() {
+        leaseScript().thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(lease.tryAcquire()).isZero();
+        }
+    }
+
+    @Test
+    void spendsTheLeasedChunkLocally() {
+        leaseScript().thenReturn(List.of(5L, 0L)).thenReturn(List.of(0L, 1_000L));
+
+        // The first call finds the local lease empty and refills it inline; the chunk serves the next ones
+        lease.tryAcquire();
+        for (int i = 0; i < 5; i++) {
+            assertThat(lease.tryAcquire()).isZero();
+        }
+
+        long retryAfter = lease.tryAcquire();
+
+        assertThat(retryAfter).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void refusesUntilTheSharedBucketRefillsThenRecovers() {
+        leaseScript().thenReturn(List.of(0L, 200L)).thenReturn(List.of(5L, 0L));
+
+        lease.tryAcquire();
+        assertThat(lease.tryAcquire()).isPositive();
+        // No Valkey call while the bucket is known to be empty
+        verify(redis, times(1)).execute(ArgumentMatchers.<RedisScript<List>>any(), anyList(), any(Object[].class));
+
+        sleep(250);
+
+        lease.tryAcquire();
+        assertThat(lease.tryAcquire()).isZero();
+    }
+
+    @Test
+    void failsOpenAgainWhenValkeyGoesAway() {
+        leaseScript().thenReturn(List.of(0L, 10L)).thenThrow(new RedisConnectionFailureException("Connection refused"));
+        lease.tryAcquire();
+        sleep(20);
+
+        assertThat(lease.tryAcquire()).isZero();
+        assertThat(lease.tryAcquire()).isZero();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private OngoingStubbing<List> leaseScript() {
+        return when(redis.execute(ArgumentMatchers.<RedisScript<List>>any(), anyList(), any(Object[].class)));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.config.security.ratelimit;
+
+import com.example.common.MessageConstants;
+import com.example.config.security.ClientIpResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Login is limited per IP and per email with the global tier off, so no test touches Valkey.
+ */
+class RateLimitFilterTest {
+    private static final int EMAIL_PER_MINUTE = 2;
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final ExecutorService redisPool = Executors.newSingleThreadExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitFilter filter = new RateLimitFilter(new ClientIpResolver(List.of()), redis, redisPool, meterRegistry,
+            1_000, 1_000, EMAIL_PER_MINUTE, 0, 0, 0, 0, 0, 0, 0);
+
+    @AfterEach
+    void tearDown() {
+        redisPool.shutdownNow();
+    }
+
+    @Test
+    void limitsEachEmailWhateverItsCase() throws Exception {
+        for (int i = 0; i < EMAIL_PER_MINUTE; i++) {
+            assertThat(login("{\"email\":\"Alice@Example.com\",\"password\":\"x\"}").getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse rejected = login("{\"password\":\"x\",\"email\":\" alice@example.COM \"}");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        // One email permit comes back every 30 s
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("30");
+        assertThat(rejected.getContentAsString()).contains(MessageConstants.TOO_MANY_REQUESTS);
+        assertThat(meterRegistry.counter("rate.limit.rejected", "endpoint", "login", "tier", "email").count()).isEqualTo(1);
+        assertThat(login("{\"email\":\"bob@example.com\",\"password\":\"x\"}").getStatus()).isEqualTo(200);
+        verifyNoInteractions(redis);
+    }
+
+    @Test
+    void forwardsTheBodyItInspected() throws Exception {
+        String body = "{\"email\":\"alice@example.com\",\"password\":\"x\"}";
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request(body), new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(body);
+    }
+
+    @Test
+    void refusesADeclaredBodyOverTheInspectionLimit() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request(paddedBody(16 * 1024 + 1)), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(response.getContentAsString()).contains(MessageConstants.PAYLOAD_TOO_LARGE);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void refusesAChunkedBodyOverTheInspectionLimit() throws Exception {
+        // No Content-Length, as with Transfer-Encoding: chunked
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/users/login") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setRemoteAddr("203.0.113.7");
+        chunked.setContent(paddedBody(64 * 1024).getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(chunked, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void passesRequestsWithoutAnEmailToBinding() throws Exception {
+        for (int i = 0; i <= EMAIL_PER_MINUTE; i++) {
+            assertThat(login("not json").getStatus()).isEqualTo(200);
+            assertThat(login("{\"email\":42}").getStatus()).isEqualTo(200);
+        }
+    }
+
+    private MockHttpServletResponse login(String body) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(body), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/users/login");
+        request.setRemoteAddr("203.0.113.7");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    // The email comes first, so only the size check can refuse it
+    private static String paddedBody(int size) {
+        String head = "{\"email\":\"alice@example.com\",\"password\":\"";
+        return head + "x".repeat(size - head.length() - 2) + "\"}";
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.config.tracing;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StageTracerTest {
+
+    @Test
+    void recordsEachStageAcrossExecutorHopsAndTheTotal() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StageTracer tracer = new StageTracer(registry, 500, 1000);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            StageTrace trace = tracer.begin("login");
+            CompletableFuture.supplyAsync(trace.queued("pool.queue", "lookup", () -> sleep(20)), pool)
+                .thenCompose(ignored -> trace.timeAsync("remote", () -> CompletableFuture.supplyAsync(() -> sleep(10), pool)))
+                .thenApply(ignored -> trace.time("sign", () -> "token"))
+                .whenComplete((token, throwable) -> trace.finish())
+                .get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(stage(registry, "lookup").max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(20);
+        assertThat(stage(registry, "remote").max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(10);
+        assertThat(stage(registry, "pool.queue").count()).isEqualTo(1);
+        assertThat(stage(registry, "sign").count()).isEqualTo(1);
+        assertThat(stage(registry, StageTracer.TOTAL).max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(30);
+
+        Map<String, Object> lookup = tracer.snapshot().get("login").get("lookup");
+        assertThat(lookup).containsEntry("count", 1L).containsKeys("meanMs", "maxMs", "p50Ms", "p99Ms", "p99.9Ms");
+    }
+
+    @Test
+    void ignoresStagesAfterFinishAndASecondFinish() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StageTracer tracer = new StageTracer(registry, 500, 1000);
+
+        StageTrace trace = tracer.begin("signup");
+        trace.record("bcrypt.encode", TimeUnit.MILLISECONDS.toNanos(80));
+        trace.finish();
+        trace.record("late", 1);
+        trace.finish();
+
+        assertThat(stage(registry, StageTracer.TOTAL).count()).isEqualTo(1);
+        assertThat(registry.find("pipeline.stage").tag("stage", "late").timer()).isNull();
+        assertThat(StageTracer.breakdown(trace, TimeUnit.MILLISECONDS.toNanos(100)))
+                .isEqualTo("100.0 ms: bcrypt.encode=80.0 untraced=20.0");
+    }
+
+    private static Timer stage(SimpleMeterRegistry registry, String stage) {
+        return registry.get("pipeline.stage").tag("stage", stage).timer();
+    }
+
+    private static String sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
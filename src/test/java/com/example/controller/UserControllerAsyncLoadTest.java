@@ -0,0 +1,121 @@
+package com.example.controller;
+
+import com.example.common.ApiResponse;
+import com.example.common.JwtContextUtil;
+import com.example.dto.LoginResponseDTO;
+import com.example.exception.GlobalExceptionHandler;
+import com.example.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Load test for the servlet-async login endpoint: Tomcat is capped at a handful of worker
+ * threads and the stubbed login takes LOGIN_LATENCY_MS to complete off-thread. A blocking
+ * handler could serve at most CONNECTOR_THREADS logins at a time; the async handler should
+ * keep every request in flight concurrently.
+ */
+@SpringBootTest(
+    classes = UserControllerAsyncLoadTest.AsyncLoadTestConfig.class,
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "server.tomcat.threads.max=" + UserControllerAsyncLoadTest.CONNECTOR_THREADS,
+        "server.tomcat.threads.min-spare=" + UserControllerAsyncLoadTest.CONNECTOR_THREADS
+    }
+)
+class UserControllerAsyncLoadTest {
+    static final int CONNECTOR_THREADS = 4;
+    private static final int CONCURRENT_LOGINS = 200;
+    private static final long LOGIN_LATENCY_MS = 500;
+
+    @Configuration
+    @EnableAutoConfiguration(exclude = {
+        DataSourceAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        RedisAutoConfiguration.class,
+        RedisRepositoriesAutoConfiguration.class,
+        SecurityAutoConfiguration.class,
+        SecurityFilterAutoConfiguration.class,
+        UserDetailsServiceAutoConfiguration.class,
+        ManagementWebSecurityAutoConfiguration.class
+    })
+    @Import({UserController.class, GlobalExceptionHandler.class})
+    static class AsyncLoadTestConfig {
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private JwtContextUtil jwtContextUtil;
+
+    @Test
+    void fixedConnectorThreadsSustainManyConcurrentLogins() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        Executor delayed = CompletableFuture.delayedExecutor(LOGIN_LATENCY_MS, TimeUnit.MILLISECONDS);
+
+        when(userService.login(any())).thenAnswer(invocation -> {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                inFlight.decrementAndGet();
+                return ApiResponse.success("Login successful", new LoginResponseDTO());
+            }, delayed);
+        });
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/login"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"load@example.com\",\"password\":\"Password1\"}"))
+                .build();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_LOGINS; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).join();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long blockingLowerBoundMs = (long) Math.ceil((double) CONCURRENT_LOGINS / CONNECTOR_THREADS) * LOGIN_LATENCY_MS;
+
+        assertThat(responses).allSatisfy(response -> assertThat(response.join().statusCode()).isEqualTo(200));
+        assertThat(peakInFlight.get()).isGreaterThan(CONNECTOR_THREADS * 10);
+        assertThat(elapsedMs).isLessThan(blockingLowerBoundMs / 4);
+    }
+}
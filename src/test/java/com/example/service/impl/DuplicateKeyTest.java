@@ -0,0 +1,58 @@
+package com.example.service.impl;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateKeyTest {
+
+    @Test
+    void readsTheMysqlKeyNameNotTheDuplicatedValue() {
+        // The username value names the other index on purpose
+        assertThat(DuplicateKey.keyOf(mysql("Duplicate entry 'uk_users_username' for key 'users.uk_users_email'")))
+                .isEqualTo(DuplicateKey.EMAIL);
+        assertThat(DuplicateKey.keyOf(mysql("Duplicate entry 'alice' for key 'users.uk_users_username'")))
+                .isEqualTo(DuplicateKey.USERNAME);
+        assertThat(DuplicateKey.keyOf(mysql("Duplicate entry 'alice@example.com' for key 'email'")))
+                .isEqualTo(DuplicateKey.EMAIL);
+    }
+
+    @Test
+    void prefersTheHibernateConstraintName() {
+        SQLException sql = new SQLIntegrityConstraintViolationException("Unique index or primary key violation", "23505");
+        DataIntegrityViolationException e = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql,
+                        "\"PUBLIC\".\"UK_USERS_USERNAME\" ON PUBLIC.USERS(USERNAME NULLS FIRST)"));
+
+        assertThat(DuplicateKey.keyOf(e)).isEqualTo(DuplicateKey.USERNAME);
+    }
+
+    @Test
+    void reportsOtherUniqueKeysAsOther() {
+        assertThat(DuplicateKey.keyOf(mysql("Duplicate entry '1' for key 'users.PRIMARY'"))).isEqualTo(DuplicateKey.OTHER);
+        assertThat(DuplicateKey.keyOf(new DuplicateKeyException("duplicate"))).isEqualTo(DuplicateKey.OTHER);
+    }
+
+    @Test
+    void otherIntegrityErrorsAreNotDuplicates() {
+        SQLException notNull = new SQLIntegrityConstraintViolationException("Column 'email' cannot be null", "23000", 1048);
+        SQLException tooLong = new SQLException("Data too long for column 'username' at row 1", "22001", 1406);
+
+        assertThat(DuplicateKey.keyOf(new DataIntegrityViolationException("insert", notNull))).isNull();
+        assertThat(DuplicateKey.keyOf(new DataIntegrityViolationException("insert", tooLong))).isNull();
+        // A constraint name alone does not make it a duplicate
+        assertThat(DuplicateKey.keyOf(new DataIntegrityViolationException("insert",
+                new ConstraintViolationException("insert", notNull, "uk_users_email")))).isNull();
+    }
+
+    private static DataIntegrityViolationException mysql(String message) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new SQLIntegrityConstraintViolationException(message, "23000", 1062));
+    }
+}
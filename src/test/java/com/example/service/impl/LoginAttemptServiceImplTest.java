@@ -0,0 +1,123 @@
+package com.example.service.impl;
+
+import com.example.config.journal.SecurityEventJournal;
+import com.example.config.journal.SecurityEventType;
+import com.example.entity.User;
+import com.example.repository.UserRepository;
+import com.example.service.UserChangeEventBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Valkey is a mock that applies the failure script's arithmetic to one counter; each failure
+ * is recorded only after the previous flush has reached it, so every failure is its own flush.
+ */
+class LoginAttemptServiceImplTest {
+    private static final int LIMIT = 2;
+    private static final String EMAIL = "alice@example.com";
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserChangeEventBus eventBus = mock(UserChangeEventBus.class);
+    private final SecurityEventJournal journal = mock(SecurityEventJournal.class);
+    private final ExecutorService userPool = Executors.newSingleThreadExecutor();
+    private final ExecutorService redisPool = Executors.newSingleThreadExecutor();
+    private final LoginAttemptServiceImpl service = new LoginAttemptServiceImpl(
+            redis, userRepository, eventBus, journal, userPool, redisPool, LIMIT, 86400, 0, 10);
+    private final AtomicLong counter = new AtomicLong();
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        userPool.shutdownNow();
+        redisPool.shutdownNow();
+    }
+
+    @Test
+    void revokesOnceTheCountCrossesTheLimit() {
+        valkeyCounts();
+        when(userRepository.updateStatusIfCurrent(42L, User.Status.normal, User.Status.revoked)).thenReturn(1);
+
+        fail(1);
+        fail(2);
+        verify(userRepository, never()).updateStatusIfCurrent(anyLong(), any(), any());
+
+        fail(3);
+        verify(userRepository, timeout(1000)).updateStatusIfCurrent(42L, User.Status.normal, User.Status.revoked);
+        verify(eventBus, timeout(1000)).publishUserChanged(42L);
+        verify(journal, timeout(1000)).record(eq(SecurityEventType.ACCOUNT_REVOKED), eq(EMAIL), eq(42L), isNull(), eq(3));
+    }
+
+    @Test
+    void retriesAFailedRevokeOnTheNextAttempt() {
+        valkeyCounts();
+        when(userRepository.updateStatusIfCurrent(42L, User.Status.normal, User.Status.revoked))
+                .thenThrow(new QueryTimeoutException("Connection is not available"))
+                .thenReturn(1);
+
+        fail(1);
+        fail(2);
+        fail(3);
+        verify(userRepository, timeout(1000)).updateStatusIfCurrent(42L, User.Status.normal, User.Status.revoked);
+        verify(eventBus, never()).publishUserChanged(anyLong());
+
+        fail(4);
+        verify(userRepository, timeout(1000).times(2)).updateStatusIfCurrent(42L, User.Status.normal, User.Status.revoked);
+        verify(eventBus, timeout(1000)).publishUserChanged(42L);
+    }
+
+    @Test
+    void keepsFailuresThroughAValkeyOutage() {
+        when(redis.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("Connection refused"))
+                .thenReturn(1L);
+
+        service.recordFailure(42L, EMAIL);
+
+        ArgumentCaptor<Object> delta = ArgumentCaptor.forClass(Object.class);
+        verify(redis, timeout(1000).times(2)).execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(),
+                                                      delta.capture(), any(), any());
+        assertThat(delta.getAllValues()).containsExactly("1", "1");
+        verify(userRepository, never()).updateStatusIfCurrent(anyLong(), any(), any());
+        verify(journal, never()).record(any(), any(), any(), any(), anyInt());
+    }
+
+    // INCRBY plus the script's threshold check
+    private void valkeyCounts() {
+        when(redis.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    long count = counter.addAndGet(Long.parseLong(invocation.getArgument(2, String.class)));
+                    return count > LIMIT ? -count : count;
+                });
+    }
+
+    private void fail(int attempt) {
+        service.recordFailure(42L, EMAIL);
+        verify(redis, timeout(1000).times(attempt)).execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(),
+                                                            any(Object[].class));
+    }
+}
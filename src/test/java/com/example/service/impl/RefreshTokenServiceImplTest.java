@@ -0,0 +1,110 @@
+package com.example.service.impl;
+
+import com.example.service.RefreshTokenService.Outcome;
+import com.example.service.RefreshTokenService.Rotation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Valkey is a map: SET stores the family's generation and the rotate script is applied to it
+ * with the same three outcomes (advance, delete on mismatch, -1 when missing).
+ */
+class RefreshTokenServiceImplTest {
+    static final long VALIDITY = TimeUnit.HOURS.toMillis(1);
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final ExecutorService redisPool = Executors.newSingleThreadExecutor();
+    private final RefreshTokenServiceImpl service = new RefreshTokenServiceImpl(redis, redisPool);
+    private final Map<String, String> valkey = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        simulateValkey(redis, valkey);
+    }
+
+    @AfterEach
+    void tearDown() {
+        redisPool.shutdownNow();
+    }
+
+    @Test
+    void startsAFamilyAtGenerationZero() {
+        String familyId = service.startFamily(VALIDITY).join();
+
+        assertThat(familyId).hasSize(16);
+        assertThat(valkey).containsEntry("rt:" + familyId, "0");
+        assertThat(service.startFamily(VALIDITY).join()).isNotEqualTo(familyId);
+    }
+
+    @Test
+    void rotationAdvancesTheGeneration() {
+        String familyId = service.startFamily(VALIDITY).join();
+
+        assertThat(service.rotate(familyId, 0, VALIDITY).join()).isEqualTo(new Rotation(Outcome.ROTATED, 1));
+        assertThat(service.rotate(familyId, 1, VALIDITY).join()).isEqualTo(new Rotation(Outcome.ROTATED, 2));
+        assertThat(valkey).containsEntry("rt:" + familyId, "2");
+    }
+
+    @Test
+    void replayingAnOlderGenerationRevokesTheFamily() {
+        String familyId = service.startFamily(VALIDITY).join();
+        service.rotate(familyId, 0, VALIDITY).join();
+
+        assertThat(service.rotate(familyId, 0, VALIDITY).join().outcome()).isEqualTo(Outcome.REUSED);
+        assertThat(valkey).doesNotContainKey("rt:" + familyId);
+        // The legitimate holder of generation 1 is locked out too
+        assertThat(service.rotate(familyId, 1, VALIDITY).join().outcome()).isEqualTo(Outcome.UNKNOWN);
+    }
+
+    @Test
+    void rejectsAnUnknownFamily() {
+        assertThat(service.rotate("no-such-family", 0, VALIDITY).join()).isEqualTo(new Rotation(Outcome.UNKNOWN, 0));
+        assertThat(valkey).isEmpty();
+    }
+
+    // SET with TTL and the rotate script over a map
+    static void simulateValkey(StringRedisTemplate redis, Map<String, String> valkey) {
+        @SuppressWarnings("unchecked")
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        doAnswer(invocation -> valkey.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(values).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+        when(redis.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    String key = invocation.<List<String>>getArgument(1).get(0);
+                    String presented = invocation.getArgument(2, String.class);
+                    String current = valkey.get(key);
+                    if (current == null) {
+                        return -1L;
+                    }
+                    if (!current.equals(presented)) {
+                        valkey.remove(key);
+                        return -2L;
+                    }
+                    long next = Long.parseLong(current) + 1;
+                    valkey.put(key, Long.toString(next));
+                    return next;
+                });
+    }
+}
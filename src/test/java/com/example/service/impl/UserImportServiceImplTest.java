@@ -0,0 +1,221 @@
+package com.example.service.impl;
+
+import com.example.common.SnowflakeIdGenerator;
+import com.example.config.concurrency.PasswordHashingExecutor;
+import com.example.entity.User;
+import com.example.repository.UserKeys;
+import com.example.repository.UserRepository;
+import com.example.service.RegisteredEmailFilter;
+import com.example.service.UserImportService.Format;
+import com.example.service.UserImportService.Summary;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The repository, the email filter and the transaction manager are mocks; validation, JSON,
+ * ID generation and the BCrypt pool are real, with a stand-in encoder so hashing is instant.
+ */
+class UserImportServiceImplTest {
+    private static final int BATCH_SIZE = 2;
+    private static final String PASSWORD = "Secret123";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final RegisteredEmailFilter registeredEmailFilter = mock(RegisteredEmailFilter.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor(2, 64, 1000, new SimpleMeterRegistry());
+    private final List<String> output = new ArrayList<>();
+    private UserImportServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        SnowflakeIdGenerator ids = new SnowflakeIdGenerator();
+        ids.assign(1, 0, Long.MAX_VALUE);
+        when(passwordEncoder.encode(any())).thenAnswer(invocation -> "hash:" + invocation.getArgument(0));
+        when(registeredEmailFilter.registerAll(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        service = new UserImportServiceImpl(userRepository, registeredEmailFilter, passwordEncoder, hashingExecutor, ids,
+                Validation.buildDefaultValidatorFactory().getValidator(), objectMapper,
+                mock(PlatformTransactionManager.class), BATCH_SIZE, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        hashingExecutor.shutdown();
+    }
+
+    @Test
+    void streamsResultsOneBatchAtATime() throws Exception {
+        Summary summary = importNdjson(row("alice", "alice@example.com"), row("bob", "bob@example.com"),
+                "", row("carol", "carol@example.com"));
+
+        assertThat(summary.rows()).isEqualTo(3);
+        assertThat(summary.created()).isEqualTo(3);
+        // Two batches, then the summary line
+        assertThat(output).hasSize(3);
+        assertThat(output.get(0).lines()).hasSize(2);
+        assertThat(results()).extracting(result -> result.get("line").asLong()).containsExactly(1L, 2L, 4L);
+        assertThat(results()).allMatch(result -> result.get("status").asText().equals("created") && result.has("userId"));
+
+        ArgumentCaptor<List<User>> inserted = insertedBatches(2);
+        assertThat(inserted.getAllValues().get(0)).extracting(User::getPasswordHash).containsOnly("hash:" + PASSWORD);
+        assertThat(inserted.getAllValues().get(1)).extracting(User::getUsername).containsExactly("carol");
+    }
+
+    @Test
+    void reportsUnparseableAndInvalidRows() throws Exception {
+        Summary summary = importNdjson("{not json", row("al", "not-an-email"));
+
+        assertThat(summary.invalid()).isEqualTo(2);
+        assertThat(results()).extracting(result -> result.get("status").asText()).containsExactly("invalid", "invalid");
+        assertThat(results().get(1).get("email").asText()).isEqualTo("not-an-email");
+        verify(userRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void readsCsvColumnsByHeaderNameAndHonoursQuoting() throws Exception {
+        String csv = "\uFEFFEmail,Password,Username\n"
+                + "\"o'brien@example.com\"," + PASSWORD + ",\"O\"\"Brien, Jr\"\n";
+
+        Summary summary = service.importUsers(input(csv), Format.CSV, User.Status.normal, output::add).get();
+
+        assertThat(summary.created()).isEqualTo(1);
+        assertThat(insertedBatches(1).getValue()).singleElement().satisfies(user -> {
+            assertThat(user.getUsername()).isEqualTo("O\"Brien, Jr");
+            assertThat(user.getEmail()).isEqualTo("o'brien@example.com");
+            assertThat(user.getStatus()).isEqualTo(User.Status.normal);
+        });
+    }
+
+    @Test
+    void rejectsACsvWithoutTheRequiredColumns() throws Exception {
+        Summary summary = service.importUsers(input("username,email\nalice,alice@example.com\n"),
+                Format.CSV, User.Status.normal, output::add).get();
+
+        assertThat(summary.invalid()).isEqualTo(1);
+        assertThat(results()).singleElement().satisfies(result -> assertThat(result.get("line").asLong()).isEqualTo(1));
+    }
+
+    @Test
+    void splitsQuotedCsvFields() {
+        assertThat(UserImportServiceImpl.splitCsv("a,\"b,c\",\"say \"\"hi\"\"\",,"))
+                .containsExactly("a", "b,c", "say \"hi\"", "", "");
+        assertThat(UserImportServiceImpl.splitCsv("\"\"")).containsExactly("");
+        // A quote inside an unquoted field is literal
+        assertThat(UserImportServiceImpl.splitCsv("a\"b,c")).containsExactly("a\"b", "c");
+        assertThatThrownBy(() -> UserImportServiceImpl.splitCsv("\"open,field"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsDuplicatesWithinTheBatchAndAgainstExistingUsers() throws Exception {
+        when(userRepository.findKeysByEmailInOrUsernameIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of(new UserKeys("someone@example.com", "Taken")));
+
+        Summary summary = importNdjson(row("alice", "alice@example.com"), row("alice2", "ALICE@example.com"),
+                row("taken", "new@example.com"), row("dave", "dave@example.com"));
+
+        assertThat(summary.created()).isEqualTo(2);
+        assertThat(summary.duplicate()).isEqualTo(2);
+        List<JsonNode> results = results();
+        assertThat(results.get(1).get("status").asText()).isEqualTo("duplicate");
+        assertThat(results.get(1).get("field").asText()).isEqualTo("email");
+        assertThat(results.get(2).get("field").asText()).isEqualTo("username");
+        assertThat(insertedBatches(2).getAllValues()).flatExtracting(batch -> batch.stream().map(User::getUsername).toList())
+                .containsExactly("alice", "dave");
+    }
+
+    @Test
+    void replaysABatchRowByRowWhenItHitsAUniqueKey() throws Exception {
+        doThrow(new DataIntegrityViolationException("batch")).when(userRepository).insertAll(anyList());
+        doThrow(new DataIntegrityViolationException("row",
+                new SQLException("Duplicate entry 'bob@example.com' for key 'users.uk_users_email'", "23000", 1062)))
+                .when(userRepository).insertUser(anyLong(), eq("bob"), anyString(), anyString(), anyString(), any(LocalDateTime.class));
+
+        Summary summary = importNdjson(row("alice", "alice@example.com"), row("bob", "bob@example.com"));
+
+        assertThat(summary.created()).isEqualTo(1);
+        assertThat(summary.duplicate()).isEqualTo(1);
+        assertThat(results().get(1).get("field").asText()).isEqualTo("email");
+        verify(userRepository, times(2)).insertUser(anyLong(), anyString(), anyString(), anyString(), anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void reportsRowsOfAFailedBatchAsFailedAndCarriesOn() throws Exception {
+        when(registeredEmailFilter.registerAll(anyList()))
+                .thenThrow(new IllegalStateException("boom"))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        Summary summary = importNdjson(row("alice", "alice@example.com"), row("bob", "bob@example.com"),
+                row("carol", "carol@example.com"));
+
+        assertThat(summary.failed()).isEqualTo(2);
+        assertThat(summary.created()).isEqualTo(1);
+        assertThat(results()).extracting(result -> result.get("status").asText()).containsExactly("failed", "failed", "created");
+    }
+
+    private Summary importNdjson(String... lines) throws Exception {
+        return service.importUsers(input(String.join("\n", lines)), Format.NDJSON, User.Status.unverified, output::add).get();
+    }
+
+    private String row(String username, String email) {
+        return "{\"username\":\"" + username + "\",\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}";
+    }
+
+    private static ByteArrayInputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Every output line except the trailing summary
+    private List<JsonNode> results() throws Exception {
+        List<JsonNode> results = new ArrayList<>();
+        for (String chunk : output) {
+            for (String line : chunk.lines().toList()) {
+                JsonNode node = objectMapper.readTree(line);
+                if (!node.has("summary")) {
+                    results.add(node);
+                }
+            }
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<List<User>> insertedBatches(int batches) {
+        ArgumentCaptor<List<User>> captor = ArgumentCaptor.forClass(List.class);
+        verify(userRepository, times(batches)).insertAll(captor.capture());
+        return captor;
+    }
+}
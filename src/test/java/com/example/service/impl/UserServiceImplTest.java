@@ -0,0 +1,178 @@
+package com.example.service.impl;
+
+import com.example.common.ApiResponse;
+import com.example.common.AuthenticatedPrincipal;
+import com.example.common.JwtUtil;
+import com.example.common.MessageConstants;
+import com.example.common.SnowflakeIdGenerator;
+import com.example.common.VerifiedToken;
+import com.example.config.concurrency.PasswordHashingExecutor;
+import com.example.config.database.ReadYourWrites;
+import com.example.config.journal.SecurityEventJournal;
+import com.example.config.journal.SecurityEventType;
+import com.example.config.security.ClientIpResolver;
+import com.example.config.tracing.StageTracer;
+import com.example.dto.LoginResponseDTO;
+import com.example.entity.User;
+import com.example.repository.UserRepository;
+import com.example.service.EmailService;
+import com.example.service.LoginAttemptService;
+import com.example.service.OtpCacheService;
+import com.example.service.PrincipalCacheService;
+import com.example.service.RegisteredEmailFilter;
+import com.example.service.UserChangeEventBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.example.service.impl.RefreshTokenServiceImplTest.VALIDITY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Token refresh end to end through the real JwtUtil and RefreshTokenServiceImpl, with Valkey
+ * simulated as in {@link RefreshTokenServiceImplTest} and the principal cache mocked.
+ */
+class UserServiceImplTest {
+    private static final Long USER_ID = 42L;
+    private static final String EMAIL = "alice@example.com";
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final Map<String, String> valkey = new ConcurrentHashMap<>();
+    private final ExecutorService redisPool = Executors.newSingleThreadExecutor();
+    private final ExecutorService userPool = Executors.newSingleThreadExecutor();
+    private final RefreshTokenServiceImpl refreshTokenService = new RefreshTokenServiceImpl(redis, redisPool);
+    private final PrincipalCacheService principalCache = mock(PrincipalCacheService.class);
+    private final SecurityEventJournal journal = mock(SecurityEventJournal.class);
+    private final JwtUtil jwtUtil = new JwtUtil(100);
+    private UserServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        RefreshTokenServiceImplTest.simulateValkey(redis, valkey);
+        service = new UserServiceImpl(mock(UserRepository.class), mock(EmailService.class), mock(OtpCacheService.class),
+                mock(UserChangeEventBus.class), mock(LoginAttemptService.class), principalCache, refreshTokenService,
+                mock(RegisteredEmailFilter.class), mock(ReadYourWrites.class), jwtUtil, mock(PasswordEncoder.class),
+                mock(SnowflakeIdGenerator.class), mock(StageTracer.class), journal, mock(ClientIpResolver.class),
+                userPool, mock(PasswordHashingExecutor.class));
+        principal(User.Status.normal);
+    }
+
+    @AfterEach
+    void tearDown() {
+        redisPool.shutdownNow();
+        userPool.shutdownNow();
+    }
+
+    @Test
+    void refreshIssuesTheNextGeneration() {
+        String familyId = refreshTokenService.startFamily(VALIDITY).join();
+
+        ApiResponse<LoginResponseDTO> response = service.refreshToken(refreshToken(familyId, 0)).join();
+
+        assertThat(response.getCode()).isEqualTo(200);
+        assertThat(response.getMessage()).isEqualTo(MessageConstants.TOKEN_REFRESHED);
+        VerifiedToken next = jwtUtil.verify(response.getData().getRefreshToken());
+        assertThat(next.familyId()).isEqualTo(familyId);
+        assertThat(next.generation()).isEqualTo(1);
+        assertThat(next.userId()).isEqualTo(USER_ID);
+        // The family keeps the lifetime it started with
+        assertThat(next.expiresAtMillis() - next.issuedAtMillis()).isEqualTo(VALIDITY);
+        assertThat(jwtUtil.verify(response.getData().getAccessToken()).type()).isEqualTo("access");
+        assertThat(valkey).containsEntry("rt:" + familyId, "1");
+    }
+
+    @Test
+    void replayingAnOlderGenerationRevokesTheFamily() {
+        String familyId = refreshTokenService.startFamily(VALIDITY).join();
+        String stolen = refreshToken(familyId, 0);
+        String rotated = service.refreshToken(stolen).join().getData().getRefreshToken();
+
+        ApiResponse<LoginResponseDTO> replay = service.refreshToken(stolen).join();
+
+        assertThat(replay.getCode()).isEqualTo(401);
+        assertThat(replay.getMessage()).isEqualTo(MessageConstants.REFRESH_TOKEN_REUSED);
+        assertThat(valkey).doesNotContainKey("rt:" + familyId);
+        verify(journal).record(eq(SecurityEventType.REFRESH_TOKEN_REUSED), eq(EMAIL), eq(USER_ID), isNull());
+        // Revoking the family also ends the session that rotated legitimately
+        assertThat(service.refreshToken(rotated).join().getMessage()).isEqualTo(MessageConstants.INVALID_TOKEN);
+    }
+
+    @Test
+    void rejectsAnUnknownFamily() {
+        ApiResponse<LoginResponseDTO> response = service.refreshToken(refreshToken("no-such-family", 0)).join();
+
+        assertThat(response.getCode()).isEqualTo(401);
+        assertThat(response.getMessage()).isEqualTo(MessageConstants.INVALID_TOKEN);
+    }
+
+    @Test
+    void rejectsAccessTokensAndTokensWithoutAFamily() {
+        String access = JwtUtil.generateToken("alice", EMAIL, USER_ID);
+        String legacyRefresh = JwtUtil.generateRefreshToken("alice", EMAIL, USER_ID);
+
+        assertThat(service.refreshToken(access).join().getCode()).isEqualTo(401);
+        assertThat(service.refreshToken(legacyRefresh).join().getCode()).isEqualTo(401);
+        assertThat(service.refreshToken("not-a-jwt").join().getCode()).isEqualTo(401);
+        verify(principalCache, never()).getPrincipal(any());
+    }
+
+    @Test
+    void refusesARevokedPrincipalWithoutRotating() {
+        String familyId = refreshTokenService.startFamily(VALIDITY).join();
+        principal(User.Status.revoked);
+
+        ApiResponse<LoginResponseDTO> response = service.refreshToken(refreshToken(familyId, 0)).join();
+
+        assertThat(response.getCode()).isEqualTo(403);
+        assertThat(response.getMessage()).isEqualTo(MessageConstants.ACCOUNT_REVOKED);
+        assertThat(valkey).containsEntry("rt:" + familyId, "0");
+    }
+
+    @Test
+    void refusesAnUnverifiedPrincipalWithoutRotating() {
+        String familyId = refreshTokenService.startFamily(VALIDITY).join();
+        principal(User.Status.unverified);
+
+        ApiResponse<LoginResponseDTO> response = service.refreshToken(refreshToken(familyId, 0)).join();
+
+        assertThat(response.getCode()).isEqualTo(401);
+        assertThat(response.getMessage()).isEqualTo(MessageConstants.EMAIL_NOT_VERIFIED);
+        assertThat(valkey).containsEntry("rt:" + familyId, "0");
+    }
+
+    @Test
+    void refusesADeletedUser() {
+        String familyId = refreshTokenService.startFamily(VALIDITY).join();
+        when(principalCache.getPrincipal(USER_ID)).thenReturn(Optional.empty());
+
+        ApiResponse<LoginResponseDTO> response = service.refreshToken(refreshToken(familyId, 0)).join();
+
+        assertThat(response.getCode()).isEqualTo(401);
+        assertThat(response.getMessage()).isEqualTo(MessageConstants.USER_NOT_FOUND_AUTH);
+        verify(journal, never()).record(any(), anyString(), any(), any());
+    }
+
+    private void principal(User.Status status) {
+        when(principalCache.getPrincipal(USER_ID)).thenReturn(Optional.of(new AuthenticatedPrincipal(USER_ID, "alice", status)));
+    }
+
+    private static String refreshToken(String familyId, long generation) {
+        return JwtUtil.generateRefreshToken("alice", EMAIL, USER_ID, familyId, generation, VALIDITY);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LogLineParserTest {
+    private static final long MINUTE = 60_000;
+
+    private final LogLineParser parser = new LogLineParser(ZoneOffset.UTC);
+
+    @Test
+    void countsJsonEventsAndRecordsTheirNumericFields() {
+        LogAggregate aggregate = new LogAggregate(MINUTE);
+        parser.parse("{\"ts\":\"2025-06-22T13:51:59.120Z\",\"level\":\"WARN\",\"event\":\"SLOW_REQUEST\",\"pipeline\":\"login\",\"totalMicros\":250000}", aggregate);
+        parser.parse("{\"ts\":\"2025-06-22T13:52:01.004Z\",\"level\":\"WARN\",\"event\":\"SLOW_REQUEST\",\"pipeline\":\"signup\",\"totalMicros\":750000}", aggregate);
+        parser.parse("2025-06-22 13:52:40 [log-writer] WARN  AppLogger - {\"ts\":\"2025-06-22T13:52:40.500Z\",\"level\":\"WARN\",\"event\":\"SLOW_REQUEST\",\"totalMicros\":500000}", aggregate);
+        parser.parse("{\"ts\":\"2025-06-22T13:52:0", aggregate);
+
+        long first = Instant.parse("2025-06-22T13:51:00Z").toEpochMilli();
+        assertThat(aggregate.counts().get("SLOW_REQUEST")).containsOnlyKeys(first, first + MINUTE);
+        assertThat(aggregate.counts().get("level:WARN").values()).extracting(count -> count[0]).containsExactly(1L, 2L);
+        assertThat(aggregate.histograms().get("SLOW_REQUEST.totalMicros").max()).isEqualTo(750000);
+        assertThat(aggregate.histograms().get("SLOW_REQUEST.totalMicros").count()).isEqualTo(3);
+        assertThat(aggregate.lines()).isEqualTo(4);
+        assertThat(aggregate.unparsedLines()).isEqualTo(1);
+    }
+
+    @Test
+    void countsAppenderLinesByHeaderTextAndLevel() {
+        LogAggregate aggregate = new LogAggregate(MINUTE);
+        parser.parse("2025-06-22 13:51:59 [http-nio-8080-exec-1] INFO  AppLogger - [2025-06-22 13:51:59][USER_REGISTRATION][email=a@b.c]", aggregate);
+        parser.parse("2025-06-22 13:52:10 [http-nio-8080-exec-2] WARN  SecurityLogger - [2025-06-22 13:52:10] Authentication required - URI: /api/users", aggregate);
+        parser.parse("\tat com.example.Foo.bar(Foo.java:1)", aggregate);
+        parser.parse("2025-06-22 13:52:11 no thread or level here", aggregate);
+
+        Map<String, Map<Long, long[]>> counts = aggregate.counts();
+        assertThat(counts).containsOnlyKeys("USER_REGISTRATION", "Authentication required", "level:INFO", "level:WARN");
+        assertThat(aggregate.lines()).isEqualTo(4);
+        assertThat(aggregate.unparsedLines()).isEqualTo(1);
+    }
+
+    @Test
+    void turnsThreadPoolMonitorLinesIntoMetrics() {
+        LogAggregate aggregate = new LogAggregate(MINUTE);
+        parser.parse("2025-06-22 13:51:00 [scheduling-1] INFO  c.e.config.ThreadPoolMonitor - User Service - Active: 3, Queue Size: 12, Avg Hash: 81.5 ms, Saturation: 40%", aggregate);
+
+        assertThat(aggregate.metrics()).containsOnlyKeys(
+                "threadpool.user-service.active", "threadpool.user-service.queue-size",
+                "threadpool.user-service.avg-hash", "threadpool.user-service.saturation");
+        assertThat(aggregate.histograms().get("threadpool.user-service.avg-hash").mean()).isEqualTo(81.5);
+    }
+
+    @Test
+    void mergedHistogramsGivePercentilesWithinBucketPrecision() {
+        LogAggregate left = new LogAggregate(MINUTE);
+        LogAggregate right = new LogAggregate(MINUTE);
+        for (int i = 1; i <= 1000; i++) {
+            (i % 2 == 0 ? left : right).record("latency", 0, i);
+        }
+        left.merge(right);
+
+        ValueHistogram histogram = left.histograms().get("latency");
+        assertThat(histogram.count()).isEqualTo(1000);
+        assertThat(histogram.percentile(0.5)).isCloseTo(500, within(500 * 0.03));
+        assertThat(histogram.percentile(0.99)).isCloseTo(990, within(990 * 0.03));
+        assertThat(histogram.max()).isEqualTo(1000);
+        assertThat(left.metrics().get("latency").get(0L)[0]).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.tools;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Everything the analyzer keeps about a set of log lines: event counts per time bucket,
+ * count/mean/max of each numeric metric per time bucket, and a {@link ValueHistogram} per
+ * metric for the percentile table.
+ *
+ * Memory depends on the number of distinct names and buckets, not on the number of lines.
+ * Names beyond {@value #MAX_EVENTS} events or {@value #MAX_METRICS} metrics are folded into
+ * {@value #OTHER}, so free-text headers cannot grow it without bound. One instance per worker;
+ * results are combined with {@link #merge(LogAggregate)}.
+ */
+final class LogAggregate {
+    static final String OTHER = "(other)";
+    static final int MAX_EVENTS = 1024;
+    static final int MAX_METRICS = 256;
+
+    private final long bucketMillis;
+    private final Map<String, Map<Long, long[]>> counts = new HashMap<>();
+    private final Map<String, Map<Long, double[]>> metrics = new HashMap<>();
+    private final Map<String, ValueHistogram> histograms = new HashMap<>();
+    private long lines;
+    private long unparsed;
+    private long bytes;
+    private long minMillis = Long.MAX_VALUE;
+    private long maxMillis = Long.MIN_VALUE;
+
+    LogAggregate(long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+    }
+
+    void line(int length) {
+        lines++;
+        bytes += length + 1;
+    }
+
+    void unparsed() {
+        unparsed++;
+    }
+
+    void count(String event, long epochMillis) {
+        Map<Long, long[]> series = counts.get(event);
+        if (series == null) {
+            String key = counts.size() < MAX_EVENTS ? event : OTHER;
+            series = counts.computeIfAbsent(key, k -> new HashMap<>());
+        }
+        series.computeIfAbsent(bucket(epochMillis), b -> new long[1])[0]++;
+        minMillis = Math.min(minMillis, epochMillis);
+        maxMillis = Math.max(maxMillis, epochMillis);
+    }
+
+    void record(String metric, long epochMillis, double value) {
+        Map<Long, double[]> series = metrics.get(metric);
+        if (series == null) {
+            metric = metrics.size() < MAX_METRICS ? metric : OTHER;
+            series = metrics.computeIfAbsent(metric, k -> new HashMap<>());
+        }
+        double[] stats = series.computeIfAbsent(bucket(epochMillis), b -> new double[] { 0, 0, Double.NEGATIVE_INFINITY });
+        stats[0]++;
+        stats[1] += value;
+        stats[2] = Math.max(stats[2], value);
+        histograms.computeIfAbsent(metric, k -> new ValueHistogram()).record(value);
+    }
+
+    void merge(LogAggregate other) {
+        other.counts.forEach((event, series) -> {
+            Map<Long, long[]> into = counts.computeIfAbsent(counts.containsKey(event) || counts.size() < MAX_EVENTS ? event : OTHER,
+                                                           k -> new HashMap<>());
+            series.forEach((bucket, count) -> into.computeIfAbsent(bucket, b -> new long[1])[0] += count[0]);
+        });
+        other.metrics.forEach((metric, series) -> {
+            String key = metrics.containsKey(metric) || metrics.size() < MAX_METRICS ? metric : OTHER;
+            Map<Long, double[]> into = metrics.computeIfAbsent(key, k -> new HashMap<>());
+            series.forEach((bucket, stats) -> {
+                double[] target = into.computeIfAbsent(bucket, b -> new double[] { 0, 0, Double.NEGATIVE_INFINITY });
+                target[0] += stats[0];
+                target[1] += stats[1];
+                target[2] = Math.max(target[2], stats[2]);
+            });
+            histograms.computeIfAbsent(key, k -> new ValueHistogram()).merge(other.histograms.get(metric));
+        });
+        lines += other.lines;
+        unparsed += other.unparsed;
+        bytes += other.bytes;
+        minMillis = Math.min(minMillis, other.minMillis);
+        maxMillis = Math.max(maxMillis, other.maxMillis);
+    }
+
+    private long bucket(long epochMillis) {
+        return Math.floorDiv(epochMillis, bucketMillis) * bucketMillis;
+    }
+
+    // Sorted views for the report
+
+    Map<String, Map<Long, long[]>> counts() {
+        return sorted(counts);
+    }
+
+    Map<String, Map<Long, double[]>> metrics() {
+        return sorted(metrics);
+    }
+
+    Map<String, ValueHistogram> histograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    long lines() {
+        return lines;
+    }
+
+    long unparsedLines() {
+        return unparsed;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    long minMillis() {
+        return minMillis;
+    }
+
+    long maxMillis() {
+        return maxMillis;
+    }
+
+    long bucketMillis() {
+        return bucketMillis;
+    }
+
+    private static <V> Map<String, Map<Long, V>> sorted(Map<String, Map<Long, V>> source) {
+        Map<String, Map<Long, V>> sorted = new TreeMap<>();
+        source.forEach((name, series) -> sorted.put(name, new TreeMap<>(series)));
+        return sorted;
+    }
+}
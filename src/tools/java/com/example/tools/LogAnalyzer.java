@@ -0,0 +1,231 @@
+package com.example.tools;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Offline analyzer for the server's rotated log files (streampulse-notes-server.log and its
+ * .yyyy-MM-dd.N.gz siblings). Each file is streamed through gzip and {@link LogLineParser} on
+ * its own worker into its own {@link LogAggregate}; the aggregates are merged at the end and
+ * written by {@link LogReport}. A gzip stream cannot be split, so parallelism is per file and
+ * files are scheduled largest first.
+ *
+ * <pre>
+ *   ./gradlew analyzeLogs --args="logs --bucket 5m --format csv --out build/log-report"
+ *
+ *   paths           files or directories (directories contribute their *.log* files); default logs
+ *   --bucket D      time bucket: 30s, 1m, 5m, 1h, ...; default 1m
+ *   --format F      csv or json; default csv
+ *   --out DIR       write counts.csv, metrics.csv, percentiles.csv / report.json there; default stdout
+ *   --threads N     worker threads; default one per core
+ *   --zone Z        zone of the file appender timestamps; default the system zone
+ * </pre>
+ */
+public final class LogAnalyzer {
+    private static final int READ_BUFFER = 64 * 1024;
+
+    private LogAnalyzer() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Path> inputs = new ArrayList<>();
+        long bucketMillis = 60_000;
+        String format = "csv";
+        Path out = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        ZoneId zone = ZoneId.systemDefault();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--bucket" -> bucketMillis = parseDuration(value(args, ++i));
+                case "--format" -> format = value(args, ++i).toLowerCase(Locale.ROOT);
+                case "--out" -> out = Path.of(value(args, ++i));
+                case "--threads" -> threads = Integer.parseInt(value(args, ++i));
+                case "--zone" -> zone = ZoneId.of(value(args, ++i));
+                default -> inputs.add(Path.of(args[i]));
+            }
+        }
+        if (!format.equals("csv") && !format.equals("json")) {
+            throw new IllegalArgumentException("--format must be csv or json");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("--threads must be at least 1");
+        }
+        if (inputs.isEmpty()) {
+            inputs.add(Path.of("logs"));
+        }
+
+        List<Path> files = expand(inputs);
+        if (files.isEmpty()) {
+            System.err.println("No log files found in " + inputs);
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        LogAggregate total = analyze(files, bucketMillis, zone, threads);
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        LogReport report = new LogReport(total);
+        if (out != null) {
+            Files.createDirectories(out);
+            if (format.equals("json")) {
+                try (Writer writer = Files.newBufferedWriter(out.resolve("report.json"))) {
+                    report.writeJson(writer, files.size(), elapsedMillis);
+                }
+            } else {
+                try (Writer writer = Files.newBufferedWriter(out.resolve("counts.csv"))) {
+                    report.writeCounts(writer);
+                }
+                try (Writer writer = Files.newBufferedWriter(out.resolve("metrics.csv"))) {
+                    report.writeMetrics(writer);
+                }
+                try (Writer writer = Files.newBufferedWriter(out.resolve("percentiles.csv"))) {
+                    report.writePercentiles(writer);
+                }
+            }
+        } else {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            if (format.equals("json")) {
+                report.writeJson(writer, files.size(), elapsedMillis);
+            } else {
+                writer.write("# counts\n");
+                report.writeCounts(writer);
+                writer.write("\n# metrics\n");
+                report.writeMetrics(writer);
+                writer.write("\n# percentiles\n");
+                report.writePercentiles(writer);
+            }
+            writer.flush();
+        }
+
+        double megabytes = total.bytes() / (1024.0 * 1024.0);
+        System.err.printf(Locale.ROOT, "%d files, %d lines (%d unparsed), %.1f MB in %d ms (%.1f MB/s, %d threads)%n",
+                          files.size(), total.lines(), total.unparsedLines(), megabytes, elapsedMillis,
+                          megabytes * 1000 / Math.max(1, elapsedMillis), Math.min(threads, files.size()));
+    }
+
+    /**
+     * Parses every file on a pool of {@code threads} workers and merges the per-file results.
+     */
+    static LogAggregate analyze(List<Path> files, long bucketMillis, ZoneId zone, int threads)
+            throws InterruptedException, IOException {
+        List<Path> bySize = new ArrayList<>(files);
+        bySize.sort(Comparator.comparingLong(LogAnalyzer::size).reversed());
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, bySize.size()), runnable -> {
+            Thread thread = new Thread(runnable, "log-analyzer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<LogAggregate>> results = new ArrayList<>(bySize.size());
+            for (Path file : bySize) {
+                results.add(pool.submit(() -> analyzeFile(file, bucketMillis, zone)));
+            }
+            LogAggregate total = new LogAggregate(bucketMillis);
+            for (Future<LogAggregate> result : results) {
+                try {
+                    total.merge(result.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException io) {
+                        throw io;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    static LogAggregate analyzeFile(Path file, long bucketMillis, ZoneId zone) throws IOException {
+        LogAggregate aggregate = new LogAggregate(bucketMillis);
+        LogLineParser parser = new LogLineParser(zone);
+        try (InputStream raw = Files.newInputStream(file);
+             InputStream in = file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(raw, READ_BUFFER) : raw;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                parser.parse(line, aggregate);
+            }
+        } catch (IOException e) {
+            throw new IOException("Failed to read " + file + ": " + e.getMessage(), e);
+        }
+        return aggregate;
+    }
+
+    private static List<Path> expand(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> children = Files.list(input)) {
+                    children.filter(Files::isRegularFile)
+                            .filter(path -> path.getFileName().toString().contains(".log"))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else if (Files.isRegularFile(input)) {
+                files.add(input);
+            } else {
+                throw new IllegalArgumentException("No such file or directory: " + input);
+            }
+        }
+        return files;
+    }
+
+    // "30s", "1m", "5m", "1h", "1d"
+    static long parseDuration(String value) {
+        if (value.length() < 2) {
+            throw new IllegalArgumentException("Invalid --bucket: " + value);
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        long unit = switch (value.charAt(value.length() - 1)) {
+            case 's' -> 1000L;
+            case 'm' -> 60_000L;
+            case 'h' -> 3_600_000L;
+            case 'd' -> 86_400_000L;
+            default -> throw new IllegalArgumentException("Invalid --bucket: " + value);
+        };
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Invalid --bucket: " + value);
+        }
+        return amount * unit;
+    }
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(args[index - 1] + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
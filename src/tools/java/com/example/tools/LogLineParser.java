@@ -0,0 +1,335 @@
+package com.example.tools;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+
+/**
+ * Turns one log line into counts and metrics on a {@link LogAggregate}. Understands:
+ *
+ * <ul>
+ *   <li>JSON events from LogManager: {@code {"ts":"...Z","level":"WARN","event":"JWT_AUTH_FAILED",...}},
+ *       either as raw lines (stdout target) or as the message of an appender line (the default
+ *       SLF4J target). Counted by event and level; numeric fields become metrics named
+ *       {@code <event>.<field>}.</li>
+ *   <li>File appender lines: {@code yyyy-MM-dd HH:mm:ss [thread] LEVEL logger - message}, in the
+ *       server's local time. Every one is counted as {@code level:<LEVEL>}, and the message as:
+ *     <ul>
+ *       <li>{@code [timestamp][HEADER][body]} from the older LogManager: counted as HEADER;</li>
+ *       <li>{@code [timestamp] Text - details} from the older security logging: counted as Text;</li>
+ *       <li>{@code Pool Name - Key: 3, Other Key: 1.5 ms} from ThreadPoolMonitor: metrics named
+ *           {@code threadpool.pool-name.key}.</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ *
+ * Lines without a timestamp (stack traces, banners) are continuation lines and are skipped;
+ * timestamped lines that fit none of the shapes are counted as unparsed. Not thread-safe: one
+ * parser per worker, which keeps the date caches below uncontended.
+ */
+final class LogLineParser {
+    private static final String LEVEL_PREFIX = "level:";
+
+    private final ZoneId zone;
+
+    // Local "yyyy-MM-dd HH" of the last file appender line and the epoch millis it starts at
+    private final char[] cachedHour = new char[13];
+    private long cachedHourMillis = Long.MIN_VALUE;
+
+    // "yyyy-MM-dd" of the last JSON line and its epoch day
+    private final char[] cachedDate = new char[10];
+    private long cachedEpochDay = Long.MIN_VALUE;
+
+    LogLineParser(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    void parse(String line, LogAggregate into) {
+        into.line(line.length());
+        if (line.isEmpty()) {
+            return;
+        }
+        boolean parsed;
+        try {
+            if (line.charAt(0) == '{') {
+                parsed = parseJson(line, into);
+            } else if (isTimestamp(line, 0, ' ')) {
+                parsed = parseAppenderLine(line, into);
+            } else {
+                return;
+            }
+        } catch (RuntimeException e) {
+            // Truncated or corrupt line, e.g. the tail of a file cut mid-write
+            parsed = false;
+        }
+        if (!parsed) {
+            into.unparsed();
+        }
+    }
+
+    private boolean parseAppenderLine(String line, LogAggregate into) {
+        long millis = localMillis(line);
+        int threadEnd = line.indexOf("] ", 20);
+        if (threadEnd < 0) {
+            return false;
+        }
+        int levelStart = threadEnd + 2;
+        int levelEnd = line.indexOf(' ', levelStart);
+        int separator = levelEnd < 0 ? -1 : line.indexOf(" - ", levelEnd);
+        if (separator < 0) {
+            return false;
+        }
+        int message = separator + 3;
+        if (line.startsWith("{", message)) {
+            // A LogManager event; its own timestamp and level are the precise ones
+            return parseJson(line.substring(message), into);
+        }
+        into.count(LEVEL_PREFIX + line.substring(levelStart, levelEnd), millis);
+
+        String logger = line.substring(levelEnd, separator).trim();
+        if (line.startsWith("[", message) && isTimestamp(line, message + 1, ' ')) {
+            int afterStamp = message + 20;
+            if (line.startsWith("][", afterStamp)) {
+                // [2025-06-22 13:51:59][HEADER][body]
+                int headerEnd = line.indexOf(']', afterStamp + 2);
+                if (headerEnd > afterStamp + 2) {
+                    into.count(line.substring(afterStamp + 2, headerEnd), millis);
+                }
+            } else if (line.startsWith("] ", afterStamp)) {
+                // [2025-06-22 13:51:59] Authentication required - URI: ...
+                int textEnd = line.indexOf(" - ", afterStamp + 2);
+                into.count(line.substring(afterStamp + 2, textEnd < 0 ? line.length() : textEnd).trim(), millis);
+            }
+        } else if (logger.endsWith("ThreadPoolMonitor")) {
+            parsePoolMetrics(line, message, millis, into);
+        }
+        return true;
+    }
+
+    // "User Service - Active: 0, Pool Size: 2, ..., Completed Tasks: 41" / "... Avg Hash: 81.3 ms, Saturation: 40%"
+    private void parsePoolMetrics(String line, int start, long millis, LogAggregate into) {
+        int nameEnd = line.indexOf(" - ", start);
+        if (nameEnd < 0) {
+            return;
+        }
+        String prefix = "threadpool." + slug(line.substring(start, nameEnd)) + '.';
+        int position = nameEnd + 3;
+        while (position < line.length()) {
+            int colon = line.indexOf(": ", position);
+            if (colon < 0) {
+                return;
+            }
+            int end = line.indexOf(", ", colon);
+            if (end < 0) {
+                end = line.length();
+            }
+            double value = leadingNumber(line, colon + 2, end);
+            if (!Double.isNaN(value)) {
+                into.record(prefix + slug(line.substring(position, colon)), millis, value);
+            }
+            position = end + 2;
+        }
+    }
+
+    private boolean parseJson(String line, LogAggregate into) {
+        String event = null;
+        String level = null;
+        long millis = Long.MIN_VALUE;
+        // Numeric fields are only named once the event is known, which may come after them
+        String[] numericKeys = new String[8];
+        double[] numericValues = new double[8];
+        int numeric = 0;
+
+        int i = skipSpaces(line, 1);
+        while (i < line.length() && line.charAt(i) == '"') {
+            int keyEnd = endOfString(line, i);
+            if (keyEnd < 0) {
+                return false;
+            }
+            String key = line.substring(i + 1, keyEnd);
+            i = skipSpaces(line, keyEnd + 1);
+            if (i >= line.length() || line.charAt(i) != ':') {
+                return false;
+            }
+            i = skipSpaces(line, i + 1);
+            if (i >= line.length()) {
+                return false;
+            }
+            char c = line.charAt(i);
+            int valueEnd;
+            if (c == '"') {
+                valueEnd = endOfString(line, i);
+                if (valueEnd < 0) {
+                    return false;
+                }
+                switch (key) {
+                    case "ts" -> millis = isoMillis(line, i + 1);
+                    case "level" -> level = line.substring(i + 1, valueEnd);
+                    case "event" -> event = unescape(line.substring(i + 1, valueEnd));
+                    default -> { }
+                }
+                valueEnd++;
+            } else {
+                valueEnd = i;
+                while (valueEnd < line.length() && line.charAt(valueEnd) != ',' && line.charAt(valueEnd) != '}') {
+                    valueEnd++;
+                }
+                double value = leadingNumber(line, i, valueEnd);
+                if (!Double.isNaN(value) && numeric < numericKeys.length) {
+                    numericKeys[numeric] = key;
+                    numericValues[numeric++] = value;
+                }
+            }
+            i = skipSpaces(line, valueEnd);
+            if (i < line.length() && line.charAt(i) == ',') {
+                i = skipSpaces(line, i + 1);
+            }
+        }
+        if (event == null || millis == Long.MIN_VALUE) {
+            return false;
+        }
+        into.count(event, millis);
+        if (level != null) {
+            into.count(LEVEL_PREFIX + level, millis);
+        }
+        for (int k = 0; k < numeric; k++) {
+            into.record(event + '.' + numericKeys[k], millis, numericValues[k]);
+        }
+        return true;
+    }
+
+    // "yyyy-MM-dd HH:mm:ss" at the start of a file appender line, in the server's zone
+    private long localMillis(String line) {
+        boolean sameHour = cachedHourMillis != Long.MIN_VALUE;
+        for (int i = 0; i < cachedHour.length && sameHour; i++) {
+            sameHour = cachedHour[i] == line.charAt(i);
+        }
+        if (!sameHour) {
+            line.getChars(0, cachedHour.length, cachedHour, 0);
+            LocalDateTime hour = LocalDateTime.of(digits(line, 0, 4), digits(line, 5, 2), digits(line, 8, 2),
+                                                  digits(line, 11, 2), 0);
+            cachedHourMillis = hour.atZone(zone).toInstant().toEpochMilli();
+        }
+        return cachedHourMillis + digits(line, 14, 2) * 60_000L + digits(line, 17, 2) * 1000L;
+    }
+
+    // "yyyy-MM-ddTHH:mm:ss.SSSZ" as written by LogManager, always UTC
+    private long isoMillis(String line, int start) {
+        if (line.length() < start + 23 || !isTimestamp(line, start, 'T')) {
+            return Long.MIN_VALUE;
+        }
+        boolean sameDate = cachedEpochDay != Long.MIN_VALUE;
+        for (int i = 0; i < cachedDate.length && sameDate; i++) {
+            sameDate = cachedDate[i] == line.charAt(start + i);
+        }
+        if (!sameDate) {
+            line.getChars(start, start + cachedDate.length, cachedDate, 0);
+            cachedEpochDay = LocalDate.of(digits(line, start, 4), digits(line, start + 5, 2), digits(line, start + 8, 2)).toEpochDay();
+        }
+        return cachedEpochDay * 86_400_000L
+                + digits(line, start + 11, 2) * 3_600_000L
+                + digits(line, start + 14, 2) * 60_000L
+                + digits(line, start + 17, 2) * 1000L
+                + (line.charAt(start + 19) == '.' ? digits(line, start + 20, 3) : 0);
+    }
+
+    // yyyy-MM-dd?HH:mm:ss
+    private static boolean isTimestamp(String line, int start, char separator) {
+        if (line.length() < start + 19) {
+            return false;
+        }
+        for (int i = 0; i < 19; i++) {
+            char c = line.charAt(start + i);
+            boolean ok = switch (i) {
+                case 4, 7 -> c == '-';
+                case 10 -> c == separator;
+                case 13, 16 -> c == ':';
+                default -> c >= '0' && c <= '9';
+            };
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(String line, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            value = value * 10 + (line.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    // Leading decimal in [start, end), ignoring a unit such as " ms" or "%"; NaN if there is none
+    private static double leadingNumber(String line, int start, int end) {
+        int i = start;
+        if (i < end && line.charAt(i) == '-') {
+            i++;
+        }
+        int digitsStart = i;
+        while (i < end && (Character.isDigit(line.charAt(i)) || line.charAt(i) == '.'
+                || line.charAt(i) == 'e' || line.charAt(i) == 'E')) {
+            i++;
+        }
+        if (i == digitsStart) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(line.substring(start, i));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static int endOfString(String line, int quote) {
+        for (int i = quote + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(String line, int i) {
+        while (i < line.length() && line.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                if (next == 'u' && i + 4 < value.length()) {
+                    out.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                    i += 4;
+                } else {
+                    out.append(switch (next) {
+                        case 'n' -> '\n';
+                        case 'r' -> '\r';
+                        case 't' -> '\t';
+                        default -> next;
+                    });
+                }
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String slug(String name) {
+        return name.trim().toLowerCase(Locale.ROOT).replace(' ', '-');
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.tools;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes a {@link LogAggregate} as CSV tables or one JSON document. Bucket columns are the
+ * bucket start as an ISO-8601 UTC instant.
+ *
+ * <pre>
+ * counts:      bucket,event,count
+ * metrics:     bucket,metric,count,mean,max
+ * percentiles: metric,count,min,mean,p50,p90,p99,p99.9,max
+ * </pre>
+ */
+final class LogReport {
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+    private static final String[] QUANTILE_LABELS = { "p50", "p90", "p99", "p99.9" };
+
+    private final LogAggregate aggregate;
+
+    LogReport(LogAggregate aggregate) {
+        this.aggregate = aggregate;
+    }
+
+    void writeCounts(Writer out) throws IOException {
+        out.write("bucket,event,count\n");
+        for (Map.Entry<String, Map<Long, long[]>> event : aggregate.counts().entrySet()) {
+            String name = csv(event.getKey());
+            for (Map.Entry<Long, long[]> bucket : event.getValue().entrySet()) {
+                out.write(Instant.ofEpochMilli(bucket.getKey()) + "," + name + "," + bucket.getValue()[0] + "\n");
+            }
+        }
+    }
+
+    void writeMetrics(Writer out) throws IOException {
+        out.write("bucket,metric,count,mean,max\n");
+        for (Map.Entry<String, Map<Long, double[]>> metric : aggregate.metrics().entrySet()) {
+            String name = csv(metric.getKey());
+            for (Map.Entry<Long, double[]> bucket : metric.getValue().entrySet()) {
+                double[] stats = bucket.getValue();
+                out.write(Instant.ofEpochMilli(bucket.getKey()) + "," + name + "," + (long) stats[0] + ","
+                        + number(stats[1] / stats[0]) + "," + number(stats[2]) + "\n");
+            }
+        }
+    }
+
+    void writePercentiles(Writer out) throws IOException {
+        out.write("metric,count,min,mean");
+        for (String label : QUANTILE_LABELS) {
+            out.write("," + label);
+        }
+        out.write(",max\n");
+        for (Map.Entry<String, ValueHistogram> metric : aggregate.histograms().entrySet()) {
+            ValueHistogram histogram = metric.getValue();
+            out.write(csv(metric.getKey()) + "," + histogram.count() + "," + number(histogram.min()) + "," + number(histogram.mean()));
+            for (double quantile : QUANTILES) {
+                out.write("," + number(histogram.percentile(quantile)));
+            }
+            out.write("," + number(histogram.max()) + "\n");
+        }
+    }
+
+    void writeJson(Writer out, int files, long elapsedMillis) throws IOException {
+        out.write("{\"summary\":{\"files\":" + files
+                + ",\"lines\":" + aggregate.lines()
+                + ",\"unparsedLines\":" + aggregate.unparsedLines()
+                + ",\"bytes\":" + aggregate.bytes()
+                + ",\"elapsedMs\":" + elapsedMillis
+                + ",\"bucketSeconds\":" + aggregate.bucketMillis() / 1000
+                + ",\"from\":" + instant(aggregate.minMillis())
+                + ",\"to\":" + instant(aggregate.maxMillis()) + "}");
+
+        out.write(",\n\"counts\":{");
+        Iterator<Map.Entry<String, Map<Long, long[]>>> events = aggregate.counts().entrySet().iterator();
+        while (events.hasNext()) {
+            Map.Entry<String, Map<Long, long[]>> event = events.next();
+            out.write("\n" + json(event.getKey()) + ":{");
+            Iterator<Map.Entry<Long, long[]>> buckets = event.getValue().entrySet().iterator();
+            while (buckets.hasNext()) {
+                Map.Entry<Long, long[]> bucket = buckets.next();
+                out.write(instant(bucket.getKey()) + ":" + bucket.getValue()[0] + (buckets.hasNext() ? "," : ""));
+            }
+            out.write(events.hasNext() ? "}," : "}");
+        }
+
+        out.write("},\n\"metrics\":{");
+        Iterator<Map.Entry<String, Map<Long, double[]>>> metrics = aggregate.metrics().entrySet().iterator();
+        while (metrics.hasNext()) {
+            Map.Entry<String, Map<Long, double[]>> metric = metrics.next();
+            out.write("\n" + json(metric.getKey()) + ":{");
+            Iterator<Map.Entry<Long, double[]>> buckets = metric.getValue().entrySet().iterator();
+            while (buckets.hasNext()) {
+                Map.Entry<Long, double[]> bucket = buckets.next();
+                double[] stats = bucket.getValue();
+                out.write(instant(bucket.getKey()) + ":{\"count\":" + (long) stats[0]
+                        + ",\"mean\":" + number(stats[1] / stats[0])
+                        + ",\"max\":" + number(stats[2]) + "}" + (buckets.hasNext() ? "," : ""));
+            }
+            out.write(metrics.hasNext() ? "}," : "}");
+        }
+
+        out.write("},\n\"percentiles\":{");
+        Iterator<Map.Entry<String, ValueHistogram>> histograms = aggregate.histograms().entrySet().iterator();
+        while (histograms.hasNext()) {
+            Map.Entry<String, ValueHistogram> metric = histograms.next();
+            ValueHistogram histogram = metric.getValue();
+            out.write("\n" + json(metric.getKey()) + ":{\"count\":" + histogram.count()
+                    + ",\"min\":" + number(histogram.min())
+                    + ",\"mean\":" + number(histogram.mean()));
+            for (int q = 0; q < QUANTILES.length; q++) {
+                out.write(",\"" + QUANTILE_LABELS[q] + "\":" + number(histogram.percentile(QUANTILES[q])));
+            }
+            out.write(",\"max\":" + number(histogram.max()) + (histograms.hasNext() ? "}," : "}"));
+        }
+        out.write("}}\n");
+    }
+
+    private static String instant(long millis) {
+        return millis == Long.MAX_VALUE || millis == Long.MIN_VALUE ? "null" : "\"" + Instant.ofEpochMilli(millis) + "\"";
+    }
+
+    private static String number(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+}